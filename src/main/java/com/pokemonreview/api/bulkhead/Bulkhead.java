@@ -0,0 +1,62 @@
+package com.pokemonreview.api.bulkhead;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// A bounded number of requests of one kind in flight at a time. Callers that cannot get a permit within maxWait
+// are turned away instead of queueing, so a flood of one kind only ever occupies its own share of the threads.
+public class Bulkhead {
+
+    private final String name;
+    private final int maxConcurrent;
+    private final long maxWaitNanos;
+    private final Semaphore permits;
+    private final Counter permitted;
+    private final Counter rejected;
+
+    public Bulkhead(String name, int maxConcurrent, Duration maxWait, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.permits = new Semaphore(maxConcurrent);
+        this.permitted = calls(meterRegistry, name, "permitted");
+        this.rejected = calls(meterRegistry, name, "rejected");
+        Gauge.builder("bulkhead.active", this, Bulkhead::active).tag("compartment", name).register(meterRegistry);
+        Gauge.builder("bulkhead.max_concurrent", this, b -> b.maxConcurrent).tag("compartment", name).register(meterRegistry);
+    }
+
+    // true when the caller may go ahead; it must then call release() when done
+    public boolean tryAcquire() {
+        boolean acquired = permits.tryAcquire();
+        if (!acquired && maxWaitNanos > 0) {
+            try {
+                acquired = permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        (acquired ? permitted : rejected).increment();
+        return acquired;
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int active() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    private static Counter calls(MeterRegistry meterRegistry, String name, String result) {
+        return Counter.builder("bulkhead.calls").tag("compartment", name).tag("result", result).register(meterRegistry);
+    }
+}
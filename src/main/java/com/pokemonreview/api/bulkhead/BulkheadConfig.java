@@ -0,0 +1,33 @@
+package com.pokemonreview.api.bulkhead;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+@ConditionalOnProperty(name = "app.bulkhead.enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(BulkheadProperties.class)
+public class BulkheadConfig {
+
+    // after tracing, query counting and the request deadline, so rejections still show up in traces,
+    // and before Spring Security, so a rejected request costs no JWT verification
+    @Bean
+    public FilterRegistrationBean<BulkheadFilter> bulkheadFilter(BulkheadProperties properties, MeterRegistry meterRegistry) {
+        BulkheadFilter filter = new BulkheadFilter(
+                bulkhead("auth", properties.getAuth(), meterRegistry),
+                bulkhead("reads", properties.getReads(), meterRegistry),
+                bulkhead("writes", properties.getWrites(), meterRegistry),
+                meterRegistry);
+        FilterRegistrationBean<BulkheadFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 4);
+        return registration;
+    }
+
+    private static Bulkhead bulkhead(String name, BulkheadProperties.Compartment compartment, MeterRegistry meterRegistry) {
+        return new Bulkhead(name, compartment.getMaxConcurrent(), compartment.getMaxWait(), meterRegistry);
+    }
+}
@@ -0,0 +1,70 @@
+package com.pokemonreview.api.bulkhead;
+
+import com.pokemonreview.api.exceptions.CachedErrorBody;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+// Puts every /api request into one of three compartments: authentication, reads and writes. A request that finds
+// its compartment full is answered 503 with Retry-After right away, before the security chain, so a login storm
+// cannot hold the Tomcat threads that catalog reads need (and the other way around).
+public class BulkheadFilter extends OncePerRequestFilter {
+
+    private final Bulkhead auth;
+    private final Bulkhead reads;
+    private final Bulkhead writes;
+    private final Counter rejectedCounter;
+    private final CachedErrorBody unavailableBody = new CachedErrorBody(HttpStatus.SERVICE_UNAVAILABLE);
+
+    public BulkheadFilter(Bulkhead auth, Bulkhead reads, Bulkhead writes, MeterRegistry meterRegistry) {
+        this.auth = auth;
+        this.reads = reads;
+        this.writes = writes;
+        this.rejectedCounter = Counter.builder("api.errors")
+                .tag("status", "503")
+                .tag("type", "bulkhead_full")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Bulkhead bulkhead = compartment(request);
+        if (!bulkhead.tryAcquire()) {
+            rejectedCounter.increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            unavailableBody.write(response, "Too many concurrent " + bulkhead.getName() + " requests");
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    Bulkhead compartment(HttpServletRequest request) {
+        if (request.getRequestURI().startsWith("/api/auth/")) {
+            return auth;
+        }
+        // the schema has no mutations, so a GraphQL POST is a read
+        if (request.getRequestURI().startsWith("/api/graphql")) {
+            return reads;
+        }
+        String method = request.getMethod();
+        return "GET".equals(method) || "HEAD".equals(method) ? reads : writes;
+    }
+}
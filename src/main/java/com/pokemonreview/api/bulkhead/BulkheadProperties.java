@@ -0,0 +1,33 @@
+package com.pokemonreview.api.bulkhead;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.bulkhead")
+public class BulkheadProperties {
+
+    // /api/auth/**: BCrypt hashing, so little more than the core count is useful
+    private Compartment auth = new Compartment(8, Duration.ofMillis(100));
+    // GETs under /api
+    private Compartment reads = new Compartment(150, Duration.ZERO);
+    // everything else under /api
+    private Compartment writes = new Compartment(40, Duration.ofMillis(50));
+
+    @Data
+    public static class Compartment {
+        private int maxConcurrent;
+        // how long a request may wait for a permit before it is rejected
+        private Duration maxWait;
+
+        public Compartment() {
+        }
+
+        Compartment(int maxConcurrent, Duration maxWait) {
+            this.maxConcurrent = maxConcurrent;
+            this.maxWait = maxWait;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.pokemonreview.api.cache;
+
+import com.pokemonreview.api.catalog.CatalogInvalidationBus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+// Already-serialized GET responses, keyed by path and query string and tagged with surrogate keys.
+// Lookups are a lock-free map read. Stores, purges and evictions share one lock, which keeps the tag index
+// consistent and lets put() refuse a body that was rendered before a purge that raced with it.
+// Purges are local. Pokemon changes made on other nodes arrive through the catalog invalidation bus; for review
+// changes made elsewhere the TTL is the bound on staleness.
+@Component
+public class ResponseCache implements CatalogInvalidationBus.Listener {
+
+    private int maxEntries;
+    private long ttlNanos;
+    private int gzipMinBytes;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // guarded by this: insertion order for eviction, and which keys carry each tag
+    private final LinkedHashMap<String, Entry> insertionOrder = new LinkedHashMap<>();
+    private final Map<String, Set<String>> keysByTag = new HashMap<>();
+    private long purgeSequence;
+
+    @Autowired
+    public ResponseCache(CatalogInvalidationBus invalidationBus, MeterRegistry meterRegistry,
+                         @Value("${app.response-cache.max-entries:10000}") int maxEntries,
+                         @Value("${app.response-cache.ttl:30s}") Duration ttl,
+                         @Value("${app.response-cache.gzip-min-bytes:1024}") int gzipMinBytes) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.gzipMinBytes = gzipMinBytes;
+        Gauge.builder("response_cache.entries", entries, Map::size).register(meterRegistry);
+        invalidationBus.subscribe(this);
+    }
+
+    public Entry get(String key) {
+        Entry entry = entries.get(key);
+        return entry != null && System.nanoTime() - entry.storedAt < ttlNanos ? entry : null;
+    }
+
+    // Taken before rendering a response, handed back to put(): anything purged in between is not stored.
+    public synchronized long purgeSequence() {
+        return purgeSequence;
+    }
+
+    public void put(String key, String contentType, byte[] body, String[] tags, long renderedAtSequence) {
+        Entry entry = new Entry(contentType, body, body.length >= gzipMinBytes ? gzip(body) : null, tags);
+        synchronized (this) {
+            if (renderedAtSequence != purgeSequence) {
+                return;
+            }
+            remove(key);
+            if (insertionOrder.size() >= maxEntries) {
+                Iterator<String> oldest = insertionOrder.keySet().iterator();
+                remove(oldest.next());
+            }
+            entries.put(key, entry);
+            insertionOrder.put(key, entry);
+            for (String tag : tags) {
+                keysByTag.computeIfAbsent(tag, t -> new HashSet<>()).add(key);
+            }
+        }
+    }
+
+    // Inside a transaction the purge waits for the commit, so a concurrent miss cannot re-cache the old state.
+    public void purge(String... tags) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    purgeNow(tags);
+                }
+            });
+        } else {
+            purgeNow(tags);
+        }
+    }
+
+    public synchronized void clear() {
+        purgeSequence++;
+        entries.clear();
+        insertionOrder.clear();
+        keysByTag.clear();
+    }
+
+    @Override
+    public void pokemonChanged(int pokemonId) {
+        purge(SurrogateKeys.pokemon(pokemonId), SurrogateKeys.POKEMONS);
+    }
+
+    @Override
+    public void resyncRequired() {
+        clear();
+    }
+
+    private synchronized void purgeNow(String... tags) {
+        purgeSequence++;
+        for (String tag : tags) {
+            Set<String> keys = keysByTag.remove(tag);
+            if (keys != null) {
+                keys.forEach(this::remove);
+            }
+        }
+    }
+
+    // caller holds the lock
+    private void remove(String key) {
+        Entry removed = insertionOrder.remove(key);
+        if (removed == null) {
+            return;
+        }
+        entries.remove(key);
+        for (String tag : removed.tags) {
+            Set<String> keys = keysByTag.get(tag);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                keysByTag.remove(tag);
+            }
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return compressed.toByteArray();
+    }
+
+    public static final class Entry {
+        private final String contentType;
+        private final byte[] body;
+        private final byte[] gzipped;
+        private final String[] tags;
+        private final long storedAt = System.nanoTime();
+
+        private Entry(String contentType, byte[] body, byte[] gzipped, String[] tags) {
+            this.contentType = contentType;
+            this.body = body;
+            this.gzipped = gzipped;
+            this.tags = tags;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        // null for bodies too small to be worth compressing
+        public byte[] getGzipped() {
+            return gzipped;
+        }
+    }
+}
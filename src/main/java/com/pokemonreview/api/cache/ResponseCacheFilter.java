@@ -0,0 +1,112 @@
+package com.pokemonreview.api.cache;
+
+import com.pokemonreview.api.feed.ReviewFeed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Serves GETs under /api/pokemons and /api/reviews from ResponseCache. A hit copies the stored bytes (gzipped when
+// the client accepts it) to the output stream without reaching the controller, Jackson or the database.
+// A miss runs the request with the body buffered and stores it if ResponseCacheTagAdvice tagged it.
+// Registered after the security chain, so unauthenticated requests never reach the cache.
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+    public static final String CACHE_HEADER = "X-Cache";
+
+    private final ResponseCache responseCache;
+    private final Counter hits;
+    private final Counter misses;
+
+    public ResponseCacheFilter(ResponseCache responseCache, MeterRegistry meterRegistry) {
+        this.responseCache = responseCache;
+        this.hits = Counter.builder("response_cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("response_cache.requests").tag("result", "miss").register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        // the review stream has to reach the client as it is written, not buffered here
+        return !"GET".equals(request.getMethod())
+                || !(path.startsWith("/api/pokemons") || path.startsWith("/api/reviews"))
+                || path.equals(ReviewFeed.STREAM_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = key(request);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        // Cache-Control: no-cache skips the lookup; the fresh response still replaces the stored one
+        ResponseCache.Entry cached = noCache(request) ? null : responseCache.get(key);
+        if (cached != null) {
+            hits.increment();
+            write(cached, acceptsGzip(request), response);
+            return;
+        }
+
+        misses.increment();
+        long sequence = responseCache.purgeSequence();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, wrapper);
+            String[] tags = (String[]) request.getAttribute(ResponseCacheTagAdvice.TAGS_ATTRIBUTE);
+            if (tags != null && wrapper.getStatus() == HttpStatus.OK.value() && wrapper.getContentType() != null) {
+                responseCache.put(key, wrapper.getContentType(), wrapper.getContentAsByteArray(), tags, sequence);
+            }
+            wrapper.setHeader(CACHE_HEADER, "MISS");
+        } finally {
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private static void write(ResponseCache.Entry cached, boolean gzip, HttpServletResponse response) throws IOException {
+        byte[] body = cached.getBody();
+        if (gzip && cached.getGzipped() != null) {
+            body = cached.getGzipped();
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(cached.getContentType());
+        response.setContentLength(body.length);
+        response.setHeader(CACHE_HEADER, "HIT");
+        response.getOutputStream().write(body);
+    }
+
+    // path plus the parameters sorted by name, so ?a=1&b=2 and ?b=2&a=1 share an entry
+    static String key(HttpServletRequest request) {
+        Map<String, String[]> parameters = request.getParameterMap();
+        if (parameters.isEmpty()) {
+            return request.getRequestURI();
+        }
+        StringBuilder key = new StringBuilder(request.getRequestURI()).append('?');
+        for (Map.Entry<String, String[]> parameter : new TreeMap<>(parameters).entrySet()) {
+            for (String value : parameter.getValue()) {
+                key.append(parameter.getKey()).append('=').append(value).append('&');
+            }
+        }
+        return key.toString();
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.contains("gzip");
+    }
+
+    private static boolean noCache(HttpServletRequest request) {
+        String cacheControl = request.getHeader(HttpHeaders.CACHE_CONTROL);
+        return cacheControl != null && cacheControl.contains("no-cache");
+    }
+}
@@ -0,0 +1,101 @@
+package com.pokemonreview.api.cache;
+
+import com.pokemonreview.api.dto.BatchResponse;
+import com.pokemonreview.api.dto.PokemonDto;
+import com.pokemonreview.api.dto.PokemonResponse;
+import com.pokemonreview.api.dto.ReviewDto;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Decides which GET responses ResponseCacheFilter may store, and under which surrogate keys, from the route
+// that handled them. Routes not listed here (deletion jobs, anything new) are never cached.
+@ControllerAdvice
+public class ResponseCacheTagAdvice implements ResponseBodyAdvice<Object> {
+
+    static final String TAGS_ATTRIBUTE = ResponseCacheTagAdvice.class.getName() + ".tags";
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest) {
+            HttpServletRequest servletRequest = ((ServletServerHttpRequest) request).getServletRequest();
+            if ("GET".equals(servletRequest.getMethod())) {
+                List<String> tags = tags(servletRequest, body);
+                if (tags != null) {
+                    servletRequest.setAttribute(TAGS_ATTRIBUTE, tags.toArray(new String[0]));
+                }
+            }
+        }
+        return body;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> tags(HttpServletRequest request, Object body) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        Map<String, String> variables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (pattern == null) {
+            return null;
+        }
+        List<String> tags = new ArrayList<>();
+        switch (pattern.toString()) {
+            case "/api/pokemons":
+                // pages, type filters and multi-gets; each Pokemon is tagged too because expand=reviews embeds reviews
+                tags.add(SurrogateKeys.POKEMONS);
+                for (Object item : content(body)) {
+                    if (item instanceof PokemonDto) {
+                        tags.add(SurrogateKeys.pokemon(((PokemonDto) item).getId()));
+                    }
+                }
+                return tags;
+            case "/api/pokemons/{id}":
+                tags.add(SurrogateKeys.pokemon(Integer.parseInt(variables.get("id"))));
+                return tags;
+            case "/api/pokemons/{pokemonId}/reviews":
+                tags.add(SurrogateKeys.pokemon(Integer.parseInt(variables.get("pokemonId"))));
+                return tags;
+            case "/api/pokemons/{pokemonId}/reviews/{id}":
+                tags.add(SurrogateKeys.pokemon(Integer.parseInt(variables.get("pokemonId"))));
+                tags.add(SurrogateKeys.review(Integer.parseInt(variables.get("id"))));
+                return tags;
+            case "/api/reviews":
+                tags.add(SurrogateKeys.REVIEWS);
+                for (Object item : content(body)) {
+                    if (item instanceof ReviewDto) {
+                        tags.add(SurrogateKeys.review(((ReviewDto) item).getId()));
+                    }
+                }
+                return tags;
+            default:
+                return null;
+        }
+    }
+
+    private static List<?> content(Object body) {
+        if (body instanceof PokemonResponse) {
+            return ((PokemonResponse) body).getContent();
+        }
+        if (body instanceof BatchResponse) {
+            return ((BatchResponse<?>) body).getContent();
+        }
+        return List.of();
+    }
+}
@@ -0,0 +1,22 @@
+package com.pokemonreview.api.cache;
+
+// Tags attached to cached responses so a write can purge exactly what it affects.
+// pokemon:{id} is on everything that shows that Pokemon or its reviews, review:{id} on everything that shows that
+// review. The collection keys sit on lists and multi-gets, whose membership changes when something is created or
+// deleted.
+public final class SurrogateKeys {
+
+    public static final String POKEMONS = "pokemons";
+    public static final String REVIEWS = "reviews";
+
+    private SurrogateKeys() {
+    }
+
+    public static String pokemon(int id) {
+        return "pokemon:" + id;
+    }
+
+    public static String review(int id) {
+        return "review:" + id;
+    }
+}
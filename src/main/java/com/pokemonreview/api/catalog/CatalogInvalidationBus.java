@@ -0,0 +1,19 @@
+package com.pokemonreview.api.catalog;
+
+// Tells every node's PokemonCatalog that a Pokemon changed, so replicas do not keep serving stale entries.
+// Messages carry only the id; receivers re-read that Pokemon from the database.
+public interface CatalogInvalidationBus {
+
+    // Delivered once the surrounding transaction commits, and not at all if it rolls back.
+    // The publishing node receives its own messages as well.
+    void publish(int pokemonId);
+
+    void subscribe(Listener listener);
+
+    interface Listener {
+        void pokemonChanged(int pokemonId);
+
+        // messages may have been lost (e.g. the bus reconnected), reload everything
+        void resyncRequired();
+    }
+}
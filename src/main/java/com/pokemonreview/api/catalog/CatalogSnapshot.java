@@ -0,0 +1,138 @@
+package com.pokemonreview.api.catalog;
+
+import com.pokemonreview.api.dto.PokemonDto;
+import com.pokemonreview.api.models.Pokemon;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Immutable view of every Pokemon at one point in time. Readers get a consistent catalog (a page and its total
+// always agree) without locks; a change builds a new snapshot and PokemonCatalog swaps it in.
+// Entries are kept sorted by id in parallel arrays, so a lookup is a binary search over an int[] with no boxing.
+public final class CatalogSnapshot {
+
+    private final int[] ids;
+    private final Entry[] entries;
+    private final Map<String, Entry[]> byType;
+
+    private CatalogSnapshot(Entry[] sortedEntries) {
+        this.entries = sortedEntries;
+        this.ids = new int[sortedEntries.length];
+        Map<String, List<Entry>> types = new HashMap<>();
+        for (int i = 0; i < sortedEntries.length; i++) {
+            ids[i] = sortedEntries[i].id;
+            types.computeIfAbsent(sortedEntries[i].type, type -> new ArrayList<>()).add(sortedEntries[i]);
+        }
+        Map<String, Entry[]> index = new HashMap<>();
+        types.forEach((type, list) -> index.put(type, list.toArray(new Entry[0])));
+        this.byType = index;
+    }
+
+    static CatalogSnapshot of(Collection<Pokemon> pokemons) {
+        Entry[] entries = pokemons.stream().map(Entry::new).toArray(Entry[]::new);
+        Arrays.sort(entries, (a, b) -> Integer.compare(a.id, b.id));
+        return new CatalogSnapshot(entries);
+    }
+
+    static CatalogSnapshot ofEntries(Collection<Entry> entries) {
+        Entry[] sorted = entries.toArray(new Entry[0]);
+        Arrays.sort(sorted, (a, b) -> Integer.compare(a.id, b.id));
+        return new CatalogSnapshot(sorted);
+    }
+
+    public int size() {
+        return entries.length;
+    }
+
+    public Entry get(int id) {
+        int index = Arrays.binarySearch(ids, id);
+        return index >= 0 ? entries[index] : null;
+    }
+
+    // entries in id order, the same order pages are served in
+    public List<Entry> page(int pageNo, int pageSize) {
+        return slice(entries, pageNo, pageSize);
+    }
+
+    public int countOfType(String type) {
+        Entry[] ofType = byType.get(type);
+        return ofType != null ? ofType.length : 0;
+    }
+
+    public List<Entry> pageOfType(String type, int pageNo, int pageSize) {
+        Entry[] ofType = byType.get(type);
+        return ofType != null ? slice(ofType, pageNo, pageSize) : Collections.emptyList();
+    }
+
+    List<Entry> entries() {
+        return Collections.unmodifiableList(Arrays.asList(entries));
+    }
+
+    CatalogSnapshot with(Entry entry) {
+        int index = Arrays.binarySearch(ids, entry.id);
+        Entry[] copy;
+        if (index >= 0) {
+            copy = entries.clone();
+            copy[index] = entry;
+        } else {
+            int insertAt = -index - 1;
+            copy = new Entry[entries.length + 1];
+            System.arraycopy(entries, 0, copy, 0, insertAt);
+            copy[insertAt] = entry;
+            System.arraycopy(entries, insertAt, copy, insertAt + 1, entries.length - insertAt);
+        }
+        return new CatalogSnapshot(copy);
+    }
+
+    CatalogSnapshot without(int id) {
+        int index = Arrays.binarySearch(ids, id);
+        if (index < 0) {
+            return this;
+        }
+        Entry[] copy = new Entry[entries.length - 1];
+        System.arraycopy(entries, 0, copy, 0, index);
+        System.arraycopy(entries, index + 1, copy, index, entries.length - index - 1);
+        return new CatalogSnapshot(copy);
+    }
+
+    private static List<Entry> slice(Entry[] source, int pageNo, int pageSize) {
+        long from = (long) pageNo * pageSize;
+        if (pageNo < 0 || pageSize <= 0 || from >= source.length) {
+            return Collections.emptyList();
+        }
+        int to = (int) Math.min(source.length, from + pageSize);
+        return Collections.unmodifiableList(Arrays.asList(source).subList((int) from, to));
+    }
+
+    // One Pokemon as of the snapshot. Immutable, so it is shared by all readers; callers get their own DTO.
+    public static final class Entry {
+        private final int id;
+        private final String name;
+        private final String type;
+        private final int version;
+
+        Entry(Pokemon pokemon) {
+            this.id = pokemon.getId();
+            this.name = pokemon.getName();
+            this.type = pokemon.getType();
+            this.version = pokemon.getVersion();
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        public PokemonDto toDto() {
+            return PokemonDto.builder().id(id).name(name).type(type).version(version).build();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.pokemonreview.api.catalog;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// In-process stand-in for a single node or for tests: several catalogs subscribed to one instance behave like
+// nodes sharing a database. Same delivery rules as the PostgreSQL bus, only synchronous.
+@Component
+@ConditionalOnProperty(name = "app.catalog.invalidation", havingValue = "local", matchIfMissing = true)
+public class LocalCatalogInvalidationBus implements CatalogInvalidationBus {
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(int pokemonId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deliver(pokemonId);
+                }
+            });
+        } else {
+            deliver(pokemonId);
+        }
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+
+    private void deliver(int pokemonId) {
+        for (Listener listener : listeners) {
+            listener.pokemonChanged(pokemonId);
+        }
+    }
+}
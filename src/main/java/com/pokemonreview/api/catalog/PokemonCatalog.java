@@ -0,0 +1,171 @@
+package com.pokemonreview.api.catalog;
+
+import com.pokemonreview.api.models.Pokemon;
+import com.pokemonreview.api.repository.PokemonRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+// Every Pokemon in memory, so catalog reads never touch JPA. Loaded once the application is ready and kept current
+// by the writes going through PokemonServiceImpl and by invalidations from other nodes.
+// snapshot() is null until the first load (or when app.catalog.enabled=false), and callers then read the database.
+// Rows written behind the service's back (SQL consoles, other applications) are only picked up by a reload.
+// Entries only move forward: an entry never replaces one with a higher @Version, and a deleted id is not re-added
+// for TOMBSTONE_MILLIS, so a read that started before a write and finishes after it cannot undo it. That includes
+// a reload, whose rows are merged into the snapshot rather than replacing it (see merge).
+@Component
+public class PokemonCatalog implements CatalogInvalidationBus.Listener {
+
+    // longer than any read that could still be carrying a row from before its delete
+    private static final long TOMBSTONE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private PokemonRepository pokemonRepository;
+    private CatalogInvalidationBus invalidationBus;
+    private boolean enabled;
+    // Reloads and invalidations read through a read-write transaction, which ReplicaRoutingDataSource sends to the
+    // primary: they run without a user, so nothing else would keep them off a replica that has not seen the change.
+    private TransactionTemplate primary;
+
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>();
+    private final Map<Integer, Long> deletedAt = new ConcurrentHashMap<>();
+    // when each id was last applied, so a reload can tell an entry it missed from one deleted behind its back
+    private final Map<Integer, Long> appliedAt = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PokemonCatalog(PokemonRepository pokemonRepository, CatalogInvalidationBus invalidationBus,
+                          PlatformTransactionManager transactionManager, @Value("${app.catalog.enabled:true}") boolean enabled) {
+        this.pokemonRepository = pokemonRepository;
+        this.invalidationBus = invalidationBus;
+        this.primary = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            reload();
+            invalidationBus.subscribe(this);
+        }
+    }
+
+    public CatalogSnapshot snapshot() {
+        return snapshot.get();
+    }
+
+    public void reload() {
+        long started = System.currentTimeMillis();
+        appliedAt.values().removeIf(at -> started - at > TOMBSTONE_MILLIS);
+        CatalogSnapshot loaded = primary.execute(status -> CatalogSnapshot.of(pokemonRepository.findAll()));
+        snapshot.updateAndGet(current -> merge(current, loaded, started));
+    }
+
+    // Called by writers inside their transaction. This node applies the change as soon as it commits, so the
+    // writer reads its own write; every node, this one included, then re-reads the row when the invalidation arrives.
+    public void saved(Pokemon pokemon) {
+        CatalogSnapshot.Entry entry = new CatalogSnapshot.Entry(pokemon);
+        afterCommit(() -> apply(entry));
+        invalidationBus.publish(pokemon.getId());
+    }
+
+    public void deleted(int pokemonId) {
+        afterCommit(() -> remove(pokemonId));
+        invalidationBus.publish(pokemonId);
+    }
+
+    // A row the database has but this snapshot does not yet (e.g. the invalidation is still on its way).
+    // The read may have gone to a replica, or raced a write; apply() keeps whatever is newer.
+    public void loaded(Pokemon pokemon) {
+        apply(new CatalogSnapshot.Entry(pokemon));
+    }
+
+    @Override
+    public void pokemonChanged(int pokemonId) {
+        if (snapshot.get() == null) {
+            return;
+        }
+        Pokemon pokemon = primary.execute(status -> pokemonRepository.findById(pokemonId).orElse(null));
+        if (pokemon != null) {
+            loaded(pokemon);
+        } else {
+            remove(pokemonId);
+        }
+    }
+
+    @Override
+    public void resyncRequired() {
+        reload();
+    }
+
+    // The reloaded rows can be older than what writes applied while they were read: per id the higher version wins,
+    // tombstoned ids stay out, and an id the reload did not see is kept only if it was applied after the reload
+    // started (created meanwhile); otherwise its row is gone. Pure, since updateAndGet may run it more than once.
+    private CatalogSnapshot merge(CatalogSnapshot current, CatalogSnapshot loaded, long started) {
+        Map<Integer, CatalogSnapshot.Entry> merged = new HashMap<>();
+        for (CatalogSnapshot.Entry entry : loaded.entries()) {
+            if (!deletedAt.containsKey(entry.getId())) {
+                merged.put(entry.getId(), entry);
+            }
+        }
+        if (current != null) {
+            for (CatalogSnapshot.Entry entry : current.entries()) {
+                CatalogSnapshot.Entry reloaded = merged.get(entry.getId());
+                if (reloaded != null ? entry.getVersion() > reloaded.getVersion()
+                        : !deletedAt.containsKey(entry.getId()) && appliedAt.getOrDefault(entry.getId(), Long.MIN_VALUE) >= started) {
+                    merged.put(entry.getId(), entry);
+                }
+            }
+        }
+        return CatalogSnapshot.ofEntries(merged.values());
+    }
+
+    // the tombstone is checked inside the update, so a concurrent remove() either sees this entry or wins the retry
+    private void apply(CatalogSnapshot.Entry entry) {
+        appliedAt.put(entry.getId(), System.currentTimeMillis());
+        update(current -> {
+            if (deletedAt.containsKey(entry.getId())) {
+                return current;
+            }
+            CatalogSnapshot.Entry existing = current.get(entry.getId());
+            return existing != null && existing.getVersion() > entry.getVersion() ? current : current.with(entry);
+        });
+    }
+
+    private void remove(int pokemonId) {
+        long now = System.currentTimeMillis();
+        deletedAt.values().removeIf(at -> now - at > TOMBSTONE_MILLIS);
+        deletedAt.put(pokemonId, now);
+        appliedAt.remove(pokemonId);
+        update(current -> current.without(pokemonId));
+    }
+
+    // a catalog that is not loaded stays unloaded, the first reload picks the change up anyway
+    private void update(UnaryOperator<CatalogSnapshot> change) {
+        snapshot.updateAndGet(current -> current != null ? change.apply(current) : null);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.pokemonreview.api.catalog;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Cross-node invalidation through PostgreSQL LISTEN/NOTIFY, so no extra broker is needed.
+// pg_notify runs in the writer's transaction, which gives the commit-only delivery for free.
+// Listening needs a connection of its own for the lifetime of the node; it is opened with DriverManager rather
+// than borrowed from the pool, where it would permanently take away one of the few connections.
+// Notifications sent while that connection was down are lost, so every reconnect asks for a full reload.
+@Component
+@ConditionalOnProperty(name = "app.catalog.invalidation", havingValue = "postgres")
+public class PostgresCatalogInvalidationBus implements CatalogInvalidationBus, DisposableBean {
+
+    static final String CHANNEL = "pokemon_catalog";
+
+    private static final Logger log = LoggerFactory.getLogger(PostgresCatalogInvalidationBus.class);
+
+    private JdbcTemplate jdbcTemplate;
+    private DataSourceProperties dataSourceProperties;
+    private int pollMillis;
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean running = true;
+    private Thread listenerThread;
+
+    @Autowired
+    public PostgresCatalogInvalidationBus(JdbcTemplate jdbcTemplate, DataSourceProperties dataSourceProperties,
+                                          @Value("${app.catalog.listen-poll-ms:500}") int pollMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.pollMillis = pollMillis;
+    }
+
+    @Override
+    public void publish(int pokemonId) {
+        jdbcTemplate.query("select pg_notify(?, ?)", rs -> null, CHANNEL, Integer.toString(pokemonId));
+    }
+
+    @Override
+    public synchronized void subscribe(Listener listener) {
+        listeners.add(listener);
+        if (listenerThread == null) {
+            listenerThread = new Thread(this::listen, "catalog-invalidation-listener");
+            listenerThread.setDaemon(true);
+            listenerThread.start();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    private void listen() {
+        boolean reconnect = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                if (reconnect) {
+                    log.info("Catalog invalidation listener reconnected, reloading the catalog");
+                    listeners.forEach(Listener::resyncRequired);
+                }
+                reconnect = true;
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollMillis);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException ex) {
+                if (running) {
+                    log.warn("Catalog invalidation listener lost its connection: {}", ex.getMessage());
+                    reconnect = true;
+                    pause();
+                }
+            }
+        }
+    }
+
+    private void dispatch(String payload) {
+        int pokemonId;
+        try {
+            pokemonId = Integer.parseInt(payload);
+        } catch (NumberFormatException ex) {
+            log.warn("Ignoring catalog notification with payload '{}'", payload);
+            return;
+        }
+        for (Listener listener : listeners) {
+            try {
+                listener.pokemonChanged(pokemonId);
+            } catch (RuntimeException ex) {
+                // the entry stays stale until the next change or reload, the listener itself keeps running
+                log.warn("Could not refresh Pokemon {} in the catalog: {}", pokemonId, ex.getMessage());
+            }
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.pokemonreview.api.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+@Component
+public class HikariPoolSizing implements BeanPostProcessor, Ordered {
+
+    static final String MAX_POOL_SIZE_PROPERTY = "spring.datasource.hikari.maximum-pool-size";
+    static final String EXPECTED_CONCURRENCY_PROPERTY = "app.datasource.pool.expected-concurrency";
+    static final String EFFECTIVE_SPINDLES_PROPERTY = "app.datasource.pool.effective-spindles";
+
+    private Environment environment;
+
+    private int cores;
+
+    @Autowired
+    public HikariPoolSizing(Environment environment) {
+        this(environment, Runtime.getRuntime().availableProcessors());
+    }
+
+    HikariPoolSizing(Environment environment, int cores) {
+        this.environment = environment;
+        this.cores = cores;
+    }
+
+    // Boot binds spring.datasource.hikari.* before this runs and Hikari only starts the pool on the first
+    // getConnection(), so the computed size can still be applied here.
+    // An explicit maximum-pool-size always wins over the computed one.
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof HikariDataSource && !environment.containsProperty(MAX_POOL_SIZE_PROPERTY)) {
+            HikariDataSource dataSource = (HikariDataSource) bean;
+            int expectedConcurrency = environment.getProperty(EXPECTED_CONCURRENCY_PROPERTY, Integer.class, 50);
+            int effectiveSpindles = environment.getProperty(EFFECTIVE_SPINDLES_PROPERTY, Integer.class, 1);
+            int poolSize = poolSize(cores, effectiveSpindles, expectedConcurrency);
+
+            dataSource.setMaximumPoolSize(poolSize);
+            dataSource.setMinimumIdle(poolSize);
+        }
+        return bean;
+    }
+
+    // must see the HikariDataSource itself, before any wrapping post processor (tracing) replaces it
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    // HikariCP's guideline: connections = (core_count * 2) + effective_spindle_count.
+    // More connections than that only adds context switching on the database server, and more connections than
+    // requests we ever expect to be in flight at once would just sit idle.
+    static int poolSize(int cores, int effectiveSpindles, int expectedConcurrency) {
+        int recommended = cores * 2 + effectiveSpindles;
+        return Math.max(2, Math.min(recommended, expectedConcurrency));
+    }
+}
@@ -0,0 +1,72 @@
+package com.pokemonreview.api.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+
+// Non-blocking connections for the reactive runtime's services (see ReactivePokemonServiceImpl). Boot's own R2DBC
+// auto-configuration is excluded (see ApiApplication) because its ReactiveTransactionManager would take the place of
+// the JPA transaction manager everything else depends on; the writes get theirs through r2dbcTransactionalOperator,
+// whose transaction manager is not a bean either.
+// It is sized like the Hikari pool (see HikariPoolSizing) unless app.r2dbc.pool.max-size is set.
+// The pool is deliberately not a bean: Boot's DataSourceAutoConfiguration backs off as soon as a ConnectionFactory
+// bean exists, and JPA needs its DataSource.
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class R2dbcConfig {
+
+    private ConnectionPool connectionPool;
+
+    @Bean
+    public DatabaseClient databaseClient(@Value("${spring.r2dbc.url}") String url,
+                                         @Value("${spring.r2dbc.username:}") String username,
+                                         @Value("${spring.r2dbc.password:}") String password,
+                                         @Value("${app.r2dbc.pool.max-size:0}") int maxSize,
+                                         @Value("${app.datasource.pool.expected-concurrency:50}") int expectedConcurrency,
+                                         @Value("${app.datasource.pool.effective-spindles:1}") int effectiveSpindles,
+                                         @Value("${spring.datasource.hikari.connection-timeout:3000}") long acquireTimeoutMillis) {
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(url).mutate();
+        if (!username.isEmpty()) {
+            options.option(ConnectionFactoryOptions.USER, username);
+        }
+        if (!password.isEmpty()) {
+            options.option(ConnectionFactoryOptions.PASSWORD, password);
+        }
+        ConnectionFactory connectionFactory = ConnectionFactories.get(options.build());
+
+        int poolSize = maxSize > 0 ? maxSize
+                : HikariPoolSizing.poolSize(Runtime.getRuntime().availableProcessors(), effectiveSpindles, expectedConcurrency);
+        connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+                .name("pokemon-r2dbc-pool")
+                .initialSize(poolSize)
+                .maxSize(poolSize)
+                .maxAcquireTime(Duration.ofMillis(acquireTimeoutMillis))
+                .build());
+        return DatabaseClient.create(connectionPool);
+    }
+
+    // a write and its outbox row commit together, as Outbox does for the JPA services
+    @Bean
+    public TransactionalOperator r2dbcTransactionalOperator(DatabaseClient databaseClient) {
+        return TransactionalOperator.create(new R2dbcTransactionManager(databaseClient.getConnectionFactory()));
+    }
+
+    @PreDestroy
+    public void closePool() {
+        if (connectionPool != null) {
+            connectionPool.dispose();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.pokemonreview.api.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Boot serves a reactive application from Tomcat when Tomcat is on the classpath, which it always is here (the
+// servlet runtime needs it). The reactive runtime is meant to run on Netty's event loops, so its factory is
+// declared explicitly; server.* properties still apply to it.
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveServerConfig {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
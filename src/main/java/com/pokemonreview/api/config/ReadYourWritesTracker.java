@@ -0,0 +1,55 @@
+package com.pokemonreview.api.config;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class ReadYourWritesTracker {
+
+    private final long windowNanos;
+    private final Map<String, Long> primaryUntil = new ConcurrentHashMap<>();
+
+    public ReadYourWritesTracker(Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    public void recordWrite(String username) {
+        if (username != null && windowNanos > 0) {
+            primaryUntil.put(username, System.nanoTime() + windowNanos);
+        }
+    }
+
+    public boolean isWithinWindow(String username) {
+        if (username == null) {
+            return false;
+        }
+        Long until = primaryUntil.get(username);
+        if (until == null) {
+            return false;
+        }
+        if (System.nanoTime() - until >= 0) {
+            primaryUntil.remove(username, until);
+            return false;
+        }
+        return true;
+    }
+
+    // the user of the current request as the security chain set it; null for anonymous requests and background work
+    public static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? null : authentication.getName();
+    }
+
+    // users who never read again after writing would otherwise stay in the map forever
+    public void evictExpired() {
+        long now = System.nanoTime();
+        primaryUntil.entrySet().removeIf(entry -> now - entry.getValue() >= 0);
+    }
+
+    int size() {
+        return primaryUntil.size();
+    }
+}
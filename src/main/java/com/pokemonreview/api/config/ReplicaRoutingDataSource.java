@@ -0,0 +1,123 @@
+package com.pokemonreview.api.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+// Sends @Transactional(readOnly = true) work to a healthy read replica and everything else to the primary.
+// It has to sit behind a LazyConnectionDataSourceProxy: the read-only flag of a transaction is only published
+// after the transaction manager has asked for a connection, so the real connection must be fetched lazily.
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    static final String PRIMARY = "primary";
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final ReadYourWritesTracker readYourWrites;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicaDataSources, ReadYourWritesTracker readYourWrites) {
+        this.primary = primary;
+        this.readYourWrites = readYourWrites;
+        for (int i = 0; i < replicaDataSources.size(); i++) {
+            replicas.add(new Replica("replica-" + i, replicaDataSources.get(i)));
+        }
+        decorateTargets(UnaryOperator.identity());
+    }
+
+    // Routes to decorator(pool) instead of each pool itself, e.g. to apply request deadlines per pool (see
+    // DeadlineConfig); health checks and closing still go to the pools.
+    public void decorateTargets(UnaryOperator<DataSource> decorator) {
+        Map<Object, Object> targets = new HashMap<>();
+        DataSource decoratedPrimary = decorator.apply(primary);
+        targets.put(PRIMARY, decoratedPrimary);
+        for (Replica replica : replicas) {
+            targets.put(replica.key, decorator.apply(replica.dataSource));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(decoratedPrimary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String username = ReadYourWritesTracker.currentUsername();
+
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                readYourWrites.recordWrite(username);
+            }
+            return PRIMARY;
+        }
+        if (readYourWrites.isWithinWindow(username)) {
+            return PRIMARY;
+        }
+        Replica replica = nextHealthyReplica();
+        return replica == null ? PRIMARY : replica.key;
+    }
+
+    // an unhealthy replica is skipped until it answers again
+    @Scheduled(fixedDelayString = "${app.datasource.replica-health-check-interval-ms:10000}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                healthy = connection.isValid(2);
+            } catch (Exception e) {
+                healthy = false;
+            }
+            if (healthy != replica.healthy) {
+                log.warn("Read replica {} is now {}", replica.key, healthy ? "healthy" : "unhealthy, routing its reads to the primary");
+            }
+            replica.healthy = healthy;
+        }
+        readYourWrites.evictExpired();
+    }
+
+    // the replica pools are not beans of their own, so they are closed together with the router
+    @Override
+    public void destroy() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable) {
+                ((AutoCloseable) replica.dataSource).close();
+            }
+        }
+    }
+
+    private Replica nextHealthyReplica() {
+        int size = replicas.size();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private static class Replica {
+        private final String key;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        private Replica(String key, DataSource dataSource) {
+            this.key = key;
+            this.dataSource = dataSource;
+        }
+    }
+}
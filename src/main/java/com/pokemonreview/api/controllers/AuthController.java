@@ -2,13 +2,18 @@ package com.pokemonreview.api.controllers;
 
 import com.pokemonreview.api.dto.AuthResponseDTO;
 import com.pokemonreview.api.dto.LoginDto;
+import com.pokemonreview.api.dto.RefreshTokenDto;
 import com.pokemonreview.api.dto.RegisterDto;
 import com.pokemonreview.api.models.Role;
 import com.pokemonreview.api.models.UserEntity;
 import com.pokemonreview.api.repository.RoleRepository;
 import com.pokemonreview.api.repository.UserRepository;
+import com.pokemonreview.api.security.AuthRateLimiter;
 import com.pokemonreview.api.security.JWTGenerator;
+import com.pokemonreview.api.service.RefreshTokenService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -18,14 +23,17 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
 import java.util.Collections;
 import java.util.Optional;
 
 @RestController
 @RequestMapping(path = "/api/auth")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class AuthController {
 
     private AuthenticationManager authenticationManager;
@@ -36,19 +44,28 @@ public class AuthController {
 
     private JWTGenerator jwtGenerator;
 
+    private AuthRateLimiter authRateLimiter;
+
+    private RefreshTokenService refreshTokenService;
+
     @Autowired
     public AuthController(AuthenticationManager authenticationManager, UserRepository userRepository,
                           RoleRepository roleRepository, PasswordEncoder passwordEncoder,
-                          JWTGenerator jwtGenerator) {
+                          JWTGenerator jwtGenerator, AuthRateLimiter authRateLimiter,
+                          RefreshTokenService refreshTokenService) {
         this.authenticationManager = authenticationManager;
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtGenerator = jwtGenerator;
+        this.authRateLimiter = authRateLimiter;
+        this.refreshTokenService = refreshTokenService;
     }
 
     @PostMapping("/register")
-    public ResponseEntity<String> register(@RequestBody RegisterDto registerDto){
+    public ResponseEntity<String> register(@RequestBody RegisterDto registerDto, HttpServletRequest request){
+        authRateLimiter.checkClient(request.getRemoteAddr());
+
         if(userRepository.existsByUsername(registerDto.getUsername())){
             return new ResponseEntity<>("Username is taken !", HttpStatus.BAD_REQUEST);
         }
@@ -76,8 +93,10 @@ public class AuthController {
     // and effectively, the user is no longer authenticated within the SecurityContextHolder.
     // At this point, for the user to access protected resources again, they must re-authenticate.
     @PostMapping("/login")
-    public ResponseEntity<AuthResponseDTO> login(@RequestBody LoginDto loginDto){
+    public ResponseEntity<AuthResponseDTO> login(@RequestBody LoginDto loginDto, HttpServletRequest request){
 
+        // throttle before the AuthenticationManager gets to run a UserRepository lookup and a BCrypt comparison
+        authRateLimiter.checkLogin(request.getRemoteAddr(), loginDto.getUsername());
 
         // Internally, the AuthenticationManager uses the configured UserDetailsService to load the user from the database
         // (or another user store) and compares the submitted password (after encoding) with the stored password for the user.
@@ -98,7 +117,31 @@ public class AuthController {
         // which includes the necessary claims (e.g., username, roles) and sets an expiration time:
         String token = jwtGenerator.generateToken(authentication);
 
-        return new ResponseEntity<>(new AuthResponseDTO(token), HttpStatus.OK);
+        // The access token is only valid for a few minutes; the refresh token lets the client get a new one
+        // without sending the password (and paying for a BCrypt comparison) again.
+        String refreshToken = refreshTokenService.createRefreshToken(authentication.getName());
+
+        return new ResponseEntity<>(new AuthResponseDTO(token, refreshToken), HttpStatus.OK);
+    }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthResponseDTO> refresh(@RequestBody RefreshTokenDto refreshTokenDto, HttpServletRequest request){
+        authRateLimiter.checkClient(request.getRemoteAddr());
+
+        return new ResponseEntity<>(refreshTokenService.refresh(refreshTokenDto.getRefreshToken()), HttpStatus.OK);
+    }
+
+    // Revokes the access token from the Authorization header and the refresh token from the body.
+    // Either one may be missing, e.g. when the access token already expired.
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestBody(required = false) RefreshTokenDto refreshTokenDto,
+                                       @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization){
+        String accessToken = authorization != null && authorization.startsWith("Bearer ") ? authorization.substring(7) : null;
+        String refreshToken = refreshTokenDto != null ? refreshTokenDto.getRefreshToken() : null;
+
+        refreshTokenService.logout(accessToken, refreshToken);
+        SecurityContextHolder.clearContext();
+        return ResponseEntity.noContent().build();
     }
     /*
     1.  Password Encoding: When a user's password is saved in the database, it is encoded (hashed) using a PasswordEncoder
@@ -0,0 +1,57 @@
+package com.pokemonreview.api.controllers;
+
+import com.pokemonreview.api.dto.ChangeLogResponse;
+import com.pokemonreview.api.dto.ChangeRecordDto;
+import com.pokemonreview.api.outbox.ChangeLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Consumers tail the change log by polling with the nextOffset of their previous response, instead of re-reading
+// the catalog. Served by the node running the outbox relay (see OutboxConfig).
+@RestController
+@RequestMapping("/api/")
+@ConditionalOnProperty(name = "app.outbox.relay.enabled", havingValue = "true")
+public class ChangeLogController {
+
+    private static final int MAX_LIMIT = 1000;
+
+    private ChangeLog changeLog;
+
+    @Autowired
+    public ChangeLogController(ChangeLog changeLog) {
+        this.changeLog = changeLog;
+    }
+
+    // Records from fromOffset on, at most limit (capped at 1000); an empty list means the consumer is caught up.
+    // If fromOffset has already been dropped, the records start at earliestOffset instead.
+    @GetMapping("changes")
+    public ResponseEntity<ChangeLogResponse> getChanges(
+            @RequestParam(value = "fromOffset", defaultValue = "0", required = false) long fromOffset,
+            @RequestParam(value = "limit", defaultValue = "500", required = false) int limit
+    ) {
+        if (fromOffset < 0 || limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "fromOffset must be 0 or more and limit at least 1");
+        }
+        long earliestOffset = changeLog.getEarliestOffset();
+        List<ChangeLog.Record> records = changeLog.read(fromOffset, Math.min(limit, MAX_LIMIT));
+        List<ChangeRecordDto> content = new ArrayList<>(records.size());
+        for (ChangeLog.Record record : records) {
+            content.add(new ChangeRecordDto(record.getOffset(), new String(record.getPayload(), StandardCharsets.UTF_8)));
+        }
+        long nextOffset = records.isEmpty() ? Math.max(fromOffset, earliestOffset) : records.get(records.size() - 1).getOffset() + 1;
+        ChangeLogResponse response = ChangeLogResponse.builder().records(content).nextOffset(nextOffset)
+                .earliestOffset(earliestOffset).endOffset(changeLog.getEndOffset()).build();
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+}
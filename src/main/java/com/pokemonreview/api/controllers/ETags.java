@@ -0,0 +1,34 @@
+package com.pokemonreview.api.controllers;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+// Entity versions as strong ETags ("3") and back from If-Match.
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String of(int version) {
+        return "\"" + version + "\"";
+    }
+
+    // null when there is no precondition (no header, or "*" which any existing entity matches)
+    static Integer expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Integer.valueOf(tag);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "If-Match must be a single version, e.g. \"3\"");
+        }
+    }
+}
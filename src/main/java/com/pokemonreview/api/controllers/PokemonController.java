@@ -1,19 +1,27 @@
 package com.pokemonreview.api.controllers;
 
 
+import com.pokemonreview.api.dto.BatchRequestDto;
+import com.pokemonreview.api.dto.BatchResponse;
+import com.pokemonreview.api.dto.DeletionJobDto;
 import com.pokemonreview.api.dto.PokemonDto;
 import com.pokemonreview.api.dto.PokemonResponse;
 import com.pokemonreview.api.models.Pokemon;
 import com.pokemonreview.api.service.PokemonService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
+import java.util.Arrays;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class PokemonController {
 
     private PokemonService pokemonService;
@@ -23,29 +31,80 @@ public class PokemonController {
         this.pokemonService = pokemonService;
     }
 
+    // upper bound for reviewLimit, so expand=reviews cannot be used to pull entire review tables
+    private static final int MAX_EMBEDDED_REVIEWS = 100;
+
     @GetMapping("pokemons")
     public ResponseEntity<PokemonResponse> getPokemons(
             @RequestParam(value = "pageNo", defaultValue = "0", required = false) int pageNo,
-            @RequestParam(value = "pageSize", defaultValue = "10", required = false) int pageSize
+            @RequestParam(value = "pageSize", defaultValue = "10", required = false) int pageSize,
+            @RequestParam(value = "expand", required = false) String expand,
+            @RequestParam(value = "reviewLimit", defaultValue = "10", required = false) int reviewLimit
     ) {
+        if (expandsReviews(expand)) {
+            return new ResponseEntity<>(pokemonService.getAllPokemonWithReviews(pageNo, pageSize, clampReviewLimit(reviewLimit)), HttpStatus.OK);
+        }
         return new ResponseEntity<>(pokemonService.getAllPokemon(pageNo, pageSize), HttpStatus.OK);
     }
 
+    @GetMapping(value = "pokemons", params = "type")
+    public ResponseEntity<PokemonResponse> getPokemonsByType(
+            @RequestParam("type") String type,
+            @RequestParam(value = "pageNo", defaultValue = "0", required = false) int pageNo,
+            @RequestParam(value = "pageSize", defaultValue = "10", required = false) int pageSize,
+            @RequestParam(value = "expand", required = false) String expand,
+            @RequestParam(value = "reviewLimit", defaultValue = "10", required = false) int reviewLimit
+    ) {
+        if (expandsReviews(expand)) {
+            return new ResponseEntity<>(pokemonService.getPokemonByTypeWithReviews(type, pageNo, pageSize, clampReviewLimit(reviewLimit)), HttpStatus.OK);
+        }
+        return new ResponseEntity<>(pokemonService.getPokemonByType(type, pageNo, pageSize), HttpStatus.OK);
+    }
+
+    // Multi-get for clients that resolve many ids at once: one request, one JWT check and one query
+    // instead of one of each per id. Results follow the order of ids; unknown ids are listed in missingIds.
+    @GetMapping(value = "pokemons", params = "ids")
+    public ResponseEntity<BatchResponse<PokemonDto>> getPokemonsByIds(@RequestParam("ids") List<Integer> ids) {
+        return new ResponseEntity<>(pokemonService.getPokemonsByIds(BatchRequestDto.checkSize(ids)), HttpStatus.OK);
+    }
+
+    // same as above, for id lists too long for a query string
+    @PostMapping("pokemons/batch")
+    public ResponseEntity<BatchResponse<PokemonDto>> getPokemonsByIds(@RequestBody BatchRequestDto batchRequestDto) {
+        return new ResponseEntity<>(pokemonService.getPokemonsByIds(BatchRequestDto.checkSize(batchRequestDto.getIds())), HttpStatus.OK);
+    }
+
+    // expand=reviews embeds the first reviewLimit reviews, saving the client the call to /pokemons/{id}/reviews
     @GetMapping("pokemons/{id}")
-    public ResponseEntity<PokemonDto> pokemonDetail(@PathVariable int id) {
+    public ResponseEntity<PokemonDto> pokemonDetail(@PathVariable int id,
+                                                    @RequestParam(value = "expand", required = false) String expand,
+                                                    @RequestParam(value = "reviewLimit", defaultValue = "10", required = false) int reviewLimit) {
+        if (expandsReviews(expand)) {
+            return new ResponseEntity<>(pokemonService.getPokemonWithReviews(id, clampReviewLimit(reviewLimit)), HttpStatus.OK);
+        }
         return new ResponseEntity<>(pokemonService.getPokemonById(id), HttpStatus.OK);
 
     }
 
+    private static boolean expandsReviews(String expand) {
+        return expand != null && Arrays.asList(expand.split(",")).contains("reviews");
+    }
+
+    private static int clampReviewLimit(int reviewLimit) {
+        return Math.max(0, Math.min(reviewLimit, MAX_EMBEDDED_REVIEWS));
+    }
+
     @PostMapping("pokemons/create")
     public ResponseEntity<PokemonDto> createPokemon(@RequestBody PokemonDto pokemonDto) {
         return new ResponseEntity<>(pokemonService.createPokemon(pokemonDto), HttpStatus.CREATED);
     }
 
+    // If-Match: "<version>" makes the update conditional (412 when the Pokemon has changed since)
     @PutMapping("pokemons/{id}/update")
-    public ResponseEntity<PokemonDto> updatePokemon(@RequestBody PokemonDto pokemonDto, @PathVariable("id") int pokemonId) {
-        PokemonDto response = pokemonService.updatePokemon(pokemonDto, pokemonId);
-        return new ResponseEntity<>(response, HttpStatus.OK);
+    public ResponseEntity<PokemonDto> updatePokemon(@RequestBody PokemonDto pokemonDto, @PathVariable("id") int pokemonId,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        PokemonDto response = pokemonService.updatePokemon(pokemonDto, pokemonId, ETags.expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(response.getVersion())).body(response);
     }
 
     @DeleteMapping("pokemons/{id}/delete")
@@ -54,4 +113,19 @@ public class PokemonController {
         return new ResponseEntity<>("Pokemon delete", HttpStatus.OK);
     }
 
+    // For Pokemon with very many reviews: the deletion runs in the background and its progress
+    // can be followed at the returned location.
+    @DeleteMapping(value = "pokemons/{id}/delete", params = "async=true")
+    public ResponseEntity<DeletionJobDto> deletePokemonAsync(@PathVariable("id") int pokemonId) {
+        DeletionJobDto job = pokemonService.startDeletePokemon(pokemonId);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/pokemons/delete-jobs/" + job.getJobId()))
+                .body(job);
+    }
+
+    @GetMapping("pokemons/delete-jobs/{jobId}")
+    public ResponseEntity<DeletionJobDto> deletionJob(@PathVariable String jobId) {
+        return ResponseEntity.of(pokemonService.getDeletionJob(jobId));
+    }
+
 }
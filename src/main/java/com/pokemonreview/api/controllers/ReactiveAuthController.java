@@ -0,0 +1,121 @@
+package com.pokemonreview.api.controllers;
+
+import com.pokemonreview.api.dto.AuthResponseDTO;
+import com.pokemonreview.api.dto.LoginDto;
+import com.pokemonreview.api.dto.RefreshTokenDto;
+import com.pokemonreview.api.dto.RegisterDto;
+import com.pokemonreview.api.models.Role;
+import com.pokemonreview.api.models.UserEntity;
+import com.pokemonreview.api.repository.RoleRepository;
+import com.pokemonreview.api.repository.UserRepository;
+import com.pokemonreview.api.security.AuthRateLimiter;
+import com.pokemonreview.api.security.JWTGenerator;
+import com.pokemonreview.api.service.RefreshTokenService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.InetSocketAddress;
+import java.util.Collections;
+
+// AuthController for the reactive runtime. Tokens are signed with a key held by the process that issued them, so a
+// reactive node has to issue its own. Users and refresh tokens are JPA entities, so that work (and registration's
+// BCrypt hash) runs on the bounded elastic scheduler, off the event loop.
+@RestController
+@RequestMapping(path = "/api/auth")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAuthController {
+
+    private ReactiveAuthenticationManager authenticationManager;
+    private UserRepository userRepository;
+    private RoleRepository roleRepository;
+
+    private PasswordEncoder passwordEncoder;
+
+    private JWTGenerator jwtGenerator;
+
+    private AuthRateLimiter authRateLimiter;
+
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    public ReactiveAuthController(ReactiveAuthenticationManager authenticationManager, UserRepository userRepository,
+                                  RoleRepository roleRepository, PasswordEncoder passwordEncoder, JWTGenerator jwtGenerator,
+                                  AuthRateLimiter authRateLimiter, RefreshTokenService refreshTokenService) {
+        this.authenticationManager = authenticationManager;
+        this.userRepository = userRepository;
+        this.roleRepository = roleRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.jwtGenerator = jwtGenerator;
+        this.authRateLimiter = authRateLimiter;
+        this.refreshTokenService = refreshTokenService;
+    }
+
+    @PostMapping("/register")
+    public Mono<ResponseEntity<String>> register(@RequestBody RegisterDto registerDto, ServerHttpRequest request) {
+        authRateLimiter.checkClient(clientAddress(request));
+
+        return Mono.fromCallable(() -> {
+            if (userRepository.existsByUsername(registerDto.getUsername())) {
+                return new ResponseEntity<>("Username is taken !", HttpStatus.BAD_REQUEST);
+            }
+            UserEntity newUserEntity = new UserEntity();
+            newUserEntity.setUsername(registerDto.getUsername());
+            newUserEntity.setPassword(passwordEncoder.encode(registerDto.getPassword()));
+
+            Role role = roleRepository.findByName("USER").orElseGet(() -> roleRepository.save(new Role("USER")));
+            newUserEntity.setRoles(Collections.singletonList(role));
+            userRepository.save(newUserEntity);
+            return new ResponseEntity<>("User registered success!", HttpStatus.CREATED);
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @PostMapping("/login")
+    public Mono<ResponseEntity<AuthResponseDTO>> login(@RequestBody LoginDto loginDto, ServerHttpRequest request) {
+        // throttle before the user lookup and the BCrypt comparison
+        authRateLimiter.checkLogin(clientAddress(request), loginDto.getUsername());
+
+        return authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(loginDto.getUsername(), loginDto.getPassword()))
+                .publishOn(Schedulers.boundedElastic())
+                .map(authentication -> ResponseEntity.ok(new AuthResponseDTO(jwtGenerator.generateToken(authentication),
+                        refreshTokenService.createRefreshToken(authentication.getName()))));
+    }
+
+    @PostMapping("/refresh")
+    public Mono<ResponseEntity<AuthResponseDTO>> refresh(@RequestBody RefreshTokenDto refreshTokenDto, ServerHttpRequest request) {
+        authRateLimiter.checkClient(clientAddress(request));
+
+        return Mono.fromCallable(() -> ResponseEntity.ok(refreshTokenService.refresh(refreshTokenDto.getRefreshToken())))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @PostMapping("/logout")
+    public Mono<ResponseEntity<Void>> logout(@RequestBody(required = false) RefreshTokenDto refreshTokenDto,
+                                             @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        String accessToken = authorization != null && authorization.startsWith("Bearer ") ? authorization.substring(7) : null;
+        String refreshToken = refreshTokenDto != null ? refreshTokenDto.getRefreshToken() : null;
+
+        return Mono.fromRunnable(() -> refreshTokenService.logout(accessToken, refreshToken))
+                .subscribeOn(Schedulers.boundedElastic())
+                .thenReturn(ResponseEntity.noContent().<Void>build());
+    }
+
+    // the peer address, as HttpServletRequest.getRemoteAddr() gives it on the servlet side
+    private static String clientAddress(ServerHttpRequest request) {
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        return remoteAddress != null && remoteAddress.getAddress() != null ? remoteAddress.getAddress().getHostAddress() : "unknown";
+    }
+}
@@ -0,0 +1,129 @@
+package com.pokemonreview.api.controllers;
+
+import com.pokemonreview.api.dto.BatchRequestDto;
+import com.pokemonreview.api.dto.BatchResponse;
+import com.pokemonreview.api.dto.DeletionJobDto;
+import com.pokemonreview.api.dto.PokemonDto;
+import com.pokemonreview.api.dto.PokemonResponse;
+import com.pokemonreview.api.service.ReactivePokemonService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+
+// PokemonController for the reactive runtime (the "reactive" profile), with the same paths, parameters, limits,
+// status codes and response bodies.
+@RestController
+@RequestMapping("/api/")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactivePokemonController {
+
+    private ReactivePokemonService pokemonService;
+
+    @Autowired
+    public ReactivePokemonController(ReactivePokemonService pokemonService) {
+        this.pokemonService = pokemonService;
+    }
+
+    // same cap as PokemonController
+    private static final int MAX_EMBEDDED_REVIEWS = 100;
+
+    @GetMapping("pokemons")
+    public Mono<ResponseEntity<PokemonResponse>> getPokemons(
+            @RequestParam(value = "pageNo", defaultValue = "0", required = false) int pageNo,
+            @RequestParam(value = "pageSize", defaultValue = "10", required = false) int pageSize,
+            @RequestParam(value = "expand", required = false) String expand,
+            @RequestParam(value = "reviewLimit", defaultValue = "10", required = false) int reviewLimit
+    ) {
+        if (expandsReviews(expand)) {
+            return pokemonService.getAllPokemonWithReviews(pageNo, pageSize, clampReviewLimit(reviewLimit)).map(ResponseEntity::ok);
+        }
+        return pokemonService.getAllPokemon(pageNo, pageSize).map(ResponseEntity::ok);
+    }
+
+    @GetMapping(value = "pokemons", params = "type")
+    public Mono<ResponseEntity<PokemonResponse>> getPokemonsByType(
+            @RequestParam("type") String type,
+            @RequestParam(value = "pageNo", defaultValue = "0", required = false) int pageNo,
+            @RequestParam(value = "pageSize", defaultValue = "10", required = false) int pageSize,
+            @RequestParam(value = "expand", required = false) String expand,
+            @RequestParam(value = "reviewLimit", defaultValue = "10", required = false) int reviewLimit
+    ) {
+        if (expandsReviews(expand)) {
+            return pokemonService.getPokemonByTypeWithReviews(type, pageNo, pageSize, clampReviewLimit(reviewLimit)).map(ResponseEntity::ok);
+        }
+        return pokemonService.getPokemonByType(type, pageNo, pageSize).map(ResponseEntity::ok);
+    }
+
+    @GetMapping(value = "pokemons", params = "ids")
+    public Mono<ResponseEntity<BatchResponse<PokemonDto>>> getPokemonsByIds(@RequestParam("ids") List<Integer> ids) {
+        return pokemonService.getPokemonsByIds(BatchRequestDto.checkSize(ids)).map(ResponseEntity::ok);
+    }
+
+    @PostMapping("pokemons/batch")
+    public Mono<ResponseEntity<BatchResponse<PokemonDto>>> getPokemonsByIds(@RequestBody BatchRequestDto batchRequestDto) {
+        return pokemonService.getPokemonsByIds(BatchRequestDto.checkSize(batchRequestDto.getIds())).map(ResponseEntity::ok);
+    }
+
+    @GetMapping("pokemons/{id}")
+    public Mono<ResponseEntity<PokemonDto>> pokemonDetail(@PathVariable int id,
+                                                          @RequestParam(value = "expand", required = false) String expand,
+                                                          @RequestParam(value = "reviewLimit", defaultValue = "10", required = false) int reviewLimit) {
+        if (expandsReviews(expand)) {
+            return pokemonService.getPokemonWithReviews(id, clampReviewLimit(reviewLimit)).map(ResponseEntity::ok);
+        }
+        return pokemonService.getPokemonById(id).map(ResponseEntity::ok);
+    }
+
+    @PostMapping("pokemons/create")
+    public Mono<ResponseEntity<PokemonDto>> createPokemon(@RequestBody PokemonDto pokemonDto) {
+        return pokemonService.createPokemon(pokemonDto).map(created -> ResponseEntity.status(HttpStatus.CREATED).body(created));
+    }
+
+    @PutMapping("pokemons/{id}/update")
+    public Mono<ResponseEntity<PokemonDto>> updatePokemon(@RequestBody PokemonDto pokemonDto, @PathVariable("id") int pokemonId,
+                                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return pokemonService.updatePokemon(pokemonDto, pokemonId, ETags.expectedVersion(ifMatch))
+                .map(updated -> ResponseEntity.ok().eTag(ETags.of(updated.getVersion())).body(updated));
+    }
+
+    @DeleteMapping("pokemons/{id}/delete")
+    public Mono<ResponseEntity<String>> deletePokemon(@PathVariable("id") int pokemonId) {
+        return pokemonService.deletePokemonId(pokemonId).thenReturn(ResponseEntity.ok("Pokemon delete"));
+    }
+
+    @DeleteMapping(value = "pokemons/{id}/delete", params = "async=true")
+    public Mono<ResponseEntity<DeletionJobDto>> deletePokemonAsync(@PathVariable("id") int pokemonId) {
+        return pokemonService.startDeletePokemon(pokemonId)
+                .map(job -> ResponseEntity.accepted().location(URI.create("/api/pokemons/delete-jobs/" + job.getJobId())).body(job));
+    }
+
+    @GetMapping("pokemons/delete-jobs/{jobId}")
+    public Mono<ResponseEntity<DeletionJobDto>> deletionJob(@PathVariable String jobId) {
+        return pokemonService.getDeletionJob(jobId).map(ResponseEntity::ok).defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    private static boolean expandsReviews(String expand) {
+        return expand != null && Arrays.asList(expand.split(",")).contains("reviews");
+    }
+
+    private static int clampReviewLimit(int reviewLimit) {
+        return Math.max(0, Math.min(reviewLimit, MAX_EMBEDDED_REVIEWS));
+    }
+}
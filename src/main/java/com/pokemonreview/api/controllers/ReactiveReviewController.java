@@ -0,0 +1,97 @@
+package com.pokemonreview.api.controllers;
+
+import com.pokemonreview.api.dto.BatchRequestDto;
+import com.pokemonreview.api.dto.BatchResponse;
+import com.pokemonreview.api.dto.ReviewBatchRequestDto;
+import com.pokemonreview.api.dto.ReviewBatchResponse;
+import com.pokemonreview.api.dto.ReviewDto;
+import com.pokemonreview.api.dto.ReviewIngestDto;
+import com.pokemonreview.api.service.ReactiveReviewService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.List;
+
+// ReviewController for the reactive runtime; see ReactivePokemonController. The review stream is only served by
+// servlet nodes (see ReactiveReviewServiceImpl).
+@RestController
+@RequestMapping("/api/")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveReviewController {
+
+    private ReactiveReviewService reviewService;
+
+    @Autowired
+    public ReactiveReviewController(ReactiveReviewService reviewService) {
+        this.reviewService = reviewService;
+    }
+
+    @GetMapping(value = "/reviews", params = "ids")
+    public Mono<ResponseEntity<BatchResponse<ReviewDto>>> getReviewsByIds(@RequestParam("ids") List<Integer> ids) {
+        return reviewService.getReviewsByIds(BatchRequestDto.checkSize(ids)).map(ResponseEntity::ok);
+    }
+
+    @PostMapping("/reviews/batch")
+    public Mono<ResponseEntity<BatchResponse<ReviewDto>>> getReviewsByIds(@RequestBody BatchRequestDto batchRequestDto) {
+        return reviewService.getReviewsByIds(BatchRequestDto.checkSize(batchRequestDto.getIds())).map(ResponseEntity::ok);
+    }
+
+    @PostMapping("/reviews/bulk")
+    public Mono<ResponseEntity<ReviewBatchResponse>> createReviews(@RequestBody ReviewBatchRequestDto reviewBatchRequestDto) {
+        return reviewService.createReviews(ReviewBatchRequestDto.checkSize(reviewBatchRequestDto.getReviews())).map(ResponseEntity::ok);
+    }
+
+    @PostMapping("/pokemons/{pokemonId}/reviews")
+    public Mono<ResponseEntity<ReviewDto>> createReview(@PathVariable(value = "pokemonId") int pokemonId, @RequestBody ReviewDto reviewDto) {
+        return reviewService.createReview(pokemonId, reviewDto).map(created -> ResponseEntity.status(HttpStatus.CREATED).body(created));
+    }
+
+    @PostMapping(value = "/pokemons/{pokemonId}/reviews", params = "async=true")
+    public Mono<ResponseEntity<ReviewIngestDto>> submitReview(@PathVariable(value = "pokemonId") int pokemonId, @RequestBody ReviewDto reviewDto) {
+        return reviewService.submitReview(pokemonId, reviewDto)
+                .map(accepted -> ResponseEntity.accepted().location(URI.create("/api/reviews/ingest/" + accepted.getTrackingId())).body(accepted));
+    }
+
+    @GetMapping("/reviews/ingest/{trackingId}")
+    public Mono<ResponseEntity<ReviewIngestDto>> getIngestStatus(@PathVariable(value = "trackingId") String trackingId) {
+        return reviewService.getIngestStatus(trackingId).map(ResponseEntity::ok).defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/pokemons/{pokemonId}/reviews")
+    public Mono<List<ReviewDto>> getReviewsByPokemonId(@PathVariable(value = "pokemonId") int pokemonId) {
+        return reviewService.getReviewsByPokemonId(pokemonId);
+    }
+
+    @GetMapping("/pokemons/{pokemonId}/reviews/{id}")
+    public Mono<ResponseEntity<ReviewDto>> getReviewById(@PathVariable(value = "pokemonId") int pokemonId, @PathVariable(value = "id") int reviewId) {
+        return reviewService.getReviewById(reviewId, pokemonId).map(ResponseEntity::ok);
+    }
+
+    @PutMapping("/pokemons/{pokemonId}/reviews/{id}")
+    public Mono<ResponseEntity<ReviewDto>> updateReview(@PathVariable(value = "pokemonId") int pokemonId, @PathVariable(value = "id") int reviewId,
+                                                        @RequestBody ReviewDto reviewDto,
+                                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return reviewService.updateReview(pokemonId, reviewId, reviewDto, ETags.expectedVersion(ifMatch))
+                .map(updated -> ResponseEntity.ok().eTag(ETags.of(updated.getVersion())).body(updated));
+    }
+
+    @DeleteMapping("/pokemons/{pokemonId}/reviews/{id}")
+    public Mono<ResponseEntity<String>> deleteReview(@PathVariable(value = "pokemonId") int pokemonId, @PathVariable(value = "id") int reviewId) {
+        return reviewService.deleteReview(pokemonId, reviewId).thenReturn(ResponseEntity.ok("Review deleted successfully"));
+    }
+}
@@ -1,23 +1,54 @@
 package com.pokemonreview.api.controllers;
 
+import com.pokemonreview.api.dto.BatchRequestDto;
+import com.pokemonreview.api.dto.BatchResponse;
+import com.pokemonreview.api.dto.ReviewBatchRequestDto;
+import com.pokemonreview.api.dto.ReviewBatchResponse;
 import com.pokemonreview.api.dto.ReviewDto;
+import com.pokemonreview.api.dto.ReviewIngestDto;
+import com.pokemonreview.api.feed.ReviewFeed;
+import com.pokemonreview.api.feed.ReviewStreamEmitter;
 import com.pokemonreview.api.service.ReviewService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ReviewController {
 
     private ReviewService reviewService;
+    private ReviewFeed reviewFeed;
 
     @Autowired
-    public ReviewController(ReviewService reviewService) {
+    public ReviewController(ReviewService reviewService, ReviewFeed reviewFeed) {
         this.reviewService = reviewService;
+        this.reviewFeed = reviewFeed;
+    }
+
+    // multi-get by review id; results in request order, unknown ids in missingIds
+    @GetMapping(value = "/reviews", params = "ids")
+    public ResponseEntity<BatchResponse<ReviewDto>> getReviewsByIds(@RequestParam("ids") List<Integer> ids) {
+        return new ResponseEntity<>(reviewService.getReviewsByIds(BatchRequestDto.checkSize(ids)), HttpStatus.OK);
+    }
+
+    @PostMapping("/reviews/batch")
+    public ResponseEntity<BatchResponse<ReviewDto>> getReviewsByIds(@RequestBody BatchRequestDto batchRequestDto) {
+        return new ResponseEntity<>(reviewService.getReviewsByIds(BatchRequestDto.checkSize(batchRequestDto.getIds())), HttpStatus.OK);
+    }
+
+    // creates up to ReviewBatchRequestDto.MAX_REVIEWS reviews, for any number of Pokemon, with per-item results
+    @PostMapping("/reviews/bulk")
+    public ResponseEntity<ReviewBatchResponse> createReviews(@RequestBody ReviewBatchRequestDto reviewBatchRequestDto) {
+        return new ResponseEntity<>(reviewService.createReviews(ReviewBatchRequestDto.checkSize(reviewBatchRequestDto.getReviews())), HttpStatus.OK);
     }
 
     @PostMapping("/pokemons/{pokemonId}/reviews")
@@ -25,6 +56,26 @@ public class ReviewController {
         return new ResponseEntity<>(reviewService.createReview(pokemonId, reviewDto), HttpStatus.CREATED);
     }
 
+    // Write-behind: 202 once the review is queued, Location points at its status
+    @PostMapping(value = "/pokemons/{pokemonId}/reviews", params = "async=true")
+    public ResponseEntity<ReviewIngestDto> submitReview(@PathVariable(value = "pokemonId") int pokemonId, @RequestBody ReviewDto reviewDto) {
+        ReviewIngestDto accepted = reviewService.submitReview(pokemonId, reviewDto);
+        return ResponseEntity.accepted().location(URI.create("/api/reviews/ingest/" + accepted.getTrackingId())).body(accepted);
+    }
+
+    // Server-Sent Events: review.created / review.updated / review.deleted as they commit, for one Pokemon or all.
+    // Reconnecting with Last-Event-ID replays what was missed (see ReviewFeed).
+    @GetMapping(value = "/reviews/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ReviewStreamEmitter streamReviews(@RequestParam(value = "pokemonId", required = false) Integer pokemonId,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return reviewFeed.subscribe(pokemonId, lastEventId);
+    }
+
+    @GetMapping("/reviews/ingest/{trackingId}")
+    public ResponseEntity<ReviewIngestDto> getIngestStatus(@PathVariable(value = "trackingId") String trackingId) {
+        return ResponseEntity.of(reviewService.getIngestStatus(trackingId));
+    }
+
     @GetMapping("/pokemons/{pokemonId}/reviews")
     public List<ReviewDto> getReviewsByPokemonId(@PathVariable(value = "pokemonId") int pokemonId) {
         return reviewService.getReviewsByPokemonId(pokemonId);
@@ -36,11 +87,13 @@ public class ReviewController {
         return new ResponseEntity<>(reviewDto, HttpStatus.OK);
     }
 
+    // If-Match: "<version>" makes the update conditional (412 when the review has changed since)
     @PutMapping("/pokemons/{pokemonId}/reviews/{id}")
     public ResponseEntity<ReviewDto> updateReview(@PathVariable(value = "pokemonId") int pokemonId, @PathVariable(value = "id") int reviewId,
-                                                  @RequestBody ReviewDto reviewDto) {
-        ReviewDto updatedReview = reviewService.updateReview(pokemonId, reviewId, reviewDto);
-        return new ResponseEntity<>(updatedReview, HttpStatus.OK);
+                                                  @RequestBody ReviewDto reviewDto,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        ReviewDto updatedReview = reviewService.updateReview(pokemonId, reviewId, reviewDto, ETags.expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(updatedReview.getVersion())).body(updatedReview);
     }
 
     @DeleteMapping("/pokemons/{pokemonId}/reviews/{id}")
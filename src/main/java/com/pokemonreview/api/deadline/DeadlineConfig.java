@@ -0,0 +1,55 @@
+package com.pokemonreview.api.deadline;
+
+import com.pokemonreview.api.config.ReplicaRoutingDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+
+@Configuration
+@ConditionalOnProperty(name = "app.deadline.enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(DeadlineProperties.class)
+public class DeadlineConfig {
+
+    // right after tracing and query counting, so the budget covers the bulkhead wait and the security chain
+    @Bean
+    public FilterRegistrationBean<DeadlineFilter> deadlineFilter(DeadlineProperties properties, MeterRegistry meterRegistry) {
+        FilterRegistrationBean<DeadlineFilter> registration =
+                new FilterRegistrationBean<>(new DeadlineFilter(properties, meterRegistry));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 3);
+        return registration;
+    }
+
+    // The deadline has to be applied to a Hikari pool itself to bound the wait for a connection. With read replicas
+    // the "dataSource" bean is a lazy proxy in front of the router, so each of the router's pools is wrapped instead
+    // and the proxy is left alone.
+    @Bean
+    public static BeanPostProcessor deadlineDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof ReplicaRoutingDataSource) {
+                    ((ReplicaRoutingDataSource) bean).decorateTargets(DeadlineDataSource::new);
+                    return bean;
+                }
+                if (bean instanceof DataSource && "dataSource".equals(beanName) && !(bean instanceof DeadlineDataSource)
+                        && !routesToPools(bean)) {
+                    return new DeadlineDataSource((DataSource) bean);
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static boolean routesToPools(Object dataSource) {
+        return dataSource instanceof DelegatingDataSource
+                && ((DelegatingDataSource) dataSource).getTargetDataSource() instanceof ReplicaRoutingDataSource;
+    }
+}
@@ -0,0 +1,157 @@
+package com.pokemonreview.api.deadline;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.pool.HikariPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Applies the RequestDeadline of the calling thread to JDBC:
+// - a connection is waited for at most until the deadline, instead of Hikari's connection-timeout;
+// - every statement is cancelled (Statement.cancel, which PostgreSQL turns into a cancel request on the server)
+//   when the deadline passes while it runs, and statements are not started at all once it has passed.
+// Both surface as SQLTimeoutException, which Spring translates to QueryTimeoutException.
+// JDBC's own setQueryTimeout only has whole seconds, too coarse for request budgets of a few hundred ms.
+// Connections and statements taken without a deadline (background work, requests with none) are not wrapped at all.
+public class DeadlineDataSource extends DelegatingDataSource {
+
+    private static final Logger log = LoggerFactory.getLogger(DeadlineDataSource.class);
+
+    static final String SQL_STATE_QUERY_CANCELED = "57014";
+
+    private static final ScheduledThreadPoolExecutor CANCELLER = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "jdbc-deadline-canceller");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        CANCELLER.setRemoveOnCancelPolicy(true);
+    }
+
+    public DeadlineDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+        if (!(targetDataSource instanceof HikariDataSource)) {
+            log.warn("{} is not a Hikari pool: request deadlines cancel its statements, but waiting for one of its "
+                    + "connections is bounded by its own timeout only", targetDataSource.getClass().getSimpleName());
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long remainingNanos = RequestDeadline.remainingNanos();
+        if (remainingNanos == Long.MAX_VALUE) {
+            return super.getConnection();
+        }
+        if (remainingNanos <= 0) {
+            throw new SQLTimeoutException("Request deadline exceeded before a connection was requested", SQL_STATE_QUERY_CANCELED);
+        }
+        HikariPool pool = pool();
+        if (pool == null) {
+            return wrapConnection(super.getConnection());
+        }
+        // at least 1 ms: Hikari treats 0 as "no waiting at all", not as "no timeout"
+        return wrapConnection(pool.getConnection(Math.max(1, TimeUnit.NANOSECONDS.toMillis(remainingNanos))));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Connection connection = super.getConnection(username, password);
+        return RequestDeadline.isSet() ? wrapConnection(connection) : connection;
+    }
+
+    // The pool only when this wraps a started Hikari pool directly (see DeadlineConfig for the replica setup)
+    private HikariPool pool() {
+        DataSource target = getTargetDataSource();
+        if (target instanceof HikariDataSource && ((HikariDataSource) target).getHikariPoolMXBean() instanceof HikariPool) {
+            return (HikariPool) ((HikariDataSource) target).getHikariPoolMXBean();
+        }
+        return null;
+    }
+
+    private Connection wrapConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(DeadlineDataSource.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    return result instanceof Statement && RequestDeadline.isSet() ? wrapStatement((Statement) result) : result;
+                });
+    }
+
+    private Statement wrapStatement(Statement statement) {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        return (Statement) Proxy.newProxyInstance(DeadlineDataSource.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    long remainingNanos = RequestDeadline.remainingNanos();
+                    if (!method.getName().startsWith("execute") || remainingNanos == Long.MAX_VALUE) {
+                        return invoke(statement, method, args);
+                    }
+                    if (remainingNanos <= 0) {
+                        throw new SQLTimeoutException("Request deadline exceeded", SQL_STATE_QUERY_CANCELED);
+                    }
+                    Execution execution = new Execution(statement);
+                    ScheduledFuture<?> cancel = CANCELLER.schedule(execution::cancel, remainingNanos, TimeUnit.NANOSECONDS);
+                    try {
+                        return invoke(statement, method, args);
+                    } catch (SQLException e) {
+                        if (execution.cancelled) {
+                            throw new SQLTimeoutException("Request deadline exceeded, statement cancelled", SQL_STATE_QUERY_CANCELED, e);
+                        }
+                        throw e;
+                    } finally {
+                        cancel.cancel(false);
+                        execution.finished();
+                    }
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    // A cancel that arrives after the statement returned must not reach the connection: PostgreSQL would
+    // apply it to whatever the connection runs next.
+    private static final class Execution {
+        private final Statement statement;
+        private boolean running = true;
+        private volatile boolean cancelled;
+
+        private Execution(Statement statement) {
+            this.statement = statement;
+        }
+
+        private synchronized void cancel() {
+            if (!running) {
+                return;
+            }
+            cancelled = true;
+            try {
+                statement.cancel();
+            } catch (SQLException ignored) {
+                // the statement failing on its own is reported by the executing thread
+            }
+        }
+
+        private synchronized void finished() {
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.pokemonreview.api.deadline;
+
+import com.pokemonreview.api.exceptions.CachedErrorBody;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+// Gives every /api request a RequestDeadline: the client's X-Request-Timeout ("800", "800ms", "2s"; capped at
+// max-timeout), else the default of the first matching route, else the global default.
+// A request that fails once its deadline has passed (a cancelled statement, a connection that never came)
+// is answered 504 here, whatever exception the failure surfaced as on its way up.
+public class DeadlineFilter extends OncePerRequestFilter {
+
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout";
+
+    private final DeadlineProperties properties;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Counter deadlineExceededCounter;
+    private final CachedErrorBody gatewayTimeoutBody = new CachedErrorBody(HttpStatus.GATEWAY_TIMEOUT);
+
+    public DeadlineFilter(DeadlineProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.deadlineExceededCounter = Counter.builder("api.errors")
+                .tag("status", "504")
+                .tag("type", "deadline_exceeded")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestDeadline.start(timeout(request).toNanos());
+        try {
+            filterChain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            if (!RequestDeadline.expired() || response.isCommitted()) {
+                throw e;
+            }
+            deadlineExceededCounter.increment();
+            response.reset();
+            gatewayTimeoutBody.write(response, "Request deadline exceeded");
+        } finally {
+            RequestDeadline.clear();
+        }
+    }
+
+    Duration timeout(HttpServletRequest request) {
+        String header = request.getHeader(TIMEOUT_HEADER);
+        if (header != null) {
+            try {
+                Duration requested = DurationStyle.detectAndParse(header.trim(), ChronoUnit.MILLIS);
+                if (!requested.isNegative() && !requested.isZero()) {
+                    return requested.compareTo(properties.getMaxTimeout()) > 0 ? properties.getMaxTimeout() : requested;
+                }
+            } catch (IllegalArgumentException ignored) {
+                // malformed header: fall back to the route default
+            }
+        }
+        String path = request.getRequestURI();
+        for (Map.Entry<String, Duration> route : properties.getRoutes().entrySet()) {
+            if (pathMatcher.match(route.getKey(), path)) {
+                return route.getValue();
+            }
+        }
+        return properties.getDefaultTimeout();
+    }
+}
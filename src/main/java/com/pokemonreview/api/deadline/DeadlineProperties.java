@@ -0,0 +1,22 @@
+package com.pokemonreview.api.deadline;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "app.deadline")
+public class DeadlineProperties {
+
+    // for requests that send no X-Request-Timeout and match no route below
+    private Duration defaultTimeout = Duration.ofSeconds(10);
+
+    // upper bound for X-Request-Timeout
+    private Duration maxTimeout = Duration.ofSeconds(30);
+
+    // Ant path pattern -> default timeout; the first matching pattern wins
+    private Map<String, Duration> routes = new LinkedHashMap<>();
+}
@@ -0,0 +1,58 @@
+package com.pokemonreview.api.deadline;
+
+import com.pokemonreview.api.exceptions.DeadlineExceededException;
+
+import java.util.function.Supplier;
+
+// The point in time by which the current request has to be answered. DeadlineFilter sets it per request;
+// SingleFlight bounds its waits by it and DeadlineDataSource turns it into connection-acquire timeouts and
+// statement cancellation. Threads without a deadline (scheduled jobs, background deletes) are unbounded.
+public final class RequestDeadline {
+
+    private static final ThreadLocal<Long> DEADLINE_NANOS = new ThreadLocal<>();
+
+    private RequestDeadline() {
+    }
+
+    public static void start(long timeoutNanos) {
+        DEADLINE_NANOS.set(System.nanoTime() + timeoutNanos);
+    }
+
+    public static void clear() {
+        DEADLINE_NANOS.remove();
+    }
+
+    public static boolean isSet() {
+        return DEADLINE_NANOS.get() != null;
+    }
+
+    // Long.MAX_VALUE without a deadline; zero or less once it has passed
+    public static long remainingNanos() {
+        Long deadline = DEADLINE_NANOS.get();
+        return deadline == null ? Long.MAX_VALUE : deadline - System.nanoTime();
+    }
+
+    public static boolean expired() {
+        return remainingNanos() <= 0;
+    }
+
+    // For work that must not be cut short once it has started, such as a delete committed chunk by chunk: runs it
+    // without the deadline and restores the deadline afterwards.
+    public static <T> T withoutDeadline(Supplier<T> work) {
+        Long deadline = DEADLINE_NANOS.get();
+        DEADLINE_NANOS.remove();
+        try {
+            return work.get();
+        } finally {
+            if (deadline != null) {
+                DEADLINE_NANOS.set(deadline);
+            }
+        }
+    }
+
+    public static void check() {
+        if (expired()) {
+            throw new DeadlineExceededException("Request deadline exceeded");
+        }
+    }
+}
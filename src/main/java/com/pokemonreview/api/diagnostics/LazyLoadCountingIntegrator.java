@@ -0,0 +1,32 @@
+package com.pokemonreview.api.diagnostics;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.LoadEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+// Counts associations initialized by a separate select: collections such as Pokemon.reviews (also eager ones
+// that are not join fetched, like UserEntity.roles) and proxies such as Review.pokemon, which are initialized
+// through an IMMEDIATE_LOAD event.
+// Picked up by Hibernate through META-INF/services, so it is active in every context including @DataJpaTest slices.
+public class LazyLoadCountingIntegrator implements Integrator {
+
+    @Override
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        EventListenerRegistry registry = serviceRegistry.getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.INIT_COLLECTION, (InitializeCollectionEventListener) event -> QueryCounter.lazyLoad());
+        registry.appendListeners(EventType.LOAD, (LoadEventListener) (event, loadType) -> {
+            if (loadType == LoadEventListener.IMMEDIATE_LOAD) {
+                QueryCounter.lazyLoad();
+            }
+        });
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+}
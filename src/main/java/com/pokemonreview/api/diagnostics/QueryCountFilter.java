@@ -0,0 +1,61 @@
+package com.pokemonreview.api.diagnostics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+
+// Counts Hibernate statements and lazy loads for each request. Counts go to the
+// hibernate.request.statements / hibernate.request.lazy_loads summaries per route, and requests above the
+// warn threshold are logged together with their most repeated statement, which is usually the N+1.
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryCountFilter.class);
+
+    private final MeterRegistry meterRegistry;
+    private final int warnThreshold;
+
+    public QueryCountFilter(MeterRegistry meterRegistry, int warnThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.warnThreshold = warnThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryCounter.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryCounter.Counts counts = QueryCounter.stop();
+            record(request, counts);
+        }
+    }
+
+    private void record(HttpServletRequest request, QueryCounter.Counts counts) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String route = pattern != null ? pattern.toString() : "UNKNOWN";
+
+        DistributionSummary.builder("hibernate.request.statements").tag("method", request.getMethod()).tag("uri", route)
+                .register(meterRegistry).record(counts.getStatements());
+        DistributionSummary.builder("hibernate.request.lazy_loads").tag("method", request.getMethod()).tag("uri", route)
+                .register(meterRegistry).record(counts.getLazyLoads());
+
+        if (counts.getStatements() > warnThreshold) {
+            Map.Entry<String, Integer> repeated = counts.mostRepeatedStatement();
+            log.warn("{} {} ran {}; most repeated ({}x): {}", request.getMethod(), route, counts,
+                    repeated.getValue(), repeated.getKey());
+        } else if (log.isDebugEnabled()) {
+            log.debug("{} {} ran {}", request.getMethod(), route, counts);
+        }
+    }
+}
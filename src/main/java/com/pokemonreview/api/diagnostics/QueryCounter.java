@@ -0,0 +1,69 @@
+package com.pokemonreview.api.diagnostics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Per-thread count of the SQL statements Hibernate prepares and the lazy associations it initializes.
+// Counting only happens between start() and stop(): QueryCountFilter does this per request and
+// QueryBudgetExtension per test. Everything else (scheduled jobs, startup) is not counted.
+public final class QueryCounter {
+
+    private static final ThreadLocal<Counts> CURRENT = new ThreadLocal<>();
+
+    private QueryCounter() {
+    }
+
+    public static void start() {
+        CURRENT.set(new Counts());
+    }
+
+    public static Counts stop() {
+        Counts counts = CURRENT.get();
+        CURRENT.remove();
+        return counts == null ? new Counts() : counts;
+    }
+
+    public static Counts current() {
+        Counts counts = CURRENT.get();
+        return counts == null ? new Counts() : counts;
+    }
+
+    static void statementPrepared(String sql) {
+        Counts counts = CURRENT.get();
+        if (counts != null) {
+            counts.statements++;
+            counts.statementsBySql.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    static void lazyLoad() {
+        Counts counts = CURRENT.get();
+        if (counts != null) {
+            counts.lazyLoads++;
+        }
+    }
+
+    public static final class Counts {
+        private int statements;
+        private int lazyLoads;
+        private final Map<String, Integer> statementsBySql = new HashMap<>();
+
+        public int getStatements() {
+            return statements;
+        }
+
+        public int getLazyLoads() {
+            return lazyLoads;
+        }
+
+        // The statement run most often; an N+1 shows up as one select repeated once per row of a previous query
+        public Map.Entry<String, Integer> mostRepeatedStatement() {
+            return statementsBySql.entrySet().stream().max(Map.Entry.comparingByValue()).orElse(null);
+        }
+
+        @Override
+        public String toString() {
+            return statements + " statements, " + lazyLoads + " lazy loads";
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.pokemonreview.api.diagnostics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Hibernate calls this for every statement it prepares, configured through
+// spring.jpa.properties.hibernate.session_factory.statement_inspector. The SQL is passed through unchanged.
+public class QueryCountingStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        QueryCounter.statementPrepared(sql);
+        return sql;
+    }
+}
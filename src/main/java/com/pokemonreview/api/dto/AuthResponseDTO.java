@@ -5,9 +5,11 @@ import lombok.Data;
 @Data
 public class AuthResponseDTO {
     private String accessToken;
+    private String refreshToken;
     private String tokenType = "Bearer ";
 
-    public AuthResponseDTO(String accessToken) {
+    public AuthResponseDTO(String accessToken, String refreshToken) {
         this.accessToken = accessToken;
+        this.refreshToken = refreshToken;
     }
 }
@@ -0,0 +1,22 @@
+package com.pokemonreview.api.dto;
+
+import lombok.Data;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@Data
+public class BatchRequestDto {
+    // keeps a single batch request (and its IN list) bounded
+    public static final int MAX_IDS = 100;
+
+    private List<Integer> ids;
+
+    public static List<Integer> checkSize(List<Integer> ids) {
+        if (ids == null || ids.isEmpty() || ids.size() > MAX_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Between 1 and " + MAX_IDS + " ids are required");
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,33 @@
+package com.pokemonreview.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Result of a multi-get: the entities found, in the order their ids were requested (duplicates collapsed),
+// and the requested ids that do not exist.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResponse<T> {
+    private List<T> content;
+    private List<Integer> missingIds;
+
+    public static <T> BatchResponse<T> of(List<Integer> requestedIds, Map<Integer, T> found) {
+        List<T> content = new ArrayList<>(found.size());
+        List<Integer> missingIds = new ArrayList<>();
+        for (Integer id : requestedIds) {
+            T item = found.get(id);
+            if (item != null) {
+                content.add(item);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return new BatchResponse<>(content, missingIds);
+    }
+}
@@ -0,0 +1,25 @@
+package com.pokemonreview.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One change as stored in the change log
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChangeEventDto {
+    // the outbox row id: unique, but only roughly in commit order
+    private long id;
+    // e.g. pokemon.updated, review.deleted
+    private String type;
+    private int aggregateId;
+    // ISO-8601, when the change was made
+    private String occurredAt;
+    // PokemonDto for pokemon.*, ReviewEventDto for review.*; null for pokemon.deleted
+    @JsonRawValue
+    private String payload;
+}
@@ -0,0 +1,21 @@
+package com.pokemonreview.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChangeLogResponse {
+    private List<ChangeRecordDto> records;
+    // fromOffset for the next request
+    private long nextOffset;
+    // older records have been dropped; a consumer asking for less than this has missed changes
+    private long earliestOffset;
+    private long endOffset;
+}
@@ -0,0 +1,16 @@
+package com.pokemonreview.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeRecordDto {
+    private long offset;
+    // a ChangeEventDto, copied out of the log as written
+    @JsonRawValue
+    private String event;
+}
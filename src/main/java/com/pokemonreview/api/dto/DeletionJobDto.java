@@ -0,0 +1,18 @@
+package com.pokemonreview.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DeletionJobDto {
+    private String jobId;
+    private int pokemonId;
+    private String status;
+    private long reviewsDeleted;
+    private String message;
+}
@@ -1,10 +1,13 @@
 package com.pokemonreview.api.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @Builder
 @AllArgsConstructor
@@ -13,4 +16,10 @@ public class PokemonDto {
     private int id;
     private String name;
     private String type;
+    // echo it in If-Match to update only if nobody else has since
+    private int version;
+
+    // only filled in for ?expand=reviews, and left out of the JSON otherwise
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<ReviewDto> reviews;
 }
@@ -0,0 +1,8 @@
+package com.pokemonreview.api.dto;
+
+import lombok.Data;
+
+@Data
+public class RefreshTokenDto {
+    private String refreshToken;
+}
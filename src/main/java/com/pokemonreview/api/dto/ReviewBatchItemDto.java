@@ -0,0 +1,18 @@
+package com.pokemonreview.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// one review of a batch create, naming its Pokemon
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReviewBatchItemDto {
+    private int pokemonId;
+    private String title;
+    private String content;
+    private int stars;
+}
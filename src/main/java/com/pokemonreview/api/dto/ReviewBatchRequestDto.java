@@ -0,0 +1,22 @@
+package com.pokemonreview.api.dto;
+
+import lombok.Data;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@Data
+public class ReviewBatchRequestDto {
+    // two INSERT statements' worth (ReviewBatchInserter) and well inside one request deadline
+    public static final int MAX_REVIEWS = 1000;
+
+    private List<ReviewBatchItemDto> reviews;
+
+    public static List<ReviewBatchItemDto> checkSize(List<ReviewBatchItemDto> reviews) {
+        if (reviews == null || reviews.isEmpty() || reviews.size() > MAX_REVIEWS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Between 1 and " + MAX_REVIEWS + " reviews are required");
+        }
+        return reviews;
+    }
+}
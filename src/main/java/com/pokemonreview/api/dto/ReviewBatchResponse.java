@@ -0,0 +1,16 @@
+package com.pokemonreview.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewBatchResponse {
+    private int created;
+    private int rejected;
+    private List<ReviewBatchResultDto> results;
+}
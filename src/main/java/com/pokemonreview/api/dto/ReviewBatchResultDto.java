@@ -0,0 +1,22 @@
+package com.pokemonreview.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// outcome of one item of a batch create, at the item's position in the request
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReviewBatchResultDto {
+    private int index;
+    private int pokemonId;
+    // CREATED or REJECTED
+    private String status;
+    // set when CREATED
+    private ReviewDto review;
+    // set when REJECTED
+    private String message;
+}
@@ -0,0 +1,19 @@
+package com.pokemonreview.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReviewEventDto {
+    // CREATED, UPDATED, DELETED, or POKEMON_DELETED (reviewId 0) when the Pokemon went with all its reviews
+    private String type;
+    private int pokemonId;
+    private int reviewId;
+    // the review as written; null for DELETED and POKEMON_DELETED
+    private ReviewDto review;
+}
@@ -0,0 +1,20 @@
+package com.pokemonreview.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReviewIngestDto {
+    private String trackingId;
+    private int pokemonId;
+    // QUEUED, WRITTEN or FAILED
+    private String status;
+    // set once WRITTEN
+    private Integer reviewId;
+    private String message;
+}
@@ -0,0 +1,115 @@
+package com.pokemonreview.api.exceptions;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import reactor.core.publisher.Mono;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Pre-serialized ErrorObject JSON for one status code.
+// Everything up to the timestamp is serialized once per message; per response only the timestamp is filled in,
+// from a prefix that is formatted once per second. The output matches what Jackson writes for ErrorObject.
+public final class CachedErrorBody {
+
+    private static final DateTimeFormatter SECOND_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.").withZone(ZoneOffset.UTC);
+    private static final byte[] ZONE_AND_END = "+00:00\"}".getBytes(StandardCharsets.US_ASCII);
+
+    // messages come from constants in the services; the bound only protects against unexpected dynamic ones
+    private static final int MAX_CACHED_MESSAGES = 256;
+
+    private static volatile TimestampPrefix timestampPrefix = new TimestampPrefix(0, new byte[0]);
+
+    private final HttpStatus status;
+    private final ConcurrentHashMap<String, byte[]> prefixes = new ConcurrentHashMap<>();
+
+    public CachedErrorBody(HttpStatus status) {
+        this.status = status;
+    }
+
+    public ResponseEntity<byte[]> toResponseEntity(String message) {
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(render(message));
+    }
+
+    // For errors raised outside Spring MVC (security filters), where no message converter is involved
+    public void write(HttpServletResponse response, String message) throws IOException {
+        byte[] body = render(message);
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    // The same for the WebFlux security chain (see ReactiveSecurityConfig)
+    public Mono<Void> write(ServerHttpResponse response, String message) {
+        byte[] body = render(message);
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().setContentLength(body.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+
+    byte[] render(String message) {
+        byte[] prefix = prefixes.get(message == null ? "" : message);
+        if (prefix == null) {
+            prefix = serializePrefix(message);
+            if (prefixes.size() < MAX_CACHED_MESSAGES) {
+                prefixes.put(message == null ? "" : message, prefix);
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        byte[] seconds = timestampPrefix(now);
+        int millis = (int) (now % 1000);
+
+        byte[] body = new byte[prefix.length + seconds.length + 3 + ZONE_AND_END.length];
+        int position = 0;
+        System.arraycopy(prefix, 0, body, position, prefix.length);
+        position += prefix.length;
+        System.arraycopy(seconds, 0, body, position, seconds.length);
+        position += seconds.length;
+        body[position++] = (byte) ('0' + millis / 100);
+        body[position++] = (byte) ('0' + millis / 10 % 10);
+        body[position++] = (byte) ('0' + millis % 10);
+        System.arraycopy(ZONE_AND_END, 0, body, position, ZONE_AND_END.length);
+        return body;
+    }
+
+    private byte[] serializePrefix(String message) {
+        String json = "{\"statusCode\":" + status.value()
+                + ",\"message\":" + (message == null ? "null" : "\"" + new String(JsonStringEncoder.getInstance().quoteAsString(message)) + "\"")
+                + ",\"timestamp\":\"";
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] timestampPrefix(long nowMillis) {
+        long second = nowMillis / 1000;
+        TimestampPrefix current = timestampPrefix;
+        if (current.second != second) {
+            // racing threads may both format the same second; either result is correct
+            current = new TimestampPrefix(second,
+                    SECOND_FORMAT.format(Instant.ofEpochSecond(second)).getBytes(StandardCharsets.US_ASCII));
+            timestampPrefix = current;
+        }
+        return current.formatted;
+    }
+
+    private static final class TimestampPrefix {
+        private final long second;
+        private final byte[] formatted;
+
+        private TimestampPrefix(long second, byte[] formatted) {
+            this.second = second;
+            this.formatted = formatted;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.pokemonreview.api.exceptions;
+
+public class DeadlineExceededException extends RuntimeException {
+    private static final long serialVersionUID = 5;
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
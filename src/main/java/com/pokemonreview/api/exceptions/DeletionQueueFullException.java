@@ -0,0 +1,9 @@
+package com.pokemonreview.api.exceptions;
+
+public class DeletionQueueFullException extends RuntimeException {
+    private static final long serialVersionUID = 8;
+
+    public DeletionQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -1,38 +1,143 @@
 package com.pokemonreview.api.exceptions;
 
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
 
-import java.util.Date;
-
 @ControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class GlobalExceptionHandler {
 
-    @ExceptionHandler(PokemonNotFoundException.class)
-    public ResponseEntity<ErrorObject> handlePokemonNotFoundException(PokemonNotFoundException ex, WebRequest request) {
+    private Counter pokemonNotFoundCounter;
+    private Counter reviewNotFoundCounter;
+    private Counter unauthorizedCounter;
+    private Counter forbiddenCounter;
+    private Counter reviewQueueFullCounter;
+    private Counter deletionQueueFullCounter;
+    private Counter preconditionFailedCounter;
+    private Counter conflictCounter;
+    private Counter tooManyRequestsCounter;
 
-        ErrorObject errorObject = new ErrorObject();
+    private CachedErrorBody notFoundBody = new CachedErrorBody(HttpStatus.NOT_FOUND);
+    private CachedErrorBody unauthorizedBody = new CachedErrorBody(HttpStatus.UNAUTHORIZED);
+    private CachedErrorBody forbiddenBody = new CachedErrorBody(HttpStatus.FORBIDDEN);
+    private CachedErrorBody tooManyRequestsBody = new CachedErrorBody(HttpStatus.TOO_MANY_REQUESTS);
+    private CachedErrorBody unavailableBody = new CachedErrorBody(HttpStatus.SERVICE_UNAVAILABLE);
+    private CachedErrorBody preconditionFailedBody = new CachedErrorBody(HttpStatus.PRECONDITION_FAILED);
+    private CachedErrorBody conflictBody = new CachedErrorBody(HttpStatus.CONFLICT);
+
+    @Autowired
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.pokemonNotFoundCounter = notFoundCounter(meterRegistry, "pokemon");
+        this.reviewNotFoundCounter = notFoundCounter(meterRegistry, "review");
+        this.unauthorizedCounter = errorCounter(meterRegistry, "401", "unauthorized");
+        this.forbiddenCounter = errorCounter(meterRegistry, "403", "forbidden");
+        this.reviewQueueFullCounter = errorCounter(meterRegistry, "503", "review_queue_full");
+        this.deletionQueueFullCounter = errorCounter(meterRegistry, "503", "deletion_queue_full");
+        this.preconditionFailedCounter = errorCounter(meterRegistry, "412", "precondition_failed");
+        this.conflictCounter = errorCounter(meterRegistry, "409", "update_conflict");
+        this.tooManyRequestsCounter = errorCounter(meterRegistry, "429", "rate_limited");
+    }
 
-        errorObject.setStatusCode(HttpStatus.NOT_FOUND.value());
-        errorObject.setMessage(ex.getMessage());
-        errorObject.setTimestamp(new Date());
+    // Not-found is our most common response (scrapers probing ids), so these bodies are pre-serialized
+    // instead of building and serializing an ErrorObject each time.
+    @ExceptionHandler(PokemonNotFoundException.class)
+    public ResponseEntity<byte[]> handlePokemonNotFoundException(PokemonNotFoundException ex, WebRequest request) {
+        pokemonNotFoundCounter.increment();
 
-        return new ResponseEntity<ErrorObject>(errorObject, HttpStatus.NOT_FOUND);
+        return notFoundBody.toResponseEntity(ex.getMessage());
     }
 
     @ExceptionHandler(ReviewNotFoundException.class)
-    public ResponseEntity<ErrorObject> handleReviewNotFoundException(ReviewNotFoundException ex, WebRequest request) {
+    public ResponseEntity<byte[]> handleReviewNotFoundException(ReviewNotFoundException ex, WebRequest request) {
+        reviewNotFoundCounter.increment();
+
+        return notFoundBody.toResponseEntity(ex.getMessage());
+    }
+
+    // Authentication failures raised inside a controller, e.g. bad credentials on /api/auth/login.
+    // Failures in the security filter chain are answered by JwtAuthEntryPoint with the same body.
+    @ExceptionHandler(AuthenticationException.class)
+    public ResponseEntity<byte[]> handleAuthenticationException(AuthenticationException ex, WebRequest request) {
+        unauthorizedCounter.increment();
+
+        return unauthorizedBody.toResponseEntity(ex.getMessage());
+    }
+
+    @ExceptionHandler(AccessDeniedException.class)
+    public ResponseEntity<byte[]> handleAccessDeniedException(AccessDeniedException ex, WebRequest request) {
+        forbiddenCounter.increment();
+
+        return forbiddenBody.toResponseEntity(ex.getMessage());
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<byte[]> handlePreconditionFailedException(PreconditionFailedException ex, WebRequest request) {
+        preconditionFailedCounter.increment();
+
+        return preconditionFailedBody.toResponseEntity(ex.getMessage());
+    }
 
-        ErrorObject errorObject = new ErrorObject();
+    // an unconditional update that still lost every retry to concurrent writers; the client can simply resend it
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<byte[]> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex, WebRequest request) {
+        conflictCounter.increment();
 
-        errorObject.setStatusCode(HttpStatus.NOT_FOUND.value());
-        errorObject.setMessage(ex.getMessage());
-        errorObject.setTimestamp(new Date());
+        return conflictBody.toResponseEntity("Concurrent update, please retry");
+    }
+
+    @ExceptionHandler(ReviewQueueFullException.class)
+    public ResponseEntity<byte[]> handleReviewQueueFullException(ReviewQueueFullException ex, WebRequest request) {
+        reviewQueueFullCounter.increment();
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.RETRY_AFTER, "1").body(unavailableBody.render(ex.getMessage()));
+    }
+
+    @ExceptionHandler(DeletionQueueFullException.class)
+    public ResponseEntity<byte[]> handleDeletionQueueFullException(DeletionQueueFullException ex, WebRequest request) {
+        deletionQueueFullCounter.increment();
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.RETRY_AFTER, "1").body(unavailableBody.render(ex.getMessage()));
+    }
+
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<byte[]> handleRateLimitExceededException(RateLimitExceededException ex, WebRequest request) {
+        tooManyRequestsCounter.increment();
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(tooManyRequestsBody.render(ex.getMessage()));
+    }
+
+    @ExceptionHandler(InvalidRefreshTokenException.class)
+    public ResponseEntity<byte[]> handleInvalidRefreshTokenException(InvalidRefreshTokenException ex, WebRequest request) {
+        unauthorizedCounter.increment();
+
+        return unauthorizedBody.toResponseEntity(ex.getMessage());
+    }
+
+    private static Counter notFoundCounter(MeterRegistry meterRegistry, String resource) {
+        return errorCounter(meterRegistry, "404", resource + "_not_found");
+    }
 
-        return new ResponseEntity<ErrorObject>(errorObject, HttpStatus.NOT_FOUND);
+    private static Counter errorCounter(MeterRegistry meterRegistry, String status, String type) {
+        return Counter.builder("api.errors")
+                .tag("status", status)
+                .tag("type", type)
+                .register(meterRegistry);
     }
 }
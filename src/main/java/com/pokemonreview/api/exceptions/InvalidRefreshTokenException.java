@@ -0,0 +1,9 @@
+package com.pokemonreview.api.exceptions;
+
+public class InvalidRefreshTokenException extends RuntimeException {
+    private static final long serialVersionUID = 4;
+
+    public InvalidRefreshTokenException(String message) {
+        super(message);
+    }
+}
@@ -1,9 +1,12 @@
 package com.pokemonreview.api.exceptions;
 
+// Thrown for every unknown id, which makes it the most common failure we have.
+// It is stackless: GlobalExceptionHandler only needs the message, and filling in the stack trace
+// was most of the cost of a 404.
 public class PokemonNotFoundException extends RuntimeException {
-    private static final long serialVerisionUID = 1;
+    private static final long serialVersionUID = 1;
 
     public PokemonNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
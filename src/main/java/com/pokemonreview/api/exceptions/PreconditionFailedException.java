@@ -0,0 +1,10 @@
+package com.pokemonreview.api.exceptions;
+
+// If-Match named a version that is no longer current: someone else updated the entity since the client read it
+public class PreconditionFailedException extends RuntimeException {
+    private static final long serialVersionUID = 7;
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,16 @@
+package com.pokemonreview.api.exceptions;
+
+public class RateLimitExceededException extends RuntimeException {
+    private static final long serialVersionUID = 3;
+
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
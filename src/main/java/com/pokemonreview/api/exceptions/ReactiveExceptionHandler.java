@@ -0,0 +1,118 @@
+package com.pokemonreview.api.exceptions;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+// GlobalExceptionHandler for the reactive runtime's controllers: the same bodies and counters for the exceptions
+// the reactive services and token endpoints can raise.
+@ControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveExceptionHandler {
+
+    private Counter pokemonNotFoundCounter;
+    private Counter reviewNotFoundCounter;
+    private Counter unauthorizedCounter;
+    private Counter reviewQueueFullCounter;
+    private Counter deletionQueueFullCounter;
+    private Counter preconditionFailedCounter;
+    private Counter conflictCounter;
+
+    private CachedErrorBody notFoundBody = new CachedErrorBody(HttpStatus.NOT_FOUND);
+    private CachedErrorBody unauthorizedBody = new CachedErrorBody(HttpStatus.UNAUTHORIZED);
+    private CachedErrorBody tooManyRequestsBody = new CachedErrorBody(HttpStatus.TOO_MANY_REQUESTS);
+    private CachedErrorBody unavailableBody = new CachedErrorBody(HttpStatus.SERVICE_UNAVAILABLE);
+    private CachedErrorBody preconditionFailedBody = new CachedErrorBody(HttpStatus.PRECONDITION_FAILED);
+    private CachedErrorBody conflictBody = new CachedErrorBody(HttpStatus.CONFLICT);
+
+    @Autowired
+    public ReactiveExceptionHandler(MeterRegistry meterRegistry) {
+        this.pokemonNotFoundCounter = errorCounter(meterRegistry, "404", "pokemon_not_found");
+        this.reviewNotFoundCounter = errorCounter(meterRegistry, "404", "review_not_found");
+        this.unauthorizedCounter = errorCounter(meterRegistry, "401", "unauthorized");
+        this.reviewQueueFullCounter = errorCounter(meterRegistry, "503", "review_queue_full");
+        this.deletionQueueFullCounter = errorCounter(meterRegistry, "503", "deletion_queue_full");
+        this.preconditionFailedCounter = errorCounter(meterRegistry, "412", "precondition_failed");
+        this.conflictCounter = errorCounter(meterRegistry, "409", "update_conflict");
+    }
+
+    @ExceptionHandler(PokemonNotFoundException.class)
+    public ResponseEntity<byte[]> handlePokemonNotFoundException(PokemonNotFoundException ex) {
+        pokemonNotFoundCounter.increment();
+
+        return notFoundBody.toResponseEntity(ex.getMessage());
+    }
+
+    @ExceptionHandler(ReviewNotFoundException.class)
+    public ResponseEntity<byte[]> handleReviewNotFoundException(ReviewNotFoundException ex) {
+        reviewNotFoundCounter.increment();
+
+        return notFoundBody.toResponseEntity(ex.getMessage());
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<byte[]> handlePreconditionFailedException(PreconditionFailedException ex) {
+        preconditionFailedCounter.increment();
+
+        return preconditionFailedBody.toResponseEntity(ex.getMessage());
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<byte[]> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        conflictCounter.increment();
+
+        return conflictBody.toResponseEntity("Concurrent update, please retry");
+    }
+
+    @ExceptionHandler(ReviewQueueFullException.class)
+    public ResponseEntity<byte[]> handleReviewQueueFullException(ReviewQueueFullException ex) {
+        reviewQueueFullCounter.increment();
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.RETRY_AFTER, "1").body(unavailableBody.render(ex.getMessage()));
+    }
+
+    @ExceptionHandler(DeletionQueueFullException.class)
+    public ResponseEntity<byte[]> handleDeletionQueueFullException(DeletionQueueFullException ex) {
+        deletionQueueFullCounter.increment();
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.RETRY_AFTER, "1").body(unavailableBody.render(ex.getMessage()));
+    }
+
+    // bad credentials on /api/auth/login
+    @ExceptionHandler(AuthenticationException.class)
+    public ResponseEntity<byte[]> handleAuthenticationException(AuthenticationException ex) {
+        unauthorizedCounter.increment();
+
+        return unauthorizedBody.toResponseEntity(ex.getMessage());
+    }
+
+    @ExceptionHandler(InvalidRefreshTokenException.class)
+    public ResponseEntity<byte[]> handleInvalidRefreshTokenException(InvalidRefreshTokenException ex) {
+        return unauthorizedBody.toResponseEntity(ex.getMessage());
+    }
+
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<byte[]> handleRateLimitExceededException(RateLimitExceededException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(tooManyRequestsBody.render(ex.getMessage()));
+    }
+
+    private static Counter errorCounter(MeterRegistry meterRegistry, String status, String type) {
+        return Counter.builder("api.errors")
+                .tag("status", status)
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+}
@@ -1,8 +1,10 @@
 package com.pokemonreview.api.exceptions;
 
+// Stackless for the same reason as PokemonNotFoundException.
 public class ReviewNotFoundException extends RuntimeException {
-    private static final long serialVerisionUID = 2;
+    private static final long serialVersionUID = 2;
+
     public ReviewNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
@@ -0,0 +1,9 @@
+package com.pokemonreview.api.exceptions;
+
+public class ReviewQueueFullException extends RuntimeException {
+    private static final long serialVersionUID = 6;
+
+    public ReviewQueueFullException(String message) {
+        super(message);
+    }
+}
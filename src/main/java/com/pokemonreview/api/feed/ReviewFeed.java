@@ -0,0 +1,361 @@
+package com.pokemonreview.api.feed;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pokemonreview.api.dto.ReviewDto;
+import com.pokemonreview.api.dto.ReviewEventDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Live feed of review changes behind GET /api/reviews/stream (Server-Sent Events), optionally for one Pokemon.
+// The services publish once their transaction has committed. Each event takes the next sequence number as its SSE id,
+// is rendered once, and is queued to every matching subscriber. A client reconnecting with Last-Event-ID gets what
+// it missed replayed from the last history-size events, or a "reset" event when they no longer reach back that far
+// (it should then reload through the REST API).
+// Subscribers are ReviewStreamEmitters, i.e. async requests: an idle stream holds a socket but no Tomcat thread, and the writes
+// happen on a few dispatch threads. Each subscriber buffers at most buffer-size events; one that falls further behind
+// (a stalled client, a full TCP window) is disconnected rather than growing the heap or holding up the others, and
+// picks up from its Last-Event-ID when it reconnects.
+// Events are per node: a subscriber sees the writes made on the node it is connected to.
+@Component
+public class ReviewFeed implements DisposableBean {
+
+    public static final String STREAM_PATH = "/api/reviews/stream";
+    // every review of the Pokemon is gone along with it; sent with review id 0 instead of a DELETED per review
+    public static final String POKEMON_DELETED = "POKEMON_DELETED";
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewFeed.class);
+    private static final MediaType UTF8_TEXT = new MediaType("text", "plain", StandardCharsets.UTF_8);
+    // a comment line: keeps proxies from closing idle streams and finds clients that have gone away
+    private static final Frame HEARTBEAT = new Frame(-1, -1, SseEmitter.event().comment(""));
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final Frame[] history;
+    // Starts at the boot time in microseconds, so ids keep growing across restarts and a Last-Event-ID from
+    // before a restart reads as too old instead of being matched against unrelated events. Guarded by this.
+    private long sequence;
+    private final long firstSequence;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // guarded by this
+    private final Set<Subscriber> unfiltered = new HashSet<>();
+    private final Map<Integer, Set<Subscriber>> byPokemon = new HashMap<>();
+    private final ExecutorService dispatcher;
+
+    private final Counter published;
+    private final Counter dropped;
+    private final Counter replayed;
+    private final Counter reset;
+
+    @Autowired
+    public ReviewFeed(MeterRegistry meterRegistry,
+                      @Value("${app.review-feed.buffer-size:256}") int bufferSize,
+                      @Value("${app.review-feed.history-size:10000}") int historySize,
+                      @Value("${app.review-feed.dispatch-threads:4}") int dispatchThreads,
+                      @Value("${app.review-feed.timeout-ms:1800000}") long timeoutMillis) {
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeoutMillis;
+        this.history = new Frame[historySize];
+        this.sequence = System.currentTimeMillis() * 1000;
+        this.firstSequence = sequence + 1;
+        AtomicInteger threads = new AtomicInteger();
+        this.dispatcher = Executors.newFixedThreadPool(dispatchThreads, runnable -> {
+            Thread thread = new Thread(runnable, "review-feed-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("review_feed.subscribers", subscribers, Set::size).register(meterRegistry);
+        this.published = Counter.builder("review_feed.events").register(meterRegistry);
+        this.dropped = Counter.builder("review_feed.dropped").register(meterRegistry);
+        this.replayed = Counter.builder("review_feed.resumes").tag("result", "replayed").register(meterRegistry);
+        this.reset = Counter.builder("review_feed.resumes").tag("result", "reset").register(meterRegistry);
+    }
+
+    // pokemonId null for every review; lastEventId is the Last-Event-ID header, if any
+    public ReviewStreamEmitter subscribe(Integer pokemonId, String lastEventId) {
+        ReviewStreamEmitter emitter = new ReviewStreamEmitter(timeoutMillis);
+        subscribe(emitter, pokemonId, lastEventId);
+        return emitter;
+    }
+
+    Subscriber subscribe(ReviewStreamEmitter emitter, Integer pokemonId, String lastEventId) {
+        Subscriber subscriber = new Subscriber(emitter, pokemonId, bufferSize);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        // the response headers go out with the first write, so make one straight away
+        subscriber.offer(HEARTBEAT);
+        synchronized (this) {
+            Long lastId = parse(lastEventId);
+            if (lastId != null) {
+                replay(subscriber, lastId);
+            }
+            if (pokemonId == null) {
+                unfiltered.add(subscriber);
+            } else {
+                byPokemon.computeIfAbsent(pokemonId, id -> new HashSet<>()).add(subscriber);
+            }
+            subscribers.add(subscriber);
+        }
+        schedule(subscriber);
+        return subscriber;
+    }
+
+    // Type is CREATED, UPDATED, DELETED or POKEMON_DELETED. Inside a transaction the event waits for the commit (and is never sent on rollback).
+    public void publish(String type, int pokemonId, int reviewId, ReviewDto review) {
+        ReviewEventDto event = ReviewEventDto.builder().type(type).pokemonId(pokemonId).reviewId(reviewId).review(review).build();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publishNow(event);
+                }
+            });
+        } else {
+            publishNow(event);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.review-feed.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.isEmpty() && subscriber.offer(HEARTBEAT)) {
+                schedule(subscriber);
+            }
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void destroy() {
+        dispatcher.shutdownNow();
+    }
+
+    private void publishNow(ReviewEventDto event) {
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            log.warn("Could not render review event for review {}", event.getReviewId(), e);
+            return;
+        }
+        List<Subscriber> behind = new ArrayList<>();
+        synchronized (this) {
+            long id = ++sequence;
+            Frame frame = new Frame(id, event.getPokemonId(), SseEmitter.event().id(Long.toString(id))
+                    .name("review." + event.getType().toLowerCase(Locale.ROOT)).data(data, UTF8_TEXT));
+            history[(int) (id % history.length)] = frame;
+            deliver(unfiltered, frame, behind);
+            deliver(byPokemon.get(event.getPokemonId()), frame, behind);
+            for (Subscriber subscriber : behind) {
+                remove(subscriber);
+                schedule(subscriber);
+            }
+        }
+        published.increment();
+        dropped.increment(behind.size());
+    }
+
+    private void deliver(Set<Subscriber> targets, Frame frame, List<Subscriber> behind) {
+        if (targets == null) {
+            return;
+        }
+        for (Subscriber subscriber : targets) {
+            if (subscriber.offer(frame)) {
+                schedule(subscriber);
+            } else {
+                behind.add(subscriber);
+            }
+        }
+    }
+
+    // under the lock, before the subscriber is registered, so nothing is missed or sent twice between replay and live events
+    private void replay(Subscriber subscriber, long lastId) {
+        long oldest = Math.max(firstSequence, sequence - history.length + 1);
+        if (lastId > sequence || lastId + 1 < oldest) {
+            sendReset(subscriber);
+            return;
+        }
+        List<Frame> missed = new ArrayList<>();
+        for (long id = lastId + 1; id <= sequence; id++) {
+            Frame frame = history[(int) (id % history.length)];
+            if (subscriber.matches(frame)) {
+                missed.add(frame);
+            }
+        }
+        if (missed.size() >= bufferSize) {
+            sendReset(subscriber);
+            return;
+        }
+        missed.forEach(subscriber::offer);
+        replayed.increment();
+    }
+
+    // carries the current id, so the client's next reconnect resumes from here
+    private void sendReset(Subscriber subscriber) {
+        subscriber.offer(new Frame(sequence, -1, SseEmitter.event().id(Long.toString(sequence)).name("reset")
+                .data("Missed events are no longer available, reload", UTF8_TEXT)));
+        reset.increment();
+    }
+
+    private synchronized void remove(Subscriber subscriber) {
+        subscriber.closed = true;
+        if (!subscribers.remove(subscriber)) {
+            return;
+        }
+        if (subscriber.pokemonId == null) {
+            unfiltered.remove(subscriber);
+        } else {
+            Set<Subscriber> forPokemon = byPokemon.get(subscriber.pokemonId);
+            if (forPokemon != null && forPokemon.remove(subscriber) && forPokemon.isEmpty()) {
+                byPokemon.remove(subscriber.pokemonId);
+            }
+        }
+    }
+
+    // at most one drain per subscriber is queued or running, so its events go out in order
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            dispatcher.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            Frame frame;
+            while (!subscriber.closed && (frame = subscriber.poll()) != null) {
+                subscriber.emitter.send(frame.parts);
+            }
+        } catch (IOException | IllegalStateException e) {
+            // the client went away, or the request already completed
+            remove(subscriber);
+        } finally {
+            subscriber.scheduled.set(false);
+        }
+        if (subscriber.closed) {
+            subscriber.complete();
+        } else if (!subscriber.isEmpty()) {
+            schedule(subscriber);
+        }
+    }
+
+    private static Long parse(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // An event rendered once and written as is to every subscriber
+    static final class Frame {
+        private final long id;
+        private final int pokemonId;
+        private final Set<ResponseBodyEmitter.DataWithMediaType> parts;
+
+        private Frame(long id, int pokemonId, SseEmitter.SseEventBuilder event) {
+            this.id = id;
+            this.pokemonId = pokemonId;
+            this.parts = event.build();
+        }
+
+        long getId() {
+            return id;
+        }
+    }
+
+    // The pending queue is unbounded but counted, so an idle subscriber costs no preallocated buffer
+    static final class Subscriber {
+        private final ReviewStreamEmitter emitter;
+        private final Integer pokemonId;
+        private final int capacity;
+        private final Queue<Frame> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscriber(ReviewStreamEmitter emitter, Integer pokemonId, int capacity) {
+            this.emitter = emitter;
+            this.pokemonId = pokemonId;
+            this.capacity = capacity;
+        }
+
+        boolean isClosed() {
+            return closed;
+        }
+
+        private boolean matches(Frame frame) {
+            return pokemonId == null || pokemonId == frame.pokemonId;
+        }
+
+        private boolean offer(Frame frame) {
+            if (size.incrementAndGet() > capacity) {
+                size.decrementAndGet();
+                return false;
+            }
+            pending.offer(frame);
+            return true;
+        }
+
+        private Frame poll() {
+            Frame frame = pending.poll();
+            if (frame != null) {
+                size.decrementAndGet();
+            }
+            return frame;
+        }
+
+        private boolean isEmpty() {
+            return pending.isEmpty();
+        }
+
+        private void complete() {
+            if (completed.compareAndSet(false, true)) {
+                try {
+                    emitter.complete();
+                } catch (IllegalStateException e) {
+                    // already completed by the container
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.pokemonreview.api.feed;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+
+// The response of one review stream. ReviewFeed renders every event once (see ReviewFeed.Frame), so unlike an
+// SseEmitter this takes the rendered parts and writes them as they are; the content type is the same.
+public class ReviewStreamEmitter extends ResponseBodyEmitter {
+
+    public ReviewStreamEmitter() {
+    }
+
+    public ReviewStreamEmitter(Long timeout) {
+        super(timeout);
+    }
+
+    @Override
+    protected void extendResponse(ServerHttpResponse outputMessage) {
+        super.extendResponse(outputMessage);
+        HttpHeaders headers = outputMessage.getHeaders();
+        if (headers.getContentType() == null) {
+            headers.setContentType(MediaType.TEXT_EVENT_STREAM);
+        }
+    }
+
+    // the parts of one event, written together
+    public synchronized void send(Set<DataWithMediaType> frame) throws IOException {
+        for (DataWithMediaType part : frame) {
+            send(part.getData(), part.getMediaType());
+        }
+    }
+}
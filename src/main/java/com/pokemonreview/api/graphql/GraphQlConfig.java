@@ -0,0 +1,62 @@
+package com.pokemonreview.api.graphql;
+
+import graphql.analysis.FieldComplexityEnvironment;
+import graphql.analysis.MaxQueryComplexityInstrumentation;
+import graphql.analysis.MaxQueryDepthInstrumentation;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.graphql.GraphQlSourceBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Collection;
+
+// Limits that reject a query before any data fetcher runs, so one request cannot turn into an unbounded
+// amount of database work; and the document cache (see PersistedQueries).
+@Configuration
+public class GraphQlConfig {
+
+    @Bean
+    public MaxQueryDepthInstrumentation maxQueryDepthInstrumentation(@Value("${app.graphql.max-depth:8}") int maxDepth) {
+        return new MaxQueryDepthInstrumentation(maxDepth);
+    }
+
+    @Bean
+    public MaxQueryComplexityInstrumentation maxQueryComplexityInstrumentation(
+            @Value("${app.graphql.max-complexity:1000}") int maxComplexity) {
+        return new MaxQueryComplexityInstrumentation(maxComplexity, GraphQlConfig::fieldComplexity);
+    }
+
+    @Bean
+    public GraphQlSourceBuilderCustomizer persistedQueriesCustomizer(
+            @Value("${app.graphql.persisted-queries.max-entries:1000}") int maxEntries, MeterRegistry meterRegistry) {
+        PersistedQueries persistedQueries = new PersistedQueries(maxEntries, meterRegistry);
+        return builder -> builder.configureGraphQl(graphQl -> graphQl.preparsedDocumentProvider(persistedQueries));
+    }
+
+    // A field costs 1 plus its selection; a list field its selection once per element it can return.
+    static int fieldComplexity(FieldComplexityEnvironment environment, int childComplexity) {
+        long elements = 1;
+        String field = environment.getParentType().getName() + "." + environment.getFieldDefinition().getName();
+        switch (field) {
+            case "Query.pokemons":
+                elements = argument(environment, "pageSize", 10);
+                break;
+            case "Query.pokemonsByIds":
+                Object ids = environment.getArguments().get("ids");
+                elements = ids instanceof Collection ? ((Collection<?>) ids).size() : 1;
+                break;
+            case "Pokemon.reviews":
+                elements = argument(environment, "limit", 10);
+                break;
+            default:
+                break;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, 1 + Math.max(0, elements) * childComplexity);
+    }
+
+    private static long argument(FieldComplexityEnvironment environment, String name, int defaultValue) {
+        Object value = environment.getArguments().get(name);
+        return value instanceof Integer ? (Integer) value : defaultValue;
+    }
+}
@@ -0,0 +1,35 @@
+package com.pokemonreview.api.graphql;
+
+import com.pokemonreview.api.exceptions.PokemonNotFoundException;
+import com.pokemonreview.api.exceptions.ReviewNotFoundException;
+import graphql.GraphQLError;
+import graphql.GraphqlErrorBuilder;
+import graphql.schema.DataFetchingEnvironment;
+import org.springframework.graphql.execution.DataFetcherExceptionResolverAdapter;
+import org.springframework.graphql.execution.ErrorType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+// The GraphQL counterpart of GlobalExceptionHandler: the same exceptions become errors with the
+// classification a client can act on, instead of INTERNAL_ERROR. Anything else stays INTERNAL_ERROR.
+@Component
+public class GraphQlExceptionResolver extends DataFetcherExceptionResolverAdapter {
+
+    @Override
+    protected GraphQLError resolveToSingleError(Throwable ex, DataFetchingEnvironment environment) {
+        ErrorType errorType;
+        String message = ex.getMessage();
+        if (ex instanceof PokemonNotFoundException || ex instanceof ReviewNotFoundException) {
+            errorType = ErrorType.NOT_FOUND;
+        } else if (ex instanceof ResponseStatusException && ((ResponseStatusException) ex).getStatus().is4xxClientError()) {
+            errorType = ErrorType.BAD_REQUEST;
+            message = ((ResponseStatusException) ex).getReason();
+        } else if (ex instanceof IllegalArgumentException) {
+            // e.g. a pageSize below 1
+            errorType = ErrorType.BAD_REQUEST;
+        } else {
+            return null;
+        }
+        return GraphqlErrorBuilder.newError(environment).errorType(errorType).message(message).build();
+    }
+}
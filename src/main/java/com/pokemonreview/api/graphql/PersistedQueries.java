@@ -0,0 +1,88 @@
+package com.pokemonreview.api.graphql;
+
+import graphql.ExecutionInput;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.persisted.ApolloPersistedQuerySupport;
+import graphql.execution.preparsed.persisted.PersistedQueryCache;
+import graphql.execution.preparsed.persisted.PersistedQueryCacheMiss;
+import graphql.execution.preparsed.persisted.PersistedQueryNotFound;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+// Apollo-style persisted queries: a client sends the sha256 of its query in extensions.persistedQuery.sha256Hash
+// and the text "PersistedQueryMarker" in place of the query; only after a PersistedQueryNotFound error does it
+// send the full text once, which is checked against the hash. A request without a hash is keyed by the hash of its
+// text, so a repeated plain query skips parsing and validation too. Depth and complexity are checked on every
+// execution, cached or not.
+// The last max-entries documents are kept, least recently used out first.
+public class PersistedQueries extends ApolloPersistedQuerySupport {
+
+    public PersistedQueries(int maxEntries, MeterRegistry meterRegistry) {
+        super(new Cache(maxEntries, meterRegistry));
+    }
+
+    @Override
+    protected Optional<Object> getPersistedQueryId(ExecutionInput executionInput) {
+        Optional<Object> id = super.getPersistedQueryId(executionInput);
+        return id.isPresent() ? id : Optional.of(sha256(executionInput.getQuery()));
+    }
+
+    static String sha256(String query) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(query.getBytes(StandardCharsets.UTF_8));
+            return String.format("%064x", new BigInteger(1, digest));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Cache implements PersistedQueryCache {
+        private final Map<Object, PreparsedDocumentEntry> documents;
+        private final Counter hits;
+        private final Counter misses;
+
+        private Cache(int maxEntries, MeterRegistry meterRegistry) {
+            this.documents = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Object, PreparsedDocumentEntry> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+            this.hits = Counter.builder("graphql.documents").tag("result", "hit").register(meterRegistry);
+            this.misses = Counter.builder("graphql.documents").tag("result", "miss").register(meterRegistry);
+        }
+
+        @Override
+        public PreparsedDocumentEntry getPersistedQueryDocument(Object persistedQueryId, ExecutionInput executionInput,
+                                                                PersistedQueryCacheMiss onCacheMiss) throws PersistedQueryNotFound {
+            PreparsedDocumentEntry entry;
+            synchronized (documents) {
+                entry = documents.get(persistedQueryId);
+            }
+            if (entry != null) {
+                hits.increment();
+                return entry;
+            }
+            String query = executionInput.getQuery();
+            if (query == null || query.isBlank() || PersistedQuerySupport.PERSISTED_QUERY_MARKER.equals(query)) {
+                throw new PersistedQueryNotFound(persistedQueryId);
+            }
+            misses.increment();
+            // parsed outside the lock; two first requests for the same query both parse it
+            entry = onCacheMiss.apply(query);
+            synchronized (documents) {
+                documents.put(persistedQueryId, entry);
+            }
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.pokemonreview.api.graphql;
+
+import com.pokemonreview.api.dto.BatchRequestDto;
+import com.pokemonreview.api.dto.BatchResponse;
+import com.pokemonreview.api.dto.PokemonDto;
+import com.pokemonreview.api.dto.PokemonResponse;
+import com.pokemonreview.api.dto.ReviewDto;
+import com.pokemonreview.api.dto.ReviewStatsDto;
+import com.pokemonreview.api.service.PokemonService;
+import com.pokemonreview.api.service.ReviewService;
+import graphql.schema.DataFetchingEnvironment;
+import lombok.Value;
+import org.dataloader.DataLoader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.BatchMapping;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.method.annotation.SchemaMapping;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+// Nested fields never query per Pokemon: reviews and reviewStats of every Pokemon resolved at one level of the
+// query are collected and loaded together once that level is done, so a page with both costs its own statements
+// plus one for each, whatever the page size.
+@Controller
+public class PokemonGraphQlController {
+    static final String REVIEWS_LOADER = "reviews";
+    // same cap as ?expand=reviews
+    private static final int MAX_REVIEWS = 100;
+
+    private PokemonService pokemonService;
+    private ReviewService reviewService;
+
+    @Autowired
+    public PokemonGraphQlController(PokemonService pokemonService, ReviewService reviewService, BatchLoaderRegistry batchLoaderRegistry) {
+        this.pokemonService = pokemonService;
+        this.reviewService = reviewService;
+        // @BatchMapping cannot take field arguments, so reviews(limit) goes through a loader keyed by both
+        batchLoaderRegistry.<ReviewsKey, List<ReviewDto>>forName(REVIEWS_LOADER)
+                .registerMappedBatchLoader((keys, environment) -> Mono.fromSupplier(() -> loadReviews(keys)));
+    }
+
+    @QueryMapping
+    public PokemonResponse pokemons(@Argument int pageNo, @Argument int pageSize, @Argument String type) {
+        return type != null ? pokemonService.getPokemonByType(type, pageNo, pageSize) : pokemonService.getAllPokemon(pageNo, pageSize);
+    }
+
+    @QueryMapping
+    public PokemonDto pokemon(@Argument int id) {
+        return pokemonService.getPokemonById(id);
+    }
+
+    @QueryMapping
+    public BatchResponse<PokemonDto> pokemonsByIds(@Argument List<Integer> ids) {
+        return pokemonService.getPokemonsByIds(BatchRequestDto.checkSize(ids));
+    }
+
+    @SchemaMapping(typeName = "Pokemon")
+    public CompletableFuture<List<ReviewDto>> reviews(PokemonDto pokemon, @Argument int limit, DataFetchingEnvironment environment) {
+        DataLoader<ReviewsKey, List<ReviewDto>> loader = environment.getDataLoader(REVIEWS_LOADER);
+        return loader.load(new ReviewsKey(pokemon.getId(), Math.max(0, Math.min(limit, MAX_REVIEWS))));
+    }
+
+    @BatchMapping(typeName = "Pokemon")
+    public List<ReviewStatsDto> reviewStats(List<PokemonDto> pokemons) {
+        Map<Integer, ReviewStatsDto> stats = reviewService.getReviewStatsByPokemonIds(
+                pokemons.stream().map(PokemonDto::getId).collect(Collectors.toSet()));
+        return pokemons.stream().map(pokemon -> stats.get(pokemon.getId())).collect(Collectors.toList());
+    }
+
+    // one statement per distinct limit, which is one for a query that asks for reviews once
+    private Map<ReviewsKey, List<ReviewDto>> loadReviews(Set<ReviewsKey> keys) {
+        Map<Integer, List<Integer>> pokemonIdsByLimit = keys.stream().collect(Collectors.groupingBy(ReviewsKey::getLimit,
+                Collectors.mapping(ReviewsKey::getPokemonId, Collectors.toList())));
+        Map<ReviewsKey, List<ReviewDto>> reviews = new HashMap<>();
+        pokemonIdsByLimit.forEach((limit, pokemonIds) -> reviewService.getReviewsByPokemonIds(pokemonIds, limit)
+                .forEach((pokemonId, list) -> reviews.put(new ReviewsKey(pokemonId, limit), list)));
+        return reviews;
+    }
+
+    @Value
+    static class ReviewsKey {
+        int pokemonId;
+        int limit;
+    }
+}
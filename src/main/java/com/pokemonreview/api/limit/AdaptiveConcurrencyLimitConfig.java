@@ -0,0 +1,32 @@
+package com.pokemonreview.api.limit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(name = "app.concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class AdaptiveConcurrencyLimitConfig {
+
+    // added to the security chain by SecurityConfig
+    @Bean
+    public AdaptiveConcurrencyLimitFilter adaptiveConcurrencyLimitFilter(MeterRegistry meterRegistry,
+                                                                         @Value("${app.concurrency-limit.initial-limit:20}") int initialLimit,
+                                                                         @Value("${app.concurrency-limit.min-limit:4}") int minLimit,
+                                                                         @Value("${app.concurrency-limit.max-limit:200}") int maxLimit,
+                                                                         @Value("${app.concurrency-limit.smoothing:0.2}") double smoothing,
+                                                                         @Value("${app.concurrency-limit.max-routes:64}") int maxRoutes) {
+        return new AdaptiveConcurrencyLimitFilter(meterRegistry, initialLimit, minLimit, maxLimit, smoothing, maxRoutes);
+    }
+
+    // and only there, not a second time in the servlet filter chain
+    @Bean
+    public FilterRegistrationBean<AdaptiveConcurrencyLimitFilter> adaptiveConcurrencyLimitFilterRegistration(AdaptiveConcurrencyLimitFilter filter) {
+        FilterRegistrationBean<AdaptiveConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+}
@@ -0,0 +1,188 @@
+package com.pokemonreview.api.limit;
+
+import com.pokemonreview.api.deadline.RequestDeadline;
+import com.pokemonreview.api.exceptions.CachedErrorBody;
+import com.pokemonreview.api.feed.ReviewFeed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Sheds /api requests above each route's AdaptiveLimit with 503 before they reach the services, so when the
+// database slows down the excess is turned away instead of piling up on the connection pool.
+// Runs inside the security chain right after JWTAuthenticationFilter (see SecurityConfig), for authenticated
+// requests only: anonymous ones are either turned away by the authorization rules right after, or go to the
+// public /api/auth routes, which have their own bulkhead and rate limits.
+//
+// A route is a handler mapping (method plus the controller's path pattern), which is only known once the
+// request has been dispatched. Requests whose path (ids folded, see key) has not yet been seen to reach a
+// handler method share the OTHER limit; after the first one has, the path is admitted against its route. Paths
+// that never reach a handler (typos, scans) therefore never get a limit or meters of their own.
+//
+// Long-lived async requests are not limited: the review stream is left out altogether (its subscribers hold no
+// thread and are bounded by ReviewFeed), and any other request that goes async gives its slot back when the
+// first dispatch returns, without a latency sample, since that dispatch is not the response.
+public class AdaptiveConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    // requests whose route is not known yet, or beyond max-routes distinct routes, share one limit
+    static final String OTHER_ROUTE = "OTHER";
+    // folded request paths remembered per route; paths beyond this stay on OTHER until dispatched again
+    private static final int MAX_RESOLVED_PATHS = 4096;
+
+    private final MeterRegistry meterRegistry;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final int maxRoutes;
+    private final ConcurrentHashMap<String, Route> routes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Route> resolvedPaths = new ConcurrentHashMap<>();
+    private final Route otherRoute;
+    private final CachedErrorBody unavailableBody = new CachedErrorBody(HttpStatus.SERVICE_UNAVAILABLE);
+
+    public AdaptiveConcurrencyLimitFilter(MeterRegistry meterRegistry, int initialLimit, int minLimit, int maxLimit,
+                                          double smoothing, int maxRoutes) {
+        this.meterRegistry = meterRegistry;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.maxRoutes = maxRoutes;
+        this.otherRoute = newRoute(OTHER_ROUTE);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return !path.startsWith("/api/") || path.equals(ReviewFeed.STREAM_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!authenticated()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String path = key(request.getMethod(), request.getRequestURI());
+        Route route = resolvedPaths.getOrDefault(path, otherRoute);
+        AdaptiveLimit limit = route.limit;
+        int inFlight = limit.getInFlight();
+        if (!limit.tryAcquire()) {
+            route.rejected.increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            unavailableBody.write(response, "Server is at capacity");
+            return;
+        }
+        long start = System.nanoTime();
+        boolean dropped = true;
+        try {
+            filterChain.doFilter(request, response);
+            dropped = response.getStatus() >= 500 && response.getStatus() != HttpStatus.GATEWAY_TIMEOUT.value();
+        } finally {
+            // A request that ran out its deadline (answered 504 by DeadlineFilter) is a slow response, not a
+            // failure: its latency is a sample like any other, and the gradient decides whether to back off.
+            if (request.isAsyncStarted()) {
+                limit.onReleased();
+            } else if (dropped && !RequestDeadline.expired()) {
+                limit.onDropped();
+            } else {
+                limit.onComplete(System.nanoTime() - start, inFlight + 1);
+            }
+            if (route == otherRoute) {
+                resolve(path, request);
+            }
+        }
+    }
+
+    // pattern as in the handler mapping, e.g. ("GET", "/api/pokemons/{pokemonId}/reviews")
+    AdaptiveLimit limit(String method, String pattern) {
+        Route route = routes.get(method + ' ' + pattern);
+        return route != null ? route.limit : null;
+    }
+
+    private static boolean authenticated() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken);
+    }
+
+    // Remembers the route of a path once a request for it has been dispatched to a handler method. The static
+    // resource handler matches every path ("/**") and answers the 404s, so it does not count.
+    private void resolve(String path, HttpServletRequest request) {
+        Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (handler == null || pattern == null || handler instanceof ResourceHttpRequestHandler
+                || resolvedPaths.size() >= MAX_RESOLVED_PATHS) {
+            return;
+        }
+        String key = request.getMethod() + ' ' + pattern;
+        Route route = routes.get(key);
+        if (route == null) {
+            if (routes.size() >= maxRoutes) {
+                return;
+            }
+            route = routes.computeIfAbsent(key, this::newRoute);
+        }
+        resolvedPaths.putIfAbsent(path, route);
+    }
+
+    private Route newRoute(String key) {
+        AdaptiveLimit limit = new AdaptiveLimit(initialLimit, minLimit, maxLimit, smoothing);
+        Gauge.builder("concurrency_limit.limit", limit, AdaptiveLimit::getLimit).tag("route", key).register(meterRegistry);
+        Gauge.builder("concurrency_limit.in_flight", limit, AdaptiveLimit::getInFlight).tag("route", key).register(meterRegistry);
+        Counter rejected = Counter.builder("concurrency_limit.rejected").tag("route", key).register(meterRegistry);
+        return new Route(limit, rejected);
+    }
+
+    // The handler's pattern is not known before dispatch, so requests are first told apart by their path with
+    // ids folded: GET /api/pokemons/42/reviews -> GET /api/pokemons/{id}/reviews
+    static String key(String method, String path) {
+        StringBuilder key = new StringBuilder(method).append(' ');
+        int start = 1;
+        while (start <= path.length()) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = path.length();
+            }
+            key.append('/');
+            String segment = path.substring(start, end);
+            key.append(containsDigit(segment) ? "{id}" : segment);
+            start = end + 1;
+        }
+        return key.toString();
+    }
+
+    private static boolean containsDigit(String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            if (Character.isDigit(segment.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Route {
+        private final AdaptiveLimit limit;
+        private final Counter rejected;
+
+        private Route(AdaptiveLimit limit, Counter rejected) {
+            this.limit = limit;
+            this.rejected = rejected;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.pokemonreview.api.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// A concurrency limit for one route that follows the latency it measures (a gradient limiter in the style of
+// Netflix's concurrency-limits). The current latency is a short moving average of the response time; the no-load
+// latency is the fastest response seen over the last two windows of samples, so it rises when the route
+// genuinely gets slower instead of staying at an old minimum. The gradient compares the two, allowing TOLERANCE
+// for normal variance, and drops below 1 once requests start queueing downstream:
+//
+//   gradient = min(1, TOLERANCE * noLoadRtt / rtt)
+//   newLimit = limit * gradient + sqrt(limit)
+//
+// so the limit grows by roughly its square root while latency is flat and shrinks in proportion to the
+// slowdown once it is not. Failed requests (5xx, exceptions) cut the limit multiplicatively, as in AIMD.
+public class AdaptiveLimit {
+
+    // samples the moving average roughly covers
+    private static final int SHORT_WINDOW = 10;
+    // samples per no-load window
+    private static final int BASELINE_WINDOW = 100;
+    private static final double TOLERANCE = 1.5;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    // guarded by this
+    private double shortRttNanos;
+    private long previousWindowMinRtt = Long.MAX_VALUE;
+    private long windowMinRtt = Long.MAX_VALUE;
+    private int windowSamples;
+
+    public AdaptiveLimit(int initialLimit, int minLimit, int maxLimit, double smoothing) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+    }
+
+    // true when the caller may go ahead; it must then call onComplete (or onDropped) when done
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // inFlightAtStart: how many requests were running when this one was let in
+    public void onComplete(long rttNanos, int inFlightAtStart) {
+        inFlight.decrementAndGet();
+        update(rttNanos, inFlightAtStart);
+    }
+
+    // gives the slot back without a sample, for requests whose latency says nothing about the backend's
+    public void onReleased() {
+        inFlight.decrementAndGet();
+    }
+
+    public void onDropped() {
+        inFlight.decrementAndGet();
+        synchronized (this) {
+            limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void update(long rttNanos, int inFlightAtStart) {
+        shortRttNanos = shortRttNanos == 0 ? rttNanos : shortRttNanos + (rttNanos - shortRttNanos) / SHORT_WINDOW;
+        windowMinRtt = Math.min(windowMinRtt, rttNanos);
+        if (++windowSamples == BASELINE_WINDOW) {
+            previousWindowMinRtt = windowMinRtt;
+            windowMinRtt = Long.MAX_VALUE;
+            windowSamples = 0;
+        }
+
+        double current = limit;
+        // while less than half the limit is in use the measurements say nothing about a higher one
+        if (inFlightAtStart < current / 2) {
+            return;
+        }
+        long noLoadRtt = Math.min(previousWindowMinRtt, windowMinRtt);
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * noLoadRtt / shortRttNanos));
+        double newLimit = current * gradient + Math.sqrt(current);
+        newLimit = current * (1 - smoothing) + newLimit * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+}
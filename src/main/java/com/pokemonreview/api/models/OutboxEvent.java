@@ -0,0 +1,35 @@
+package com.pokemonreview.api.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.util.Date;
+
+// A change waiting to be relayed into the change log. Written by Outbox in the transaction that made the change
+// and deleted by OutboxRelay once it is in the log, so the table stays small.
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "outbox_event")
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @Column(nullable = false)
+    private String eventType;
+
+    private int aggregateId;
+
+    // JSON; null for deletions of a Pokemon
+    @Column(length = 4000)
+    private String payload;
+
+    @Column(nullable = false)
+    private Date createdAt;
+}
@@ -3,7 +3,10 @@ package com.pokemonreview.api.models;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -21,6 +24,14 @@ public class Pokemon {
     private String name;
     private String type;
 
+    // optimistic locking: bumped on every update, which only applies if the row still has the version read
+    @Version
+    @ColumnDefault("0")
+    private int version;
+
+    // generated toString/equals/hashCode must not walk the association and trigger a lazy load
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @OneToMany(mappedBy = "pokemon", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Review> reviews = new ArrayList<Review>();
 }
@@ -0,0 +1,29 @@
+package com.pokemonreview.api.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.util.Date;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "refresh_tokens")
+public class RefreshToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private int id;
+
+    // SHA-256 of the token handed to the client; the token itself is never stored
+    @Column(unique = true, nullable = false, length = 64)
+    private String tokenHash;
+
+    private String username;
+    private Date expiresAt;
+    private boolean revoked;
+}
@@ -3,7 +3,10 @@ package com.pokemonreview.api.models;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
 
 import javax.persistence.*;
 
@@ -12,6 +15,8 @@ import javax.persistence.*;
 @NoArgsConstructor
 @Builder
 @Entity
+// reviews are looked up and bulk deleted by pokemon; PostgreSQL does not index foreign keys by itself
+@Table(indexes = @Index(name = "idx_review_pokemon_id", columnList = "pokemon_id"))
 public class Review {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -20,6 +25,14 @@ public class Review {
     private String content;
     private int stars;
 
+    // see Pokemon.version
+    @Version
+    @ColumnDefault("0")
+    private int version;
+
+    // generated toString/equals/hashCode must not walk the association and trigger a lazy load
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "pokemon_id")
     private Pokemon pokemon;
@@ -0,0 +1,286 @@
+package com.pokemonreview.api.outbox;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Append-only log of records addressed by offset (0, 1, 2, ...), stored as fixed-size segment files named after
+// the offset of their first record and memory-mapped: an append is a copy into the page cache and a read is a copy
+// out of it, with no system call either way. flush() forces the active segment to disk.
+// A record is [length int][crc32 int][key long][payload]; the crc covers key and payload. The key is the caller's
+// (the outbox id for OutboxRelay). On open, every segment is scanned: the first record that is cut short or fails
+// its crc ends the log, and the rest of that segment is zeroed so it cannot resurface. Only the newest max-segments
+// segments are kept; reads below the earliest offset start at the earliest.
+// One writer (appends are synchronized), any number of readers. One instance per directory, enforced with a lock file.
+public class ChangeLog implements Closeable {
+
+    static final int HEADER_BYTES = 16;
+    // one index entry per this many records; a read scans at most this many headers to find its start
+    private static final int INDEX_INTERVAL = 64;
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private Segment active;
+    // published after each append; readers never look at or past it
+    private volatile long endOffset;
+
+    public ChangeLog(Path directory, int segmentBytes, int maxSegments) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+        Files.createDirectories(directory);
+        this.lockChannel = FileChannel.open(directory.resolve(".lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock acquired;
+        try {
+            acquired = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // held by another instance in this JVM
+            acquired = null;
+        }
+        this.lock = acquired;
+        if (lock == null) {
+            lockChannel.close();
+            throw new IllegalStateException("Change log " + directory + " is in use by another process");
+        }
+        List<Long> baseOffsets = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString()).filter(name -> name.endsWith(SUFFIX))
+                    .forEach(name -> baseOffsets.add(Long.parseLong(name.substring(0, name.length() - SUFFIX.length()))));
+        }
+        baseOffsets.sort(null);
+        for (long baseOffset : baseOffsets) {
+            Segment segment = Segment.open(path(baseOffset), baseOffset, segmentBytes);
+            segments.put(baseOffset, segment);
+            active = segment;
+        }
+        if (active == null) {
+            active = Segment.open(path(0), 0, segmentBytes);
+            segments.put(0L, active);
+        }
+        endOffset = active.baseOffset + active.count;
+    }
+
+    // Returns the offset of the record. Not durable until flush().
+    public synchronized long append(long key, byte[] payload) {
+        int length = HEADER_BYTES + payload.length;
+        if (length > segmentBytes) {
+            throw new IllegalArgumentException("Record of " + payload.length + " bytes does not fit a segment of " + segmentBytes);
+        }
+        if (active.position + length > active.buffer.capacity()) {
+            roll();
+        }
+        CRC32 crc = new CRC32();
+        MappedByteBuffer buffer = active.buffer;
+        int position = active.position;
+        buffer.putLong(position + 8, key);
+        buffer.put(position + HEADER_BYTES, payload);
+        crc.update(buffer.slice(position + 8, length - 8));
+        buffer.putInt(position + 4, (int) crc.getValue());
+        buffer.putInt(position, payload.length);
+        long offset = endOffset;
+        active.appended(length);
+        endOffset = offset + 1;
+        return offset;
+    }
+
+    public synchronized void flush() {
+        active.buffer.force();
+    }
+
+    // up to maxRecords records from fromOffset on (or from the earliest offset, if that is later)
+    public List<Record> read(long fromOffset, int maxRecords) {
+        long end = endOffset;
+        List<Record> records = new ArrayList<>(Math.max(0, (int) Math.min(maxRecords, end - fromOffset)));
+        long offset = Math.max(fromOffset, getEarliestOffset());
+        while (offset < end && records.size() < maxRecords) {
+            Map.Entry<Long, Segment> entry = segments.floorEntry(offset);
+            if (entry == null) {
+                // retention removed the segment meanwhile
+                offset = getEarliestOffset();
+                continue;
+            }
+            Segment segment = entry.getValue();
+            Long nextBase = segments.higherKey(segment.baseOffset);
+            long segmentEnd = nextBase != null ? Math.min(end, nextBase) : end;
+            int position = segment.positionOf(offset);
+            for (; offset < segmentEnd && records.size() < maxRecords; offset++) {
+                int length = segment.buffer.getInt(position);
+                byte[] payload = new byte[length];
+                segment.buffer.get(position + HEADER_BYTES, payload);
+                records.add(new Record(offset, segment.buffer.getLong(position + 8), payload));
+                position += HEADER_BYTES + length;
+            }
+        }
+        return records;
+    }
+
+    // keys of the last count records, oldest first
+    public List<Long> lastKeys(int count) {
+        List<Long> keys = new ArrayList<>();
+        long end = endOffset;
+        for (Record record : read(Math.max(0, end - count), count)) {
+            keys.add(record.getKey());
+        }
+        return keys;
+    }
+
+    public long getEarliestOffset() {
+        return segments.firstKey();
+    }
+
+    // the offset the next record will get
+    public long getEndOffset() {
+        return endOffset;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        active.buffer.force();
+        lock.release();
+        lockChannel.close();
+    }
+
+    private void roll() {
+        active.buffer.force();
+        Segment next;
+        try {
+            next = Segment.open(path(endOffset), endOffset, segmentBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        segments.put(next.baseOffset, next);
+        active = next;
+        while (segments.size() > maxSegments) {
+            Segment oldest = segments.pollFirstEntry().getValue();
+            try {
+                // readers still holding the mapping keep reading it; the file itself is gone
+                Files.deleteIfExists(path(oldest.baseOffset));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private Path path(long baseOffset) {
+        return directory.resolve(String.format("%020d%s", baseOffset, SUFFIX));
+    }
+
+    public static final class Record {
+        private final long offset;
+        private final long key;
+        private final byte[] payload;
+
+        Record(long offset, long key, byte[] payload) {
+            this.offset = offset;
+            this.key = key;
+            this.payload = payload;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public long getKey() {
+            return key;
+        }
+
+        public byte[] getPayload() {
+            return payload;
+        }
+    }
+
+    private static final class Segment {
+        private final long baseOffset;
+        private final MappedByteBuffer buffer;
+        // written by the appending thread only; readers go by ChangeLog.endOffset and the index
+        private int position;
+        private int count;
+        private volatile int[] index = new int[16];
+
+        private Segment(long baseOffset, MappedByteBuffer buffer) {
+            this.baseOffset = baseOffset;
+            this.buffer = buffer;
+        }
+
+        // The mapping outlives the channel. An existing file keeps its size, a new one gets segmentBytes.
+        private static Segment open(Path path, long baseOffset, int segmentBytes) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long size = channel.size() > 0 ? channel.size() : segmentBytes;
+                Segment segment = new Segment(baseOffset, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+                segment.recover();
+                return segment;
+            }
+        }
+
+        private void recover() {
+            boolean torn = false;
+            while (position + HEADER_BYTES <= buffer.capacity()) {
+                int length = buffer.getInt(position);
+                if (length == 0) {
+                    break;
+                }
+                if (length < 0 || position + HEADER_BYTES + length > buffer.capacity()) {
+                    torn = true;
+                    break;
+                }
+                CRC32 crc = new CRC32();
+                crc.update(buffer.slice(position + 8, length + 8));
+                if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                    torn = true;
+                    break;
+                }
+                appended(HEADER_BYTES + length);
+            }
+            if (torn) {
+                // Pages reach the disk in any order, so bytes of later records may have made it past the torn one.
+                // Zeroed, so a later append is never followed by stale bytes that look like a record.
+                byte[] zeros = new byte[8192];
+                for (int i = position; i < buffer.capacity(); i += zeros.length) {
+                    buffer.put(i, zeros, 0, Math.min(zeros.length, buffer.capacity() - i));
+                }
+            }
+        }
+
+        private void appended(int length) {
+            if (count % INDEX_INTERVAL == 0) {
+                int slot = count / INDEX_INTERVAL;
+                int[] current = index;
+                if (slot == current.length) {
+                    current = Arrays.copyOf(current, current.length * 2);
+                }
+                current[slot] = position;
+                index = current;
+            }
+            position += length;
+            count++;
+        }
+
+        private int positionOf(long offset) {
+            int relative = (int) (offset - baseOffset);
+            int position = index[relative / INDEX_INTERVAL];
+            for (int skip = relative % INDEX_INTERVAL; skip > 0; skip--) {
+                position += HEADER_BYTES + buffer.getInt(position);
+            }
+            return position;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.pokemonreview.api.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+// Records a change as an outbox_event row in the transaction that makes it, so the change and its event commit or
+// roll back together; OutboxRelay moves the rows into the change log afterwards. Plain JDBC inserts (batched for
+// bulk writes) rather than entities, so they add nothing to the persistence context and its flushes.
+// Nothing is recorded unless app.outbox.enabled=true: without a relay node to drain it the table would only grow.
+@Component
+public class Outbox {
+
+    public static final String POKEMON_CREATED = "pokemon.created";
+    public static final String POKEMON_UPDATED = "pokemon.updated";
+    public static final String POKEMON_DELETED = "pokemon.deleted";
+    public static final String REVIEW_CREATED = "review.created";
+    public static final String REVIEW_UPDATED = "review.updated";
+    public static final String REVIEW_DELETED = "review.deleted";
+
+    private static final String INSERT = "insert into outbox_event (event_type, aggregate_id, payload, created_at) values (?, ?, ?, ?)";
+
+    private JdbcTemplate jdbcTemplate;
+    private boolean enabled;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    public Outbox(JdbcTemplate jdbcTemplate, @Value("${app.outbox.enabled:false}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // payload is serialized to JSON and may be null
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(String eventType, int aggregateId, Object payload) {
+        if (!enabled) {
+            return;
+        }
+        jdbcTemplate.update(INSERT, eventType, aggregateId, toJson(payload), new Timestamp(System.currentTimeMillis()));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(List<Event> events) {
+        if (!enabled || events.isEmpty()) {
+            return;
+        }
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> rows = new ArrayList<>(events.size());
+        for (Event event : events) {
+            rows.add(new Object[]{event.eventType, event.aggregateId, toJson(event.payload), now});
+        }
+        jdbcTemplate.batchUpdate(INSERT, rows);
+    }
+
+    // also used by ReactiveOutbox, so both runtimes write the same payloads
+    String toJson(Object payload) {
+        if (payload == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Outbox payload is not serializable", e);
+        }
+    }
+
+    public static final class Event {
+        private final String eventType;
+        private final int aggregateId;
+        private final Object payload;
+
+        public Event(String eventType, int aggregateId, Object payload) {
+            this.eventType = eventType;
+            this.aggregateId = aggregateId;
+            this.payload = payload;
+        }
+    }
+}
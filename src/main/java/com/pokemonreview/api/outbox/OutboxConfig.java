@@ -0,0 +1,33 @@
+package com.pokemonreview.api.outbox;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+// The change log lives on the node that runs the relay, and only there: one relay per deployment, since two would
+// each take half of the events. The other nodes still write outbox rows and leave them to it.
+// Off unless app.outbox.relay.enabled=true, so a deployment has to name its relay node instead of getting one per node.
+@Configuration
+@ConditionalOnProperty(name = "app.outbox.relay.enabled", havingValue = "true")
+public class OutboxConfig {
+
+    @Bean(destroyMethod = "close")
+    public ChangeLog changeLog(@Value("${app.outbox.log-dir:data/changelog}") String directory,
+                               @Value("${app.outbox.segment-bytes:67108864}") int segmentBytes,
+                               @Value("${app.outbox.max-segments:16}") int maxSegments) throws IOException {
+        return new ChangeLog(Paths.get(directory), segmentBytes, maxSegments);
+    }
+
+    @Bean
+    public OutboxRelay outboxRelay(JdbcTemplate jdbcTemplate, ChangeLog changeLog,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.outbox.batch-size:500}") int batchSize) {
+        return new OutboxRelay(jdbcTemplate, changeLog, meterRegistry, batchSize);
+    }
+}
@@ -0,0 +1,117 @@
+package com.pokemonreview.api.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pokemonreview.api.dto.ChangeEventDto;
+import com.pokemonreview.api.models.OutboxEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Moves committed outbox rows into the change log: reads up to batch-size rows, appends them, forces the log to
+// disk, and only then deletes the rows. Rows are read lowest id first with no "after the last id" cursor, because
+// ids are handed out before commit and a lower one can commit after a higher one has been relayed; the log is in
+// relay order, which for a single aggregate is its commit order.
+// Delivery is at least once at the row level and deduplicated at the log: a crash between the append and the
+// delete leaves rows that are already in the log, so the keys of the last batch-size records are remembered at
+// startup (and every appended id until its row is deleted) and such rows are deleted without appending them again.
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private static final String SELECT = "select id, event_type, aggregate_id, payload, created_at from outbox_event order by id limit ?";
+    private static final RowMapper<OutboxEvent> ROW_MAPPER = (rs, rowNum) -> OutboxEvent.builder().id(rs.getLong(1))
+            .eventType(rs.getString(2)).aggregateId(rs.getInt(3)).payload(rs.getString(4)).createdAt(rs.getTimestamp(5)).build();
+
+    private JdbcTemplate jdbcTemplate;
+    private ChangeLog changeLog;
+    private int batchSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // appended to the log, row not deleted yet (as far as this process knows)
+    private final Set<Long> appended;
+
+    private final DistributionSummary batchSizes;
+    private final Counter relayed;
+    private final Counter duplicates;
+
+    public OutboxRelay(JdbcTemplate jdbcTemplate, ChangeLog changeLog, MeterRegistry meterRegistry, int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.changeLog = changeLog;
+        this.batchSize = batchSize;
+        this.appended = new HashSet<>(changeLog.lastKeys(batchSize));
+        this.batchSizes = DistributionSummary.builder("outbox_relay.batch_size").register(meterRegistry);
+        this.relayed = Counter.builder("outbox_relay.events").tag("result", "appended").register(meterRegistry);
+        this.duplicates = Counter.builder("outbox_relay.events").tag("result", "duplicate").register(meterRegistry);
+        Gauge.builder("change_log.end_offset", changeLog, ChangeLog::getEndOffset).register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.relay-interval-ms:200}")
+    public void scheduledRelay() {
+        try {
+            relay();
+        } catch (RuntimeException e) {
+            // the rows stay in the outbox and are picked up by the next run
+            log.error("Outbox relay failed", e);
+        }
+    }
+
+    // Relays batches until the outbox is empty; returns the number of rows taken out of it
+    public synchronized int relay() {
+        int total = 0;
+        int rows;
+        do {
+            rows = relayBatch();
+            total += rows;
+        } while (rows == batchSize);
+        return total;
+    }
+
+    private int relayBatch() {
+        List<OutboxEvent> rows = jdbcTemplate.query(SELECT, ROW_MAPPER, batchSize);
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        batchSizes.record(rows.size());
+        List<Object> ids = new ArrayList<>(rows.size());
+        StringBuilder delete = new StringBuilder("delete from outbox_event where id in (");
+        for (OutboxEvent row : rows) {
+            if (appended.add(row.getId())) {
+                changeLog.append(row.getId(), toEnvelope(row));
+                relayed.increment();
+            } else {
+                duplicates.increment();
+            }
+            delete.append(ids.isEmpty() ? "?" : ", ?");
+            ids.add(row.getId());
+        }
+        changeLog.flush();
+        // one statement, so one commit, for the whole batch
+        jdbcTemplate.update(delete.append(')').toString(), ids.toArray());
+        rows.forEach(row -> appended.remove(row.getId()));
+        return rows.size();
+    }
+
+    private byte[] toEnvelope(OutboxEvent row) {
+        ChangeEventDto event = ChangeEventDto.builder().id(row.getId()).type(row.getEventType())
+                .aggregateId(row.getAggregateId()).occurredAt(row.getCreatedAt().toInstant().toString())
+                .payload(row.getPayload()).build();
+        try {
+            return objectMapper.writeValueAsBytes(event);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.pokemonreview.api.outbox;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+// Outbox for the reactive runtime's R2DBC writes: the same outbox_event row, inserted through the caller's
+// connection. Only meaningful inside r2dbcTransactionalOperator (see R2dbcConfig), where it commits or rolls back
+// with the change; OutboxRelay picks the rows up like any others. Off along with Outbox (app.outbox.enabled).
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveOutbox {
+
+    private static final String INSERT = "insert into outbox_event (event_type, aggregate_id, payload, created_at) "
+            + "values (:eventType, :aggregateId, :payload, :createdAt)";
+
+    private DatabaseClient databaseClient;
+    private Outbox outbox;
+
+    @Autowired
+    public ReactiveOutbox(DatabaseClient databaseClient, Outbox outbox) {
+        this.databaseClient = databaseClient;
+        this.outbox = outbox;
+    }
+
+    // payload is serialized to JSON and may be null
+    public Mono<Void> record(String eventType, int aggregateId, Object payload) {
+        if (!outbox.isEnabled()) {
+            return Mono.empty();
+        }
+        String json = outbox.toJson(payload);
+        DatabaseClient.GenericExecuteSpec insert = databaseClient.sql(INSERT)
+                .bind("eventType", eventType)
+                .bind("aggregateId", aggregateId)
+                .bind("createdAt", LocalDateTime.now());
+        insert = json != null ? insert.bind("payload", json) : insert.bindNull("payload", String.class);
+        return insert.then();
+    }
+}
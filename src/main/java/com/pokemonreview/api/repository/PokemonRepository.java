@@ -1,10 +1,28 @@
 package com.pokemonreview.api.repository;
 
 import com.pokemonreview.api.models.Pokemon;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface PokemonRepository extends JpaRepository<Pokemon, Integer> {
     Optional<Pokemon> findByType(String type);
+
+    Page<Pokemon> findAllByType(String type, Pageable pageable);
+
+    // which of the given ids exist, in one statement
+    @Query("select p.id from Pokemon p where p.id in :ids")
+    List<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
+
+    // bypasses the cascade on Pokemon.reviews, which would load and delete every review one by one
+    @Modifying
+    @Query("delete from Pokemon p where p.id = :id")
+    int deletePokemonById(@Param("id") int id);
 }
@@ -0,0 +1,27 @@
+package com.pokemonreview.api.repository;
+
+import com.pokemonreview.api.models.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Date;
+import java.util.Optional;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Integer> {
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    // conditional update, so two concurrent refreshes with the same token cannot both succeed
+    @Modifying
+    @Query("update RefreshToken t set t.revoked = true where t.id = :id and t.revoked = false")
+    int revokeIfActive(@Param("id") int id);
+
+    @Modifying
+    @Query("update RefreshToken t set t.revoked = true where t.username = :username and t.revoked = false")
+    int revokeAllByUsername(@Param("username") String username);
+
+    @Modifying
+    @Query("delete from RefreshToken t where t.expiresAt < :now")
+    int deleteExpired(@Param("now") Date now);
+}
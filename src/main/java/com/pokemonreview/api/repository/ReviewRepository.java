@@ -2,10 +2,42 @@ package com.pokemonreview.api.repository;
 
 import com.pokemonreview.api.models.Review;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 
 public interface ReviewRepository extends JpaRepository<Review, Integer> {
+    // read-only on its own so that callers outside a service transaction still go to a replica when one is configured
+    @Transactional(readOnly = true)
     List<Review> findByPokemonId(int pokemonId);
+
+    // The first :limit reviews of each of the given Pokemon in one statement, for embedding reviews in a page.
+    // A join fetch cannot limit per Pokemon, and fetching the whole collection could mean thousands of rows each.
+    @Query(value = "select id, title, content, stars, version, pokemon_id from ("
+            + "select r.*, row_number() over (partition by r.pokemon_id order by r.id) as position "
+            + "from review r where r.pokemon_id in (:pokemonIds)) ranked "
+            + "where position <= :limit order by pokemon_id, id", nativeQuery = true)
+    List<Review> findFirstReviewsByPokemonIdIn(@Param("pokemonIds") Collection<Integer> pokemonIds, @Param("limit") int limit);
+
+    // count and average stars of each of the given Pokemon that has reviews, in one grouped statement
+    @Query("select r.pokemon.id as pokemonId, count(r) as count, avg(r.stars) as averageStars "
+            + "from Review r where r.pokemon.id in (:pokemonIds) group by r.pokemon.id")
+    List<ReviewStats> findStatsByPokemonIdIn(@Param("pokemonIds") Collection<Integer> pokemonIds);
+
+    // One set-based chunk of a bulk delete. Both PostgreSQL and H2 accept LIMIT in the subquery,
+    // which keeps each statement's row locks and WAL volume bounded.
+    @Modifying
+    @Query(value = "delete from review where id in (select id from review where pokemon_id = :pokemonId limit :limit)", nativeQuery = true)
+    int deleteChunkByPokemonId(@Param("pokemonId") int pokemonId, @Param("limit") int limit);
+
+    interface ReviewStats {
+        int getPokemonId();
+        long getCount();
+        double getAverageStars();
+    }
 }
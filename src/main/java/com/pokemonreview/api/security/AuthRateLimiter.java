@@ -0,0 +1,71 @@
+package com.pokemonreview.api.security;
+
+import com.pokemonreview.api.exceptions.RateLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+// Throttles /api/auth before any UserRepository lookup or BCrypt work happens,
+// per client IP and, for logins, per username as well.
+@Component
+public class AuthRateLimiter {
+
+    private TokenBucketRateLimiter ipLimiter;
+    private TokenBucketRateLimiter usernameLimiter;
+    private Counter ipRejections;
+    private Counter usernameRejections;
+
+    @Autowired
+    public AuthRateLimiter(@Value("${app.auth.rate-limit.ip.requests-per-minute:30}") int ipRequestsPerMinute,
+                           @Value("${app.auth.rate-limit.ip.burst:10}") int ipBurst,
+                           @Value("${app.auth.rate-limit.username.requests-per-minute:10}") int usernameRequestsPerMinute,
+                           @Value("${app.auth.rate-limit.username.burst:5}") int usernameBurst,
+                           @Value("${app.auth.rate-limit.max-keys:100000}") int maxKeys,
+                           MeterRegistry meterRegistry) {
+        this.ipLimiter = new TokenBucketRateLimiter(ipRequestsPerMinute, ipBurst, maxKeys);
+        this.usernameLimiter = new TokenBucketRateLimiter(usernameRequestsPerMinute, usernameBurst, maxKeys);
+        this.ipRejections = rejections(meterRegistry, "ip");
+        this.usernameRejections = rejections(meterRegistry, "username");
+        Gauge.builder("auth.rate_limit.keys", ipLimiter, TokenBucketRateLimiter::size).tag("key", "ip").register(meterRegistry);
+        Gauge.builder("auth.rate_limit.keys", usernameLimiter, TokenBucketRateLimiter::size).tag("key", "username").register(meterRegistry);
+    }
+
+    public void checkLogin(String clientIp, String username) {
+        checkClient(clientIp);
+        if (username != null) {
+            long waitNanos = usernameLimiter.tryAcquire(username);
+            if (waitNanos > 0) {
+                usernameRejections.increment();
+                throw new RateLimitExceededException("Too many login attempts for this user", retryAfterSeconds(waitNanos));
+            }
+        }
+    }
+
+    public void checkClient(String clientIp) {
+        long waitNanos = ipLimiter.tryAcquire(clientIp);
+        if (waitNanos > 0) {
+            ipRejections.increment();
+            throw new RateLimitExceededException("Too many requests from this client", retryAfterSeconds(waitNanos));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.rate-limit.eviction-interval-ms:30000}")
+    public void evictIdle() {
+        ipLimiter.evictIdle();
+        usernameLimiter.evictIdle();
+    }
+
+    private static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private static Counter rejections(MeterRegistry meterRegistry, String key) {
+        return Counter.builder("auth.rate_limit.rejected").tag("key", key).register(meterRegistry);
+    }
+}
@@ -1,17 +1,15 @@
 package com.pokemonreview.api.security;
 
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
-import org.springframework.stereotype.Component;
-import org.springframework.util.StringUtils;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import javax.servlet.FilterChain;
@@ -20,11 +18,11 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.Arrays;
-import java.util.List;
 import java.util.stream.Collectors;
 
 
-@Component
+// Registered once, inside the security filter chain (see SecurityConfig); it is deliberately not a @Component
+// so Boot does not also add it to the servlet filter chain and run it twice per request.
 public class JWTAuthenticationFilter extends OncePerRequestFilter {
 
     // before actually getting to the controller
@@ -32,10 +30,13 @@ public class JWTAuthenticationFilter extends OncePerRequestFilter {
 
 
     @Autowired
-    private JWTGenerator jwtGenerator;
+    private TokenAuthenticator tokenAuthenticator;
 
     @Autowired
-    private CustomUserDetailsService customUserDetailsService;
+    private Tracer tracer;
+
+    private static final RequestMatcher PUBLIC_PATHS = new OrRequestMatcher(
+            Arrays.stream(SecurityConfig.PUBLIC_PATHS).map(AntPathRequestMatcher::new).collect(Collectors.toList()));
 
 
     @Override
@@ -43,38 +44,29 @@ public class JWTAuthenticationFilter extends OncePerRequestFilter {
                                     HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
 
-        String token = getJWTFromRequest(request);
-        System.out.println("=======================doFilterInternal==========================");
-
-        if(StringUtils.hasText(token) && jwtGenerator.validateToken(token)){
-
-            System.out.println("------------------Valid Token------------------");
-
-            Claims claims = jwtGenerator.validateTokenAndGetClaims(token); // Validate token and get claims
-
-            String username = claims.getSubject();
-
-
-            // Assuming roles are stored as a single string with roles separated by commas
-            List<SimpleGrantedAuthority> authorities = Arrays.stream(claims.get("roles", String.class).split(","))
-                    .map(SimpleGrantedAuthority::new)
-                    .collect(Collectors.toList());
-
-            UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(username, null, authorities);
-
-            authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-            SecurityContextHolder.getContext().setAuthentication(authenticationToken);
-
+        // the token check gets its own span so its cost shows up separately from the rest of the request
+        Span span = Span.current().isRecording() ? tracer.spanBuilder("jwt.authenticate").startSpan() : Span.getInvalid();
+        try (Scope ignored = span.makeCurrent()) {
+            authenticate(request);
+        } finally {
+            span.end();
         }
         filterChain.doFilter(request, response);
     }
 
-    private String getJWTFromRequest(HttpServletRequest request){
+    // Public routes never look at the Authorization header, so a bad token sent to them costs nothing.
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return PUBLIC_PATHS.matches(request);
+    }
 
-        String bearerToken = request.getHeader("Authorization");
-        if(StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")){
-            return bearerToken.substring(7, bearerToken.length());
+    private void authenticate(HttpServletRequest request) {
+        UsernamePasswordAuthenticationToken authenticationToken = tokenAuthenticator.authenticate(request.getHeader("Authorization"));
+        if (authenticationToken == null) {
+            return;
         }
-        return null;
+
+        authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authenticationToken);
     }
 }
\ No newline at end of file
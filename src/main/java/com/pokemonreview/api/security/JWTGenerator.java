@@ -1,16 +1,20 @@
 package com.pokemonreview.api.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
-import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 import static com.pokemonreview.api.security.SecurityConstants.JWT_EXPIRATION;
@@ -19,19 +23,33 @@ import static com.pokemonreview.api.security.SecurityConstants.JWT_EXPIRATION;
 @Component
 public class JWTGenerator{
     private static final Key key = Keys.secretKeyFor(SignatureAlgorithm.HS512);
-    public String generateToken(Authentication authentication){
-        String username = authentication.getName();
 
-        Date currentDate = new Date();
-        Date expireDate = new Date(currentDate.getTime() + JWT_EXPIRATION);
+    private Timer verifyTimer;
 
+    @Autowired
+    public JWTGenerator(MeterRegistry meterRegistry) {
+        this.verifyTimer = Timer.builder("jwt.verify")
+                .description("Time spent parsing and verifying JWT signatures")
+                .register(meterRegistry);
+    }
 
+    public String generateToken(Authentication authentication){
         // Convert roles to a comma-separated string
         String roles = authentication.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.joining(","));
 
+        return generateToken(authentication.getName(), roles);
+    }
+
+    // Used directly by the refresh flow, which knows the user and roles without going through the AuthenticationManager
+    public String generateToken(String username, String roles){
+        Date currentDate = new Date();
+        Date expireDate = new Date(currentDate.getTime() + JWT_EXPIRATION);
+
         String token = Jwts.builder()
+                // the jti identifies this token in the revocation list on logout
+                .setId(UUID.randomUUID().toString())
                 .setSubject(username)
                 .setIssuedAt(currentDate)
                 .setExpiration(expireDate)
@@ -57,23 +75,24 @@ public class JWTGenerator{
         return claims.getSubject();
     }
 
-    public boolean validateToken(String token){
+    // Verifies the token once and returns its claims, or null if the signature is wrong or the token expired.
+    // The filter calls this for every request, so failure is a return value rather than a new exception;
+    // jjwt's own exception is the only one left and TokenPreVerifier keeps most bad tokens from getting this far.
+    public Claims verifyToken(String token){
         try{
-            Jwts.parser().setSigningKey(key).parseClaimsJws(token);
-            return true;
-        }catch (Exception e){
-            throw new AuthenticationCredentialsNotFoundException("JWT was expired or incorrect");
+            return verifyTimer.record(() -> Jwts.parser().setSigningKey(key).parseClaimsJws(token).getBody());
+        }catch (JwtException | IllegalArgumentException e){
+            return null;
         }
-
     }
 
     // Method to validate token and return claims
     public Claims validateTokenAndGetClaims(String token) {
 
-        Claims claims = Jwts.parser()
+        Claims claims = verifyTimer.record(() -> Jwts.parser()
                 .setSigningKey(key)
                 .parseClaimsJws(token)
-                .getBody();
+                .getBody());
 
         return claims;
 
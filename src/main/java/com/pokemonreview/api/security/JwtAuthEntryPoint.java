@@ -1,7 +1,14 @@
 package com.pokemonreview.api.security;
 
+import com.pokemonreview.api.exceptions.CachedErrorBody;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.AuthenticationEntryPoint;
+import org.springframework.security.web.access.AccessDeniedHandler;
 import org.springframework.stereotype.Component;
 
 import javax.servlet.ServletException;
@@ -9,11 +16,38 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 
+// Answers authentication (401) and authorization (403) failures raised in the security filter chain,
+// with the same body GlobalExceptionHandler uses for ones raised in controllers.
 @Component
-public class JwtAuthEntryPoint implements AuthenticationEntryPoint {
+public class JwtAuthEntryPoint implements AuthenticationEntryPoint, AccessDeniedHandler {
+
+    private Counter unauthorizedCounter;
+    private Counter forbiddenCounter;
+    private CachedErrorBody unauthorizedBody = new CachedErrorBody(HttpStatus.UNAUTHORIZED);
+    private CachedErrorBody forbiddenBody = new CachedErrorBody(HttpStatus.FORBIDDEN);
+
+    @Autowired
+    public JwtAuthEntryPoint(MeterRegistry meterRegistry) {
+        this.unauthorizedCounter = Counter.builder("api.errors")
+                .tag("status", "401")
+                .tag("type", "unauthorized")
+                .register(meterRegistry);
+        this.forbiddenCounter = Counter.builder("api.errors")
+                .tag("status", "403")
+                .tag("type", "forbidden")
+                .register(meterRegistry);
+    }
+
     @Override
     public void commence(HttpServletRequest request, HttpServletResponse response, AuthenticationException authException) throws IOException, ServletException {
-        System.out.println("**********************JwtAuthEntryPoint*********************");
-        response.sendError(HttpServletResponse.SC_UNAUTHORIZED, authException.getMessage());
+        unauthorizedCounter.increment();
+        // written directly: sendError would forward to /error and run the whole filter chain a second time
+        unauthorizedBody.write(response, authException.getMessage());
+    }
+
+    @Override
+    public void handle(HttpServletRequest request, HttpServletResponse response, AccessDeniedException accessDeniedException) throws IOException, ServletException {
+        forbiddenCounter.increment();
+        forbiddenBody.write(response, accessDeniedException.getMessage());
     }
 }
@@ -0,0 +1,27 @@
+package com.pokemonreview.api.security;
+
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+// The port the actuator's own server listens on (management.server.port), known once that server has started; its
+// event reaches this context from the management child context. Scrapes of /actuator/prometheus need no token only
+// when they arrive on it, so the metrics stay closed on the application port, also when no management port is set.
+@Component
+public class ManagementPort implements ApplicationListener<WebServerInitializedEvent> {
+
+    private static final String NAMESPACE = "management";
+
+    private volatile int port = -1;
+
+    @Override
+    public void onApplicationEvent(WebServerInitializedEvent event) {
+        if (NAMESPACE.equals(event.getApplicationContext().getServerNamespace())) {
+            port = event.getWebServer().getPort();
+        }
+    }
+
+    public boolean matches(int localPort) {
+        return port > 0 && localPort == port;
+    }
+}
@@ -0,0 +1,42 @@
+package com.pokemonreview.api.security;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+// JWTAuthenticationFilter for the WebFlux runtime: the same checks (TokenAuthenticator), with the result put in the
+// Reactor context instead of a thread-bound SecurityContextHolder. Added once, at the AUTHENTICATION position of the
+// SecurityWebFilterChain (see ReactiveSecurityConfig); a token that does not authenticate is left to the
+// authorization rules to answer, as on the servlet side.
+public class ReactiveJWTAuthenticationFilter implements WebFilter {
+
+    private static final ServerWebExchangeMatcher PUBLIC_PATHS = ServerWebExchangeMatchers.pathMatchers(SecurityConfig.PUBLIC_PATHS);
+
+    private TokenAuthenticator tokenAuthenticator;
+
+    public ReactiveJWTAuthenticationFilter(TokenAuthenticator tokenAuthenticator) {
+        this.tokenAuthenticator = tokenAuthenticator;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        // public routes never look at the Authorization header
+        return PUBLIC_PATHS.matches(exchange).flatMap(match -> {
+            if (match.isMatch()) {
+                return chain.filter(exchange);
+            }
+            UsernamePasswordAuthenticationToken authentication =
+                    tokenAuthenticator.authenticate(exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+            if (authentication == null) {
+                return chain.filter(exchange);
+            }
+            return chain.filter(exchange).contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication));
+        });
+    }
+}
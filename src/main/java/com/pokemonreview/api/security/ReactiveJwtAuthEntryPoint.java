@@ -0,0 +1,44 @@
+package com.pokemonreview.api.security;
+
+import com.pokemonreview.api.exceptions.CachedErrorBody;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.server.ServerAuthenticationEntryPoint;
+import org.springframework.security.web.server.authorization.ServerAccessDeniedHandler;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+// JwtAuthEntryPoint for the WebFlux runtime: the same 401 and 403 bodies and counters.
+public class ReactiveJwtAuthEntryPoint implements ServerAuthenticationEntryPoint, ServerAccessDeniedHandler {
+
+    private Counter unauthorizedCounter;
+    private Counter forbiddenCounter;
+    private CachedErrorBody unauthorizedBody = new CachedErrorBody(HttpStatus.UNAUTHORIZED);
+    private CachedErrorBody forbiddenBody = new CachedErrorBody(HttpStatus.FORBIDDEN);
+
+    public ReactiveJwtAuthEntryPoint(MeterRegistry meterRegistry) {
+        this.unauthorizedCounter = Counter.builder("api.errors")
+                .tag("status", "401")
+                .tag("type", "unauthorized")
+                .register(meterRegistry);
+        this.forbiddenCounter = Counter.builder("api.errors")
+                .tag("status", "403")
+                .tag("type", "forbidden")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> commence(ServerWebExchange exchange, AuthenticationException authException) {
+        unauthorizedCounter.increment();
+        return unauthorizedBody.write(exchange.getResponse(), authException.getMessage());
+    }
+
+    @Override
+    public Mono<Void> handle(ServerWebExchange exchange, AccessDeniedException accessDeniedException) {
+        forbiddenCounter.increment();
+        return forbiddenBody.write(exchange.getResponse(), accessDeniedException.getMessage());
+    }
+}
@@ -0,0 +1,83 @@
+package com.pokemonreview.api.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.security.web.server.util.matcher.AndServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+// SecurityConfig for the reactive runtime (the "reactive" profile): the same public paths and authority rules,
+// with ReactiveJWTAuthenticationFilter in place of JWTAuthenticationFilter.
+@Configuration
+@EnableWebFluxSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSecurityConfig {
+
+    private TokenAuthenticator tokenAuthenticator;
+
+    private CustomUserDetailsService customUserDetailsService;
+
+    @Autowired
+    public ReactiveSecurityConfig(TokenAuthenticator tokenAuthenticator, CustomUserDetailsService customUserDetailsService) {
+        this.tokenAuthenticator = tokenAuthenticator;
+        this.customUserDetailsService = customUserDetailsService;
+    }
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http, MeterRegistry meterRegistry,
+                                                         ManagementPort managementPort) {
+        ReactiveJwtAuthEntryPoint jwtAuthEntryPoint = new ReactiveJwtAuthEntryPoint(meterRegistry);
+        http
+                .csrf().disable()
+                .httpBasic().disable()
+                .formLogin().disable()
+                .logout().disable()
+                .exceptionHandling()
+                .authenticationEntryPoint(jwtAuthEntryPoint)
+                .accessDeniedHandler(jwtAuthEntryPoint)
+                .and()
+                // stateless, as on the servlet side: the token is checked on every request and nothing is kept
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .authorizeExchange()
+                .pathMatchers(SecurityConfig.PUBLIC_PATHS).permitAll()
+                .matchers(new AndServerWebExchangeMatcher(ServerWebExchangeMatchers.pathMatchers(SecurityConfig.SCRAPE_PATH),
+                        exchange -> managementPort.matches(exchange.getRequest().getLocalAddress().getPort())
+                                ? ServerWebExchangeMatcher.MatchResult.match() : ServerWebExchangeMatcher.MatchResult.notMatch()))
+                .permitAll()
+                .pathMatchers("/api/pokemons/**", "/api/reviews/**", "/api/changes/**").hasAuthority("USER")
+                .anyExchange().authenticated()
+                .and()
+                .addFilterAt(new ReactiveJWTAuthenticationFilter(tokenAuthenticator), SecurityWebFiltersOrder.AUTHENTICATION);
+        return http.build();
+    }
+
+    // Used by ReactiveAuthController for logins. Loading the user is a JPA query, so it runs on the bounded elastic
+    // scheduler; the BCrypt comparison is moved there by the manager itself.
+    @Bean
+    public ReactiveAuthenticationManager reactiveAuthenticationManager(PasswordEncoder passwordEncoder) {
+        UserDetailsRepositoryReactiveAuthenticationManager authenticationManager = new UserDetailsRepositoryReactiveAuthenticationManager(
+                username -> Mono.fromCallable(() -> customUserDetailsService.loadUserByUsername(username))
+                        .subscribeOn(Schedulers.boundedElastic()));
+        authenticationManager.setPasswordEncoder(passwordEncoder);
+        return authenticationManager;
+    }
+
+    @Bean
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry){
+        return new TimedPasswordEncoder(new BCryptPasswordEncoder(), meterRegistry);
+    }
+}
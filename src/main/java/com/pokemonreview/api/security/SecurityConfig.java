@@ -1,7 +1,12 @@
 package com.pokemonreview.api.security;
 
 
+import com.pokemonreview.api.limit.AdaptiveConcurrencyLimitFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -18,12 +23,20 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
 @Configuration
 @EnableWebSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class SecurityConfig{
 
+    // reachable without a token; JWTAuthenticationFilter skips these entirely
+    static final String[] PUBLIC_PATHS = {"/api/auth/**", "/actuator/health"};
+
+    // open to the Prometheus scraper, but only on the internal management port (see ManagementPort)
+    static final String SCRAPE_PATH = "/actuator/prometheus";
+
     private JwtAuthEntryPoint jwtAuthEntryPoint;
 
     private CustomUserDetailsService customUserDetailsService;
@@ -37,7 +50,9 @@ public class SecurityConfig{
     }
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws  Exception{
+    public SecurityFilterChain filterChain(HttpSecurity http,
+                                           ObjectProvider<AdaptiveConcurrencyLimitFilter> concurrencyLimitFilter,
+                                           ManagementPort managementPort) throws  Exception{
         http
                 .csrf().disable()
 
@@ -46,6 +61,7 @@ public class SecurityConfig{
                 // The AuthenticationEntryPoint is used to handle what should happen when an unauthenticated request accesses a secured resource.
                 // It kicks in when the request requires authentication but the user is not authenticated.
                 .authenticationEntryPoint(jwtAuthEntryPoint)
+                .accessDeniedHandler(jwtAuthEntryPoint)
                 .and()
                 .sessionManagement()
                 // since using jwt we have to disable session
@@ -54,8 +70,10 @@ public class SecurityConfig{
 
                 .and()
                 .authorizeRequests()
-                .antMatchers("/api/auth/**").permitAll()
-                .antMatchers("/api/pokemons/**").hasAuthority("USER") // Adjust according to actual role names
+                .antMatchers(PUBLIC_PATHS).permitAll()
+                .requestMatchers(new AndRequestMatcher(new AntPathRequestMatcher(SCRAPE_PATH),
+                        request -> managementPort.matches(request.getLocalPort()))).permitAll()
+                .antMatchers("/api/pokemons/**", "/api/reviews/**", "/api/changes/**", "/api/graphql/**").hasAuthority("USER") // Adjust according to actual role names
 
                 /*
                 Here's a step-by-step explanation of what happens:
@@ -110,6 +128,9 @@ public class SecurityConfig{
         http.addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
         /*JWT*/
 
+        // load shedding right after authentication, before anything reaches a controller
+        concurrencyLimitFilter.ifAvailable(filter -> http.addFilterAfter(filter, JWTAuthenticationFilter.class));
+
         return http.build();
     }
 
@@ -122,8 +143,8 @@ public class SecurityConfig{
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder(){
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry){
+        return new TimedPasswordEncoder(new BCryptPasswordEncoder(), meterRegistry);
     }
 
     @Bean
@@ -131,4 +152,13 @@ public class SecurityConfig{
         return new JWTAuthenticationFilter();
     }
 
+    // Boot registers every Filter bean with the servlet container as well; the JWT filter must only run
+    // inside the security chain
+    @Bean
+    public FilterRegistrationBean<JWTAuthenticationFilter> jwtAuthenticationFilterRegistration(JWTAuthenticationFilter filter){
+        FilterRegistrationBean<JWTAuthenticationFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package com.pokemonreview.api.security;
 
 public class SecurityConstants {
-    public static final long JWT_EXPIRATION = 10000000;
+    // access tokens are short-lived; clients renew them with a refresh token instead of logging in again
+    public static final long JWT_EXPIRATION = 300000;
+    public static final long REFRESH_TOKEN_EXPIRATION = 1209600000;
 
 }
@@ -0,0 +1,84 @@
+package com.pokemonreview.api.security;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// The bearer token checks behind both JWTAuthenticationFilter (servlet) and ReactiveJWTAuthenticationFilter (WebFlux),
+// so the two runtimes accept exactly the same tokens and count rejections under the same jwt.rejected metric.
+@Component
+public class TokenAuthenticator {
+
+    private JWTGenerator jwtGenerator;
+    private TokenRevocationList tokenRevocationList;
+
+    private Map<TokenPreVerifier.Result, Counter> rejected = new EnumMap<>(TokenPreVerifier.Result.class);
+    private Counter invalidSignature;
+
+    @Autowired
+    public TokenAuthenticator(JWTGenerator jwtGenerator, TokenRevocationList tokenRevocationList, MeterRegistry meterRegistry) {
+        this.jwtGenerator = jwtGenerator;
+        this.tokenRevocationList = tokenRevocationList;
+        for (TokenPreVerifier.Result result : TokenPreVerifier.Result.values()) {
+            if (result != TokenPreVerifier.Result.VALID_STRUCTURE) {
+                rejected.put(result, rejectedCounter(meterRegistry, result.name().toLowerCase()));
+            }
+        }
+        this.invalidSignature = rejectedCounter(meterRegistry, "invalid_signature");
+    }
+
+    // The authentication for an Authorization header value, or null when there is no usable bearer token.
+    public UsernamePasswordAuthenticationToken authenticate(String authorizationHeader) {
+        String token = bearerToken(authorizationHeader);
+        if(!StringUtils.hasText(token)){
+            return null;
+        }
+
+        // reject what can be rejected without crypto first: oversized, not three base64url segments, or already expired
+        TokenPreVerifier.Result preCheck = TokenPreVerifier.check(token, System.currentTimeMillis());
+        if(preCheck != TokenPreVerifier.Result.VALID_STRUCTURE){
+            rejected.get(preCheck).increment();
+            return null;
+        }
+
+        Claims claims = jwtGenerator.verifyToken(token); // verify the signature once and keep the claims
+        if(claims == null){
+            invalidSignature.increment();
+            return null;
+        }
+
+        // logged out tokens stay cryptographically valid until they expire; this is an in-memory lookup
+        if (tokenRevocationList.isRevoked(claims.getId())) {
+            return null;
+        }
+
+        // Assuming roles are stored as a single string with roles separated by commas
+        List<SimpleGrantedAuthority> authorities = Arrays.stream(claims.get("roles", String.class).split(","))
+                .map(SimpleGrantedAuthority::new)
+                .collect(Collectors.toList());
+
+        return new UsernamePasswordAuthenticationToken(claims.getSubject(), null, authorities);
+    }
+
+    private static String bearerToken(String authorizationHeader) {
+        if(StringUtils.hasText(authorizationHeader) && authorizationHeader.startsWith("Bearer ")){
+            return authorizationHeader.substring(7);
+        }
+        return null;
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("jwt.rejected").tag("reason", reason).register(meterRegistry);
+    }
+}
@@ -0,0 +1,104 @@
+package com.pokemonreview.api.security;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Token bucket per key, implemented as GCRA (generic cell rate algorithm): each bucket is a single AtomicLong holding
+// the "theoretical arrival time" of the next request, so a check is one map lookup plus one CAS and never locks.
+// A bucket whose arrival time has passed is full again and carries no information, which is what makes idle
+// eviction safe: removing it is the same as keeping it.
+public class TokenBucketRateLimiter {
+
+    private static final long ORIGIN = System.nanoTime();
+    private static final long FULL_MAP_SWEEP_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // buckets looked at to make room for a new key when none is idle
+    private static final int EVICTION_SAMPLE = 16;
+
+    private final long emissionIntervalNanos;
+    private final long burstNanos;
+    private final int maxKeys;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastFullMapSweep = new AtomicLong();
+
+    public TokenBucketRateLimiter(int requestsPerMinute, int burst, int maxKeys) {
+        this(requestsPerMinute, burst, maxKeys, () -> System.nanoTime() - ORIGIN);
+    }
+
+    TokenBucketRateLimiter(int requestsPerMinute, int burst, int maxKeys, LongSupplier clock) {
+        this.emissionIntervalNanos = TimeUnit.MINUTES.toNanos(1) / requestsPerMinute;
+        this.burstNanos = emissionIntervalNanos * burst;
+        this.maxKeys = maxKeys;
+        this.clock = clock;
+    }
+
+    // returns 0 when the request may proceed, otherwise how many nanoseconds to wait before retrying
+    public long tryAcquire(String key) {
+        long now = clock.getAsLong();
+        AtomicLong bucket = bucket(key, now);
+        while (true) {
+            long arrival = bucket.get();
+            long next = Math.max(arrival, now) + emissionIntervalNanos;
+            long excess = next - now - burstNanos;
+            if (excess > 0) {
+                return excess;
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    // Drops buckets that have refilled completely. A thread that fetched a bucket just before it was removed
+    // may still update the removed copy, which at worst lets one extra request through for that key.
+    public void evictIdle() {
+        long now = clock.getAsLong();
+        buckets.entrySet().removeIf(entry -> entry.getValue().get() <= now);
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    private AtomicLong bucket(String key, long now) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxKeys) {
+            // a flood of new keys must not turn every check into a full sweep, so sweep at most once a second
+            long lastSweep = lastFullMapSweep.get();
+            if (now - lastSweep >= FULL_MAP_SWEEP_BACKOFF_NANOS && lastFullMapSweep.compareAndSet(lastSweep, now)) {
+                evictIdle();
+            }
+            if (buckets.size() >= maxKeys) {
+                evictLeastThrottled();
+            }
+        }
+        return buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+    }
+
+    // The map is full of buckets that are still refilling, e.g. during a flood of new keys. Sharing one bucket among
+    // the keys that arrive meanwhile would let the flood lock out everyone else, so the new key gets its own and makes
+    // room by dropping the sampled bucket closest to full, which hands its key back the fewest requests. A key that
+    // is being hammered sits at the burst limit and is the last to go. Concurrent arrivals may overshoot maxKeys by
+    // a few buckets.
+    private void evictLeastThrottled() {
+        Map.Entry<String, AtomicLong> candidate = null;
+        int sampled = 0;
+        for (Map.Entry<String, AtomicLong> entry : buckets.entrySet()) {
+            if (candidate == null || entry.getValue().get() < candidate.getValue().get()) {
+                candidate = entry;
+            }
+            if (++sampled >= EVICTION_SAMPLE) {
+                break;
+            }
+        }
+        if (candidate != null) {
+            buckets.remove(candidate.getKey(), candidate.getValue());
+        }
+    }
+}
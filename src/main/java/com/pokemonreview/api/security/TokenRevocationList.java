@@ -0,0 +1,116 @@
+package com.pokemonreview.api.security;
+
+import com.pokemonreview.api.models.RevokedToken;
+import com.pokemonreview.api.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Access tokens revoked before their expiry, keyed by jti.
+// JWTAuthenticationFilter asks isRevoked on every request, so that check never touches the database:
+// a Bloom filter answers the common "not revoked" case and only its hits are confirmed against the exact map.
+// Revocations are also written to revoked_tokens and pulled in periodically, so every node learns about a logout
+// within one sync interval. A sync re-reads the last sync-overlap-ms before the previous one as well: revokedAt is
+// set when the row is inserted, and a transaction that commits late (or a node whose clock is behind) would
+// otherwise leave its row below the point the other nodes have already read up to. Rows read twice are ignored.
+// Entries are dropped once the token would have expired anyway.
+@Component
+public class TokenRevocationList {
+
+    private RevokedTokenRepository revokedTokenRepository;
+    private int expectedRevocations;
+    private long syncOverlapMillis;
+
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter filter;
+    // local time the last sync started; 0 until the first one, which reads every row
+    private volatile long lastSyncStartedAt;
+
+    @Autowired
+    public TokenRevocationList(RevokedTokenRepository revokedTokenRepository,
+                               @Value("${app.auth.revocation.expected-revocations:100000}") int expectedRevocations,
+                               @Value("${app.auth.revocation.sync-overlap-ms:300000}") long syncOverlapMillis,
+                               MeterRegistry meterRegistry) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.expectedRevocations = expectedRevocations;
+        this.syncOverlapMillis = syncOverlapMillis;
+        this.filter = new BloomFilter(expectedRevocations, 0.01);
+        Gauge.builder("auth.revoked_tokens", revoked, Map::size).register(meterRegistry);
+    }
+
+    public boolean isRevoked(String jti) {
+        return jti != null && filter.mightContain(jti) && revoked.containsKey(jti);
+    }
+
+    // in memory only once the row is committed, so a rolled-back logout leaves the token valid on this node too
+    @Transactional
+    public void revoke(String jti, Date expiresAt) {
+        if (jti == null || revoked.containsKey(jti)) {
+            return;
+        }
+        RevokedToken revokedToken = RevokedToken.builder().jti(jti).expiresAt(expiresAt).revokedAt(new Date()).build();
+        revokedTokenRepository.save(revokedToken);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(jti, expiresAt.getTime());
+                }
+            });
+        } else {
+            add(jti, expiresAt.getTime());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.revocation.sync-interval-ms:5000}")
+    public void sync() {
+        long started = System.currentTimeMillis();
+        List<RevokedToken> newlyRevoked = lastSyncStartedAt == 0 ? revokedTokenRepository.findAll()
+                : revokedTokenRepository.findByRevokedAtAfter(new Date(lastSyncStartedAt - syncOverlapMillis));
+        for (RevokedToken revokedToken : newlyRevoked) {
+            if (!revoked.containsKey(revokedToken.getJti())) {
+                add(revokedToken.getJti(), revokedToken.getExpiresAt().getTime());
+            }
+        }
+        lastSyncStartedAt = started;
+    }
+
+    // A Bloom filter cannot forget, so expired entries are purged from the exact map and the filter is rebuilt from it
+    @Scheduled(fixedDelayString = "${app.auth.revocation.purge-interval-ms:60000}")
+    @Transactional
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        if (revoked.values().removeIf(expiresAt -> expiresAt < now)) {
+            rebuild();
+        }
+        revokedTokenRepository.deleteExpired(new Date(now));
+    }
+
+    int size() {
+        return revoked.size();
+    }
+
+    // add and rebuild are serialized so a rebuild can never publish a filter missing a revocation that already
+    // returned; revocations are rare, isRevoked itself takes no lock
+    private synchronized void add(String jti, long expiresAtMillis) {
+        revoked.put(jti, expiresAtMillis);
+        filter.add(jti);
+    }
+
+    private synchronized void rebuild() {
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedRevocations, revoked.size() * 2), 0.01);
+        revoked.keySet().forEach(rebuilt::add);
+        filter = rebuilt;
+    }
+}
@@ -0,0 +1,124 @@
+package com.pokemonreview.api.service;
+
+import com.pokemonreview.api.deadline.RequestDeadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+// Runs a read-modify-write of a @Version entity in its own transaction and, when another writer got there first
+// (OptimisticLockingFailureException), runs it again from the read, up to max-attempts times with a short random
+// backoff. Only for updates that apply the caller's values regardless of what is stored: a conditional update
+// (If-Match) must fail instead, so it is run once. Must be called outside a transaction, otherwise there is
+// nothing to re-read and the update is run once as well. Retries also stop at the request deadline.
+@Component
+public class OptimisticRetry {
+
+    private TransactionTemplate transactionTemplate;
+    private MeterRegistry meterRegistry;
+    private int maxAttempts;
+    private long backoffMillis;
+
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public OptimisticRetry(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                           @Value("${app.optimistic-lock.max-attempts:4}") int maxAttempts,
+                           @Value("${app.optimistic-lock.backoff-ms:2}") long backoffMillis) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+    }
+
+    // entity names the metrics (e.g. "pokemon"); the update must read the entity it changes
+    public <T> T execute(String entity, boolean retry, Supplier<T> update) {
+        Counters counters = counters(entity);
+        int attempts = retry && !TransactionSynchronizationManager.isActualTransactionActive() ? maxAttempts : 1;
+        for (int attempt = 1; ; attempt++) {
+            counters.attempts.increment();
+            try {
+                return transactionTemplate.execute(status -> update.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= attempts) {
+                    (retry ? counters.exhausted : counters.failed).increment();
+                    throw e;
+                }
+                counters.retried.increment();
+                RequestDeadline.check();
+                backoff(attempt);
+            }
+        }
+    }
+
+    // The same for the reactive runtime's R2DBC updates. update is subscribed again for every attempt, so it has to
+    // read the entity and run in a transaction of its own (see R2dbcConfig); the backoff waits without holding a thread.
+    public <T> Mono<T> execute(String entity, boolean retry, Mono<T> update) {
+        Counters counters = counters(entity);
+        int attempts = retry ? maxAttempts : 1;
+        return Mono.defer(() -> {
+            counters.attempts.increment();
+            return update;
+        }).retryWhen(Retry.from(signals -> signals.concatMap(signal -> {
+            Throwable failure = signal.failure();
+            if (!(failure instanceof OptimisticLockingFailureException)) {
+                return Mono.error(failure);
+            }
+            long attempt = signal.totalRetries() + 1;
+            if (attempt >= attempts) {
+                (retry ? counters.exhausted : counters.failed).increment();
+                return Mono.error(failure);
+            }
+            counters.retried.increment();
+            return Mono.delay(Duration.ofMillis(backoffMillis > 0 ? ThreadLocalRandom.current().nextLong(backoffMillis * attempt + 1) : 0));
+        })));
+    }
+
+    private void backoff(int attempt) {
+        if (backoffMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(backoffMillis * attempt + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Counters counters(String entity) {
+        return counters.computeIfAbsent(entity, e -> new Counters(meterRegistry, e));
+    }
+
+    // attempts is every transaction run; the conflicts counter splits by what happened after a conflict
+    private static final class Counters {
+        private final Counter attempts;
+        private final Counter retried;
+        private final Counter exhausted;
+        private final Counter failed;
+
+        private Counters(MeterRegistry meterRegistry, String entity) {
+            this.attempts = Counter.builder("optimistic_lock.attempts").tag("entity", entity).register(meterRegistry);
+            this.retried = conflicts(meterRegistry, entity, "retried");
+            this.exhausted = conflicts(meterRegistry, entity, "exhausted");
+            this.failed = conflicts(meterRegistry, entity, "not_retried");
+        }
+
+        private static Counter conflicts(MeterRegistry meterRegistry, String entity, String outcome) {
+            return Counter.builder("optimistic_lock.conflicts").tag("entity", entity).tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -1,14 +1,25 @@
 package com.pokemonreview.api.service;
 
+import com.pokemonreview.api.dto.DeletionJobDto;
+import com.pokemonreview.api.dto.BatchResponse;
 import com.pokemonreview.api.dto.PokemonDto;
 import com.pokemonreview.api.dto.PokemonResponse;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface PokemonService {
     PokemonDto createPokemon(PokemonDto pokemonDto);
     PokemonResponse getAllPokemon(int pageNo, int pageSize);
+    PokemonResponse getPokemonByType(String type, int pageNo, int pageSize);
     PokemonDto getPokemonById(int id);
+    PokemonResponse getAllPokemonWithReviews(int pageNo, int pageSize, int reviewLimit);
+    PokemonResponse getPokemonByTypeWithReviews(String type, int pageNo, int pageSize, int reviewLimit);
+    PokemonDto getPokemonWithReviews(int id, int reviewLimit);
     PokemonDto updatePokemon(PokemonDto pokemonDto, int id);
+    PokemonDto updatePokemon(PokemonDto pokemonDto, int id, Integer expectedVersion);
     void deletePokemonId(int id);
+    DeletionJobDto startDeletePokemon(int id);
+    Optional<DeletionJobDto> getDeletionJob(String jobId);
+    BatchResponse<PokemonDto> getPokemonsByIds(List<Integer> ids);
 }
@@ -0,0 +1,25 @@
+package com.pokemonreview.api.service;
+
+import com.pokemonreview.api.dto.BatchResponse;
+import com.pokemonreview.api.dto.DeletionJobDto;
+import com.pokemonreview.api.dto.PokemonDto;
+import com.pokemonreview.api.dto.PokemonResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+// PokemonService for the reactive runtime
+public interface ReactivePokemonService {
+    Mono<PokemonDto> createPokemon(PokemonDto pokemonDto);
+    Mono<PokemonResponse> getAllPokemon(int pageNo, int pageSize);
+    Mono<PokemonResponse> getPokemonByType(String type, int pageNo, int pageSize);
+    Mono<PokemonDto> getPokemonById(int id);
+    Mono<PokemonResponse> getAllPokemonWithReviews(int pageNo, int pageSize, int reviewLimit);
+    Mono<PokemonResponse> getPokemonByTypeWithReviews(String type, int pageNo, int pageSize, int reviewLimit);
+    Mono<PokemonDto> getPokemonWithReviews(int id, int reviewLimit);
+    Mono<PokemonDto> updatePokemon(PokemonDto pokemonDto, int id, Integer expectedVersion);
+    Mono<Void> deletePokemonId(int id);
+    Mono<DeletionJobDto> startDeletePokemon(int id);
+    Mono<DeletionJobDto> getDeletionJob(String jobId);
+    Mono<BatchResponse<PokemonDto>> getPokemonsByIds(List<Integer> ids);
+}
@@ -0,0 +1,23 @@
+package com.pokemonreview.api.service;
+
+import com.pokemonreview.api.dto.BatchResponse;
+import com.pokemonreview.api.dto.ReviewBatchItemDto;
+import com.pokemonreview.api.dto.ReviewBatchResponse;
+import com.pokemonreview.api.dto.ReviewDto;
+import com.pokemonreview.api.dto.ReviewIngestDto;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+// ReviewService for the reactive runtime
+public interface ReactiveReviewService {
+    Mono<ReviewDto> createReview(int pokemonId, ReviewDto reviewDto);
+    Mono<ReviewBatchResponse> createReviews(List<ReviewBatchItemDto> reviews);
+    Mono<ReviewIngestDto> submitReview(int pokemonId, ReviewDto reviewDto);
+    Mono<ReviewIngestDto> getIngestStatus(String trackingId);
+    Mono<List<ReviewDto>> getReviewsByPokemonId(int id);
+    Mono<ReviewDto> getReviewById(int reviewId, int pokemonId);
+    Mono<ReviewDto> updateReview(int pokemonId, int reviewId, ReviewDto reviewDto, Integer expectedVersion);
+    Mono<Void> deleteReview(int pokemonId, int reviewId);
+    Mono<BatchResponse<ReviewDto>> getReviewsByIds(List<Integer> ids);
+}
@@ -1,13 +1,28 @@
 package com.pokemonreview.api.service;
 
+import com.pokemonreview.api.dto.BatchResponse;
+import com.pokemonreview.api.dto.ReviewBatchItemDto;
+import com.pokemonreview.api.dto.ReviewBatchResponse;
 import com.pokemonreview.api.dto.ReviewDto;
+import com.pokemonreview.api.dto.ReviewIngestDto;
+import com.pokemonreview.api.dto.ReviewStatsDto;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 public interface ReviewService {
     ReviewDto createReview(int pokemonId, ReviewDto reviewDto);
+    ReviewBatchResponse createReviews(List<ReviewBatchItemDto> reviews);
+    ReviewIngestDto submitReview(int pokemonId, ReviewDto reviewDto);
+    Optional<ReviewIngestDto> getIngestStatus(String trackingId);
     List<ReviewDto> getReviewsByPokemonId(int id);
     ReviewDto getReviewById(int reviewId, int pokemonId);
     ReviewDto updateReview(int pokemonId, int reviewId, ReviewDto reviewDto);
+    ReviewDto updateReview(int pokemonId, int reviewId, ReviewDto reviewDto, Integer expectedVersion);
     void deleteReview(int pokemonId, int reviewId);
+    BatchResponse<ReviewDto> getReviewsByIds(List<Integer> ids);
+    Map<Integer, List<ReviewDto>> getReviewsByPokemonIds(Collection<Integer> pokemonIds, int limitPerPokemon);
+    Map<Integer, ReviewStatsDto> getReviewStatsByPokemonIds(Collection<Integer> pokemonIds);
 }
@@ -0,0 +1,137 @@
+package com.pokemonreview.api.service;
+
+import com.pokemonreview.api.config.ReadYourWritesTracker;
+import com.pokemonreview.api.deadline.RequestDeadline;
+import com.pokemonreview.api.exceptions.DeadlineExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Collapses concurrent identical reads into one load. The first caller for a key runs the loader, everyone who
+// asks for the same key while it runs waits for that result (or exception) instead of querying again.
+// Nothing is cached: once the load finishes the next call loads again.
+// Waiters give up after max-wait-ms and load on their own, so a stuck load cannot hold up a whole spike.
+// The shared result is handed to every waiter, so callers must not mutate it.
+// Waits are also bounded by the caller's RequestDeadline, and a load that failed because the loading caller ran
+// out of time is retried by waiters that still have time left.
+// With read replicas, a caller inside its read-your-writes window (see ReadYourWritesTracker) neither waits for nor
+// starts a shared load: another caller's load may have started before this caller's write or be reading from a
+// replica, either of which would hand back data without the write.
+@Component
+public class SingleFlight {
+
+    private MeterRegistry meterRegistry;
+    private ReadYourWritesTracker readYourWrites;
+    private long maxWaitMillis;
+
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    // readYourWrites is only there when replicas are configured
+    @Autowired
+    public SingleFlight(MeterRegistry meterRegistry, @Nullable ReadYourWritesTracker readYourWrites,
+                        @Value("${app.single-flight.max-wait-ms:2000}") long maxWaitMillis) {
+        this.meterRegistry = meterRegistry;
+        this.readYourWrites = readYourWrites;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public SingleFlight(MeterRegistry meterRegistry, long maxWaitMillis) {
+        this(meterRegistry, null, maxWaitMillis);
+    }
+
+    // name groups keys for metrics (e.g. "pokemon"), key identifies the read within it (e.g. the id)
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String name, Object key, Supplier<T> loader) {
+        Counters counters = counters(name);
+        if (readYourWrites != null && readYourWrites.isWithinWindow(ReadYourWritesTracker.currentUsername())) {
+            counters.bypassed.increment();
+            return loader.get();
+        }
+        String flightKey = name + ':' + key;
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(flightKey, flight);
+
+        if (existing == null) {
+            counters.loads.increment();
+            try {
+                T value = loader.get();
+                flight.complete(value);
+                return value;
+            } catch (RuntimeException | Error e) {
+                flight.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(flightKey, flight);
+            }
+        }
+
+        try {
+            long waitNanos = Math.min(TimeUnit.MILLISECONDS.toNanos(maxWaitMillis), RequestDeadline.remainingNanos());
+            Object value = existing.get(Math.max(0, waitNanos), TimeUnit.NANOSECONDS);
+            counters.collapsed.increment();
+            return (T) value;
+        } catch (ExecutionException e) {
+            counters.collapsed.increment();
+            Throwable cause = e.getCause();
+            if (isDeadline(cause) && !RequestDeadline.expired()) {
+                return loader.get();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (Error) cause;
+        } catch (TimeoutException e) {
+            counters.timeouts.increment();
+            RequestDeadline.check();
+            return loader.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            counters.timeouts.increment();
+            return loader.get();
+        }
+    }
+
+    private static boolean isDeadline(Throwable failure) {
+        return failure instanceof DeadlineExceededException || failure instanceof QueryTimeoutException;
+    }
+
+    private Counters counters(String name) {
+        Counters existing = counters.get(name);
+        return existing != null ? existing : counters.computeIfAbsent(name, n -> new Counters(meterRegistry, n));
+    }
+
+    private static class Counters {
+        private final Counter loads;
+        private final Counter collapsed;
+        private final Counter timeouts;
+        private final Counter bypassed;
+
+        private Counters(MeterRegistry meterRegistry, String name) {
+            this.loads = counter(meterRegistry, name, "load");
+            this.collapsed = counter(meterRegistry, name, "collapsed");
+            this.timeouts = counter(meterRegistry, name, "timeout");
+            this.bypassed = counter(meterRegistry, name, "bypass");
+        }
+
+        private static Counter counter(MeterRegistry meterRegistry, String name, String result) {
+            return Counter.builder("single_flight.calls")
+                    .description("Reads that ran the load, shared another caller's load, stopped waiting for it, or loaded alone right after a write")
+                    .tag("name", name)
+                    .tag("result", result)
+                    .register(meterRegistry);
+        }
+    }
+}
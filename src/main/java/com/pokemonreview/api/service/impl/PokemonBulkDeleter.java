@@ -0,0 +1,172 @@
+package com.pokemonreview.api.service.impl;
+
+import com.pokemonreview.api.deadline.RequestDeadline;
+import com.pokemonreview.api.dto.DeletionJobDto;
+import com.pokemonreview.api.exceptions.DeletionQueueFullException;
+import com.pokemonreview.api.exceptions.PokemonNotFoundException;
+import com.pokemonreview.api.feed.ReviewFeed;
+import com.pokemonreview.api.outbox.Outbox;
+import com.pokemonreview.api.repository.PokemonRepository;
+import com.pokemonreview.api.repository.ReviewRepository;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+// Deletes a Pokemon and its reviews with set-based DELETEs instead of the JPA cascade.
+// Reviews go in chunks, each in its own short transaction, so a Pokemon with hundreds of thousands of reviews
+// never holds locks for long or produces one huge WAL burst. The Pokemon itself is deleted last, together with
+// any review added while the chunks ran, so the foreign key never sees an orphan. The review feed gets one
+// POKEMON_DELETED event for the lot once that last transaction commits, not one per review, which would flood
+// every subscriber's buffer and push everything else out of the replay history.
+// Asynchronous jobs run one at a time and are kept in memory on the node that started them. At most queue-capacity
+// jobs wait behind the running one; further submissions throw DeletionQueueFullException (503).
+@Component
+public class PokemonBulkDeleter implements DisposableBean {
+
+    private static final long FINISHED_JOB_RETENTION_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private ReviewRepository reviewRepository;
+    private PokemonRepository pokemonRepository;
+    private TransactionTemplate transactionTemplate;
+    private Outbox outbox;
+    private ReviewFeed reviewFeed;
+    private int chunkSize;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Map<Integer, Job> jobsByPokemon = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+
+    @Autowired
+    public PokemonBulkDeleter(ReviewRepository reviewRepository, PokemonRepository pokemonRepository,
+                              PlatformTransactionManager transactionManager, Outbox outbox, ReviewFeed reviewFeed,
+                              @Value("${app.pokemon.delete-chunk-size:5000}") int chunkSize,
+                              @Value("${app.pokemon.delete-queue-capacity:100}") int queueCapacity) {
+        this.reviewRepository = reviewRepository;
+        this.pokemonRepository = pokemonRepository;
+        this.outbox = outbox;
+        this.reviewFeed = reviewFeed;
+        this.chunkSize = chunkSize;
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "pokemon-bulk-delete");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        // a new transaction per chunk even when the caller already has one, otherwise nothing is bounded
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Returns the number of reviews deleted; throws PokemonNotFoundException if the Pokemon does not exist.
+    // A request's deadline only decides whether the delete starts: once the first chunk is committed, stopping
+    // would leave the Pokemon with part of its reviews gone and the caller with a 504, so the rest runs unbounded.
+    public long delete(int pokemonId, LongConsumer progress) {
+        RequestDeadline.check();
+        return RequestDeadline.withoutDeadline(() -> deleteChunked(pokemonId, progress));
+    }
+
+    private long deleteChunked(int pokemonId, LongConsumer progress) {
+        long reviewsDeleted = 0;
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> reviewRepository.deleteChunkByPokemonId(pokemonId, chunkSize));
+            reviewsDeleted += deleted;
+            progress.accept(reviewsDeleted);
+        } while (deleted == chunkSize);
+
+        long remaining = transactionTemplate.execute(status -> {
+            long late = reviewRepository.deleteChunkByPokemonId(pokemonId, Integer.MAX_VALUE);
+            if (pokemonRepository.deletePokemonById(pokemonId) == 0) {
+                throw new PokemonNotFoundException("Pokemon could not be delete");
+            }
+            // one event for the Pokemon; its reviews went with it and get none of their own
+            outbox.record(Outbox.POKEMON_DELETED, pokemonId, null);
+            reviewFeed.publish(ReviewFeed.POKEMON_DELETED, pokemonId, 0, null);
+            return late;
+        });
+        return reviewsDeleted + remaining;
+    }
+
+    // onDeleted runs on the job's thread once the Pokemon is gone. A Pokemon that already has a job gets that job
+    // back, even when the queue is full.
+    public DeletionJobDto submit(int pokemonId, Runnable onDeleted) {
+        Job job = jobsByPokemon.computeIfAbsent(pokemonId, id -> {
+            Job newJob = new Job(UUID.randomUUID().toString(), id);
+            jobs.put(newJob.id, newJob);
+            try {
+                executor.execute(() -> run(newJob, onDeleted));
+            } catch (RejectedExecutionException ex) {
+                jobs.remove(newJob.id);
+                throw new DeletionQueueFullException("Deletion queue is full, try again shortly");
+            }
+            return newJob;
+        });
+        return job.toDto();
+    }
+
+    public Optional<DeletionJobDto> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(Job::toDto);
+    }
+
+    @Scheduled(fixedDelayString = "${app.pokemon.delete-job-eviction-interval-ms:600000}")
+    public void evictFinishedJobs() {
+        long cutoff = System.currentTimeMillis() - FINISHED_JOB_RETENTION_MILLIS;
+        jobs.values().removeIf(job -> job.finishedAt != 0 && job.finishedAt < cutoff);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private void run(Job job, Runnable onDeleted) {
+        job.status = "RUNNING";
+        try {
+            long total = delete(job.pokemonId, job.reviewsDeleted::set);
+            job.reviewsDeleted.set(total);
+            onDeleted.run();
+            job.status = "COMPLETED";
+        } catch (RuntimeException ex) {
+            job.status = "FAILED";
+            job.message = ex.getMessage();
+        } finally {
+            job.finishedAt = System.currentTimeMillis();
+            jobsByPokemon.remove(job.pokemonId);
+        }
+    }
+
+    private static class Job {
+        private final String id;
+        private final int pokemonId;
+        private final AtomicLong reviewsDeleted = new AtomicLong();
+        private volatile String status = "PENDING";
+        private volatile String message;
+        private volatile long finishedAt;
+
+        private Job(String id, int pokemonId) {
+            this.id = id;
+            this.pokemonId = pokemonId;
+        }
+
+        private DeletionJobDto toDto() {
+            return DeletionJobDto.builder().jobId(id).pokemonId(pokemonId).status(status)
+                    .reviewsDeleted(reviewsDeleted.get()).message(message).build();
+        }
+    }
+}
@@ -1,83 +1,297 @@
 package com.pokemonreview.api.service.impl;
 
+import com.pokemonreview.api.cache.ResponseCache;
+import com.pokemonreview.api.cache.SurrogateKeys;
+import com.pokemonreview.api.catalog.CatalogSnapshot;
+import com.pokemonreview.api.catalog.PokemonCatalog;
+import com.pokemonreview.api.dto.BatchResponse;
+import com.pokemonreview.api.dto.DeletionJobDto;
 import com.pokemonreview.api.dto.PokemonDto;
 import com.pokemonreview.api.dto.PokemonResponse;
+import com.pokemonreview.api.dto.ReviewDto;
 import com.pokemonreview.api.exceptions.PokemonNotFoundException;
+import com.pokemonreview.api.exceptions.PreconditionFailedException;
 import com.pokemonreview.api.models.Pokemon;
+import com.pokemonreview.api.models.Review;
+import com.pokemonreview.api.outbox.Outbox;
 import com.pokemonreview.api.repository.PokemonRepository;
+import com.pokemonreview.api.repository.ReviewRepository;
+import com.pokemonreview.api.service.OptimisticRetry;
 import com.pokemonreview.api.service.PokemonService;
+import com.pokemonreview.api.service.SingleFlight;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
 public class PokemonServiceImpl implements PokemonService {
     private PokemonRepository pokemonRepository;
+    private ReviewRepository reviewRepository;
+    private PokemonBulkDeleter pokemonBulkDeleter;
+    private SingleFlight singleFlight;
+    private PokemonCatalog pokemonCatalog;
+    private ResponseCache responseCache;
+    private OptimisticRetry optimisticRetry;
+    private Outbox outbox;
 
     @Autowired
-    public PokemonServiceImpl(PokemonRepository pokemonRepository) {
+    public PokemonServiceImpl(PokemonRepository pokemonRepository, ReviewRepository reviewRepository,
+                              PokemonBulkDeleter pokemonBulkDeleter, SingleFlight singleFlight,
+                              PokemonCatalog pokemonCatalog, ResponseCache responseCache, OptimisticRetry optimisticRetry,
+                              Outbox outbox) {
         this.pokemonRepository = pokemonRepository;
+        this.reviewRepository = reviewRepository;
+        this.pokemonBulkDeleter = pokemonBulkDeleter;
+        this.singleFlight = singleFlight;
+        this.pokemonCatalog = pokemonCatalog;
+        this.responseCache = responseCache;
+        this.optimisticRetry = optimisticRetry;
+        this.outbox = outbox;
     }
 
     @Override
+    @Transactional
     public PokemonDto createPokemon(PokemonDto pokemonDto) {
         Pokemon pokemon = new Pokemon();
         pokemon.setName(pokemonDto.getName());
         pokemon.setType(pokemonDto.getType());
 
         Pokemon newPokemon = pokemonRepository.save(pokemon);
+        pokemonCatalog.saved(newPokemon);
+        responseCache.purge(SurrogateKeys.POKEMONS);
 
         PokemonDto pokemonResponse = new PokemonDto();
         pokemonResponse.setId(newPokemon.getId());
         pokemonResponse.setName(newPokemon.getName());
         pokemonResponse.setType(newPokemon.getType());
+        pokemonResponse.setVersion(newPokemon.getVersion());
+        outbox.record(Outbox.POKEMON_CREATED, newPokemon.getId(), pokemonResponse);
         return pokemonResponse;
     }
 
+    // Served from the in-memory catalog (ordered by id) once it is loaded, from the database before that.
     @Override
+    @Transactional(readOnly = true)
     public PokemonResponse getAllPokemon(int pageNo, int pageSize) {
+        // validates pageNo and pageSize for both paths
         Pageable pageable = PageRequest.of(pageNo, pageSize);
-        Page<Pokemon> pokemons = pokemonRepository.findAll(pageable);
-        List<Pokemon> listOfPokemon = pokemons.getContent();
-        List<PokemonDto> content = listOfPokemon.stream().map(p -> mapToDto(p)).collect(Collectors.toList());
+        CatalogSnapshot catalog = pokemonCatalog.snapshot();
+        if (catalog != null) {
+            return toResponse(catalog.page(pageNo, pageSize), catalog.size(), pageable);
+        }
+        return toResponse(pokemonRepository.findAll(pageable));
+    }
 
-        PokemonResponse pokemonResponse = new PokemonResponse();
-        pokemonResponse.setContent(content);
-        pokemonResponse.setPageNo(pokemons.getNumber());
-        pokemonResponse.setPageSize(pokemons.getSize());
-        pokemonResponse.setTotalElements(pokemons.getTotalElements());
-        pokemonResponse.setTotalPages(pokemons.getTotalPages());
-        pokemonResponse.setLast(pokemons.isLast());
+    @Override
+    @Transactional(readOnly = true)
+    public PokemonResponse getPokemonByType(String type, int pageNo, int pageSize) {
+        Pageable pageable = PageRequest.of(pageNo, pageSize);
+        CatalogSnapshot catalog = pokemonCatalog.snapshot();
+        if (catalog != null) {
+            return toResponse(catalog.pageOfType(type, pageNo, pageSize), catalog.countOfType(type), pageable);
+        }
+        return toResponse(pokemonRepository.findAllByType(type, pageable));
+    }
+
+    // From the catalog when it has the id. Otherwise concurrent lookups of the same id share one query.
+    // Not transactional on purpose: findById opens its own read-only transaction, so callers waiting on someone
+    // else's lookup do not hold a connection meanwhile.
+    // Every caller gets its own copy because the shared result is handed to all of them.
+    @Override
+    public PokemonDto getPokemonById(int id) {
+        CatalogSnapshot catalog = pokemonCatalog.snapshot();
+        CatalogSnapshot.Entry entry = catalog != null ? catalog.get(id) : null;
+        if (entry != null) {
+            return entry.toDto();
+        }
+        PokemonDto shared = singleFlight.execute("pokemon", id, () -> {
+            Pokemon pokemon = pokemonRepository.findById(id).orElseThrow(() -> new PokemonNotFoundException("Pokemon could not be found"));
+            if (catalog != null) {
+                pokemonCatalog.loaded(pokemon);
+            }
+            return mapToDto(pokemon);
+        });
+        return PokemonDto.builder().id(shared.getId()).name(shared.getName()).type(shared.getType()).version(shared.getVersion()).build();
+    }
 
+    // A page with embedded reviews costs three statements whatever the page size:
+    // the page, its count, and one batched query for the reviews of every Pokemon on it.
+    @Override
+    @Transactional(readOnly = true)
+    public PokemonResponse getAllPokemonWithReviews(int pageNo, int pageSize, int reviewLimit) {
+        PokemonResponse pokemonResponse = getAllPokemon(pageNo, pageSize);
+        attachReviews(pokemonResponse.getContent(), reviewLimit);
         return pokemonResponse;
     }
 
     @Override
-    public PokemonDto getPokemonById(int id) {
-        Pokemon pokemon = pokemonRepository.findById(id).orElseThrow(() -> new PokemonNotFoundException("Pokemon could not be found"));
-        return mapToDto(pokemon);
+    @Transactional(readOnly = true)
+    public PokemonResponse getPokemonByTypeWithReviews(String type, int pageNo, int pageSize, int reviewLimit) {
+        PokemonResponse pokemonResponse = getPokemonByType(type, pageNo, pageSize);
+        attachReviews(pokemonResponse.getContent(), reviewLimit);
+        return pokemonResponse;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PokemonDto getPokemonWithReviews(int id, int reviewLimit) {
+        PokemonDto pokemonDto = getPokemonById(id);
+        attachReviews(Collections.singletonList(pokemonDto), reviewLimit);
+        return pokemonDto;
+    }
+
+    // Ids the catalog has cost nothing; the rest are read with one query for the whole batch. Hibernate pads the
+    // IN list to the next power of two (hibernate.query.in_clause_parameter_padding), so batches of similar size
+    // share a cached statement plan.
+    @Override
+    @Transactional(readOnly = true)
+    public BatchResponse<PokemonDto> getPokemonsByIds(List<Integer> ids) {
+        List<Integer> distinctIds = ids.stream().distinct().collect(Collectors.toList());
+        CatalogSnapshot catalog = pokemonCatalog.snapshot();
+        Map<Integer, PokemonDto> found = new HashMap<>();
+        List<Integer> notInCatalog = new ArrayList<>();
+        for (Integer id : distinctIds) {
+            CatalogSnapshot.Entry entry = catalog != null ? catalog.get(id) : null;
+            if (entry != null) {
+                found.put(id, entry.toDto());
+            } else {
+                notInCatalog.add(id);
+            }
+        }
+        if (!notInCatalog.isEmpty()) {
+            for (Pokemon pokemon : pokemonRepository.findAllById(notInCatalog)) {
+                found.put(pokemon.getId(), mapToDto(pokemon));
+            }
+        }
+        return BatchResponse.of(distinctIds, found);
     }
 
     @Override
     public PokemonDto updatePokemon(PokemonDto pokemonDto, int id) {
-        Pokemon pokemon = pokemonRepository.findById(id).orElseThrow(() -> new PokemonNotFoundException("Pokemon could not be updated"));
+        return updatePokemon(pokemonDto, id, null);
+    }
 
-        pokemon.setName(pokemonDto.getName());
-        pokemon.setType(pokemonDto.getType());
+    // With expectedVersion (If-Match) the update applies only to that version and fails with 412 otherwise.
+    // Without it a concurrent update is not an error: OptimisticRetry re-reads and applies it again on top.
+    @Override
+    public PokemonDto updatePokemon(PokemonDto pokemonDto, int id, Integer expectedVersion) {
+        Pokemon updatedPokemon;
+        try {
+            updatedPokemon = optimisticRetry.execute("pokemon", expectedVersion == null, () -> {
+                Pokemon pokemon = pokemonRepository.findById(id).orElseThrow(() -> new PokemonNotFoundException("Pokemon could not be updated"));
+                if (expectedVersion != null && pokemon.getVersion() != expectedVersion) {
+                    throw new PreconditionFailedException("Pokemon was modified, current version is " + pokemon.getVersion());
+                }
+
+                pokemon.setName(pokemonDto.getName());
+                pokemon.setType(pokemonDto.getType());
 
-        Pokemon updatedPokemon = pokemonRepository.save(pokemon);
+                // flushed here so a conflict surfaces inside the attempt and the new version is in the response
+                Pokemon saved = pokemonRepository.saveAndFlush(pokemon);
+                outbox.record(Outbox.POKEMON_UPDATED, id, mapToDto(saved));
+                return saved;
+            });
+        } catch (OptimisticLockingFailureException e) {
+            if (expectedVersion == null) {
+                throw e;
+            }
+            throw new PreconditionFailedException("Pokemon was modified concurrently");
+        }
+        pokemonCatalog.saved(updatedPokemon);
+        responseCache.purge(SurrogateKeys.pokemon(id), SurrogateKeys.POKEMONS);
         return mapToDto(updatedPokemon);
     }
 
+    // not transactional: the bulk deleter commits one chunk of reviews at a time, and records the deletion
+    // in the outbox with the Pokemon's own DELETE
     @Override
     public void deletePokemonId(int id) {
-        Pokemon pokemon = pokemonRepository.findById(id).orElseThrow(() -> new PokemonNotFoundException("Pokemon could not be delete"));
-        pokemonRepository.delete(pokemon);
+        pokemonBulkDeleter.delete(id, reviewsDeleted -> { });
+        deleted(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public DeletionJobDto startDeletePokemon(int id) {
+        if (!pokemonRepository.existsById(id)) {
+            throw new PokemonNotFoundException("Pokemon could not be delete");
+        }
+        return pokemonBulkDeleter.submit(id, () -> deleted(id));
+    }
+
+    @Override
+    public Optional<DeletionJobDto> getDeletionJob(String jobId) {
+        return pokemonBulkDeleter.getJob(jobId);
+    }
+
+    // the reviews went with the Pokemon, so review multi-gets are purged as well
+    private void deleted(int id) {
+        pokemonCatalog.deleted(id);
+        responseCache.purge(SurrogateKeys.pokemon(id), SurrogateKeys.POKEMONS, SurrogateKeys.REVIEWS);
+    }
+
+    // Never touches Pokemon.reviews: the reviews are read for all ids at once and grouped by the foreign key,
+    // which Hibernate answers from the Review.pokemon proxy without loading it.
+    private void attachReviews(List<PokemonDto> pokemons, int reviewLimit) {
+        if (pokemons.isEmpty()) {
+            return;
+        }
+        Map<Integer, List<ReviewDto>> reviewsByPokemon = new HashMap<>();
+        List<Integer> ids = pokemons.stream().map(PokemonDto::getId).collect(Collectors.toList());
+        for (Review review : reviewRepository.findFirstReviewsByPokemonIdIn(ids, reviewLimit)) {
+            ReviewDto reviewDto = ReviewDto.builder().id(review.getId()).title(review.getTitle())
+                    .content(review.getContent()).stars(review.getStars()).version(review.getVersion()).build();
+            reviewsByPokemon.computeIfAbsent(review.getPokemon().getId(), id -> new ArrayList<>()).add(reviewDto);
+        }
+        for (PokemonDto pokemon : pokemons) {
+            pokemon.setReviews(reviewsByPokemon.getOrDefault(pokemon.getId(), new ArrayList<>()));
+        }
+    }
+
+    private PokemonResponse toResponse(Page<Pokemon> pokemons) {
+        List<PokemonDto> content = pokemons.getContent().stream().map(p -> mapToDto(p)).collect(Collectors.toList());
+
+        PokemonResponse pokemonResponse = new PokemonResponse();
+        pokemonResponse.setContent(content);
+        pokemonResponse.setPageNo(pokemons.getNumber());
+        pokemonResponse.setPageSize(pokemons.getSize());
+        pokemonResponse.setTotalElements(pokemons.getTotalElements());
+        pokemonResponse.setTotalPages(pokemons.getTotalPages());
+        pokemonResponse.setLast(pokemons.isLast());
+
+        return pokemonResponse;
+    }
+
+    // PageImpl does the paging arithmetic, so both paths report pages the same way
+    private PokemonResponse toResponse(List<CatalogSnapshot.Entry> entries, int total, Pageable pageable) {
+        List<PokemonDto> content = new ArrayList<>(entries.size());
+        for (CatalogSnapshot.Entry entry : entries) {
+            content.add(entry.toDto());
+        }
+        Page<PokemonDto> page = new PageImpl<>(content, pageable, total);
+
+        PokemonResponse pokemonResponse = new PokemonResponse();
+        pokemonResponse.setContent(content);
+        pokemonResponse.setPageNo(page.getNumber());
+        pokemonResponse.setPageSize(page.getSize());
+        pokemonResponse.setTotalElements(page.getTotalElements());
+        pokemonResponse.setTotalPages(page.getTotalPages());
+        pokemonResponse.setLast(page.isLast());
+
+        return pokemonResponse;
     }
 
     private PokemonDto mapToDto(Pokemon pokemon) {
@@ -85,6 +299,7 @@ public class PokemonServiceImpl implements PokemonService {
         pokemonDto.setId(pokemon.getId());
         pokemonDto.setName(pokemon.getName());
         pokemonDto.setType(pokemon.getType());
+        pokemonDto.setVersion(pokemon.getVersion());
         return pokemonDto;
     }
 
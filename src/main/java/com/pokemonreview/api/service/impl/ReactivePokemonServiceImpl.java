@@ -0,0 +1,261 @@
+package com.pokemonreview.api.service.impl;
+
+import com.pokemonreview.api.catalog.PokemonCatalog;
+import com.pokemonreview.api.dto.BatchResponse;
+import com.pokemonreview.api.dto.DeletionJobDto;
+import com.pokemonreview.api.dto.PokemonDto;
+import com.pokemonreview.api.dto.PokemonResponse;
+import com.pokemonreview.api.dto.ReviewDto;
+import com.pokemonreview.api.exceptions.PokemonNotFoundException;
+import com.pokemonreview.api.exceptions.PreconditionFailedException;
+import com.pokemonreview.api.models.Pokemon;
+import com.pokemonreview.api.outbox.Outbox;
+import com.pokemonreview.api.outbox.ReactiveOutbox;
+import com.pokemonreview.api.service.OptimisticRetry;
+import com.pokemonreview.api.service.PokemonService;
+import com.pokemonreview.api.service.ReactivePokemonService;
+import io.r2dbc.spi.Row;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// PokemonServiceImpl over R2DBC: the same statements, but no request thread waits on the database.
+// Reads always go to the database; the catalog, single-flight and replica routing belong to the servlet runtime.
+// Creates and updates commit with their outbox row in one R2DBC transaction and then update this node's catalog
+// and notify the others, like the servlet service. Deleting is left to PokemonServiceImpl: PokemonBulkDeleter's
+// chunked commits and jobs are JPA, so it runs on the bounded elastic scheduler, off the event loop.
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactivePokemonServiceImpl implements ReactivePokemonService {
+
+    private static final String COLUMNS = "select id, name, type, version from pokemon ";
+
+    private DatabaseClient databaseClient;
+    private TransactionalOperator transactionalOperator;
+    private ReactiveOutbox outbox;
+    private OptimisticRetry optimisticRetry;
+    private PokemonCatalog pokemonCatalog;
+    private PokemonService pokemonService;
+
+    @Autowired
+    public ReactivePokemonServiceImpl(DatabaseClient databaseClient, TransactionalOperator transactionalOperator,
+                                      ReactiveOutbox outbox, OptimisticRetry optimisticRetry,
+                                      PokemonCatalog pokemonCatalog, PokemonService pokemonService) {
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = transactionalOperator;
+        this.outbox = outbox;
+        this.optimisticRetry = optimisticRetry;
+        this.pokemonCatalog = pokemonCatalog;
+        this.pokemonService = pokemonService;
+    }
+
+    @Override
+    public Mono<PokemonDto> createPokemon(PokemonDto pokemonDto) {
+        return bindNullable(databaseClient.sql("insert into pokemon (name, type, version) values (:name, :type, 0)"), pokemonDto)
+                .filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get(0, Integer.class))
+                .one()
+                .map(id -> PokemonDto.builder().id(id).name(pokemonDto.getName()).type(pokemonDto.getType()).version(0).build())
+                .flatMap(created -> outbox.record(Outbox.POKEMON_CREATED, created.getId(), created).thenReturn(created))
+                .as(transactionalOperator::transactional)
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(created -> pokemonCatalog.saved(toEntity(created)));
+    }
+
+    @Override
+    public Mono<PokemonResponse> getAllPokemon(int pageNo, int pageSize) {
+        // validates pageNo and pageSize the same way the servlet service does
+        Pageable pageable = PageRequest.of(pageNo, pageSize);
+        Mono<List<PokemonDto>> content = databaseClient.sql(COLUMNS + "order by id limit :limit offset :offset")
+                .bind("limit", pageable.getPageSize())
+                .bind("offset", pageable.getOffset())
+                .map(ReactivePokemonServiceImpl::mapToDto)
+                .all()
+                .collectList();
+        Mono<Long> total = databaseClient.sql("select count(*) from pokemon")
+                .map(row -> row.get(0, Long.class))
+                .one();
+        return Mono.zip(content, total, (pokemons, count) -> toResponse(pokemons, count, pageable));
+    }
+
+    @Override
+    public Mono<PokemonResponse> getPokemonByType(String type, int pageNo, int pageSize) {
+        Pageable pageable = PageRequest.of(pageNo, pageSize);
+        Mono<List<PokemonDto>> content = databaseClient.sql(COLUMNS + "where type = :type order by id limit :limit offset :offset")
+                .bind("type", type)
+                .bind("limit", pageable.getPageSize())
+                .bind("offset", pageable.getOffset())
+                .map(ReactivePokemonServiceImpl::mapToDto)
+                .all()
+                .collectList();
+        Mono<Long> total = databaseClient.sql("select count(*) from pokemon where type = :type")
+                .bind("type", type)
+                .map(row -> row.get(0, Long.class))
+                .one();
+        return Mono.zip(content, total, (pokemons, count) -> toResponse(pokemons, count, pageable));
+    }
+
+    @Override
+    public Mono<PokemonDto> getPokemonById(int id) {
+        return databaseClient.sql(COLUMNS + "where id = :id")
+                .bind("id", id)
+                .map(ReactivePokemonServiceImpl::mapToDto)
+                .one()
+                .switchIfEmpty(Mono.error(() -> new PokemonNotFoundException("Pokemon could not be found")));
+    }
+
+    // the page, its count, and one statement for the reviews of every Pokemon on it, as on the servlet side
+    @Override
+    public Mono<PokemonResponse> getAllPokemonWithReviews(int pageNo, int pageSize, int reviewLimit) {
+        return getAllPokemon(pageNo, pageSize)
+                .flatMap(pokemonResponse -> attachReviews(pokemonResponse.getContent(), reviewLimit).thenReturn(pokemonResponse));
+    }
+
+    @Override
+    public Mono<PokemonResponse> getPokemonByTypeWithReviews(String type, int pageNo, int pageSize, int reviewLimit) {
+        return getPokemonByType(type, pageNo, pageSize)
+                .flatMap(pokemonResponse -> attachReviews(pokemonResponse.getContent(), reviewLimit).thenReturn(pokemonResponse));
+    }
+
+    @Override
+    public Mono<PokemonDto> getPokemonWithReviews(int id, int reviewLimit) {
+        return getPokemonById(id)
+                .flatMap(pokemonDto -> attachReviews(Collections.singletonList(pokemonDto), reviewLimit).thenReturn(pokemonDto));
+    }
+
+    // Same conditional / retried semantics as PokemonServiceImpl.updatePokemon. The UPDATE only applies to the
+    // version that was read, which is what Hibernate's @Version check does on the servlet side.
+    @Override
+    public Mono<PokemonDto> updatePokemon(PokemonDto pokemonDto, int id, Integer expectedVersion) {
+        Mono<PokemonDto> update = databaseClient.sql(COLUMNS + "where id = :id")
+                .bind("id", id)
+                .map(ReactivePokemonServiceImpl::mapToDto)
+                .one()
+                .switchIfEmpty(Mono.error(() -> new PokemonNotFoundException("Pokemon could not be updated")))
+                .flatMap(current -> {
+                    if (expectedVersion != null && current.getVersion() != expectedVersion) {
+                        return Mono.error(new PreconditionFailedException("Pokemon was modified, current version is " + current.getVersion()));
+                    }
+                    PokemonDto updated = PokemonDto.builder().id(id).name(pokemonDto.getName()).type(pokemonDto.getType())
+                            .version(current.getVersion() + 1).build();
+                    return bindNullable(databaseClient.sql("update pokemon set name = :name, type = :type, version = :next "
+                            + "where id = :id and version = :version"), pokemonDto)
+                            .bind("next", updated.getVersion())
+                            .bind("id", id)
+                            .bind("version", current.getVersion())
+                            .fetch()
+                            .rowsUpdated()
+                            .flatMap(rows -> rows == 0 ? Mono.error(new OptimisticLockingFailureException("Pokemon was updated concurrently"))
+                                    : outbox.record(Outbox.POKEMON_UPDATED, id, updated).thenReturn(updated));
+                })
+                .as(transactionalOperator::transactional);
+
+        return optimisticRetry.execute("pokemon", expectedVersion == null, update)
+                .onErrorMap(OptimisticLockingFailureException.class,
+                        e -> expectedVersion == null ? e : new PreconditionFailedException("Pokemon was modified concurrently"))
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(updated -> pokemonCatalog.saved(toEntity(updated)));
+    }
+
+    @Override
+    public Mono<Void> deletePokemonId(int id) {
+        return Mono.fromRunnable(() -> pokemonService.deletePokemonId(id)).subscribeOn(Schedulers.boundedElastic()).then();
+    }
+
+    @Override
+    public Mono<DeletionJobDto> startDeletePokemon(int id) {
+        return Mono.fromCallable(() -> pokemonService.startDeletePokemon(id)).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    // the jobs are kept in memory, nothing blocks
+    @Override
+    public Mono<DeletionJobDto> getDeletionJob(String jobId) {
+        return Mono.justOrEmpty(pokemonService.getDeletionJob(jobId));
+    }
+
+    @Override
+    public Mono<BatchResponse<PokemonDto>> getPokemonsByIds(List<Integer> ids) {
+        List<Integer> distinctIds = ids.stream().distinct().collect(Collectors.toList());
+        return databaseClient.sql(COLUMNS + "where id in (:ids)")
+                .bind("ids", distinctIds)
+                .map(ReactivePokemonServiceImpl::mapToDto)
+                .all()
+                .collectMap(PokemonDto::getId)
+                .map(found -> BatchResponse.of(distinctIds, found));
+    }
+
+    // same statement as ReviewRepository.findFirstReviewsByPokemonIdIn
+    private Mono<Void> attachReviews(List<PokemonDto> pokemons, int reviewLimit) {
+        if (pokemons.isEmpty()) {
+            return Mono.empty();
+        }
+        List<Integer> ids = pokemons.stream().map(PokemonDto::getId).collect(Collectors.toList());
+        return databaseClient.sql("select id, title, content, stars, version, pokemon_id from ("
+                        + "select r.*, row_number() over (partition by r.pokemon_id order by r.id) as position "
+                        + "from review r where r.pokemon_id in (:pokemonIds)) ranked "
+                        + "where position <= :limit order by pokemon_id, id")
+                .bind("pokemonIds", ids)
+                .bind("limit", reviewLimit)
+                .map(row -> Tuples.of(row.get("pokemon_id", Integer.class), ReviewDto.builder().id(row.get("id", Integer.class))
+                        .title(row.get("title", String.class)).content(row.get("content", String.class))
+                        .stars(row.get("stars", Integer.class)).version(row.get("version", Integer.class)).build()))
+                .all()
+                .collect(Collectors.groupingBy(Tuple2::getT1, Collectors.mapping(Tuple2::getT2, Collectors.toList())))
+                .doOnNext(reviewsByPokemon -> {
+                    for (PokemonDto pokemon : pokemons) {
+                        pokemon.setReviews(reviewsByPokemon.getOrDefault(pokemon.getId(), new ArrayList<>()));
+                    }
+                })
+                .then();
+    }
+
+    // PageImpl does the paging arithmetic, so pages are reported exactly as PokemonServiceImpl reports them
+    private static PokemonResponse toResponse(List<PokemonDto> content, long total, Pageable pageable) {
+        PageImpl<PokemonDto> page = new PageImpl<>(content, pageable, total);
+
+        PokemonResponse pokemonResponse = new PokemonResponse();
+        pokemonResponse.setContent(content);
+        pokemonResponse.setPageNo(page.getNumber());
+        pokemonResponse.setPageSize(page.getSize());
+        pokemonResponse.setTotalElements(page.getTotalElements());
+        pokemonResponse.setTotalPages(page.getTotalPages());
+        pokemonResponse.setLast(page.isLast());
+
+        return pokemonResponse;
+    }
+
+    // R2DBC has no bind(name, null); the servlet side accepts a Pokemon without a name or type, so this does as well
+    private static DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec statement, PokemonDto pokemonDto) {
+        statement = pokemonDto.getName() != null ? statement.bind("name", pokemonDto.getName()) : statement.bindNull("name", String.class);
+        return pokemonDto.getType() != null ? statement.bind("type", pokemonDto.getType()) : statement.bindNull("type", String.class);
+    }
+
+    private static Pokemon toEntity(PokemonDto pokemonDto) {
+        return Pokemon.builder().id(pokemonDto.getId()).name(pokemonDto.getName()).type(pokemonDto.getType())
+                .version(pokemonDto.getVersion()).build();
+    }
+
+    private static PokemonDto mapToDto(Row row) {
+        PokemonDto pokemonDto = new PokemonDto();
+        pokemonDto.setId(row.get("id", Integer.class));
+        pokemonDto.setName(row.get("name", String.class));
+        pokemonDto.setType(row.get("type", String.class));
+        pokemonDto.setVersion(row.get("version", Integer.class));
+        return pokemonDto;
+    }
+}
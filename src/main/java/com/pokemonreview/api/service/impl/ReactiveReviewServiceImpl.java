@@ -0,0 +1,185 @@
+package com.pokemonreview.api.service.impl;
+
+import com.pokemonreview.api.dto.BatchResponse;
+import com.pokemonreview.api.dto.ReviewBatchItemDto;
+import com.pokemonreview.api.dto.ReviewBatchResponse;
+import com.pokemonreview.api.dto.ReviewDto;
+import com.pokemonreview.api.dto.ReviewEventDto;
+import com.pokemonreview.api.dto.ReviewIngestDto;
+import com.pokemonreview.api.exceptions.PokemonNotFoundException;
+import com.pokemonreview.api.exceptions.PreconditionFailedException;
+import com.pokemonreview.api.exceptions.ReviewNotFoundException;
+import com.pokemonreview.api.outbox.Outbox;
+import com.pokemonreview.api.outbox.ReactiveOutbox;
+import com.pokemonreview.api.service.OptimisticRetry;
+import com.pokemonreview.api.service.ReactiveReviewService;
+import com.pokemonreview.api.service.ReviewService;
+import io.r2dbc.spi.Row;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+// ReviewServiceImpl over R2DBC, with the same not-found rules and messages. Single reviews are written with their
+// outbox row in one R2DBC transaction. The bulk insert (ReviewBatchInserter) and the write-behind queue
+// (ReviewIngestor) are JDBC and JPA, so those two are handed to ReviewServiceImpl on the bounded elastic scheduler.
+// Nothing is published to ReviewFeed: the review stream is served by servlet nodes, and its events are per node.
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveReviewServiceImpl implements ReactiveReviewService {
+
+    private static final String COLUMNS = "select id, title, content, stars, version, pokemon_id from review ";
+
+    private DatabaseClient databaseClient;
+    private TransactionalOperator transactionalOperator;
+    private ReactiveOutbox outbox;
+    private OptimisticRetry optimisticRetry;
+    private ReviewService reviewService;
+
+    @Autowired
+    public ReactiveReviewServiceImpl(DatabaseClient databaseClient, TransactionalOperator transactionalOperator,
+                                     ReactiveOutbox outbox, OptimisticRetry optimisticRetry, ReviewService reviewService) {
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = transactionalOperator;
+        this.outbox = outbox;
+        this.optimisticRetry = optimisticRetry;
+        this.reviewService = reviewService;
+    }
+
+    @Override
+    public Mono<ReviewDto> createReview(int pokemonId, ReviewDto reviewDto) {
+        return pokemonExists(pokemonId)
+                .then(bindNullable(databaseClient.sql("insert into review (title, content, stars, version, pokemon_id) "
+                        + "values (:title, :content, :stars, 0, :pokemonId)"), reviewDto)
+                        .bind("pokemonId", pokemonId)
+                        .filter(statement -> statement.returnGeneratedValues("id"))
+                        .map(row -> row.get(0, Integer.class))
+                        .one())
+                .map(id -> ReviewDto.builder().id(id).title(reviewDto.getTitle()).content(reviewDto.getContent())
+                        .stars(reviewDto.getStars()).version(0).build())
+                .flatMap(created -> outbox.record(Outbox.REVIEW_CREATED, created.getId(),
+                        new ReviewEventDto("CREATED", pokemonId, created.getId(), created)).thenReturn(created))
+                .as(transactionalOperator::transactional);
+    }
+
+    @Override
+    public Mono<ReviewBatchResponse> createReviews(List<ReviewBatchItemDto> reviews) {
+        return Mono.fromCallable(() -> reviewService.createReviews(reviews)).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Mono<ReviewIngestDto> submitReview(int pokemonId, ReviewDto reviewDto) {
+        return Mono.fromCallable(() -> reviewService.submitReview(pokemonId, reviewDto)).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    // the statuses are kept in memory, nothing blocks
+    @Override
+    public Mono<ReviewIngestDto> getIngestStatus(String trackingId) {
+        return Mono.justOrEmpty(reviewService.getIngestStatus(trackingId));
+    }
+
+    @Override
+    public Mono<List<ReviewDto>> getReviewsByPokemonId(int id) {
+        return databaseClient.sql(COLUMNS + "where pokemon_id = :pokemonId order by id")
+                .bind("pokemonId", id)
+                .map(ReactiveReviewServiceImpl::mapToDto)
+                .all()
+                .collectList();
+    }
+
+    @Override
+    public Mono<ReviewDto> getReviewById(int reviewId, int pokemonId) {
+        Mono<Integer> pokemon = pokemonExists(pokemonId);
+        Mono<Tuple2<Integer, ReviewDto>> review = databaseClient.sql(COLUMNS + "where id = :id")
+                .bind("id", reviewId)
+                .map(row -> Tuples.of(row.get("pokemon_id", Integer.class), mapToDto(row)))
+                .one()
+                .switchIfEmpty(Mono.error(() -> new ReviewNotFoundException("Review with associate pokemon not found")));
+
+        return pokemon.then(review).flatMap(found -> found.getT1() == pokemonId ? Mono.just(found.getT2())
+                : Mono.error(new ReviewNotFoundException("This review does not belong to a pokemon")));
+    }
+
+    // same conditional / retried semantics as ReviewServiceImpl.updateReview
+    @Override
+    public Mono<ReviewDto> updateReview(int pokemonId, int reviewId, ReviewDto reviewDto, Integer expectedVersion) {
+        Mono<ReviewDto> update = getReviewById(reviewId, pokemonId)
+                .flatMap(current -> {
+                    if (expectedVersion != null && current.getVersion() != expectedVersion) {
+                        return Mono.error(new PreconditionFailedException("Review was modified, current version is " + current.getVersion()));
+                    }
+                    ReviewDto updated = ReviewDto.builder().id(reviewId).title(reviewDto.getTitle()).content(reviewDto.getContent())
+                            .stars(reviewDto.getStars()).version(current.getVersion() + 1).build();
+                    return bindNullable(databaseClient.sql("update review set title = :title, content = :content, stars = :stars, "
+                            + "version = :next where id = :id and version = :version"), reviewDto)
+                            .bind("next", updated.getVersion())
+                            .bind("id", reviewId)
+                            .bind("version", current.getVersion())
+                            .fetch()
+                            .rowsUpdated()
+                            .flatMap(rows -> rows == 0 ? Mono.error(new OptimisticLockingFailureException("Review was updated concurrently"))
+                                    : outbox.record(Outbox.REVIEW_UPDATED, reviewId,
+                                    new ReviewEventDto("UPDATED", pokemonId, reviewId, updated)).thenReturn(updated));
+                })
+                .as(transactionalOperator::transactional);
+
+        return optimisticRetry.execute("review", expectedVersion == null, update)
+                .onErrorMap(OptimisticLockingFailureException.class,
+                        e -> expectedVersion == null ? e : new PreconditionFailedException("Review was modified concurrently"));
+    }
+
+    @Override
+    public Mono<Void> deleteReview(int pokemonId, int reviewId) {
+        return getReviewById(reviewId, pokemonId)
+                .flatMap(review -> databaseClient.sql("delete from review where id = :id")
+                        .bind("id", reviewId)
+                        .then())
+                .then(outbox.record(Outbox.REVIEW_DELETED, reviewId, new ReviewEventDto("DELETED", pokemonId, reviewId, null)))
+                .as(transactionalOperator::transactional);
+    }
+
+    @Override
+    public Mono<BatchResponse<ReviewDto>> getReviewsByIds(List<Integer> ids) {
+        List<Integer> distinctIds = ids.stream().distinct().collect(Collectors.toList());
+        return databaseClient.sql(COLUMNS + "where id in (:ids)")
+                .bind("ids", distinctIds)
+                .map(ReactiveReviewServiceImpl::mapToDto)
+                .all()
+                .collectMap(ReviewDto::getId)
+                .map(found -> BatchResponse.of(distinctIds, found));
+    }
+
+    private Mono<Integer> pokemonExists(int pokemonId) {
+        return databaseClient.sql("select id from pokemon where id = :id")
+                .bind("id", pokemonId)
+                .map(row -> row.get("id", Integer.class))
+                .one()
+                .switchIfEmpty(Mono.error(() -> new PokemonNotFoundException("Pokemon with associated review not found")));
+    }
+
+    // same as ReactivePokemonServiceImpl: title and content may be missing, as on the servlet side
+    private static DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec statement, ReviewDto reviewDto) {
+        statement = reviewDto.getTitle() != null ? statement.bind("title", reviewDto.getTitle()) : statement.bindNull("title", String.class);
+        statement = reviewDto.getContent() != null ? statement.bind("content", reviewDto.getContent()) : statement.bindNull("content", String.class);
+        return statement.bind("stars", reviewDto.getStars());
+    }
+
+    private static ReviewDto mapToDto(Row row) {
+        ReviewDto reviewDto = new ReviewDto();
+        reviewDto.setId(row.get("id", Integer.class));
+        reviewDto.setTitle(row.get("title", String.class));
+        reviewDto.setContent(row.get("content", String.class));
+        reviewDto.setStars(row.get("stars", Integer.class));
+        reviewDto.setVersion(row.get("version", Integer.class));
+        return reviewDto;
+    }
+}
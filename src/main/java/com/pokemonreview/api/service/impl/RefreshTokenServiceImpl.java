@@ -0,0 +1,132 @@
+package com.pokemonreview.api.service.impl;
+
+import com.pokemonreview.api.dto.AuthResponseDTO;
+import com.pokemonreview.api.exceptions.InvalidRefreshTokenException;
+import com.pokemonreview.api.models.RefreshToken;
+import com.pokemonreview.api.models.Role;
+import com.pokemonreview.api.models.UserEntity;
+import com.pokemonreview.api.repository.RefreshTokenRepository;
+import com.pokemonreview.api.repository.UserRepository;
+import com.pokemonreview.api.security.JWTGenerator;
+import com.pokemonreview.api.security.TokenRevocationList;
+import com.pokemonreview.api.service.RefreshTokenService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Date;
+import java.util.stream.Collectors;
+
+import static com.pokemonreview.api.security.SecurityConstants.REFRESH_TOKEN_EXPIRATION;
+
+// Refresh tokens are opaque random strings; only their SHA-256 is persisted.
+// A fast hash is enough here because the tokens carry 256 bits of entropy, which is also why refreshing
+// never needs the AuthenticationManager or BCrypt.
+@Service
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private RefreshTokenRepository refreshTokenRepository;
+    private UserRepository userRepository;
+    private JWTGenerator jwtGenerator;
+    private TokenRevocationList tokenRevocationList;
+
+    @Autowired
+    public RefreshTokenServiceImpl(RefreshTokenRepository refreshTokenRepository, UserRepository userRepository,
+                                   JWTGenerator jwtGenerator, TokenRevocationList tokenRevocationList) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.jwtGenerator = jwtGenerator;
+        this.tokenRevocationList = tokenRevocationList;
+    }
+
+    @Override
+    @Transactional
+    public String createRefreshToken(String username) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken refreshToken = RefreshToken.builder()
+                .tokenHash(hash(token))
+                .username(username)
+                .expiresAt(new Date(System.currentTimeMillis() + REFRESH_TOKEN_EXPIRATION))
+                .build();
+        refreshTokenRepository.save(refreshToken);
+
+        return token;
+    }
+
+    // Every refresh token is single use: it is revoked and replaced by a new one.
+    // Presenting an already used token means it was copied, so all of that user's refresh tokens are revoked.
+    // That revocation has to survive the exception, hence noRollbackFor.
+    @Override
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public AuthResponseDTO refresh(String refreshToken) {
+        if (!StringUtils.hasText(refreshToken)) {
+            throw new InvalidRefreshTokenException("Refresh token is missing");
+        }
+        RefreshToken stored = refreshTokenRepository.findByTokenHash(hash(refreshToken))
+                .orElseThrow(() -> new InvalidRefreshTokenException("Refresh token is invalid"));
+
+        if (stored.isRevoked() || refreshTokenRepository.revokeIfActive(stored.getId()) == 0) {
+            refreshTokenRepository.revokeAllByUsername(stored.getUsername());
+            throw new InvalidRefreshTokenException("Refresh token was already used");
+        }
+        if (stored.getExpiresAt().before(new Date())) {
+            throw new InvalidRefreshTokenException("Refresh token has expired");
+        }
+
+        UserEntity user = userRepository.findByUsername(stored.getUsername())
+                .orElseThrow(() -> new InvalidRefreshTokenException("Refresh token is invalid"));
+        String roles = user.getRoles().stream().map(Role::getName).collect(Collectors.joining(","));
+
+        String accessToken = jwtGenerator.generateToken(user.getUsername(), roles);
+        return new AuthResponseDTO(accessToken, createRefreshToken(user.getUsername()));
+    }
+
+    @Override
+    @Transactional
+    public void logout(String accessToken, String refreshToken) {
+        if (StringUtils.hasText(accessToken)) {
+            try {
+                Claims claims = jwtGenerator.validateTokenAndGetClaims(accessToken);
+                tokenRevocationList.revoke(claims.getId(), claims.getExpiration());
+            } catch (JwtException ex) {
+                // an expired or forged access token is already rejected by the filter, nothing to revoke
+            }
+        }
+        if (StringUtils.hasText(refreshToken)) {
+            refreshTokenRepository.findByTokenHash(hash(refreshToken))
+                    .ifPresent(stored -> refreshTokenRepository.revokeIfActive(stored.getId()));
+        }
+    }
+
+    @Scheduled(cron = "${app.auth.refresh-token.cleanup-cron:0 0 * * * *}")
+    @Transactional
+    public void deleteExpired() {
+        refreshTokenRepository.deleteExpired(new Date());
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.pokemonreview.api.service.impl;
+
+import com.pokemonreview.api.cache.ResponseCache;
+import com.pokemonreview.api.cache.SurrogateKeys;
+import com.pokemonreview.api.dto.ReviewDto;
+import com.pokemonreview.api.dto.ReviewEventDto;
+import com.pokemonreview.api.dto.ReviewIngestDto;
+import com.pokemonreview.api.exceptions.ReviewQueueFullException;
+import com.pokemonreview.api.feed.ReviewFeed;
+import com.pokemonreview.api.models.Pokemon;
+import com.pokemonreview.api.models.Review;
+import com.pokemonreview.api.outbox.Outbox;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Write-behind path for review creation (POST .../reviews?async=true). Accepted reviews wait in a bounded
+// in-memory queue; one writer thread takes whatever has queued up, up to batch-size, and writes it with a single
+// multi-row INSERT (ReviewBatchInserter) in one transaction: a burst of reviews costs one commit per batch instead of one per review.
+// The writer lingers up to max-delay-ms for a batch to fill, which is the added latency under light load.
+// If a batch violates a constraint (typically a Pokemon deleted after its review was accepted) its rows are retried
+// one by one so only the offending ones are marked FAILED. Any other failure (connection lost, database down) fails
+// the whole batch with a generic message: it is not the reviews' fault, and row-by-row retries would only add load.
+// The queue is not durable: reviews accepted but not yet written are lost if the process dies, which is why
+// this path is opt-in per request. Statuses are kept in memory on the accepting node for status-retention-ms.
+// The writer runs between the context's start and stop, not from construction: it starts before the web server
+// takes requests and stops after the server has finished its in-flight ones, writing out what is still queued.
+@Component
+public class ReviewIngestor implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewIngestor.class);
+
+    private static final String NOT_WRITTEN_MESSAGE = "Review could not be saved, please submit it again";
+
+    private ReviewBatchInserter reviewBatchInserter;
+    private TransactionTemplate transactionTemplate;
+    private ResponseCache responseCache;
+    private ReviewFeed reviewFeed;
+    private Outbox outbox;
+    private int batchSize;
+    private long maxDelayNanos;
+    private long statusRetentionMillis;
+
+    private final BlockingQueue<Pending> queue;
+    private final Map<String, Pending> statuses = new ConcurrentHashMap<>();
+    // guarded by this
+    private Thread writer;
+    private volatile boolean running;
+
+    private final DistributionSummary batchSizes;
+    private final Counter written;
+    private final Counter failed;
+
+    @Autowired
+    public ReviewIngestor(ReviewBatchInserter reviewBatchInserter, PlatformTransactionManager transactionManager,
+                          ResponseCache responseCache, ReviewFeed reviewFeed, Outbox outbox, MeterRegistry meterRegistry,
+                          @Value("${app.review-ingest.queue-capacity:10000}") int queueCapacity,
+                          @Value("${app.review-ingest.batch-size:500}") int batchSize,
+                          @Value("${app.review-ingest.max-delay-ms:20}") long maxDelayMillis,
+                          @Value("${app.review-ingest.status-retention-ms:600000}") long statusRetentionMillis) {
+        this.reviewBatchInserter = reviewBatchInserter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.responseCache = responseCache;
+        this.reviewFeed = reviewFeed;
+        this.outbox = outbox;
+        this.batchSize = batchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.statusRetentionMillis = statusRetentionMillis;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSizes = DistributionSummary.builder("review_ingest.batch_size").register(meterRegistry);
+        this.written = Counter.builder("review_ingest.reviews").tag("result", "written").register(meterRegistry);
+        this.failed = Counter.builder("review_ingest.reviews").tag("result", "failed").register(meterRegistry);
+        Gauge.builder("review_ingest.queued", queue, BlockingQueue::size).register(meterRegistry);
+    }
+
+    // The caller has checked that the Pokemon exists. Throws ReviewQueueFullException when the queue is full.
+    public ReviewIngestDto submit(int pokemonId, ReviewDto reviewDto) {
+        Pending pending = new Pending(UUID.randomUUID().toString(), pokemonId, reviewDto);
+        statuses.put(pending.trackingId, pending);
+        if (!running || !queue.offer(pending)) {
+            statuses.remove(pending.trackingId);
+            throw new ReviewQueueFullException("Review queue is full, try again shortly");
+        }
+        return pending.toDto();
+    }
+
+    public Optional<ReviewIngestDto> getStatus(String trackingId) {
+        return Optional.ofNullable(statuses.get(trackingId)).map(Pending::toDto);
+    }
+
+    @Scheduled(fixedDelayString = "${app.review-ingest.status-eviction-interval-ms:60000}")
+    public void evictFinishedStatuses() {
+        long cutoff = System.currentTimeMillis() - statusRetentionMillis;
+        statuses.values().removeIf(pending -> pending.finishedAt != 0 && pending.finishedAt < cutoff);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (writer != null) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::runWriter, "review-ingest");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // stops accepting and writes out what is already queued
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // below the web server's phases, so started before it and stopped after it
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void runWriter() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long lingerUntil = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = lingerUntil - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Review ingest writer failed on a batch of {}", batch.size(), e);
+                batch.forEach(pending -> pending.fail(NOT_WRITTEN_MESSAGE));
+                failed.increment(batch.size());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    void flush(List<Pending> batch) {
+        batchSizes.record(batch.size());
+        try {
+            List<Integer> ids = transactionTemplate.execute(status -> {
+                List<Integer> inserted = reviewBatchInserter.insert(toReviews(batch));
+                List<Outbox.Event> events = new ArrayList<>(batch.size());
+                for (int i = 0; i < batch.size(); i++) {
+                    Pending pending = batch.get(i);
+                    events.add(new Outbox.Event(Outbox.REVIEW_CREATED, inserted.get(i),
+                            new ReviewEventDto("CREATED", pending.pokemonId, inserted.get(i), toDto(pending, inserted.get(i)))));
+                }
+                outbox.recordAll(events);
+                return inserted;
+            });
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).written(ids.get(i));
+            }
+            written.increment(batch.size());
+        } catch (DataIntegrityViolationException e) {
+            if (batch.size() == 1) {
+                batch.get(0).fail("Pokemon with associated review not found");
+                failed.increment();
+                return;
+            }
+            for (Pending pending : batch) {
+                flush(List.of(pending));
+            }
+            return;
+        } catch (DataAccessException e) {
+            log.error("Review ingest could not write a batch of {}", batch.size(), e);
+            batch.forEach(pending -> pending.fail(NOT_WRITTEN_MESSAGE));
+            failed.increment(batch.size());
+            return;
+        }
+        Set<Integer> pokemonIds = new TreeSet<>();
+        batch.forEach(pending -> pokemonIds.add(pending.pokemonId));
+        String[] tags = new String[pokemonIds.size() + 1];
+        int i = 0;
+        for (int pokemonId : pokemonIds) {
+            tags[i++] = SurrogateKeys.pokemon(pokemonId);
+        }
+        tags[i] = SurrogateKeys.REVIEWS;
+        responseCache.purge(tags);
+        for (Pending pending : batch) {
+            reviewFeed.publish("CREATED", pending.pokemonId, pending.reviewId, toDto(pending, pending.reviewId));
+        }
+    }
+
+    private static ReviewDto toDto(Pending pending, int reviewId) {
+        return ReviewDto.builder().id(reviewId).title(pending.review.getTitle())
+                .content(pending.review.getContent()).stars(pending.review.getStars()).build();
+    }
+
+    private static List<Review> toReviews(List<Pending> batch) {
+        List<Review> reviews = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            reviews.add(Review.builder().title(pending.review.getTitle()).content(pending.review.getContent())
+                    .stars(pending.review.getStars()).pokemon(Pokemon.builder().id(pending.pokemonId).build()).build());
+        }
+        return reviews;
+    }
+
+    static final class Pending {
+        private final String trackingId;
+        private final int pokemonId;
+        private final ReviewDto review;
+        private volatile String status = "QUEUED";
+        private volatile Integer reviewId;
+        private volatile String message;
+        private volatile long finishedAt;
+
+        private Pending(String trackingId, int pokemonId, ReviewDto review) {
+            this.trackingId = trackingId;
+            this.pokemonId = pokemonId;
+            this.review = review;
+        }
+
+        private void written(int id) {
+            reviewId = id;
+            status = "WRITTEN";
+            finishedAt = System.currentTimeMillis();
+        }
+
+        private void fail(String reason) {
+            message = reason;
+            status = "FAILED";
+            finishedAt = System.currentTimeMillis();
+        }
+
+        private ReviewIngestDto toDto() {
+            return ReviewIngestDto.builder().trackingId(trackingId).pokemonId(pokemonId).status(status)
+                    .reviewId(reviewId).message(message).build();
+        }
+    }
+}
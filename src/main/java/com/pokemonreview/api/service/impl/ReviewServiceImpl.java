@@ -1,32 +1,74 @@
 package com.pokemonreview.api.service.impl;
 
+import com.pokemonreview.api.cache.ResponseCache;
+import com.pokemonreview.api.cache.SurrogateKeys;
+import com.pokemonreview.api.dto.BatchResponse;
+import com.pokemonreview.api.dto.ReviewBatchItemDto;
+import com.pokemonreview.api.dto.ReviewBatchResponse;
+import com.pokemonreview.api.dto.ReviewBatchResultDto;
 import com.pokemonreview.api.dto.ReviewDto;
+import com.pokemonreview.api.dto.ReviewEventDto;
+import com.pokemonreview.api.dto.ReviewIngestDto;
+import com.pokemonreview.api.dto.ReviewStatsDto;
+import com.pokemonreview.api.feed.ReviewFeed;
 import com.pokemonreview.api.exceptions.PokemonNotFoundException;
+import com.pokemonreview.api.exceptions.PreconditionFailedException;
 import com.pokemonreview.api.exceptions.ReviewNotFoundException;
 import com.pokemonreview.api.models.Pokemon;
 import com.pokemonreview.api.models.Review;
+import com.pokemonreview.api.outbox.Outbox;
 import com.pokemonreview.api.repository.PokemonRepository;
 import com.pokemonreview.api.repository.ReviewRepository;
 import com.pokemonreview.api.service.PokemonService;
+import com.pokemonreview.api.service.OptimisticRetry;
 import com.pokemonreview.api.service.ReviewService;
+import com.pokemonreview.api.service.SingleFlight;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 @Service
 public class ReviewServiceImpl implements ReviewService {
     private ReviewRepository reviewRepository;
     private PokemonRepository pokemonRepository;
+    private SingleFlight singleFlight;
+    private ResponseCache responseCache;
+    private ReviewIngestor reviewIngestor;
+    private ReviewBatchInserter reviewBatchInserter;
+    private OptimisticRetry optimisticRetry;
+    private ReviewFeed reviewFeed;
+    private Outbox outbox;
 
     @Autowired
-    public ReviewServiceImpl(ReviewRepository reviewRepository, PokemonRepository pokemonRepository) {
+    public ReviewServiceImpl(ReviewRepository reviewRepository, PokemonRepository pokemonRepository,
+                             SingleFlight singleFlight, ResponseCache responseCache, ReviewIngestor reviewIngestor,
+                             ReviewBatchInserter reviewBatchInserter, OptimisticRetry optimisticRetry,
+                             ReviewFeed reviewFeed, Outbox outbox) {
         this.reviewRepository = reviewRepository;
         this.pokemonRepository = pokemonRepository;
+        this.singleFlight = singleFlight;
+        this.responseCache = responseCache;
+        this.reviewIngestor = reviewIngestor;
+        this.reviewBatchInserter = reviewBatchInserter;
+        this.optimisticRetry = optimisticRetry;
+        this.reviewFeed = reviewFeed;
+        this.outbox = outbox;
     }
 
     @Override
+    @Transactional
     public ReviewDto createReview(int pokemonId, ReviewDto reviewDto) {
         Review review = mapToEntity(reviewDto);
 
@@ -35,18 +77,93 @@ public class ReviewServiceImpl implements ReviewService {
         review.setPokemon(pokemon);
 
         Review newReview = reviewRepository.save(review);
+        responseCache.purge(SurrogateKeys.pokemon(pokemonId), SurrogateKeys.REVIEWS);
 
-        return mapToDto(newReview);
+        ReviewDto created = mapToDto(newReview);
+        outbox.record(Outbox.REVIEW_CREATED, created.getId(), new ReviewEventDto("CREATED", pokemonId, created.getId(), created));
+        reviewFeed.publish("CREATED", pokemonId, created.getId(), created);
+        return created;
     }
 
+    // One query finds which of the named Pokemon exist, then every review for them goes into multi-row INSERTs.
+    // Reviews for unknown Pokemon are REJECTED without failing the rest; results keep the request order.
     @Override
-    public List<ReviewDto> getReviewsByPokemonId(int id) {
-        List<Review> reviews = reviewRepository.findByPokemonId(id);
+    @Transactional
+    public ReviewBatchResponse createReviews(List<ReviewBatchItemDto> items) {
+        Set<Integer> requested = new HashSet<>();
+        items.forEach(item -> requested.add(item.getPokemonId()));
+        Set<Integer> existing = new HashSet<>(pokemonRepository.findExistingIds(requested));
+
+        List<Review> accepted = new ArrayList<>(items.size());
+        for (ReviewBatchItemDto item : items) {
+            if (existing.contains(item.getPokemonId())) {
+                accepted.add(Review.builder().title(item.getTitle()).content(item.getContent()).stars(item.getStars())
+                        .pokemon(Pokemon.builder().id(item.getPokemonId()).build()).build());
+            }
+        }
+        List<Integer> ids = reviewBatchInserter.insert(accepted);
+
+        List<ReviewBatchResultDto> results = new ArrayList<>(items.size());
+        List<Outbox.Event> events = new ArrayList<>(accepted.size());
+        Set<Integer> written = new TreeSet<>();
+        int next = 0;
+        for (int index = 0; index < items.size(); index++) {
+            ReviewBatchItemDto item = items.get(index);
+            ReviewBatchResultDto result = ReviewBatchResultDto.builder().index(index).pokemonId(item.getPokemonId()).build();
+            if (existing.contains(item.getPokemonId())) {
+                Review review = accepted.get(next);
+                review.setId(ids.get(next++));
+                result.setStatus("CREATED");
+                result.setReview(mapToDto(review));
+                events.add(new Outbox.Event(Outbox.REVIEW_CREATED, review.getId(),
+                        new ReviewEventDto("CREATED", item.getPokemonId(), review.getId(), result.getReview())));
+                reviewFeed.publish("CREATED", item.getPokemonId(), review.getId(), result.getReview());
+                written.add(item.getPokemonId());
+            } else {
+                result.setStatus("REJECTED");
+                result.setMessage("Pokemon with associated review not found");
+            }
+            results.add(result);
+        }
+        outbox.recordAll(events);
+
+        if (!written.isEmpty()) {
+            List<String> tags = new ArrayList<>(written.size() + 1);
+            written.forEach(pokemonId -> tags.add(SurrogateKeys.pokemon(pokemonId)));
+            tags.add(SurrogateKeys.REVIEWS);
+            responseCache.purge(tags.toArray(new String[0]));
+        }
+        return new ReviewBatchResponse(accepted.size(), items.size() - accepted.size(), results);
+    }
+
+    // Queued for ReviewIngestor's batched insert. The Pokemon is checked here so an unknown id is still a 404;
+    // one deleted before the batch is written ends up FAILED in the status.
+    @Override
+    public ReviewIngestDto submitReview(int pokemonId, ReviewDto reviewDto) {
+        if (!pokemonRepository.existsById(pokemonId)) {
+            throw new PokemonNotFoundException("Pokemon with associated review not found");
+        }
+        return reviewIngestor.submit(pokemonId, reviewDto);
+    }
+
+    @Override
+    public Optional<ReviewIngestDto> getIngestStatus(String trackingId) {
+        return reviewIngestor.getStatus(trackingId);
+    }
 
-        return reviews.stream().map(review -> mapToDto(review)).collect(Collectors.toList());
+    // Concurrent requests for the same Pokemon's reviews share one query (the repository method carries the
+    // read-only transaction). The DTOs are shared between those callers and only read; the list is copied.
+    @Override
+    public List<ReviewDto> getReviewsByPokemonId(int id) {
+        List<ReviewDto> shared = singleFlight.execute("reviews_by_pokemon", id, () -> {
+            List<Review> reviews = reviewRepository.findByPokemonId(id);
+            return reviews.stream().map(review -> mapToDto(review)).collect(Collectors.toList());
+        });
+        return new ArrayList<>(shared);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ReviewDto getReviewById(int reviewId, int pokemonId) {
         Pokemon pokemon = pokemonRepository.findById(pokemonId).orElseThrow(() -> new PokemonNotFoundException("Pokemon with associated review not found"));
 
@@ -59,26 +176,95 @@ public class ReviewServiceImpl implements ReviewService {
         return mapToDto(review);
     }
 
+    // same single padded IN-list query as PokemonServiceImpl.getPokemonsByIds
     @Override
-    public ReviewDto updateReview(int pokemonId, int reviewId, ReviewDto reviewDto) {
-        Pokemon pokemon = pokemonRepository.findById(pokemonId).orElseThrow(() -> new PokemonNotFoundException("Pokemon with associated review not found"));
+    @Transactional(readOnly = true)
+    public BatchResponse<ReviewDto> getReviewsByIds(List<Integer> ids) {
+        List<Integer> distinctIds = ids.stream().distinct().collect(Collectors.toList());
+        Map<Integer, ReviewDto> found = reviewRepository.findAllById(distinctIds).stream()
+                .collect(Collectors.toMap(Review::getId, review -> mapToDto(review)));
+        return BatchResponse.of(distinctIds, found);
+    }
 
-        Review review = reviewRepository.findById(reviewId).orElseThrow(() -> new ReviewNotFoundException("Review with associate pokemon not found"));
+    // The batch side of GraphQL's Pokemon.reviews: one statement for a whole page of Pokemon, whatever its size.
+    // Every requested id gets an entry, empty when the Pokemon has no reviews (or does not exist).
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Integer, List<ReviewDto>> getReviewsByPokemonIds(Collection<Integer> pokemonIds, int limitPerPokemon) {
+        Map<Integer, List<ReviewDto>> reviewsByPokemon = new HashMap<>();
+        for (Integer pokemonId : pokemonIds) {
+            reviewsByPokemon.put(pokemonId, new ArrayList<>());
+        }
+        if (pokemonIds.isEmpty() || limitPerPokemon <= 0) {
+            return reviewsByPokemon;
+        }
+        for (Review review : reviewRepository.findFirstReviewsByPokemonIdIn(pokemonIds, limitPerPokemon)) {
+            reviewsByPokemon.get(review.getPokemon().getId()).add(mapToDto(review));
+        }
+        return reviewsByPokemon;
+    }
 
-        if(review.getPokemon().getId() != pokemon.getId()) {
-            throw new ReviewNotFoundException("This review does not belong to a pokemon");
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Integer, ReviewStatsDto> getReviewStatsByPokemonIds(Collection<Integer> pokemonIds) {
+        Map<Integer, ReviewStatsDto> stats = new HashMap<>();
+        for (Integer pokemonId : pokemonIds) {
+            stats.put(pokemonId, new ReviewStatsDto(0, null));
+        }
+        if (pokemonIds.isEmpty()) {
+            return stats;
+        }
+        for (ReviewRepository.ReviewStats row : reviewRepository.findStatsByPokemonIdIn(pokemonIds)) {
+            stats.put(row.getPokemonId(), new ReviewStatsDto(row.getCount(), row.getAverageStars()));
         }
+        return stats;
+    }
 
-        review.setTitle(reviewDto.getTitle());
-        review.setContent(reviewDto.getContent());
-        review.setStars(reviewDto.getStars());
+    @Override
+    public ReviewDto updateReview(int pokemonId, int reviewId, ReviewDto reviewDto) {
+        return updateReview(pokemonId, reviewId, reviewDto, null);
+    }
 
-        Review updateReview = reviewRepository.save(review);
+    // same conditional / retried semantics as PokemonServiceImpl.updatePokemon
+    @Override
+    public ReviewDto updateReview(int pokemonId, int reviewId, ReviewDto reviewDto, Integer expectedVersion) {
+        Review updateReview;
+        try {
+            updateReview = optimisticRetry.execute("review", expectedVersion == null, () -> {
+                Pokemon pokemon = pokemonRepository.findById(pokemonId).orElseThrow(() -> new PokemonNotFoundException("Pokemon with associated review not found"));
+
+                Review review = reviewRepository.findById(reviewId).orElseThrow(() -> new ReviewNotFoundException("Review with associate pokemon not found"));
+
+                if(review.getPokemon().getId() != pokemon.getId()) {
+                    throw new ReviewNotFoundException("This review does not belong to a pokemon");
+                }
+                if (expectedVersion != null && review.getVersion() != expectedVersion) {
+                    throw new PreconditionFailedException("Review was modified, current version is " + review.getVersion());
+                }
+
+                review.setTitle(reviewDto.getTitle());
+                review.setContent(reviewDto.getContent());
+                review.setStars(reviewDto.getStars());
+
+                Review saved = reviewRepository.saveAndFlush(review);
+                outbox.record(Outbox.REVIEW_UPDATED, reviewId, new ReviewEventDto("UPDATED", pokemonId, reviewId, mapToDto(saved)));
+                return saved;
+            });
+        } catch (OptimisticLockingFailureException e) {
+            if (expectedVersion == null) {
+                throw e;
+            }
+            throw new PreconditionFailedException("Review was modified concurrently");
+        }
+        responseCache.purge(SurrogateKeys.pokemon(pokemonId), SurrogateKeys.review(reviewId));
 
-        return mapToDto(updateReview);
+        ReviewDto updated = mapToDto(updateReview);
+        reviewFeed.publish("UPDATED", pokemonId, reviewId, updated);
+        return updated;
     }
 
     @Override
+    @Transactional
     public void deleteReview(int pokemonId, int reviewId) {
         Pokemon pokemon = pokemonRepository.findById(pokemonId).orElseThrow(() -> new PokemonNotFoundException("Pokemon with associated review not found"));
 
@@ -89,6 +275,9 @@ public class ReviewServiceImpl implements ReviewService {
         }
 
         reviewRepository.delete(review);
+        outbox.record(Outbox.REVIEW_DELETED, reviewId, new ReviewEventDto("DELETED", pokemonId, reviewId, null));
+        responseCache.purge(SurrogateKeys.pokemon(pokemonId), SurrogateKeys.review(reviewId));
+        reviewFeed.publish("DELETED", pokemonId, reviewId, null);
     }
 
     private ReviewDto mapToDto(Review review) {
@@ -97,6 +286,7 @@ public class ReviewServiceImpl implements ReviewService {
         reviewDto.setTitle(review.getTitle());
         reviewDto.setContent(review.getContent());
         reviewDto.setStars(review.getStars());
+        reviewDto.setVersion(review.getVersion());
         return reviewDto;
     }
 
@@ -0,0 +1,44 @@
+package com.pokemonreview.api.tracing;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+@Aspect
+@Component
+public class TracingAspect {
+
+    private Tracer tracer;
+
+    @Autowired
+    public TracingAspect(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    // one span per service method, named like PokemonServiceImpl.getPokemonById
+    @Around("execution(public * com.pokemonreview.api.service.impl.*.*(..))")
+    public Object traceServiceMethod(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!Span.current().isRecording()) {
+            return joinPoint.proceed();
+        }
+
+        String name = AopUtils.getTargetClass(joinPoint.getTarget()).getSimpleName() + "." + joinPoint.getSignature().getName();
+        Span span = tracer.spanBuilder(name).startSpan();
+        try (Scope ignored = span.makeCurrent()) {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            span.recordException(e);
+            span.setStatus(StatusCode.ERROR);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+}
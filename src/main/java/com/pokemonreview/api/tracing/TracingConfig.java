@@ -0,0 +1,90 @@
+package com.pokemonreview.api.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.SdkTracerProviderBuilder;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.nio.file.Paths;
+
+// Spans: one per HTTP request (TracingFilter), JWT authentication (JWTAuthenticationFilter), every service method
+// (TracingAspect), every JDBC statement (TracingDataSource) and JSON serialization of the response body.
+// Only app.tracing.sampling-probability of new traces are recorded; unsampled requests still get a trace id
+// in their response headers but the instrumentation skips span creation for them.
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    public SdkTracerProvider sdkTracerProvider(@Value("${app.tracing.sampling-probability:0.0}") double samplingProbability,
+                                               @Value("${app.tracing.export-file:}") String exportFile) {
+        SdkTracerProviderBuilder builder = SdkTracerProvider.builder()
+                .setResource(Resource.getDefault().merge(
+                        Resource.create(Attributes.of(AttributeKey.stringKey("service.name"), "pokemon-auth-api"))))
+                .setSampler(Sampler.parentBased(Sampler.traceIdRatioBased(samplingProbability)));
+        if (StringUtils.hasText(exportFile)) {
+            builder.addSpanProcessor(BatchSpanProcessor.builder(new FileSpanExporter(Paths.get(exportFile))).build());
+        }
+        return builder.build();
+    }
+
+    @Bean
+    public OpenTelemetry openTelemetry(SdkTracerProvider sdkTracerProvider) {
+        return OpenTelemetrySdk.builder()
+                .setTracerProvider(sdkTracerProvider)
+                .setPropagators(ContextPropagators.create(W3CTraceContextPropagator.getInstance()))
+                .build();
+    }
+
+    @Bean
+    public Tracer tracer(OpenTelemetry openTelemetry) {
+        return openTelemetry.getTracer("com.pokemonreview.api");
+    }
+
+    // runs ahead of the Spring Security filter chain so that JWT authentication is part of the request span
+    @Bean
+    public FilterRegistrationBean<TracingFilter> tracingFilter(OpenTelemetry openTelemetry, Tracer tracer) {
+        FilterRegistrationBean<TracingFilter> registration =
+                new FilterRegistrationBean<>(new TracingFilter(tracer, openTelemetry.getPropagators()));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper, Tracer tracer) {
+        return new TracingJackson2HttpMessageConverter(objectMapper, tracer);
+    }
+
+    // static so that it does not force this configuration (and the tracer) to be created before other post processors
+    @Bean
+    public static BeanPostProcessor tracingDataSourcePostProcessor(ObjectProvider<Tracer> tracer) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // only the data source handed to JPA, not the pools behind a routing data source
+                if (bean instanceof DataSource && "dataSource".equals(beanName) && !(bean instanceof TracingDataSource)) {
+                    return new TracingDataSource((DataSource) bean, tracer.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
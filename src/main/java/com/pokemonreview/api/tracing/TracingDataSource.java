@@ -0,0 +1,90 @@
+package com.pokemonreview.api.tracing;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Wraps connections and statements in JDK proxies so every execute* call becomes a "jdbc.execute" span.
+// Extending DelegatingDataSource keeps the pool visible to Boot's pool metrics, which unwrap delegates.
+// Only done while a span is recording: with sampling off (most requests) the driver's own objects are handed out.
+public class TracingDataSource extends DelegatingDataSource {
+
+    private Tracer tracer;
+
+    public TracingDataSource(DataSource targetDataSource, Tracer tracer) {
+        super(targetDataSource);
+        this.tracer = tracer;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrapConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrapConnection(super.getConnection(username, password));
+    }
+
+    private Connection wrapConnection(Connection connection) {
+        if (!Span.current().isRecording()) {
+            return connection;
+        }
+        return (Connection) Proxy.newProxyInstance(TracingDataSource.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof Statement && Span.current().isRecording()) {
+                        String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                        return wrapStatement((Statement) result, sql);
+                    }
+                    return result;
+                });
+    }
+
+    private Statement wrapStatement(Statement statement, String preparedSql) {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        return (Statement) Proxy.newProxyInstance(TracingDataSource.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (!method.getName().startsWith("execute") || !Span.current().isRecording()) {
+                        return invoke(statement, method, args);
+                    }
+
+                    String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+                    Span span = tracer.spanBuilder("jdbc." + method.getName())
+                            .setSpanKind(SpanKind.CLIENT)
+                            .setAttribute("db.statement", sql == null ? "" : sql)
+                            .startSpan();
+                    try (Scope ignored = span.makeCurrent()) {
+                        return invoke(statement, method, args);
+                    } catch (Throwable e) {
+                        span.recordException(e);
+                        span.setStatus(StatusCode.ERROR);
+                        throw e;
+                    } finally {
+                        span.end();
+                    }
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.pokemonreview.api.bulkhead;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class BulkheadTests {
+
+    private static final MockServletContext SERVLET_CONTEXT = new MockServletContext();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void Bulkhead_Full_RejectsUntilReleased() {
+        Bulkhead bulkhead = new Bulkhead("auth", 2, Duration.ZERO, meterRegistry);
+
+        Assertions.assertThat(bulkhead.tryAcquire()).isTrue();
+        Assertions.assertThat(bulkhead.tryAcquire()).isTrue();
+        Assertions.assertThat(bulkhead.tryAcquire()).isFalse();
+        Assertions.assertThat(bulkhead.active()).isEqualTo(2);
+
+        bulkhead.release();
+        Assertions.assertThat(bulkhead.tryAcquire()).isTrue();
+        Assertions.assertThat(count("auth", "permitted")).isEqualTo(3);
+        Assertions.assertThat(count("auth", "rejected")).isEqualTo(1);
+    }
+
+    @Test
+    public void Bulkhead_PermitFreedWithinMaxWait_WaiterGetsIt() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("writes", 1, Duration.ofSeconds(5), meterRegistry);
+        bulkhead.tryAcquire();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Boolean> waiter = executor.submit(bulkhead::tryAcquire);
+
+        Thread.sleep(50);
+        bulkhead.release();
+
+        Assertions.assertThat(waiter.get(5, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+    }
+
+    @Test
+    public void BulkheadFilter_AuthCompartmentFull_RejectsLoginsButServesReads() throws Exception {
+        BulkheadFilter filter = filter(1);
+        CountDownLatch loginStarted = new CountDownLatch(1);
+        CountDownLatch finishLogin = new CountDownLatch(1);
+        HttpServlet servlet = new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                if (request.getRequestURI().startsWith("/api/auth/")) {
+                    loginStarted.countDown();
+                    await(finishLogin);
+                }
+                response.getWriter().write("ok");
+            }
+        };
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<MockHttpServletResponse> first = executor.submit(() -> perform(filter, servlet, "POST", "/api/auth/login"));
+        loginStarted.await(5, TimeUnit.SECONDS);
+
+        MockHttpServletResponse second = perform(filter, servlet, "POST", "/api/auth/login");
+        MockHttpServletResponse read = perform(filter, servlet, "GET", "/api/pokemons/1");
+        finishLogin.countDown();
+
+        Assertions.assertThat(second.getStatus()).isEqualTo(503);
+        Assertions.assertThat(second.getHeader("Retry-After")).isEqualTo("1");
+        Assertions.assertThat(second.getContentAsString()).contains("Too many concurrent auth requests");
+        Assertions.assertThat(read.getStatus()).isEqualTo(200);
+        Assertions.assertThat(first.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(200);
+        executor.shutdown();
+    }
+
+    @Test
+    public void BulkheadFilter_Compartments_ByPathAndMethod() {
+        BulkheadFilter filter = filter(1);
+
+        Assertions.assertThat(filter.compartment(request("POST", "/api/auth/login")).getName()).isEqualTo("auth");
+        Assertions.assertThat(filter.compartment(request("GET", "/api/reviews")).getName()).isEqualTo("reads");
+        Assertions.assertThat(filter.compartment(request("PUT", "/api/pokemons/1/update")).getName()).isEqualTo("writes");
+        Assertions.assertThat(filter.compartment(request("POST", "/api/graphql")).getName()).isEqualTo("reads");
+        Assertions.assertThat(filter.shouldNotFilter(request("GET", "/actuator/prometheus"))).isTrue();
+    }
+
+    // Mixed load on a fixed pool of 16 threads standing in for Tomcat's workers: reads arrive every 2 ms while
+    // logins (real BCrypt) arrive every millisecond. Without a bulkhead the reads queue behind the logins; with
+    // the auth compartment capped at 2 the surplus logins are turned away and read p99 stays near the baseline.
+    @Test
+    public void BulkheadFilter_LoginFlood_ReadP99StaysFlat() throws Exception {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(6);
+        String hash = encoder.encode("secret");
+        HttpServlet servlet = new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                if (request.getRequestURI().startsWith("/api/auth/")) {
+                    encoder.matches("secret", hash);
+                }
+                response.getWriter().write("{}");
+            }
+        };
+
+        measureReadP99(filter(1000), servlet, false);
+        long baseline = measureReadP99(filter(1000), servlet, false);
+        long unprotected = measureReadP99(filter(1000), servlet, true);
+        long protectedP99 = measureReadP99(filter(2), servlet, true);
+
+        System.out.printf("Read p99: %.1f ms without logins, %.1f ms during a login flood without bulkheads, %.1f ms with%n",
+                baseline / 1e6, unprotected / 1e6, protectedP99 / 1e6);
+        Assertions.assertThat(protectedP99).isLessThan(unprotected / 4);
+        Assertions.assertThat(protectedP99).isLessThan(baseline + TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    private long measureReadP99(BulkheadFilter filter, HttpServlet servlet, boolean flood) throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(16);
+        AtomicBoolean flooding = new AtomicBoolean(flood);
+        Thread flooder = new Thread(() -> {
+            while (flooding.get()) {
+                workers.submit(() -> perform(filter, servlet, "POST", "/api/auth/login"));
+                sleep(1);
+            }
+        });
+        flooder.start();
+        sleep(50);
+
+        List<Future<Long>> reads = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            long submitted = System.nanoTime();
+            reads.add(workers.submit(() -> {
+                perform(filter, servlet, "GET", "/api/pokemons/1");
+                return System.nanoTime() - submitted;
+            }));
+            sleep(2);
+        }
+        List<Long> latencies = new ArrayList<>();
+        for (Future<Long> read : reads) {
+            latencies.add(read.get(2, TimeUnit.MINUTES));
+        }
+        flooding.set(false);
+        flooder.join();
+        workers.shutdownNow();
+        workers.awaitTermination(1, TimeUnit.MINUTES);
+
+        Collections.sort(latencies);
+        return latencies.get((int) Math.ceil(latencies.size() * 0.99) - 1);
+    }
+
+    private BulkheadFilter filter(int maxConcurrentLogins) {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        return new BulkheadFilter(
+                new Bulkhead("auth", maxConcurrentLogins, Duration.ZERO, registry),
+                new Bulkhead("reads", 1000, Duration.ZERO, registry),
+                new Bulkhead("writes", 1000, Duration.ZERO, registry),
+                registry);
+    }
+
+    private static MockHttpServletResponse perform(BulkheadFilter filter, HttpServlet servlet, String method, String path)
+            throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(method, path), response, new MockFilterChain(servlet));
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String method, String path) {
+        return new MockHttpServletRequest(SERVLET_CONTEXT, method, path);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private double count(String compartment, String result) {
+        return meterRegistry.get("bulkhead.calls").tag("compartment", compartment).tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,202 @@
+package com.pokemonreview.api.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pokemonreview.api.catalog.LocalCatalogInvalidationBus;
+import com.pokemonreview.api.dto.PokemonDto;
+import com.pokemonreview.api.dto.PokemonResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+public class ResponseCacheTests {
+
+    private static final String JSON = "application/json";
+    // MockHttpServletRequest builds a new servlet context per request unless given one, which would dwarf a hit
+    private static final MockServletContext SERVLET_CONTEXT = new MockServletContext();
+
+    private final LocalCatalogInvalidationBus bus = new LocalCatalogInvalidationBus();
+    private final ResponseCache cache = new ResponseCache(bus, new SimpleMeterRegistry(), 100, Duration.ofMinutes(1), 64);
+
+    @Test
+    public void ResponseCache_Purge_RemovesOnlyTaggedEntries() {
+        store("/api/pokemons/1", SurrogateKeys.pokemon(1));
+        store("/api/pokemons/2", SurrogateKeys.pokemon(2));
+        store("/api/pokemons?pageNo=0&", SurrogateKeys.POKEMONS, SurrogateKeys.pokemon(1), SurrogateKeys.pokemon(2));
+
+        cache.purge(SurrogateKeys.pokemon(1));
+
+        Assertions.assertThat(cache.get("/api/pokemons/1")).isNull();
+        Assertions.assertThat(cache.get("/api/pokemons?pageNo=0&")).isNull();
+        Assertions.assertThat(cache.get("/api/pokemons/2")).isNotNull();
+    }
+
+    @Test
+    public void ResponseCache_PurgeWhileRendering_DoesNotStoreStaleBody() {
+        long sequence = cache.purgeSequence();
+        cache.purge(SurrogateKeys.pokemon(1));
+
+        cache.put("/api/pokemons/1", JSON, "{}".getBytes(StandardCharsets.UTF_8), new String[]{SurrogateKeys.pokemon(1)}, sequence);
+
+        Assertions.assertThat(cache.get("/api/pokemons/1")).isNull();
+    }
+
+    @Test
+    public void ResponseCache_Full_EvictsOldestEntry() {
+        ResponseCache small = new ResponseCache(bus, new SimpleMeterRegistry(), 2, Duration.ofMinutes(1), 64);
+        for (int i = 1; i <= 3; i++) {
+            small.put("/api/pokemons/" + i, JSON, new byte[1], new String[]{SurrogateKeys.pokemon(i)}, small.purgeSequence());
+        }
+
+        Assertions.assertThat(small.get("/api/pokemons/1")).isNull();
+        Assertions.assertThat(small.get("/api/pokemons/3")).isNotNull();
+    }
+
+    @Test
+    public void ResponseCache_PokemonChangedOnAnotherNode_PurgesItsResponses() {
+        store("/api/pokemons/5", SurrogateKeys.pokemon(5));
+
+        bus.publish(5);
+
+        Assertions.assertThat(cache.get("/api/pokemons/5")).isNull();
+    }
+
+    @Test
+    public void ResponseCacheFilter_SecondRequest_ServedWithoutController() throws Exception {
+        AtomicInteger controllerCalls = new AtomicInteger();
+        ResponseCacheFilter filter = new ResponseCacheFilter(cache, new SimpleMeterRegistry());
+        HttpServlet controller = controller(controllerCalls, page(50));
+
+        MockHttpServletResponse miss = get(filter, controller, "/api/pokemons", false, "pageSize", "50", "pageNo", "0");
+        MockHttpServletResponse hit = get(filter, controller, "/api/pokemons", false, "pageNo", "0", "pageSize", "50");
+        MockHttpServletResponse gzipHit = get(filter, controller, "/api/pokemons", true, "pageNo", "0", "pageSize", "50");
+
+        Assertions.assertThat(controllerCalls.get()).isEqualTo(1);
+        Assertions.assertThat(miss.getHeader(ResponseCacheFilter.CACHE_HEADER)).isEqualTo("MISS");
+        Assertions.assertThat(hit.getHeader(ResponseCacheFilter.CACHE_HEADER)).isEqualTo("HIT");
+        Assertions.assertThat(hit.getContentAsByteArray()).isEqualTo(miss.getContentAsByteArray());
+        Assertions.assertThat(gzipHit.getHeader("Content-Encoding")).isEqualTo("gzip");
+        Assertions.assertThat(gunzip(gzipHit.getContentAsByteArray())).isEqualTo(miss.getContentAsByteArray());
+    }
+
+    @Test
+    public void ResponseCacheFilter_UntaggedResponse_NotStored() throws Exception {
+        AtomicInteger controllerCalls = new AtomicInteger();
+        ResponseCacheFilter filter = new ResponseCacheFilter(cache, new SimpleMeterRegistry());
+        HttpServlet controller = new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                controllerCalls.incrementAndGet();
+                response.setContentType(JSON);
+                response.getWriter().write("{\"status\":\"RUNNING\"}");
+            }
+        };
+
+        get(filter, controller, "/api/pokemons/delete-jobs/abc", false);
+        get(filter, controller, "/api/pokemons/delete-jobs/abc", false);
+
+        Assertions.assertThat(controllerCalls.get()).isEqualTo(2);
+    }
+
+    // A page of 50 through the filter, rendered by the stand-in controller on every request (Cache-Control: no-cache)
+    // against served from the cache. Both paths pay the same mock request and response setup.
+    @Test
+    public void ResponseCacheFilter_Hit_CheaperThanRendering() throws Exception {
+        ResponseCacheFilter filter = new ResponseCacheFilter(cache, new SimpleMeterRegistry());
+        HttpServlet controller = controller(new AtomicInteger(), page(50));
+        get(filter, controller, "/api/pokemons", false, "pageSize", "50");
+
+        int iterations = 50_000;
+        for (int i = 0; i < iterations; i++) {
+            render(filter, controller);
+            get(filter, controller, "/api/pokemons", false, "pageSize", "50");
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            render(filter, controller);
+        }
+        long renderNanos = (System.nanoTime() - start) / iterations;
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            get(filter, controller, "/api/pokemons", false, "pageSize", "50");
+        }
+        long hitNanos = (System.nanoTime() - start) / iterations;
+
+        System.out.printf("Page of 50: rendered %d ns per response, cache hit %d ns per response%n", renderNanos, hitNanos);
+        Assertions.assertThat(hitNanos).isLessThan(renderNanos);
+    }
+
+    private static void render(ResponseCacheFilter filter, HttpServlet controller) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(SERVLET_CONTEXT, "GET", "/api/pokemons");
+        request.addParameter("pageSize", "50");
+        request.addHeader("Cache-Control", "no-cache");
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(controller));
+    }
+
+    private void store(String key, String... tags) {
+        cache.put(key, JSON, "{}".getBytes(StandardCharsets.UTF_8), tags, cache.purgeSequence());
+    }
+
+    private static MockHttpServletResponse get(ResponseCacheFilter filter, HttpServlet controller, String path,
+                                               boolean gzip, String... parameters) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(SERVLET_CONTEXT, "GET", path);
+        for (int i = 0; i < parameters.length; i += 2) {
+            request.addParameter(parameters[i], parameters[i + 1]);
+        }
+        if (gzip) {
+            request.addHeader("Accept-Encoding", "gzip, deflate");
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(controller));
+        return response;
+    }
+
+    // stands in for the dispatcher: serializes the page and tags it the way ResponseCacheTagAdvice would
+    private static HttpServlet controller(AtomicInteger calls, PokemonResponse page) {
+        ObjectMapper objectMapper = new ObjectMapper();
+        return new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                calls.incrementAndGet();
+                request.setAttribute(ResponseCacheTagAdvice.TAGS_ATTRIBUTE, new String[]{SurrogateKeys.POKEMONS});
+                response.setContentType(JSON);
+                response.getOutputStream().write(objectMapper.writeValueAsBytes(page));
+            }
+        };
+    }
+
+    private static PokemonResponse page(int size) {
+        List<PokemonDto> content = new ArrayList<>();
+        for (int i = 1; i <= size; i++) {
+            content.add(PokemonDto.builder().id(i).name("Pokemon " + i).type("electric").build());
+        }
+        PokemonResponse page = new PokemonResponse();
+        page.setContent(content);
+        page.setPageSize(size);
+        page.setTotalElements(size);
+        page.setTotalPages(1);
+        page.setLast(true);
+        return page;
+    }
+
+    private static byte[] gunzip(byte[] gzipped) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.pokemonreview.api.catalog;
+
+import com.pokemonreview.api.dto.BatchResponse;
+import com.pokemonreview.api.dto.PokemonDto;
+import com.pokemonreview.api.dto.PokemonResponse;
+import com.pokemonreview.api.models.Pokemon;
+import com.pokemonreview.api.repository.PokemonRepository;
+import com.pokemonreview.api.service.PokemonService;
+import com.pokemonreview.api.service.SingleFlight;
+import com.pokemonreview.api.service.impl.PokemonServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+// Two catalogs subscribed to one LocalCatalogInvalidationBus stand in for two nodes sharing a database.
+public class PokemonCatalogTests {
+
+    // what the shared database holds; tests change it the way a committed write would
+    private final Map<Integer, Pokemon> database = new TreeMap<>();
+    private PokemonRepository pokemonRepository;
+    private LocalCatalogInvalidationBus bus;
+    private PokemonCatalog node1;
+    private PokemonCatalog node2;
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void init() {
+        for (int i = 1; i <= 1000; i++) {
+            database.put(i, Pokemon.builder().id(i).name("Pokemon " + i).type(i % 2 == 0 ? "electric" : "water").build());
+        }
+        pokemonRepository = Mockito.mock(PokemonRepository.class);
+        when(pokemonRepository.findAll()).thenAnswer(invocation -> new ArrayList<>(database.values()));
+        when(pokemonRepository.findById(Mockito.anyInt()))
+                .thenAnswer(invocation -> Optional.ofNullable(database.get(invocation.<Integer>getArgument(0))));
+        bus = new LocalCatalogInvalidationBus();
+        transactionManager = Mockito.mock(PlatformTransactionManager.class);
+        node1 = new PokemonCatalog(pokemonRepository, bus, transactionManager, true);
+        node2 = new PokemonCatalog(pokemonRepository, bus, transactionManager, true);
+        node1.start();
+        node2.start();
+    }
+
+    @AfterEach
+    public void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void CatalogSnapshot_Indexes_FindByIdAndPageByType() {
+        CatalogSnapshot snapshot = node1.snapshot();
+
+        Assertions.assertThat(snapshot.size()).isEqualTo(1000);
+        Assertions.assertThat(snapshot.get(500).toDto().getName()).isEqualTo("Pokemon 500");
+        Assertions.assertThat(snapshot.get(1001)).isNull();
+        Assertions.assertThat(snapshot.countOfType("electric")).isEqualTo(500);
+        Assertions.assertThat(snapshot.pageOfType("electric", 1, 3)).extracting(CatalogSnapshot.Entry::getId)
+                .containsExactly(8, 10, 12);
+        Assertions.assertThat(snapshot.pageOfType("fire", 0, 10)).isEmpty();
+        Assertions.assertThat(snapshot.page(99, 10)).extracting(CatalogSnapshot.Entry::getId).endsWith(1000);
+        Assertions.assertThat(snapshot.page(100, 10)).isEmpty();
+    }
+
+    @Test
+    public void PokemonCatalog_Write_ReplacesSnapshotAndLeavesOldOneIntact() {
+        CatalogSnapshot before = node1.snapshot();
+
+        Pokemon mew = Pokemon.builder().id(1001).name("Mew").type("psychic").build();
+        database.put(1001, mew);
+        node1.saved(mew);
+        database.remove(1);
+        node1.deleted(1);
+
+        Assertions.assertThat(node1.snapshot()).isNotSameAs(before);
+        Assertions.assertThat(node1.snapshot().get(1001).toDto().getName()).isEqualTo("Mew");
+        Assertions.assertThat(node1.snapshot().get(1)).isNull();
+        Assertions.assertThat(before.get(1001)).isNull();
+        Assertions.assertThat(before.get(1)).isNotNull();
+    }
+
+    @Test
+    public void PokemonCatalog_CommittedWriteOnOneNode_RefreshesTheOther() {
+        Pokemon renamed = Pokemon.builder().id(7).name("Raichu").type("electric").build();
+
+        TransactionSynchronizationManager.initSynchronization();
+        node1.saved(renamed);
+
+        // nothing is visible before the commit
+        Assertions.assertThat(node1.snapshot().get(7).toDto().getName()).isEqualTo("Pokemon 7");
+        Assertions.assertThat(node2.snapshot().get(7).toDto().getName()).isEqualTo("Pokemon 7");
+
+        database.put(7, renamed);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        Assertions.assertThat(node1.snapshot().get(7).toDto().getName()).isEqualTo("Raichu");
+        Assertions.assertThat(node2.snapshot().get(7).toDto().getName()).isEqualTo("Raichu");
+        // the type index follows the change
+        Assertions.assertThat(node2.snapshot().countOfType("electric")).isEqualTo(501);
+        Assertions.assertThat(node2.snapshot().countOfType("water")).isEqualTo(499);
+    }
+
+    @Test
+    public void PokemonCatalog_RolledBackWrite_ChangesNothing() {
+        TransactionSynchronizationManager.initSynchronization();
+        node1.saved(Pokemon.builder().id(7).name("Raichu").type("electric").build());
+        TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        Assertions.assertThat(node1.snapshot().get(7).toDto().getName()).isEqualTo("Pokemon 7");
+        Assertions.assertThat(node2.snapshot().get(7).toDto().getName()).isEqualTo("Pokemon 7");
+    }
+
+    @Test
+    public void PokemonCatalog_DeletedElsewhere_RemovedOnInvalidation() {
+        database.remove(8);
+
+        bus.publish(8);
+
+        Assertions.assertThat(node2.snapshot().get(8)).isNull();
+        Assertions.assertThat(node2.snapshot().countOfType("electric")).isEqualTo(499);
+    }
+
+    // the invalidation has no user behind it, so only a read-write transaction keeps it on the primary
+    @Test
+    public void PokemonCatalog_Invalidation_ReadsThroughReadWriteTransaction() {
+        Mockito.clearInvocations(transactionManager);
+
+        bus.publish(8);
+
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager, Mockito.times(2)).getTransaction(definition.capture());
+        Assertions.assertThat(definition.getAllValues()).noneMatch(TransactionDefinition::isReadOnly);
+    }
+
+    // a replica that has not seen version 3 yet answers the lookup with version 2
+    @Test
+    public void PokemonCatalog_OlderVersionLoaded_Ignored() {
+        node1.saved(Pokemon.builder().id(7).name("Raichu").type("electric").version(3).build());
+
+        node1.loaded(Pokemon.builder().id(7).name("Pikachu").type("electric").version(2).build());
+
+        Assertions.assertThat(node1.snapshot().get(7).toDto().getName()).isEqualTo("Raichu");
+        Assertions.assertThat(node1.snapshot().get(7).getVersion()).isEqualTo(3);
+    }
+
+    // a lookup that read the row just before it was deleted finishes after the delete
+    @Test
+    public void PokemonCatalog_DeletedThenStaleLoad_StaysDeleted() {
+        Pokemon stale = database.remove(8);
+        node1.deleted(8);
+
+        node1.loaded(stale);
+        node2.loaded(stale);
+
+        Assertions.assertThat(node1.snapshot().get(8)).isNull();
+        Assertions.assertThat(node2.snapshot().get(8)).isNull();
+    }
+
+    // A resync reads the table while writes land on this node: the reload's older rows must not undo them.
+    @Test
+    public void PokemonCatalog_ReloadOverlapsWrites_MergedWithoutUndoingThem() {
+        when(pokemonRepository.findAll()).thenAnswer(invocation -> {
+            List<Pokemon> rows = new ArrayList<>(database.values());
+            // committed and applied after the reload read its rows
+            Pokemon raichu = Pokemon.builder().id(7).name("Raichu").type("electric").version(1).build();
+            database.put(7, raichu);
+            node1.saved(raichu);
+            database.remove(8);
+            node1.deleted(8);
+            Pokemon mew = Pokemon.builder().id(2001).name("Mew").type("psychic").build();
+            database.put(2001, mew);
+            node1.saved(mew);
+            return rows;
+        });
+
+        node1.resyncRequired();
+
+        Assertions.assertThat(node1.snapshot().get(7).toDto().getName()).isEqualTo("Raichu");
+        Assertions.assertThat(node1.snapshot().get(8)).isNull();
+        Assertions.assertThat(node1.snapshot().get(2001)).isNotNull();
+
+        // a row deleted behind the service's back is still dropped by a reload that did not overlap anything
+        Mockito.doAnswer(invocation -> new ArrayList<>(database.values())).when(pokemonRepository).findAll();
+        database.remove(9);
+        node1.reload();
+
+        Assertions.assertThat(node1.snapshot().get(9)).isNull();
+        Assertions.assertThat(node1.snapshot().size()).isEqualTo(database.size());
+    }
+
+    @Test
+    public void PokemonService_LoadedCatalog_ReadsWithoutRepository() {
+        PokemonRepository untouched = Mockito.mock(PokemonRepository.class);
+        PokemonService pokemonService = service(untouched);
+
+        PokemonResponse page = pokemonService.getAllPokemon(2, 10);
+        PokemonResponse electric = pokemonService.getPokemonByType("electric", 0, 5);
+        PokemonDto pokemon = pokemonService.getPokemonById(42);
+        BatchResponse<PokemonDto> batch = pokemonService.getPokemonsByIds(List.of(3, 1));
+
+        Assertions.assertThat(page.getContent()).extracting(PokemonDto::getId).startsWith(21).hasSize(10);
+        Assertions.assertThat(page.getTotalElements()).isEqualTo(1000);
+        Assertions.assertThat(page.getTotalPages()).isEqualTo(100);
+        Assertions.assertThat(page.isLast()).isFalse();
+        Assertions.assertThat(electric.getContent()).extracting(PokemonDto::getId).containsExactly(2, 4, 6, 8, 10);
+        Assertions.assertThat(electric.getTotalElements()).isEqualTo(500);
+        Assertions.assertThat(pokemon.getName()).isEqualTo("Pokemon 42");
+        Assertions.assertThat(batch.getContent()).extracting(PokemonDto::getId).containsExactly(3, 1);
+        verifyNoInteractions(untouched);
+    }
+
+    @Test
+    public void PokemonService_IdMissingFromCatalog_FallsBackToDatabaseOnce() {
+        PokemonRepository repository = Mockito.mock(PokemonRepository.class);
+        when(repository.findById(2000)).thenReturn(Optional.of(Pokemon.builder().id(2000).name("Mewtwo").type("psychic").build()));
+        PokemonService pokemonService = service(repository);
+
+        Assertions.assertThat(pokemonService.getPokemonById(2000).getName()).isEqualTo("Mewtwo");
+        Assertions.assertThat(pokemonService.getPokemonById(2000).getName()).isEqualTo("Mewtwo");
+
+        verify(repository, Mockito.times(1)).findById(2000);
+    }
+
+    // The service-level cost of catalog reads, printed per call. The bound is far above what they take
+    // (a few hundred nanoseconds) so it only trips if reads start going to the database again.
+    @Test
+    public void PokemonService_CatalogReads_StayUnder100Micros() {
+        PokemonService pokemonService = service(Mockito.mock(PokemonRepository.class));
+        int iterations = 200_000;
+        for (int i = 0; i < iterations; i++) {
+            pokemonService.getPokemonById(1 + i % 1000);
+            pokemonService.getAllPokemon(i % 100, 10);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            pokemonService.getPokemonById(1 + i % 1000);
+        }
+        long byIdNanos = (System.nanoTime() - start) / iterations;
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            pokemonService.getAllPokemon(i % 100, 10);
+        }
+        long pageNanos = (System.nanoTime() - start) / iterations;
+
+        System.out.printf("Catalog reads: getPokemonById %d ns, getAllPokemon (page of 10) %d ns%n", byIdNanos, pageNanos);
+        Assertions.assertThat(byIdNanos).isLessThan(100_000);
+        Assertions.assertThat(pageNanos).isLessThan(100_000);
+    }
+
+    private PokemonService service(PokemonRepository repository) {
+        return new PokemonServiceImpl(repository, null, null, new SingleFlight(new SimpleMeterRegistry(), 1000), node1,
+                null, null, null);
+    }
+}
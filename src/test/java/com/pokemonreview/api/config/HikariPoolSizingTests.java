@@ -0,0 +1,127 @@
+package com.pokemonreview.api.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class HikariPoolSizingTests {
+
+    @Test
+    public void HikariPoolSizing_PoolSize_FollowsCoreCountFormula() {
+        Assertions.assertThat(HikariPoolSizing.poolSize(4, 1, 50)).isEqualTo(9);
+        Assertions.assertThat(HikariPoolSizing.poolSize(16, 2, 50)).isEqualTo(34);
+    }
+
+    @Test
+    public void HikariPoolSizing_PoolSize_CappedByExpectedConcurrency() {
+        Assertions.assertThat(HikariPoolSizing.poolSize(64, 1, 20)).isEqualTo(20);
+        Assertions.assertThat(HikariPoolSizing.poolSize(1, 0, 1)).isEqualTo(2);
+    }
+
+    @Test
+    public void HikariPoolSizing_NoExplicitMaximumPoolSize_DerivedFromCoresAndSpindles() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty(HikariPoolSizing.EFFECTIVE_SPINDLES_PROPERTY, "2")
+                .withProperty(HikariPoolSizing.EXPECTED_CONCURRENCY_PROPERTY, "50");
+        HikariDataSource dataSource = new HikariDataSource();
+
+        new HikariPoolSizing(environment, 8).postProcessAfterInitialization(dataSource, "dataSource");
+
+        Assertions.assertThat(dataSource.getMaximumPoolSize()).isEqualTo(18);
+        Assertions.assertThat(dataSource.getMinimumIdle()).isEqualTo(18);
+    }
+
+    @Test
+    public void HikariPoolSizing_NoExplicitMaximumPoolSize_CappedByExpectedConcurrency() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty(HikariPoolSizing.EXPECTED_CONCURRENCY_PROPERTY, "12");
+        HikariDataSource dataSource = new HikariDataSource();
+
+        new HikariPoolSizing(environment, 32).postProcessAfterInitialization(dataSource, "dataSource");
+
+        Assertions.assertThat(dataSource.getMaximumPoolSize()).isEqualTo(12);
+    }
+
+    // Boot has already bound the explicit value when the post processor runs; 8 cores would otherwise give 17
+    @Test
+    public void HikariPoolSizing_ExplicitMaximumPoolSize_IsKept() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty(HikariPoolSizing.MAX_POOL_SIZE_PROPERTY, "7");
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setMaximumPoolSize(7);
+        dataSource.setMinimumIdle(1);
+
+        new HikariPoolSizing(environment, 8).postProcessAfterInitialization(dataSource, "dataSource");
+
+        Assertions.assertThat(dataSource.getMaximumPoolSize()).isEqualTo(7);
+        Assertions.assertThat(dataSource.getMinimumIdle()).isEqualTo(1);
+    }
+
+    // Simulates the expected peak: as many concurrent requests as app.datasource.pool.expected-concurrency,
+    // each holding a connection for a short query, against a pool sized by HikariPoolSizing.
+    // The time spent waiting for a connection must stay well under the connection timeout.
+    @Test
+    public void HikariPoolSizing_PeakLoad_PoolWaitStaysBounded() throws Exception {
+        int expectedConcurrency = 50;
+        int poolSize = HikariPoolSizing.poolSize(Runtime.getRuntime().availableProcessors(), 1, expectedConcurrency);
+        ConcurrentLinkedQueue<Long> waits = new ConcurrentLinkedQueue<>();
+
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:pool-load;DB_CLOSE_DELAY=-1");
+        config.setMaximumPoolSize(poolSize);
+        config.setMinimumIdle(poolSize);
+        config.setConnectionTimeout(3000);
+        config.setMetricsTrackerFactory((poolName, poolStats) -> new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                waits.add(elapsedAcquiredNanos);
+            }
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(expectedConcurrency);
+        try (HikariDataSource dataSource = new HikariDataSource(config)) {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < expectedConcurrency; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < 20; j++) {
+                        try (Connection connection = dataSource.getConnection();
+                             Statement statement = connection.createStatement()) {
+                            statement.execute("SELECT 1");
+                            Thread.sleep(2);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<Long> sorted = new ArrayList<>(waits);
+        sorted.sort(Long::compare);
+        long p99Millis = TimeUnit.NANOSECONDS.toMillis(sorted.get((int) (sorted.size() * 0.99) - 1));
+
+        Assertions.assertThat(sorted).hasSize(expectedConcurrency * 20);
+        Assertions.assertThat(p99Millis).isLessThan(1000);
+    }
+}
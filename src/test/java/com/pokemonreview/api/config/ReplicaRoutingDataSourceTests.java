@@ -0,0 +1,119 @@
+package com.pokemonreview.api.config;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+// Two in-memory H2 databases stand in for the primary and the replica.
+// Each one holds a single row naming itself, so a query shows where it was routed.
+public class ReplicaRoutingDataSourceTests {
+
+    private DataSource primary;
+    private DataSource replica;
+
+    @BeforeEach
+    public void init() {
+        this.primary = node("primary");
+        this.replica = node("replica");
+    }
+
+    @AfterEach
+    public void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void ReplicaRoutingDataSource_ReadOnlyTransaction_UsesReplica() {
+        Router router = router(List.of(replica), Duration.ofSeconds(5));
+
+        Assertions.assertThat(router.read()).isEqualTo("replica");
+        Assertions.assertThat(router.write()).isEqualTo("primary");
+    }
+
+    @Test
+    public void ReplicaRoutingDataSource_ReadAfterOwnWrite_UsesPrimaryWithinWindow() {
+        Router router = router(List.of(replica), Duration.ofSeconds(5));
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("ash", null));
+
+        router.write();
+
+        Assertions.assertThat(router.read()).isEqualTo("primary");
+
+        // other users are not affected by ash's write
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("misty", null));
+        Assertions.assertThat(router.read()).isEqualTo("replica");
+    }
+
+    @Test
+    public void ReplicaRoutingDataSource_ReadAfterWindowExpired_UsesReplica() throws InterruptedException {
+        Router router = router(List.of(replica), Duration.ofMillis(20));
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("ash", null));
+
+        router.write();
+        Thread.sleep(50);
+
+        Assertions.assertThat(router.read()).isEqualTo("replica");
+    }
+
+    @Test
+    public void ReplicaRoutingDataSource_UnhealthyReplica_FallsBackToPrimary() {
+        DataSource unreachable = new DriverManagerDataSource("jdbc:h2:tcp://localhost:1/unreachable");
+        Router router = router(List.of(unreachable), Duration.ofSeconds(5));
+
+        router.routingDataSource.checkReplicas();
+
+        Assertions.assertThat(router.read()).isEqualTo("primary");
+    }
+
+    private Router router(List<DataSource> replicas, Duration readYourWritesWindow) {
+        ReplicaRoutingDataSource routingDataSource =
+                new ReplicaRoutingDataSource(primary, replicas, new ReadYourWritesTracker(readYourWritesWindow));
+        return new Router(routingDataSource);
+    }
+
+    private static DataSource node(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS node (name VARCHAR(20))");
+        jdbcTemplate.execute("DELETE FROM node");
+        jdbcTemplate.update("INSERT INTO node VALUES (?)", name);
+        return dataSource;
+    }
+
+    private static class Router {
+        private final ReplicaRoutingDataSource routingDataSource;
+        private final JdbcTemplate jdbcTemplate;
+        private final TransactionTemplate readOnly;
+        private final TransactionTemplate readWrite;
+
+        private Router(ReplicaRoutingDataSource routingDataSource) {
+            this.routingDataSource = routingDataSource;
+            DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+            DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+            this.jdbcTemplate = new JdbcTemplate(dataSource);
+            this.readOnly = new TransactionTemplate(transactionManager);
+            this.readOnly.setReadOnly(true);
+            this.readWrite = new TransactionTemplate(transactionManager);
+        }
+
+        private String read() {
+            return readOnly.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM node", String.class));
+        }
+
+        private String write() {
+            return readWrite.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM node", String.class));
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.pokemonreview.api.controller;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+// /api/auth throttling through the controllers: a burst of 5 per client address and 2 per username, refilled at one
+// per minute so nothing comes back during a test. Each test uses its own client address and usernames.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:auth-rate-limit-e2e;DB_CLOSE_DELAY=-1;IGNORE_UNKNOWN_SETTINGS=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "app.catalog.invalidation=local",
+        "app.outbox.log-dir=target/changelog/auth-rate-limit-e2e",
+        "app.auth.rate-limit.ip.requests-per-minute=1",
+        "app.auth.rate-limit.ip.burst=5",
+        "app.auth.rate-limit.username.requests-per-minute=1",
+        "app.auth.rate-limit.username.burst=2"
+})
+@AutoConfigureMockMvc
+public class AuthRateLimitEndToEndTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @Test
+    public void Register_ClientBurstUsed_TooManyRequestsWithRetryAfter() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(from("10.0.0.1", post("/api/auth/register"))
+                            .content("{\"username\":\"register-" + i + "\",\"password\":\"secret\"}"))
+                    .andExpect(MockMvcResultMatchers.status().isCreated());
+        }
+
+        MvcResult rejected = mockMvc.perform(from("10.0.0.1", post("/api/auth/register"))
+                        .content("{\"username\":\"register-5\",\"password\":\"secret\"}"))
+                .andExpect(MockMvcResultMatchers.status().isTooManyRequests())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("Too many requests from this client"))
+                .andReturn();
+
+        assertRetryAfterWithinAMinute(rejected.getResponse().getHeader(HttpHeaders.RETRY_AFTER));
+        // another client still gets through
+        mockMvc.perform(from("10.0.0.2", post("/api/auth/register"))
+                        .content("{\"username\":\"register-5\",\"password\":\"secret\"}"))
+                .andExpect(MockMvcResultMatchers.status().isCreated());
+    }
+
+    @Test
+    public void Login_UsernameBurstUsed_TooManyRequestsBeforePasswordCheck() throws Exception {
+        mockMvc.perform(from("10.0.0.3", post("/api/auth/register")).content("{\"username\":\"misty\",\"password\":\"secret\"}"))
+                .andExpect(MockMvcResultMatchers.status().isCreated());
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(from("10.0.0.3", post("/api/auth/login")).content("{\"username\":\"misty\",\"password\":\"wrong\"}"))
+                    .andExpect(MockMvcResultMatchers.status().isUnauthorized());
+        }
+
+        // the right password no longer helps: the limit is checked before the password
+        MvcResult rejected = mockMvc.perform(from("10.0.0.4", post("/api/auth/login"))
+                        .content("{\"username\":\"misty\",\"password\":\"secret\"}"))
+                .andExpect(MockMvcResultMatchers.status().isTooManyRequests())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("Too many login attempts for this user"))
+                .andReturn();
+
+        assertRetryAfterWithinAMinute(rejected.getResponse().getHeader(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    public void Refresh_ClientBurstUsed_TooManyRequestsWithRetryAfter() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(from("10.0.0.5", post("/api/auth/refresh")).content("{\"refreshToken\":\"guess-" + i + "\"}"))
+                    .andExpect(MockMvcResultMatchers.status().isUnauthorized())
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.statusCode").value(401))
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("Refresh token is invalid"))
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.timestamp").exists());
+        }
+
+        MvcResult rejected = mockMvc.perform(from("10.0.0.5", post("/api/auth/refresh")).content("{\"refreshToken\":\"guess-5\"}"))
+                .andExpect(MockMvcResultMatchers.status().isTooManyRequests())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.statusCode").value(429))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("Too many requests from this client"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.timestamp").exists())
+                .andReturn();
+
+        assertRetryAfterWithinAMinute(rejected.getResponse().getHeader(HttpHeaders.RETRY_AFTER));
+    }
+
+    // Over a real connection from loopback, which Tomcat trusts as an internal proxy: each X-Forwarded-For client
+    // gets its own bucket instead of everyone sharing the proxy's.
+    @Test
+    public void Refresh_ForwardedByInternalProxy_KeyedOnForwardedClient() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertThat(refreshForwardedFor("203.0.113.7")).isEqualTo(HttpStatus.UNAUTHORIZED.value());
+        }
+
+        Assertions.assertThat(refreshForwardedFor("203.0.113.7")).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        Assertions.assertThat(refreshForwardedFor("203.0.113.8")).isEqualTo(HttpStatus.UNAUTHORIZED.value());
+    }
+
+    private int refreshForwardedFor(String client) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/auth/refresh"))
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .header("X-Forwarded-For", client)
+                .POST(HttpRequest.BodyPublishers.ofString("{\"refreshToken\":\"guess\"}")).build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static MockHttpServletRequestBuilder from(String clientAddress, MockHttpServletRequestBuilder request) {
+        return request.contentType(MediaType.APPLICATION_JSON).with(mockRequest -> {
+            mockRequest.setRemoteAddr(clientAddress);
+            return mockRequest;
+        });
+    }
+
+    private static void assertRetryAfterWithinAMinute(String retryAfter) {
+        Assertions.assertThat(retryAfter).isNotNull();
+        Assertions.assertThat(Long.parseLong(retryAfter)).isBetween(1L, 60L);
+    }
+}
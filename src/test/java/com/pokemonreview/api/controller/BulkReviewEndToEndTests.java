@@ -0,0 +1,126 @@
+package com.pokemonreview.api.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pokemonreview.api.dto.ReviewBatchItemDto;
+import com.pokemonreview.api.dto.ReviewBatchRequestDto;
+import com.pokemonreview.api.models.Pokemon;
+import com.pokemonreview.api.repository.PokemonRepository;
+import com.pokemonreview.api.repository.ReviewRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+// Whole application on H2, through the security filter chain with a real JWT:
+// 10,000 reviews posted one by one against the same reviews in bulk requests.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:bulkreviews;DB_CLOSE_DELAY=-1;IGNORE_UNKNOWN_SETTINGS=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "app.catalog.invalidation=local",
+        "app.outbox.log-dir=target/changelog/bulkreviews"
+})
+@AutoConfigureMockMvc
+public class BulkReviewEndToEndTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PokemonRepository pokemonRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    private String token;
+    private List<Integer> pokemonIds = new ArrayList<>();
+
+    @BeforeEach
+    public void init() throws Exception {
+        String credentials = "{\"username\":\"importer\",\"password\":\"secret\"}";
+        mockMvc.perform(post("/api/auth/register").contentType(MediaType.APPLICATION_JSON).content(credentials));
+        String login = mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON).content(credentials))
+                .andReturn().getResponse().getContentAsString();
+        this.token = "Bearer " + objectMapper.readTree(login).get("accessToken").asText();
+
+        pokemonIds.clear();
+        for (int i = 0; i < 20; i++) {
+            pokemonIds.add(pokemonRepository.save(Pokemon.builder().name("Pokemon " + i).type("electric").build()).getId());
+        }
+    }
+
+    @Test
+    public void ReviewController_Bulk_CreatesForManyPokemonAndRejectsUnknown() throws Exception {
+        List<ReviewBatchItemDto> items = List.of(item(pokemonIds.get(0), 0), item(-1, 1), item(pokemonIds.get(1), 2));
+
+        String body = mockMvc.perform(post("/api/reviews/bulk").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("reviews", items))).header("Authorization", token))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode results = objectMapper.readTree(body).get("results");
+        Assertions.assertThat(results.findValuesAsText("status")).containsExactly("CREATED", "REJECTED", "CREATED");
+        int reviewId = results.get(2).get("review").get("id").asInt();
+        Assertions.assertThat(reviewRepository.findById(reviewId).get().getTitle()).isEqualTo("Review 2");
+        Assertions.assertThat(reviewRepository.findByPokemonId(pokemonIds.get(1))).hasSize(1);
+    }
+
+    @Test
+    public void ReviewController_Bulk_FasterThanSingleCreates() throws Exception {
+        int reviews = 10_000;
+        createOneByOne(500);
+        createInBulk(500);
+
+        long start = System.nanoTime();
+        createOneByOne(reviews);
+        long singleMillis = (System.nanoTime() - start) / 1_000_000;
+
+        start = System.nanoTime();
+        createInBulk(reviews);
+        long bulkMillis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.printf("%d reviews: %d ms posted one by one, %d ms in bulk requests of %d%n",
+                reviews, singleMillis, bulkMillis, ReviewBatchRequestDto.MAX_REVIEWS);
+        Assertions.assertThat(bulkMillis * 5).isLessThan(singleMillis);
+    }
+
+    private void createOneByOne(int reviews) throws Exception {
+        for (int i = 0; i < reviews; i++) {
+            int pokemonId = pokemonIds.get(i % pokemonIds.size());
+            mockMvc.perform(post("/api/pokemons/" + pokemonId + "/reviews").contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"title\":\"Review " + i + "\",\"content\":\"Great\",\"stars\":4}").header("Authorization", token))
+                    .andExpect(MockMvcResultMatchers.status().isCreated());
+        }
+    }
+
+    private void createInBulk(int reviews) throws Exception {
+        for (int from = 0; from < reviews; from += ReviewBatchRequestDto.MAX_REVIEWS) {
+            List<ReviewBatchItemDto> items = new ArrayList<>();
+            for (int i = from; i < Math.min(reviews, from + ReviewBatchRequestDto.MAX_REVIEWS); i++) {
+                items.add(item(pokemonIds.get(i % pokemonIds.size()), i));
+            }
+            mockMvc.perform(post("/api/reviews/bulk").contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(Map.of("reviews", items))).header("Authorization", token))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.rejected").value(0));
+        }
+    }
+
+    private static ReviewBatchItemDto item(int pokemonId, int i) {
+        return ReviewBatchItemDto.builder().pokemonId(pokemonId).title("Review " + i).content("Great").stars(4).build();
+    }
+}
@@ -0,0 +1,119 @@
+package com.pokemonreview.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pokemonreview.api.deadline.DeadlineFilter;
+import com.pokemonreview.api.deadline.DelayedDataSource;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+// Whole application on H2 with DelayedDataSource between the pool and everything else, standing in for a
+// PostgreSQL that has become slow.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:deadline-e2e;DB_CLOSE_DELAY=-1;IGNORE_UNKNOWN_SETTINGS=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "app.catalog.invalidation=local",
+        "app.outbox.log-dir=target/changelog/deadline-e2e"
+})
+@AutoConfigureMockMvc
+public class DeadlineEndToEndTests {
+
+    @TestConfiguration
+    static class SlowDatabase {
+
+        @Bean
+        public static BeanPostProcessor delayedDataSourcePostProcessor() {
+            return new DelayedDataSourcePostProcessor();
+        }
+    }
+
+    // Wraps before initialization, ahead of the tracing and deadline wrappers (which wrap after it), so the
+    // stand-in sits right on the pool and the deadline's cancel reaches the delayed statements.
+    static class DelayedDataSourcePostProcessor implements BeanPostProcessor {
+        static DelayedDataSource delayed;
+
+        @Override
+        public Object postProcessBeforeInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource && "dataSource".equals(beanName)) {
+                delayed = new DelayedDataSource((DataSource) bean);
+                return delayed;
+            }
+            return bean;
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String token;
+    private String reviews;
+
+    @BeforeEach
+    public void init() throws Exception {
+        String credentials = "{\"username\":\"deadliner\",\"password\":\"secret\"}";
+        mockMvc.perform(post("/api/auth/register").contentType(MediaType.APPLICATION_JSON).content(credentials));
+        String login = mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON).content(credentials))
+                .andReturn().getResponse().getContentAsString();
+        this.token = "Bearer " + objectMapper.readTree(login).get("accessToken").asText();
+
+        String created = mockMvc.perform(post("/api/pokemons/create").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Slowpoke\",\"type\":\"water\"}").header("Authorization", token))
+                .andReturn().getResponse().getContentAsString();
+        this.reviews = "/api/pokemons/" + objectMapper.readTree(created).get("id").asInt() + "/reviews";
+    }
+
+    @AfterEach
+    public void speedUp() {
+        DelayedDataSourcePostProcessor.delayed.setDelayMillis(0);
+    }
+
+    @Test
+    public void Deadline_SlowDatabase_504AtTheDeadlineAndStatementCancelled() throws Exception {
+        DelayedDataSourcePostProcessor.delayed.setDelayMillis(10_000);
+        int cancelledBefore = DelayedDataSourcePostProcessor.delayed.getCancelled();
+
+        long start = System.nanoTime();
+        mockMvc.perform(get(reviews).header("Authorization", token).header("Cache-Control", "no-cache")
+                        .header(DeadlineFilter.TIMEOUT_HEADER, "300ms"))
+                .andExpect(MockMvcResultMatchers.status().isGatewayTimeout())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("Request deadline exceeded"));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        System.out.printf("Review list against a database delayed by 10 s, 300 ms deadline: 504 after %d ms%n", elapsedMillis);
+        Assertions.assertThat(elapsedMillis).isLessThan(2000);
+        Assertions.assertThat(DelayedDataSourcePostProcessor.delayed.getCancelled()).isGreaterThan(cancelledBefore);
+
+        // the connection went back to the pool: once the database recovers the same read succeeds
+        DelayedDataSourcePostProcessor.delayed.setDelayMillis(0);
+        mockMvc.perform(get(reviews).header("Authorization", token).header("Cache-Control", "no-cache"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+    }
+
+    @Test
+    public void Deadline_SlowButWithinBudget_Succeeds() throws Exception {
+        DelayedDataSourcePostProcessor.delayed.setDelayMillis(100);
+
+        mockMvc.perform(get(reviews).header("Authorization", token).header("Cache-Control", "no-cache")
+                        .header(DeadlineFilter.TIMEOUT_HEADER, "2s"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+    }
+}
@@ -0,0 +1,100 @@
+package com.pokemonreview.api.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// The whole application on real ports: the application port and the actuator's management port (random here,
+// management.server.port in production). Tests leave out the Prometheus registry unless asked for it.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:metrics-e2e;DB_CLOSE_DELAY=-1;IGNORE_UNKNOWN_SETTINGS=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "app.catalog.invalidation=local",
+        "app.outbox.log-dir=target/changelog/metrics-e2e"
+})
+@AutoConfigureMetrics
+public class MetricsEndToEndTests {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @LocalServerPort
+    private int serverPort;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    @Test
+    public void Prometheus_ApplicationPort_Unauthorized() {
+        ResponseEntity<String> response = restTemplate.getForEntity(url(serverPort, "/actuator/prometheus"), String.class);
+
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    public void Prometheus_ManagementPort_ScrapedWithoutToken() {
+        ResponseEntity<String> response = restTemplate.getForEntity(url(managementPort, "/actuator/prometheus"), String.class);
+
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(response.getBody()).contains("http_server_requests_seconds", "hikaricp_connections");
+    }
+
+    @Test
+    public void Requests_RecordTimerByUriTemplate_AndPoolGauges() throws InterruptedException {
+        String token = login();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+        ResponseEntity<String> response = restTemplate.exchange(url(serverPort, "/api/pokemons/99999"), HttpMethod.GET,
+                new HttpEntity<>(headers), String.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+
+        Assertions.assertThat(awaitRequestTimer("uri", "/api/pokemons/{id}", "method", "GET", "status", "404").count()).isEqualTo(1);
+        Assertions.assertThat(awaitRequestTimer("uri", "/api/auth/login", "status", "200").count()).isPositive();
+
+        Assertions.assertThat(meterRegistry.get("hikaricp.connections.max").gauge().value()).isPositive();
+        Assertions.assertThat(meterRegistry.get("hikaricp.connections.active").gauge().value()).isGreaterThanOrEqualTo(0);
+        Assertions.assertThat(meterRegistry.get("hikaricp.connections.acquire").timer().count()).isPositive();
+    }
+
+    // the request timer is recorded once the response has gone out, so it can trail the client by a moment
+    private Timer awaitRequestTimer(String... tags) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        Timer timer = meterRegistry.find("http.server.requests").tags(tags).timer();
+        while (timer == null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            timer = meterRegistry.find("http.server.requests").tags(tags).timer();
+        }
+        Assertions.assertThat(timer).as("http.server.requests %s", Arrays.toString(tags)).isNotNull();
+        return timer;
+    }
+
+    private String login() {
+        Map<String, String> credentials = Map.of("username", "metrics", "password", "secret");
+        restTemplate.postForEntity(url(serverPort, "/api/auth/register"), credentials, String.class);
+        ResponseEntity<Map> login = restTemplate.postForEntity(url(serverPort, "/api/auth/login"), credentials, Map.class);
+        return login.getBody().get("accessToken").toString();
+    }
+
+    private static String url(int port, String path) {
+        return "http://localhost:" + port + path;
+    }
+}
@@ -0,0 +1,154 @@
+package com.pokemonreview.api.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pokemonreview.api.models.Pokemon;
+import com.pokemonreview.api.models.Role;
+import com.pokemonreview.api.models.UserEntity;
+import com.pokemonreview.api.repository.PokemonRepository;
+import com.pokemonreview.api.repository.RoleRepository;
+import com.pokemonreview.api.repository.UserRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+// Whole application on H2, through the security filter chain with a real JWT:
+// 50 single GETs against one multi-get for the same 50 ids.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:multiget;DB_CLOSE_DELAY=-1;IGNORE_UNKNOWN_SETTINGS=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "app.catalog.invalidation=local",
+        "app.outbox.log-dir=target/changelog/multiget"
+})
+@AutoConfigureMockMvc
+public class MultiGetEndToEndTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PokemonRepository pokemonRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    private String token;
+    private List<Integer> ids = new ArrayList<>();
+
+    @BeforeEach
+    public void init() throws Exception {
+        String credentials = "{\"username\":\"aggregator\",\"password\":\"secret\"}";
+        mockMvc.perform(post("/api/auth/register").contentType(MediaType.APPLICATION_JSON).content(credentials));
+        String login = mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON).content(credentials))
+                .andReturn().getResponse().getContentAsString();
+        this.token = "Bearer " + objectMapper.readTree(login).get("accessToken").asText();
+
+        ids.clear();
+        for (int i = 0; i < 50; i++) {
+            ids.add(pokemonRepository.save(Pokemon.builder().name("Pokemon " + i).type("electric").build()).getId());
+        }
+    }
+
+    @Test
+    public void PokemonController_MultiGet_MatchesSingleCallsInOrder() throws Exception {
+        List<Integer> requested = List.of(ids.get(3), -1, ids.get(0));
+
+        String body = mockMvc.perform(get("/api/pokemons").param("ids", join(requested)).header("Authorization", token))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode response = objectMapper.readTree(body);
+        Assertions.assertThat(response.get("content").findValuesAsText("name")).containsExactly("Pokemon 3", "Pokemon 0");
+        Assertions.assertThat(response.get("missingIds").get(0).asInt()).isEqualTo(-1);
+
+        mockMvc.perform(post("/api/pokemons/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[" + join(requested) + "]}").header("Authorization", token))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().json(body));
+    }
+
+    // every data route needs the USER authority, not just any valid token
+    @Test
+    public void DataRoutes_TokenWithoutUserAuthority_Forbidden() throws Exception {
+        String credentials = "{\"username\":\"guest\",\"password\":\"secret\"}";
+        mockMvc.perform(post("/api/auth/register").contentType(MediaType.APPLICATION_JSON).content(credentials));
+        Role guestRole = roleRepository.findByName("GUEST").orElseGet(() -> roleRepository.save(new Role("GUEST")));
+        UserEntity guest = userRepository.findByUsername("guest").orElseThrow();
+        guest.setRoles(new ArrayList<>(List.of(guestRole)));
+        userRepository.save(guest);
+        String login = mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON).content(credentials))
+                .andReturn().getResponse().getContentAsString();
+        String guestToken = "Bearer " + objectMapper.readTree(login).get("accessToken").asText();
+
+        for (String path : List.of("/api/pokemons/" + ids.get(0), "/api/reviews?ids=1", "/api/reviews/ingest/unknown",
+                "/api/reviews/stream", "/api/changes", "/api/graphql/schema")) {
+            mockMvc.perform(get(path).header("Authorization", guestToken))
+                    .andExpect(MockMvcResultMatchers.status().isForbidden());
+        }
+        for (String path : List.of("/api/reviews/batch", "/api/reviews/bulk", "/api/graphql")) {
+            mockMvc.perform(post(path).contentType(MediaType.APPLICATION_JSON).content("{}").header("Authorization", guestToken))
+                    .andExpect(MockMvcResultMatchers.status().isForbidden());
+        }
+        mockMvc.perform(get("/api/reviews?ids=1").header("Authorization", token))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+    }
+
+    @Test
+    public void PokemonController_MultiGet_FasterThanSingleCalls() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            singleCalls();
+            multiGet();
+        }
+
+        int rounds = 50;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            singleCalls();
+        }
+        long singleMicros = (System.nanoTime() - start) / rounds / 1000;
+
+        start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            multiGet();
+        }
+        long batchMicros = (System.nanoTime() - start) / rounds / 1000;
+
+        System.out.printf("50 ids: %d us as single calls, %d us as one multi-get%n", singleMicros, batchMicros);
+        Assertions.assertThat(batchMicros).isLessThan(singleMicros);
+    }
+
+    private void singleCalls() throws Exception {
+        for (Integer id : ids) {
+            mockMvc.perform(get("/api/pokemons/" + id).header("Authorization", token))
+                    .andExpect(MockMvcResultMatchers.status().isOk());
+        }
+    }
+
+    private void multiGet() throws Exception {
+        mockMvc.perform(get("/api/pokemons").param("ids", join(ids)).header("Authorization", token))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+    }
+
+    private static String join(List<Integer> ids) {
+        return ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+}
@@ -5,6 +5,8 @@ import com.pokemonreview.api.controllers.PokemonController;
 import com.pokemonreview.api.dto.PokemonDto;
 import com.pokemonreview.api.dto.PokemonResponse;
 import com.pokemonreview.api.dto.ReviewDto;
+import com.pokemonreview.api.exceptions.DeletionQueueFullException;
+import com.pokemonreview.api.exceptions.PreconditionFailedException;
 import com.pokemonreview.api.models.Pokemon;
 import com.pokemonreview.api.models.Review;
 import com.pokemonreview.api.security.JWTAuthenticationFilter;
@@ -19,10 +21,12 @@ import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
@@ -47,6 +51,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 // @AutoConfigureMockMvc is more general. It can be used with other test configurations beyond just web MVC tests.
 // You can use it when you want to test your controllers within a more fully realized Spring context
 @AutoConfigureMockMvc(addFilters = false)
+@Import(SimpleMeterRegistry.class)
 @ExtendWith(MockitoExtension.class)
 public class PokemonControllerTests {
 
@@ -156,13 +161,55 @@ public class PokemonControllerTests {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.type").value(pokemonDto.getType()));
     }
 
+    @Test
+    public void PokemonController_PokemonDetailExpandReviews_ReturnsEmbeddedReviews() throws Exception {
+        // Arrange
+        int pokemonId = 1;
+        PokemonDto expanded = PokemonDto.builder().id(pokemonId).name("Pikachu").type("electric")
+                .reviews(Arrays.asList(ReviewDto.builder().title("Great").stars(5).build())).build();
+        when(pokemonService.getPokemonWithReviews(pokemonId, 100)).thenReturn(expanded);
+
+        // Act
+        ResultActions response = mockMvc.perform(get("/api/pokemons/" + pokemonId)
+                .param("expand", "reviews")
+                .param("reviewLimit", "500")
+                .contentType(MediaType.APPLICATION_JSON));
+
+        // Assert: reviewLimit is capped
+        response.andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.reviews.size()", CoreMatchers.is(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.reviews[0].title").value("Great"));
+    }
+
+    @Test
+    public void PokemonController_GetPokemonsByTypeExpandReviews_ReturnsEmbeddedReviews() throws Exception {
+        // Arrange
+        PokemonDto expanded = PokemonDto.builder().id(1).name("Pikachu").type("electric")
+                .reviews(Arrays.asList(ReviewDto.builder().title("Great").stars(5).build())).build();
+        PokemonResponse page = PokemonResponse.builder().content(Arrays.asList(expanded)).pageNo(0).pageSize(10)
+                .totalElements(1).totalPages(1).last(true).build();
+        when(pokemonService.getPokemonByTypeWithReviews("electric", 0, 10, 100)).thenReturn(page);
+
+        // Act
+        ResultActions response = mockMvc.perform(get("/api/pokemons")
+                .param("type", "electric")
+                .param("expand", "reviews")
+                .param("reviewLimit", "500")
+                .contentType(MediaType.APPLICATION_JSON));
+
+        // Assert: reviewLimit is capped
+        response.andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].reviews.size()", CoreMatchers.is(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].reviews[0].title").value("Great"));
+    }
+
     @Test
     public void PokemonController_UpdatePokemon_ReturnPokemonDto() throws Exception {
         // Arrange
         int pokemonId = 1;
         // assume pokemonId belongs to pokemonDto
         // now we update it into pokemonDto_2
-        when(pokemonService.updatePokemon(pokemonDto_2, pokemonId)).thenReturn(pokemonDto_2);
+        when(pokemonService.updatePokemon(pokemonDto_2, pokemonId, null)).thenReturn(pokemonDto_2);
 
         // Act
         ResultActions response = mockMvc.perform(put("/api/pokemons/" + pokemonId + "/update")
@@ -174,6 +221,41 @@ public class PokemonControllerTests {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.type").value(pokemonDto_2.getType()));
     }
 
+    @Test
+    public void PokemonController_UpdatePokemonIfMatch_PassesVersionAndReturnsETag() throws Exception {
+        // Arrange
+        int pokemonId = 1;
+        PokemonDto updated = PokemonDto.builder().id(pokemonId).name("Raichu").type("electric").version(4).build();
+        when(pokemonService.updatePokemon(pokemonDto_2, pokemonId, 3)).thenReturn(updated);
+
+        // Act
+        ResultActions response = mockMvc.perform(put("/api/pokemons/" + pokemonId + "/update")
+                .contentType(MediaType.APPLICATION_JSON).header("If-Match", "\"3\"")
+                .content(objectMapper.writeValueAsString(pokemonDto_2)));
+
+        // Assert
+        response.andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "\"4\""))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.version").value(4));
+    }
+
+    @Test
+    public void PokemonController_UpdatePokemonStaleVersion_Return412() throws Exception {
+        // Arrange
+        int pokemonId = 1;
+        when(pokemonService.updatePokemon(pokemonDto_2, pokemonId, 2))
+                .thenThrow(new PreconditionFailedException("Pokemon was modified, current version is 3"));
+
+        // Act
+        ResultActions response = mockMvc.perform(put("/api/pokemons/" + pokemonId + "/update")
+                .contentType(MediaType.APPLICATION_JSON).header("If-Match", "\"2\"")
+                .content(objectMapper.writeValueAsString(pokemonDto_2)));
+
+        // Assert
+        response.andExpect(MockMvcResultMatchers.status().isPreconditionFailed())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("Pokemon was modified, current version is 3"));
+    }
+
     @Test
     public void PokemonController_DeletePokemon_ReturnString() throws Exception {
         // Arrange
@@ -188,4 +270,20 @@ public class PokemonControllerTests {
         response.andExpect(MockMvcResultMatchers.status().isOk())
                 .andExpect(MockMvcResultMatchers.content().string("Pokemon delete"));
     }
+
+    @Test
+    public void PokemonController_DeletePokemonAsync_QueueFull_ReturnServiceUnavailable() throws Exception {
+        // Arrange
+        int pokemonId = 1;
+        when(pokemonService.startDeletePokemon(pokemonId))
+                .thenThrow(new DeletionQueueFullException("Deletion queue is full, try again shortly"));
+
+        // Act
+        ResultActions response = mockMvc.perform(delete("/api/pokemons/" + pokemonId + "/delete").param("async", "true"));
+
+        // Assert
+        response.andExpect(MockMvcResultMatchers.status().isServiceUnavailable())
+                .andExpect(MockMvcResultMatchers.header().string("Retry-After", "1"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("Deletion queue is full, try again shortly"));
+    }
 }
@@ -0,0 +1,277 @@
+package com.pokemonreview.api.controller;
+
+import com.pokemonreview.api.catalog.PokemonCatalog;
+import com.pokemonreview.api.dto.BatchResponse;
+import com.pokemonreview.api.dto.PokemonDto;
+import com.pokemonreview.api.dto.PokemonResponse;
+import com.pokemonreview.api.dto.ReviewBatchResponse;
+import com.pokemonreview.api.dto.ReviewDto;
+import com.pokemonreview.api.models.Pokemon;
+import com.pokemonreview.api.models.Review;
+import com.pokemonreview.api.models.Role;
+import com.pokemonreview.api.models.UserEntity;
+import com.pokemonreview.api.repository.PokemonRepository;
+import com.pokemonreview.api.repository.ReviewRepository;
+import com.pokemonreview.api.repository.RoleRepository;
+import com.pokemonreview.api.repository.UserRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// The "reactive" profile on H2: WebFlux on a real Netty port, R2DBC against the same in-memory database the JPA side
+// uses, and the reactive JWT filter in front. Outbox rows are written but the relay is off, so they stay where the writes put them.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.main.web-application-type=reactive",
+        "spring.datasource.url=jdbc:h2:mem:reactive-e2e;DB_CLOSE_DELAY=-1;IGNORE_UNKNOWN_SETTINGS=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactive-e2e",
+        "app.catalog.invalidation=local",
+        "app.outbox.log-dir=target/changelog/reactive-e2e",
+        "app.outbox.enabled=true",
+        "app.outbox.relay.enabled=false",
+        "app.auth.rate-limit.ip.burst=100",
+        "app.auth.rate-limit.username.burst=100"
+})
+@ActiveProfiles("reactive")
+public class ReactiveEndToEndTests {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private PokemonRepository pokemonRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private PokemonCatalog pokemonCatalog;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Pokemon pikachu;
+    private Review review;
+
+    @BeforeEach
+    public void init() {
+        reviewRepository.deleteAll();
+        pokemonRepository.deleteAll();
+        pikachu = pokemonRepository.save(Pokemon.builder().name("Pikachu").type("electric").build());
+        pokemonRepository.save(Pokemon.builder().name("Squirtle").type("water").build());
+        for (int i = 0; i < 3; i++) {
+            review = reviewRepository.save(Review.builder().title("Review " + i).content("Great").stars(i + 3).pokemon(pikachu).build());
+        }
+        user("reader", "USER");
+        user("guest", "GUEST");
+    }
+
+    @Test
+    public void ReactivePokemons_PageAndType_SameShapeAsServlet() {
+        PokemonResponse page = get("/api/pokemons?pageSize=1", login("reader"))
+                .expectStatus().isOk().expectBody(PokemonResponse.class).returnResult().getResponseBody();
+
+        Assertions.assertThat(page.getContent()).extracting(PokemonDto::getName).containsExactly("Pikachu");
+        Assertions.assertThat(page.getTotalElements()).isEqualTo(2);
+        Assertions.assertThat(page.getTotalPages()).isEqualTo(2);
+        Assertions.assertThat(page.isLast()).isFalse();
+
+        PokemonResponse water = get("/api/pokemons?type=water", login("reader"))
+                .expectStatus().isOk().expectBody(PokemonResponse.class).returnResult().getResponseBody();
+        Assertions.assertThat(water.getContent()).extracting(PokemonDto::getName).containsExactly("Squirtle");
+    }
+
+    @Test
+    public void ReactivePokemonDetail_ExpandReviews_LimitedAndEmbedded() {
+        PokemonDto detail = get("/api/pokemons/" + pikachu.getId() + "?expand=reviews&reviewLimit=2", login("reader"))
+                .expectStatus().isOk().expectBody(PokemonDto.class).returnResult().getResponseBody();
+
+        Assertions.assertThat(detail.getName()).isEqualTo("Pikachu");
+        Assertions.assertThat(detail.getReviews()).extracting(ReviewDto::getTitle).containsExactly("Review 0", "Review 1");
+    }
+
+    @Test
+    public void ReactivePokemonsByType_ExpandReviews_LimitedAndEmbedded() {
+        PokemonResponse electric = get("/api/pokemons?type=electric&expand=reviews&reviewLimit=2", login("reader"))
+                .expectStatus().isOk().expectBody(PokemonResponse.class).returnResult().getResponseBody();
+
+        Assertions.assertThat(electric.getContent()).singleElement().satisfies(pokemon -> Assertions.assertThat(pokemon.getReviews())
+                .extracting(ReviewDto::getTitle).containsExactly("Review 0", "Review 1"));
+    }
+
+    @Test
+    public void ReactiveReads_ReviewsAndMultiGet_Served() {
+        String token = login("reader");
+
+        List<ReviewDto> reviews = get("/api/pokemons/" + pikachu.getId() + "/reviews", token)
+                .expectStatus().isOk().expectBodyList(ReviewDto.class).returnResult().getResponseBody();
+        Assertions.assertThat(reviews).extracting(ReviewDto::getStars).containsExactly(3, 4, 5);
+
+        get("/api/pokemons/" + pikachu.getId() + "/reviews/" + review.getId(), token)
+                .expectStatus().isOk().expectBody().jsonPath("$.title").isEqualTo("Review 2");
+
+        BatchResponse<PokemonDto> batch = get("/api/pokemons?ids=" + pikachu.getId() + ",99999", token)
+                .expectStatus().isOk().expectBody(new ParameterizedTypeReference<BatchResponse<PokemonDto>>() {})
+                .returnResult().getResponseBody();
+        Assertions.assertThat(batch.getContent()).extracting(PokemonDto::getName).containsExactly("Pikachu");
+        Assertions.assertThat(batch.getMissingIds()).containsExactly(99999);
+    }
+
+    @Test
+    public void ReactiveReads_UnknownIds_NotFoundBody() {
+        String token = login("reader");
+
+        get("/api/pokemons/99999", token).expectStatus().isNotFound()
+                .expectBody().jsonPath("$.message").isEqualTo("Pokemon could not be found");
+        get("/api/pokemons/" + pikachu.getId() + "/reviews/99999", token).expectStatus().isNotFound()
+                .expectBody().jsonPath("$.message").isEqualTo("Review with associate pokemon not found");
+    }
+
+    @Test
+    public void ReactiveSecurity_MissingWrongOrRevokedToken_Rejected() {
+        String path = "/api/pokemons/" + pikachu.getId();
+
+        get(path, null).expectStatus().isUnauthorized();
+        get(path, "not.a.token").expectStatus().isUnauthorized();
+        get(path, login("guest")).expectStatus().isForbidden();
+
+        String token = login("reader");
+        get(path, token).expectStatus().isOk();
+        webTestClient.post().uri("/api/auth/logout").header("Authorization", "Bearer " + token).exchange()
+                .expectStatus().isNoContent();
+        get(path, token).expectStatus().isUnauthorized();
+    }
+
+    @Test
+    public void ReactiveLogin_WrongPassword_Unauthorized() {
+        webTestClient.post().uri("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("username", "reader", "password", "wrong")).exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    public void ReactivePokemonWrites_CreateConditionalUpdateDelete_OutboxAndCatalogFollow() {
+        String token = login("reader");
+
+        PokemonDto created = send(HttpMethod.POST, "/api/pokemons/create", token, Map.of("name", "Bulbasaur", "type", "grass"))
+                .expectStatus().isCreated().expectBody(PokemonDto.class).returnResult().getResponseBody();
+        Assertions.assertThat(created.getVersion()).isZero();
+        Assertions.assertThat(pokemonCatalog.snapshot().get(created.getId()).toDto().getName()).isEqualTo("Bulbasaur");
+
+        String path = "/api/pokemons/" + created.getId();
+        send(HttpMethod.PUT, path + "/update", token, Map.of("name", "Ivysaur", "type", "grass"), "\"0\"")
+                .expectStatus().isOk().expectHeader().valueEquals("ETag", "\"1\"")
+                .expectBody().jsonPath("$.name").isEqualTo("Ivysaur");
+        send(HttpMethod.PUT, path + "/update", token, Map.of("name", "Venusaur", "type", "grass"), "\"0\"")
+                .expectStatus().isEqualTo(412)
+                .expectBody().jsonPath("$.message").isEqualTo("Pokemon was modified, current version is 1");
+        Assertions.assertThat(pokemonCatalog.snapshot().get(created.getId()).toDto().getName()).isEqualTo("Ivysaur");
+
+        send(HttpMethod.DELETE, path + "/delete", token, null).expectStatus().isOk();
+        get(path, token).expectStatus().isNotFound();
+        Assertions.assertThat(pokemonCatalog.snapshot().get(created.getId())).isNull();
+
+        Assertions.assertThat(jdbcTemplate.queryForList("select event_type from outbox_event where aggregate_id = ? "
+                        + "and event_type like 'pokemon.%' order by id", String.class, created.getId()))
+                .containsExactly("pokemon.created", "pokemon.updated", "pokemon.deleted");
+    }
+
+    @Test
+    public void ReactiveReviewWrites_CreateUpdateDeleteAndBulk_Served() {
+        String token = login("reader");
+        String reviews = "/api/pokemons/" + pikachu.getId() + "/reviews";
+
+        ReviewDto created = send(HttpMethod.POST, reviews, token, Map.of("title", "New", "content", "Fast", "stars", 5))
+                .expectStatus().isCreated().expectBody(ReviewDto.class).returnResult().getResponseBody();
+        send(HttpMethod.PUT, reviews + "/" + created.getId(), token, Map.of("title", "Edited", "content", "Fast", "stars", 4), null)
+                .expectStatus().isOk().expectHeader().valueEquals("ETag", "\"1\"");
+        get(reviews + "/" + created.getId(), token).expectStatus().isOk().expectBody().jsonPath("$.title").isEqualTo("Edited");
+
+        send(HttpMethod.DELETE, reviews + "/" + created.getId(), token, null).expectStatus().isOk();
+        get(reviews + "/" + created.getId(), token).expectStatus().isNotFound();
+        send(HttpMethod.POST, "/api/pokemons/99999/reviews", token, Map.of("title", "Lost", "content", "-", "stars", 1))
+                .expectStatus().isNotFound();
+
+        ReviewBatchResponse bulk = send(HttpMethod.POST, "/api/reviews/bulk", token, Map.of("reviews", List.of(
+                        Map.of("pokemonId", pikachu.getId(), "title", "Bulk", "content", "-", "stars", 3),
+                        Map.of("pokemonId", 99999, "title", "Bulk", "content", "-", "stars", 3))))
+                .expectStatus().isOk().expectBody(ReviewBatchResponse.class).returnResult().getResponseBody();
+        Assertions.assertThat(bulk.getResults()).extracting("status").containsExactly("CREATED", "REJECTED");
+
+        Assertions.assertThat(jdbcTemplate.queryForList("select event_type from outbox_event where aggregate_id = ? "
+                        + "and event_type like 'review.%' order by id", String.class, created.getId()))
+                .containsExactly("review.created", "review.updated", "review.deleted");
+    }
+
+    @Test
+    public void ReactiveRegister_NewUser_CanLogIn() {
+        Map<String, String> credentials = Map.of("username", "newcomer", "password", "secret");
+        webTestClient.post().uri("/api/auth/register").contentType(MediaType.APPLICATION_JSON).bodyValue(credentials).exchange()
+                .expectStatus().isCreated();
+        webTestClient.post().uri("/api/auth/register").contentType(MediaType.APPLICATION_JSON).bodyValue(credentials).exchange()
+                .expectStatus().isBadRequest();
+
+        get("/api/pokemons/" + pikachu.getId(), login("newcomer")).expectStatus().isOk();
+    }
+
+    private WebTestClient.ResponseSpec send(HttpMethod method, String path, String token, Object body) {
+        return send(method, path, token, body, null);
+    }
+
+    private WebTestClient.ResponseSpec send(HttpMethod method, String path, String token, Object body, String ifMatch) {
+        WebTestClient.RequestBodySpec request = webTestClient.method(method).uri(path).header("Authorization", "Bearer " + token);
+        if (ifMatch != null) {
+            request = request.header("If-Match", ifMatch);
+        }
+        return body != null ? request.contentType(MediaType.APPLICATION_JSON).bodyValue(body).exchange() : request.exchange();
+    }
+
+    private WebTestClient.ResponseSpec get(String path, String token) {
+        WebTestClient.RequestHeadersSpec<?> request = webTestClient.get().uri(path);
+        if (token != null) {
+            request = request.header("Authorization", "Bearer " + token);
+        }
+        return request.exchange();
+    }
+
+    private String login(String username) {
+        return webTestClient.post().uri("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("username", username, "password", "secret")).exchange()
+                .expectStatus().isOk()
+                .expectBody(Map.class).returnResult().getResponseBody().get("accessToken").toString();
+    }
+
+    private void user(String username, String roleName) {
+        if (userRepository.existsByUsername(username)) {
+            return;
+        }
+        Role role = roleRepository.findByName(roleName).orElseGet(() -> roleRepository.save(new Role(roleName)));
+        UserEntity user = new UserEntity();
+        user.setUsername(username);
+        user.setPassword(passwordEncoder.encode("secret"));
+        user.setRoles(new ArrayList<>(List.of(role)));
+        userRepository.save(user);
+    }
+}
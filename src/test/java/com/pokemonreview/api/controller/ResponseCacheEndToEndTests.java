@@ -0,0 +1,151 @@
+package com.pokemonreview.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pokemonreview.api.cache.ResponseCacheFilter;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+// Whole application on H2 with the response cache in front of the controllers.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:responsecache;DB_CLOSE_DELAY=-1;IGNORE_UNKNOWN_SETTINGS=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "app.catalog.invalidation=local",
+        "app.outbox.log-dir=target/changelog/responsecache"
+})
+@AutoConfigureMockMvc
+public class ResponseCacheEndToEndTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String token;
+    private int pokemonId;
+
+    @BeforeEach
+    public void init() throws Exception {
+        String credentials = "{\"username\":\"cachetester\",\"password\":\"secret\"}";
+        mockMvc.perform(post("/api/auth/register").contentType(MediaType.APPLICATION_JSON).content(credentials));
+        String login = mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON).content(credentials))
+                .andReturn().getResponse().getContentAsString();
+        this.token = "Bearer " + objectMapper.readTree(login).get("accessToken").asText();
+
+        String created = mockMvc.perform(post("/api/pokemons/create").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Pikachu\",\"type\":\"electric\"}").header("Authorization", token))
+                .andReturn().getResponse().getContentAsString();
+        this.pokemonId = objectMapper.readTree(created).get("id").asInt();
+    }
+
+    @Test
+    public void ResponseCache_RepeatedGet_HitUntilWritePurgesIt() throws Exception {
+        String detail = "/api/pokemons/" + pokemonId;
+        Assertions.assertThat(cacheStatus(get(detail))).isEqualTo("MISS");
+        Assertions.assertThat(cacheStatus(get(detail))).isEqualTo("HIT");
+
+        // the cache sits behind authentication
+        mockMvc.perform(get(detail)).andExpect(MockMvcResultMatchers.status().isUnauthorized());
+
+        mockMvc.perform(put(detail + "/update").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Raichu\",\"type\":\"electric\"}").header("Authorization", token))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        MvcResult afterUpdate = perform(get(detail));
+        Assertions.assertThat(afterUpdate.getResponse().getHeader(ResponseCacheFilter.CACHE_HEADER)).isEqualTo("MISS");
+        Assertions.assertThat(afterUpdate.getResponse().getContentAsString()).contains("Raichu");
+    }
+
+    @Test
+    public void ResponseCache_NewReview_PurgesReviewListOfItsPokemonOnly() throws Exception {
+        String otherCreated = mockMvc.perform(post("/api/pokemons/create").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Squirtle\",\"type\":\"water\"}").header("Authorization", token))
+                .andReturn().getResponse().getContentAsString();
+        String otherReviews = "/api/pokemons/" + objectMapper.readTree(otherCreated).get("id").asInt() + "/reviews";
+        String reviews = "/api/pokemons/" + pokemonId + "/reviews";
+        cacheStatus(get(reviews));
+        cacheStatus(get(otherReviews));
+
+        mockMvc.perform(post(reviews).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Shocking\",\"content\":\"Great\",\"stars\":5}").header("Authorization", token))
+                .andExpect(MockMvcResultMatchers.status().isCreated());
+
+        MvcResult afterCreate = perform(get(reviews));
+        Assertions.assertThat(afterCreate.getResponse().getHeader(ResponseCacheFilter.CACHE_HEADER)).isEqualTo("MISS");
+        Assertions.assertThat(afterCreate.getResponse().getContentAsString()).contains("Shocking");
+        Assertions.assertThat(cacheStatus(get(otherReviews))).isEqualTo("HIT");
+    }
+
+    // Load benchmark: concurrent clients reading a page of 50, rendered every time (Cache-Control: no-cache)
+    // against served from the cache. Prints requests per second for both.
+    @Test
+    public void ResponseCache_ConcurrentPageReads_HigherThroughputThanRendering() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            mockMvc.perform(post("/api/pokemons/create").contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"name\":\"Pokemon " + i + "\",\"type\":\"electric\"}").header("Authorization", token));
+        }
+        load(false, 2_000);
+        load(true, 2_000);
+
+        double rendered = load(false, 4_000);
+        double cached = load(true, 4_000);
+
+        System.out.printf("Page of 50 with 8 clients: %.0f req/s rendered, %.0f req/s from the cache%n", rendered, cached);
+        Assertions.assertThat(cached).isGreaterThan(rendered);
+    }
+
+    private double load(boolean cached, int requests) throws Exception {
+        int clients = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < requests / clients; i++) {
+                    mockMvc.perform(get("/api/pokemons").param("pageSize", "50").header("Authorization", token)
+                                    .header("Cache-Control", cached ? "max-age=0" : "no-cache"))
+                            .andExpect(MockMvcResultMatchers.status().isOk());
+                }
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        executor.shutdown();
+        return requests / seconds;
+    }
+
+    private String cacheStatus(MockHttpServletRequestBuilder request) throws Exception {
+        return perform(request).getResponse().getHeader(ResponseCacheFilter.CACHE_HEADER);
+    }
+
+    private MvcResult perform(MockHttpServletRequestBuilder request) throws Exception {
+        return mockMvc.perform(request.header("Authorization", token))
+                .andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+    }
+}
@@ -3,7 +3,11 @@ package com.pokemonreview.api.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pokemonreview.api.controllers.ReviewController;
 import com.pokemonreview.api.dto.PokemonDto;
+import com.pokemonreview.api.dto.ReviewBatchResponse;
+import com.pokemonreview.api.dto.ReviewBatchResultDto;
 import com.pokemonreview.api.dto.ReviewDto;
+import com.pokemonreview.api.dto.ReviewIngestDto;
+import com.pokemonreview.api.feed.ReviewFeed;
 import com.pokemonreview.api.models.Pokemon;
 import com.pokemonreview.api.models.Review;
 import com.pokemonreview.api.security.JWTAuthenticationFilter;
@@ -15,10 +19,12 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentMatchers;
 import org.mockito.junit.jupiter.MockitoExtension;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
@@ -35,6 +41,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 
 @WebMvcTest(controllers = ReviewController.class)
 @AutoConfigureMockMvc(addFilters = false)
+@Import(SimpleMeterRegistry.class)
 @ExtendWith(MockitoExtension.class)
 public class ReviewControllerTests {
 
@@ -52,6 +59,9 @@ public class ReviewControllerTests {
     @MockBean
     private ReviewService reviewService;
 
+    @MockBean
+    private ReviewFeed reviewFeed;
+
     private Pokemon pokemon;
     private PokemonDto pokemonDto;
     private Review review;
@@ -94,7 +104,7 @@ public class ReviewControllerTests {
         // Arrange
         int pokemonId = 1;
         int reviewId = 10;
-        when(reviewService.updateReview(pokemonId, reviewId, reviewDto_2)).thenReturn(reviewDto_2);
+        when(reviewService.updateReview(pokemonId, reviewId, reviewDto_2, null)).thenReturn(reviewDto_2);
 
         // Act
         ResultActions response =  mockMvc.perform(put("/api/pokemons/"+ pokemonId + "/reviews/" + reviewId)
@@ -127,6 +137,48 @@ public class ReviewControllerTests {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.stars").value(reviewDto.getStars()));
     }
 
+    @Test
+    public void ReviewController_SubmitReviewAsync_Return202WithStatusLocation() throws Exception {
+        // Arrange
+        int pokemonId = 1;
+        ReviewIngestDto accepted = ReviewIngestDto.builder().trackingId("abc").pokemonId(pokemonId).status("QUEUED").build();
+        when(reviewService.submitReview(pokemonId, reviewDto)).thenReturn(accepted);
+
+        // Act
+        ResultActions response = mockMvc.perform(post("/api/pokemons/" + pokemonId + "/reviews").param("async", "true")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(reviewDto)));
+        // Assert
+        response.andExpect(MockMvcResultMatchers.status().isAccepted())
+                .andExpect(MockMvcResultMatchers.header().string("Location", "/api/reviews/ingest/abc"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.status").value("QUEUED"));
+    }
+
+    @Test
+    public void ReviewController_CreateReviewsBulk_ReturnPerItemResults() throws Exception {
+        // Arrange
+        ReviewBatchResultDto created = ReviewBatchResultDto.builder().index(0).pokemonId(1).status("CREATED").review(reviewDto).build();
+        when(reviewService.createReviews(ArgumentMatchers.anyList()))
+                .thenReturn(new ReviewBatchResponse(1, 0, Arrays.asList(created)));
+
+        // Act
+        ResultActions response = mockMvc.perform(post("/api/reviews/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"reviews\":[{\"pokemonId\":1,\"title\":\"Comment on Pikachu\",\"content\":\"Great\",\"stars\":3}]}"));
+
+        // Assert
+        response.andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.created").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.results[0].status").value("CREATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.results[0].review.title").value(reviewDto.getTitle()));
+    }
+
+    @Test
+    public void ReviewController_CreateReviewsBulk_EmptyIsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/reviews/bulk").contentType(MediaType.APPLICATION_JSON).content("{\"reviews\":[]}"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
     @Test
     public void ReviewController_GetReviewId_ReturnReviewDto() throws Exception {
         // Arrange
@@ -0,0 +1,185 @@
+package com.pokemonreview.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pokemonreview.api.ApiApplication;
+import com.pokemonreview.api.models.Pokemon;
+import com.pokemonreview.api.models.Review;
+import com.pokemonreview.api.models.Role;
+import com.pokemonreview.api.models.UserEntity;
+import com.pokemonreview.api.repository.PokemonRepository;
+import com.pokemonreview.api.repository.ReviewRepository;
+import com.pokemonreview.api.repository.RoleRepository;
+import com.pokemonreview.api.repository.UserRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// The same read (GET /api/pokemons/{id}/reviews, 20 reviews each over 100 Pokemon) against the servlet runtime
+// (Tomcat, JPA on Hikari) and the reactive one (the "reactive" profile: Netty, R2DBC), each started on its own H2
+// database with the same rows, at rising client concurrency. Caches, bulkheads, concurrency limits and deadlines
+// are off on both so every request reaches the database.
+// Prints throughput, p50/p99 and the server's request threads for each level. The client and both servers share
+// this JVM and its cores, so the numbers compare the two runtimes rather than measure either.
+public class ServletVsReactiveBenchmarkTests {
+
+    private static final int POKEMONS = 100;
+    private static final int REVIEWS_PER_POKEMON = 20;
+    private static final int REQUESTS_PER_LEVEL = 10000;
+    private static final int[] CONCURRENCY = {16, 256, 1024};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @Test
+    public void ReviewsRead_ServletVsReactive_AllServedAtEveryConcurrency() throws Exception {
+        try (ConfigurableApplicationContext servlet = start("servlet", "bench-servlet");
+             ConfigurableApplicationContext reactive = start("reactive", "bench-reactive")) {
+            Runtime servletRuntime = new Runtime("servlet", servlet, "http-nio");
+            Runtime reactiveRuntime = new Runtime("reactive", reactive, "reactor-http");
+            for (Runtime runtime : List.of(servletRuntime, reactiveRuntime)) {
+                run(runtime, 16, 2000);
+            }
+            for (int concurrency : CONCURRENCY) {
+                for (Runtime runtime : List.of(servletRuntime, reactiveRuntime)) {
+                    Result result = run(runtime, concurrency, REQUESTS_PER_LEVEL);
+                    System.out.printf("%-8s concurrency %4d: %6.0f req/s, p50 %5.1f ms, p99 %6.1f ms, %3d %s threads%n",
+                            runtime.name, concurrency, result.throughput, result.p50Millis, result.p99Millis,
+                            threads(runtime.threadPrefix), runtime.threadPrefix);
+                    Assertions.assertThat(result.failures).isZero();
+                }
+            }
+        }
+    }
+
+    private ConfigurableApplicationContext start(String mode, String database) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--management.server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1;IGNORE_UNKNOWN_SETTINGS=TRUE",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.r2dbc.url=r2dbc:h2:mem:///" + database,
+                "--app.catalog.invalidation=local",
+                "--app.outbox.relay.enabled=false",
+                "--app.outbox.log-dir=target/changelog/" + database,
+                "--app.response-cache.enabled=false",
+                "--app.bulkhead.enabled=false",
+                "--app.concurrency-limit.enabled=false",
+                "--app.deadline.enabled=false"));
+        SpringApplicationBuilder application = new SpringApplicationBuilder(ApiApplication.class);
+        if (mode.equals("reactive")) {
+            application.profiles("reactive");
+        }
+        ConfigurableApplicationContext context = application.run(args.toArray(new String[0]));
+        seed(context);
+        return context;
+    }
+
+    private void seed(ConfigurableApplicationContext context) {
+        PokemonRepository pokemonRepository = context.getBean(PokemonRepository.class);
+        ReviewRepository reviewRepository = context.getBean(ReviewRepository.class);
+        RoleRepository roleRepository = context.getBean(RoleRepository.class);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+
+        List<Review> reviews = new ArrayList<>();
+        for (int i = 0; i < POKEMONS; i++) {
+            Pokemon pokemon = pokemonRepository.save(Pokemon.builder().name("Pokemon " + i).type("electric").build());
+            for (int j = 0; j < REVIEWS_PER_POKEMON; j++) {
+                reviews.add(Review.builder().title("Review " + j).content("Great").stars(j % 5 + 1).pokemon(pokemon).build());
+            }
+        }
+        reviewRepository.saveAll(reviews);
+
+        Role role = roleRepository.findByName("USER").orElseGet(() -> roleRepository.save(new Role("USER")));
+        UserEntity user = new UserEntity();
+        user.setUsername("bench");
+        user.setPassword(context.getBean(PasswordEncoder.class).encode("secret"));
+        user.setRoles(new ArrayList<>(List.of(role)));
+        userRepository.save(user);
+    }
+
+    private Result run(Runtime runtime, int concurrency, int requests) throws Exception {
+        List<Integer> ids = runtime.pokemonIds;
+        Semaphore inFlight = new Semaphore(concurrency);
+        AtomicInteger failures = new AtomicInteger();
+        long[] latencies = new long[requests];
+        List<CompletableFuture<?>> responses = new ArrayList<>(requests);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            int index = i;
+            HttpRequest request = HttpRequest.newBuilder(runtime.uri("/api/pokemons/" + ids.get(i % ids.size()) + "/reviews"))
+                    .header("Authorization", runtime.token).build();
+            inFlight.acquire();
+            long sent = System.nanoTime();
+            responses.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                    .whenComplete((response, error) -> {
+                        latencies[index] = System.nanoTime() - sent;
+                        if (error != null || response.statusCode() != 200) {
+                            failures.incrementAndGet();
+                        }
+                        inFlight.release();
+                    }));
+        }
+        CompletableFuture.allOf(responses.toArray(new CompletableFuture[0])).exceptionally(error -> null).join();
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        return new Result(requests * 1e9 / elapsed, latencies[requests / 2] / 1e6, latencies[requests * 99 / 100] / 1e6,
+                failures.get());
+    }
+
+    private static long threads(String prefix) {
+        return Thread.getAllStackTraces().keySet().stream().filter(thread -> thread.getName().startsWith(prefix)).count();
+    }
+
+    private class Runtime {
+        private final String name;
+        private final String threadPrefix;
+        private final int port;
+        private final String token;
+        private final List<Integer> pokemonIds = new ArrayList<>();
+
+        private Runtime(String name, ConfigurableApplicationContext context, String threadPrefix) throws Exception {
+            this.name = name;
+            this.threadPrefix = threadPrefix;
+            this.port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+            context.getBean(PokemonRepository.class).findAll().forEach(pokemon -> pokemonIds.add(pokemon.getId()));
+            HttpResponse<String> login = httpClient.send(HttpRequest.newBuilder(uri("/api/auth/login"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"bench\",\"password\":\"secret\"}")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            this.token = "Bearer " + objectMapper.readTree(login.body()).get("accessToken").asText();
+        }
+
+        private URI uri(String path) {
+            return URI.create("http://localhost:" + port + path);
+        }
+    }
+
+    private static class Result {
+        private final double throughput;
+        private final double p50Millis;
+        private final double p99Millis;
+        private final int failures;
+
+        private Result(double throughput, double p50Millis, double p99Millis, int failures) {
+            this.throughput = throughput;
+            this.p50Millis = p50Millis;
+            this.p99Millis = p99Millis;
+            this.failures = failures;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.pokemonreview.api.deadline;
+
+import com.pokemonreview.api.config.ReadYourWritesTracker;
+import com.pokemonreview.api.config.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class DeadlineDataSourceTests {
+
+    private HikariDataSource pool;
+    private DelayedDataSource delayed;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void init() {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:deadline;DB_CLOSE_DELAY=-1");
+        config.setMaximumPoolSize(1);
+        config.setConnectionTimeout(5000);
+        pool = new HikariDataSource(config);
+        delayed = new DelayedDataSource(pool);
+        jdbcTemplate = new JdbcTemplate(new DeadlineDataSource(delayed));
+    }
+
+    @AfterEach
+    public void close() {
+        RequestDeadline.clear();
+        pool.close();
+    }
+
+    @Test
+    public void DeadlineDataSource_SlowStatement_CancelledAtDeadline() {
+        delayed.setDelayMillis(5000);
+        RequestDeadline.start(TimeUnit.MILLISECONDS.toNanos(150));
+
+        long start = System.nanoTime();
+        Assertions.assertThatThrownBy(() -> jdbcTemplate.queryForObject("select 1", Integer.class))
+                .isInstanceOf(QueryTimeoutException.class);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Assertions.assertThat(elapsedMillis).isBetween(100L, 1000L);
+        Assertions.assertThat(delayed.getCancelled()).isEqualTo(1);
+    }
+
+    @Test
+    public void DeadlineDataSource_StatementWithinBudget_NotCancelled() throws Exception {
+        delayed.setDelayMillis(20);
+        RequestDeadline.start(TimeUnit.SECONDS.toNanos(2));
+
+        Assertions.assertThat(jdbcTemplate.queryForObject("select 1", Integer.class)).isEqualTo(1);
+        // the scheduled cancel was withdrawn, not merely late
+        Thread.sleep(50);
+        Assertions.assertThat(delayed.getCancelled()).isZero();
+    }
+
+    @Test
+    public void DeadlineDataSource_NoDeadline_StatementsUnbounded() {
+        delayed.setDelayMillis(200);
+
+        Assertions.assertThat(jdbcTemplate.queryForObject("select 1", Integer.class)).isEqualTo(1);
+        Assertions.assertThat(delayed.getCancelled()).isZero();
+    }
+
+    // nothing to enforce, so the pool's connection and the driver's statements are handed out as they are
+    @Test
+    public void DeadlineDataSource_NoDeadline_NotWrapped() throws Exception {
+        DeadlineDataSource dataSource = new DeadlineDataSource(pool);
+        try (Connection connection = dataSource.getConnection()) {
+            Assertions.assertThat(Proxy.isProxyClass(connection.getClass())).isFalse();
+        }
+        RequestDeadline.start(TimeUnit.SECONDS.toNanos(2));
+        try (Connection withDeadline = dataSource.getConnection()) {
+            RequestDeadline.clear();
+            Assertions.assertThat(Proxy.isProxyClass(withDeadline.getClass())).isTrue();
+            Assertions.assertThat(Proxy.isProxyClass(withDeadline.prepareStatement("select 1").getClass())).isFalse();
+        }
+    }
+
+    @Test
+    public void DeadlineDataSource_DeadlinePassed_NeitherConnectionNorStatement() throws Exception {
+        DeadlineDataSource dataSource = new DeadlineDataSource(delayed);
+        RequestDeadline.start(TimeUnit.SECONDS.toNanos(2));
+        try (Connection connection = dataSource.getConnection()) {
+            RequestDeadline.start(0);
+
+            Assertions.assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTimeoutException.class);
+            Assertions.assertThatThrownBy(() -> connection.prepareStatement("select 1").executeQuery())
+                    .isInstanceOf(SQLTimeoutException.class);
+        }
+        Assertions.assertThat(delayed.getCancelled()).isZero();
+    }
+
+    @Test
+    public void DeadlineDataSource_PoolExhausted_StopsWaitingAtDeadline() throws Exception {
+        DeadlineDataSource dataSource = new DeadlineDataSource(pool);
+        try (Connection held = pool.getConnection()) {
+            RequestDeadline.start(TimeUnit.MILLISECONDS.toNanos(150));
+
+            long start = System.nanoTime();
+            Assertions.assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLException.class);
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            // Hikari's own connection-timeout is 5 s
+            Assertions.assertThat(elapsedMillis).isBetween(100L, 1000L);
+        }
+    }
+
+    // the replica setup: the "dataSource" bean is a lazy proxy in front of the router, which picks a pool per statement
+    @Test
+    public void DeadlineDataSource_BehindReplicaRouting_PoolStopsWaitingAtDeadline() throws Exception {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:deadline-replica;DB_CLOSE_DELAY=-1");
+        config.setMaximumPoolSize(1);
+        config.setConnectionTimeout(5000);
+        try (HikariDataSource replica = new HikariDataSource(config)) {
+            BeanPostProcessor postProcessor = DeadlineConfig.deadlineDataSourcePostProcessor();
+            ReplicaRoutingDataSource router = new ReplicaRoutingDataSource(pool, List.of(replica),
+                    new ReadYourWritesTracker(Duration.ofSeconds(5)));
+            postProcessor.postProcessAfterInitialization(router, "replicaRoutingDataSource");
+            DataSource dataSource = (DataSource) postProcessor.postProcessAfterInitialization(
+                    new LazyConnectionDataSourceProxy(router), "dataSource");
+            Assertions.assertThat(dataSource).isInstanceOf(LazyConnectionDataSourceProxy.class);
+
+            try (Connection held = pool.getConnection()) {
+                RequestDeadline.start(TimeUnit.MILLISECONDS.toNanos(150));
+
+                long start = System.nanoTime();
+                Assertions.assertThatThrownBy(() -> new JdbcTemplate(dataSource).queryForObject("select 1", Integer.class))
+                        .isInstanceOf(TransientDataAccessException.class);
+                long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+                Assertions.assertThat(elapsedMillis).isBetween(100L, 1000L);
+            }
+        }
+    }
+
+    @Test
+    public void DeadlineFilter_Timeout_HeaderThenRouteThenDefault() {
+        DeadlineProperties properties = new DeadlineProperties();
+        properties.setDefaultTimeout(Duration.ofSeconds(10));
+        properties.setMaxTimeout(Duration.ofSeconds(30));
+        properties.getRoutes().put("/api/pokemons/**", Duration.ofSeconds(3));
+        DeadlineFilter filter = new DeadlineFilter(properties, new SimpleMeterRegistry());
+
+        Assertions.assertThat(filter.timeout(request("/api/pokemons/1", "800"))).isEqualTo(Duration.ofMillis(800));
+        Assertions.assertThat(filter.timeout(request("/api/pokemons/1", "2s"))).isEqualTo(Duration.ofSeconds(2));
+        Assertions.assertThat(filter.timeout(request("/api/pokemons/1", "5m"))).isEqualTo(Duration.ofSeconds(30));
+        Assertions.assertThat(filter.timeout(request("/api/pokemons", "soon"))).isEqualTo(Duration.ofSeconds(3));
+        Assertions.assertThat(filter.timeout(request("/api/reviews", null))).isEqualTo(Duration.ofSeconds(10));
+    }
+
+    private static MockHttpServletRequest request(String path, String timeout) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        if (timeout != null) {
+            request.addHeader(DeadlineFilter.TIMEOUT_HEADER, timeout);
+        }
+        return request;
+    }
+}
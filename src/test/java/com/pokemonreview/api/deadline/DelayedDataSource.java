@@ -0,0 +1,71 @@
+package com.pokemonreview.api.deadline;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Stand-in for a slow PostgreSQL: while a delay is set every statement takes that long before it runs, unless
+// it is cancelled first, in which case it fails with SQL state 57014 the way PostgreSQL reports a cancel request.
+public class DelayedDataSource extends DelegatingDataSource {
+
+    private volatile long delayMillis;
+    private final AtomicInteger cancelled = new AtomicInteger();
+
+    public DelayedDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    public void setDelayMillis(long delayMillis) {
+        this.delayMillis = delayMillis;
+    }
+
+    public int getCancelled() {
+        return cancelled.get();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = super.getConnection();
+        return (Connection) Proxy.newProxyInstance(DelayedDataSource.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    return result instanceof Statement ? delay((Statement) result) : result;
+                });
+    }
+
+    private Statement delay(Statement statement) {
+        CountDownLatch cancel = new CountDownLatch(1);
+        Class<?> type = statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        return (Statement) Proxy.newProxyInstance(DelayedDataSource.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("cancel")) {
+                        cancelled.incrementAndGet();
+                        cancel.countDown();
+                        return invoke(statement, method, args);
+                    }
+                    long delay = delayMillis;
+                    if (method.getName().startsWith("execute") && delay > 0 && cancel.await(delay, TimeUnit.MILLISECONDS)) {
+                        throw new SQLException("ERROR: canceling statement due to user request", "57014");
+                    }
+                    return invoke(statement, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
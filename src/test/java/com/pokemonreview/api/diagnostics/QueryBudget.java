@@ -0,0 +1,20 @@
+package com.pokemonreview.api.diagnostics;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Maximum number of SQL statements and lazy loads a test method may cause, counted while the test method itself
+// runs (@BeforeEach setup is excluded). On a class it applies to every test method without its own budget.
+// Statements are only counted once Hibernate prepares them, so writes must be flushed inside the test to count.
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(QueryBudgetExtension.class)
+public @interface QueryBudget {
+    int statements();
+
+    int lazyLoads() default 0;
+}
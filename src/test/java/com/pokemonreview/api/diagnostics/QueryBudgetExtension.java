@@ -0,0 +1,33 @@
+package com.pokemonreview.api.diagnostics;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+
+import java.util.Map;
+
+public class QueryBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        QueryCounter.start();
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        QueryCounter.Counts counts = QueryCounter.stop();
+        QueryBudget budget = AnnotationSupport.findAnnotation(context.getRequiredTestMethod(), QueryBudget.class)
+                .orElseGet(() -> AnnotationSupport.findAnnotation(context.getRequiredTestClass(), QueryBudget.class).orElse(null));
+        if (budget == null) {
+            return;
+        }
+
+        if (counts.getStatements() > budget.statements() || counts.getLazyLoads() > budget.lazyLoads()) {
+            Map.Entry<String, Integer> repeated = counts.mostRepeatedStatement();
+            throw new AssertionError("Query budget exceeded: ran " + counts + ", budget is " + budget.statements()
+                    + " statements, " + budget.lazyLoads() + " lazy loads"
+                    + (repeated == null ? "" : "; most repeated (" + repeated.getValue() + "x): " + repeated.getKey()));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.pokemonreview.api.exceptions;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.util.Date;
+import java.util.function.Supplier;
+
+public class CachedErrorBodyTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void CachedErrorBody_Render_MatchesSerializedErrorObject() throws Exception {
+        CachedErrorBody notFoundBody = new CachedErrorBody(HttpStatus.NOT_FOUND);
+
+        long before = System.currentTimeMillis();
+        JsonNode body = objectMapper.readTree(notFoundBody.render("Pokemon \"42\" could not be found"));
+        long after = System.currentTimeMillis();
+
+        ErrorObject errorObject = objectMapper.treeToValue(body, ErrorObject.class);
+        Assertions.assertThat(body.fieldNames()).toIterable().containsExactly("statusCode", "message", "timestamp");
+        Assertions.assertThat(errorObject.getStatusCode()).isEqualTo(404);
+        Assertions.assertThat(errorObject.getMessage()).isEqualTo("Pokemon \"42\" could not be found");
+        Assertions.assertThat(errorObject.getTimestamp().getTime()).isBetween(before, after);
+    }
+
+    @Test
+    public void NotFoundException_IsStackless() {
+        Assertions.assertThat(new PokemonNotFoundException("Pokemon could not be found").getStackTrace()).isEmpty();
+        Assertions.assertThat(new ReviewNotFoundException("Review could not be found").getStackTrace()).isEmpty();
+    }
+
+    // 100% 404 workload at the handler level: throw from a realistic call depth and produce the response body.
+    // Before: exception with a stack trace, new ErrorObject and Date, Jackson serialization.
+    // After: stackless exception and the pre-serialized body. Prints throughput for both.
+    @Test
+    public void CachedErrorBody_NotFoundWorkload_OutperformsSerializedErrorObject() throws Exception {
+        CachedErrorBody notFoundBody = new CachedErrorBody(HttpStatus.NOT_FOUND);
+        int iterations = 200_000;
+        for (int i = 0; i < iterations; i++) {
+            before(40);
+            after(notFoundBody, 40);
+        }
+
+        long start = System.nanoTime();
+        long bytes = 0;
+        for (int i = 0; i < iterations; i++) {
+            bytes += before(40);
+        }
+        double beforePerSecond = iterations / ((System.nanoTime() - start) / 1e9);
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            bytes += after(notFoundBody, 40);
+        }
+        double afterPerSecond = iterations / ((System.nanoTime() - start) / 1e9);
+
+        System.out.printf("404 workload: %.0f responses/s before, %.0f responses/s after (%d bytes)%n",
+                beforePerSecond, afterPerSecond, bytes);
+        Assertions.assertThat(afterPerSecond).isGreaterThan(beforePerSecond);
+    }
+
+    private int before(int depth) throws Exception {
+        try {
+            throwAt(depth, () -> new StackTracedNotFoundException("Pokemon could not be found"));
+            return 0;
+        } catch (StackTracedNotFoundException ex) {
+            ErrorObject errorObject = new ErrorObject();
+            errorObject.setStatusCode(HttpStatus.NOT_FOUND.value());
+            errorObject.setMessage(ex.getMessage());
+            errorObject.setTimestamp(new Date());
+            return objectMapper.writeValueAsBytes(errorObject).length;
+        }
+    }
+
+    private int after(CachedErrorBody notFoundBody, int depth) {
+        try {
+            throwAt(depth, () -> new PokemonNotFoundException("Pokemon could not be found"));
+            return 0;
+        } catch (PokemonNotFoundException ex) {
+            return notFoundBody.render(ex.getMessage()).length;
+        }
+    }
+
+    private static void throwAt(int depth, Supplier<RuntimeException> exception) {
+        if (depth == 0) {
+            throw exception.get();
+        }
+        throwAt(depth - 1, exception);
+    }
+
+    // what PokemonNotFoundException used to be
+    private static class StackTracedNotFoundException extends RuntimeException {
+        StackTracedNotFoundException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.pokemonreview.api.feed;
+
+import com.pokemonreview.api.dto.ReviewDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+public class ReviewFeedTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<ReviewFeed> feeds = new ArrayList<>();
+
+    @AfterEach
+    public void cleanUp() {
+        feeds.forEach(ReviewFeed::destroy);
+    }
+
+    @Test
+    public void ReviewFeed_Publish_DeliveredToMatchingSubscribers() {
+        ReviewFeed feed = feed(256, 100);
+        RecordingEmitter all = subscribe(feed, null, null);
+        RecordingEmitter pikachu = subscribe(feed, 1, null);
+        RecordingEmitter other = subscribe(feed, 2, null);
+
+        feed.publish("CREATED", 1, 10, ReviewDto.builder().id(10).title("Great").stars(5).build());
+
+        awaitEvents(all, 1);
+        awaitEvents(pikachu, 1);
+        Assertions.assertThat(pikachu.events().get(0)).contains("event:review.created")
+                .contains("\"pokemonId\":1").contains("\"title\":\"Great\"");
+        Assertions.assertThat(all.events()).isEqualTo(pikachu.events());
+        Assertions.assertThat(other.events()).isEmpty();
+        // the heartbeat written on subscribe, so the response headers go out before the first event
+        Assertions.assertThat(other.sent).containsExactly(":\n\n");
+    }
+
+    @Test
+    public void ReviewFeed_InsideTransaction_PublishedOnlyAfterCommit() throws InterruptedException {
+        ReviewFeed feed = feed(256, 100);
+        RecordingEmitter subscriber = subscribe(feed, null, null);
+
+        TransactionSynchronizationManager.initSynchronization();
+        List<TransactionSynchronization> synchronizations;
+        try {
+            feed.publish("DELETED", 1, 10, null);
+            synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        Thread.sleep(50);
+        Assertions.assertThat(subscriber.events()).isEmpty();
+
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        awaitEvents(subscriber, 1);
+        Assertions.assertThat(subscriber.events().get(0)).contains("event:review.deleted");
+    }
+
+    @Test
+    public void ReviewFeed_LastEventId_ReplaysMissedEventsThenLive() {
+        ReviewFeed feed = feed(256, 100);
+        RecordingEmitter recorder = subscribe(feed, null, null);
+        for (int i = 0; i < 6; i++) {
+            feed.publish("CREATED", i % 2 == 0 ? 1 : 2, i, ReviewDto.builder().id(i).build());
+        }
+        awaitEvents(recorder, 6);
+        String firstId = id(recorder.events().get(0));
+
+        RecordingEmitter resumed = subscribe(feed, 1, firstId);
+        feed.publish("UPDATED", 1, 4, ReviewDto.builder().id(4).build());
+
+        awaitEvents(resumed, 3);
+        Assertions.assertThat(resumed.events()).extracting(ReviewFeedTests::id)
+                .containsExactly(id(recorder.events().get(2)), id(recorder.events().get(4)), Long.toString(Long.parseLong(firstId) + 6));
+        Assertions.assertThat(resumed.events().get(2)).contains("event:review.updated");
+        Assertions.assertThat(count("review_feed.resumes", "replayed")).isEqualTo(1);
+    }
+
+    @Test
+    public void ReviewFeed_LastEventIdBeyondHistory_Reset() {
+        ReviewFeed feed = feed(256, 4);
+        RecordingEmitter recorder = subscribe(feed, null, null);
+        for (int i = 0; i < 10; i++) {
+            feed.publish("CREATED", 1, i, ReviewDto.builder().id(i).build());
+        }
+        awaitEvents(recorder, 10);
+
+        RecordingEmitter tooOld = subscribe(feed, null, id(recorder.events().get(0)));
+        RecordingEmitter fromElsewhere = subscribe(feed, null, Long.toString(Long.MAX_VALUE));
+        RecordingEmitter recent = subscribe(feed, null, id(recorder.events().get(7)));
+
+        awaitEvents(tooOld, 1);
+        awaitEvents(fromElsewhere, 1);
+        awaitEvents(recent, 2);
+        Assertions.assertThat(tooOld.events().get(0)).contains("event:reset");
+        // the reset carries the latest id, so the next reconnect resumes from there
+        Assertions.assertThat(id(tooOld.events().get(0))).isEqualTo(id(recorder.events().get(9)));
+        Assertions.assertThat(fromElsewhere.events().get(0)).contains("event:reset");
+        Assertions.assertThat(recent.events()).extracting(ReviewFeedTests::id)
+                .containsExactly(id(recorder.events().get(8)), id(recorder.events().get(9)));
+        Assertions.assertThat(count("review_feed.resumes", "reset")).isEqualTo(2);
+    }
+
+    @Test
+    public void ReviewFeed_SlowSubscriber_DisconnectedWithoutHoldingUpOthers() {
+        ReviewFeed feed = feed(8, 100);
+        RecordingEmitter slow = new RecordingEmitter();
+        slow.gate = new CountDownLatch(1);
+        ReviewFeed.Subscriber slowSubscriber = feed.subscribe(slow, null, null);
+        RecordingEmitter fast = subscribe(feed, null, null);
+
+        // the fast one takes each event before the next is published, so only the slow one falls behind
+        long publishNanos = 0;
+        for (int i = 0; i < 50; i++) {
+            long start = System.nanoTime();
+            feed.publish("CREATED", 1, i, ReviewDto.builder().id(i).build());
+            publishNanos += System.nanoTime() - start;
+            awaitEvents(fast, i + 1);
+        }
+
+        Assertions.assertThat(TimeUnit.NANOSECONDS.toMillis(publishNanos)).isLessThan(1000);
+        Assertions.assertThat(slowSubscriber.isClosed()).isTrue();
+        Assertions.assertThat(feed.getSubscriberCount()).isEqualTo(1);
+        Assertions.assertThat(meterRegistry.get("review_feed.dropped").counter().count()).isEqualTo(1);
+
+        slow.gate.countDown();
+        await(() -> slow.completed);
+    }
+
+    // In-process fan-out: 20,000 subscribers (10,000 on every review, 10,000 spread over 50 Pokemon) and
+    // 200 events. The time is from the first publish until every subscriber has been written every event it matches;
+    // the publishing thread only queues, the dispatch threads do the writes.
+    @Test
+    public void ReviewFeed_ManySubscribers_FanOutThroughput() {
+        ReviewFeed feed = feed(256, 1000);
+        AtomicInteger delivered = new AtomicInteger();
+        for (int i = 0; i < 20_000; i++) {
+            feed.subscribe(new CountingEmitter(delivered), i % 2 == 0 ? null : i % 100, null);
+        }
+        await(() -> delivered.get() == 20_000);
+        delivered.set(0);
+
+        int events = 200;
+        long start = System.nanoTime();
+        for (int i = 0; i < events; i++) {
+            feed.publish("CREATED", i % 100, i, ReviewDto.builder().id(i).title("Review " + i).build());
+        }
+        long publishNanos = System.nanoTime() - start;
+        int expected = events * 10_000 + events * 100;
+        await(() -> delivered.get() == expected);
+        long totalNanos = System.nanoTime() - start;
+
+        System.out.printf("20,000 subscribers, %d events: %d deliveries, queued in %d ms, all written after %d ms (%.0f deliveries/s)%n",
+                events, expected, TimeUnit.NANOSECONDS.toMillis(publishNanos), TimeUnit.NANOSECONDS.toMillis(totalNanos),
+                expected / (totalNanos / 1e9));
+        Assertions.assertThat(feed.getSubscriberCount()).isEqualTo(20_000);
+    }
+
+    private ReviewFeed feed(int bufferSize, int historySize) {
+        ReviewFeed feed = new ReviewFeed(meterRegistry, bufferSize, historySize, 2, 60_000);
+        feeds.add(feed);
+        return feed;
+    }
+
+    private static RecordingEmitter subscribe(ReviewFeed feed, Integer pokemonId, String lastEventId) {
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.subscribe(emitter, pokemonId, lastEventId);
+        return emitter;
+    }
+
+    private static void awaitEvents(RecordingEmitter emitter, int count) {
+        await(() -> emitter.events().size() >= count);
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Condition not met within 30 s");
+            }
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    private static String id(String event) {
+        return event.substring("id:".length(), event.indexOf('\n'));
+    }
+
+    private double count(String name, String result) {
+        return meterRegistry.get(name).tag("result", result).counter().count();
+    }
+
+    // stands in for the servlet response: records what would have been written
+    static class RecordingEmitter extends ReviewStreamEmitter {
+        final List<String> sent = new CopyOnWriteArrayList<>();
+        volatile CountDownLatch gate;
+        volatile boolean completed;
+
+        @Override
+        public void send(Set<ResponseBodyEmitter.DataWithMediaType> frame) throws IOException {
+            if (gate != null) {
+                try {
+                    gate.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            StringBuilder text = new StringBuilder();
+            frame.forEach(part -> text.append(part.getData()));
+            sent.add(text.toString());
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+        }
+
+        List<String> events() {
+            return sent.stream().filter(text -> text.startsWith("id:")).collect(Collectors.toList());
+        }
+    }
+
+    static class CountingEmitter extends ReviewStreamEmitter {
+        private final AtomicInteger delivered;
+
+        CountingEmitter(AtomicInteger delivered) {
+            this.delivered = delivered;
+        }
+
+        @Override
+        public void send(Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+            delivered.incrementAndGet();
+        }
+    }
+}
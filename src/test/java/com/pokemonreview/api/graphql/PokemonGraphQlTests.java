@@ -0,0 +1,205 @@
+package com.pokemonreview.api.graphql;
+
+import com.pokemonreview.api.cache.ResponseCache;
+import com.pokemonreview.api.catalog.LocalCatalogInvalidationBus;
+import com.pokemonreview.api.catalog.PokemonCatalog;
+import com.pokemonreview.api.diagnostics.QueryBudget;
+import com.pokemonreview.api.dto.ReviewDto;
+import com.pokemonreview.api.dto.ReviewStatsDto;
+import com.pokemonreview.api.feed.ReviewFeed;
+import com.pokemonreview.api.models.Pokemon;
+import com.pokemonreview.api.models.Review;
+import com.pokemonreview.api.outbox.Outbox;
+import com.pokemonreview.api.service.OptimisticRetry;
+import com.pokemonreview.api.service.SingleFlight;
+import com.pokemonreview.api.service.impl.PokemonBulkDeleter;
+import com.pokemonreview.api.service.impl.PokemonServiceImpl;
+import com.pokemonreview.api.service.impl.ReviewBatchInserter;
+import com.pokemonreview.api.service.impl.ReviewIngestor;
+import com.pokemonreview.api.service.impl.ReviewServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.graphql.AutoConfigureGraphQl;
+import org.springframework.boot.test.autoconfigure.graphql.tester.AutoConfigureGraphQlTester;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.graphql.execution.ErrorType;
+import org.springframework.graphql.test.tester.GraphQlTester;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+// The GraphQL layer over the real services and H2, with the statement budgets of ServiceQueryBudgetTests:
+// nested selections must cost a constant number of statements, however many Pokemon they span.
+@DataJpaTest(properties = {"app.catalog.enabled=false", "app.catalog.invalidation=local"})
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@AutoConfigureGraphQl
+@AutoConfigureGraphQlTester
+@Import({PokemonGraphQlController.class, GraphQlConfig.class, GraphQlExceptionResolver.class,
+        PokemonServiceImpl.class, PokemonBulkDeleter.class, ReviewServiceImpl.class, ReviewIngestor.class, ReviewBatchInserter.class,
+        ReviewFeed.class, Outbox.class, SingleFlight.class, OptimisticRetry.class,
+        PokemonCatalog.class, LocalCatalogInvalidationBus.class, ResponseCache.class, SimpleMeterRegistry.class})
+public class PokemonGraphQlTests {
+
+    private static final String PAGE_WITH_REVIEWS_AND_STATS = "query Page($pageSize: Int) { pokemons(pageSize: $pageSize) { "
+            + "totalElements content { id name reviews(limit: 2) { title stars } reviewStats { count averageStars } } } }";
+
+    @Autowired
+    private GraphQlTester graphQlTester;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Pokemon first;
+
+    @BeforeEach
+    public void init() {
+        for (int i = 0; i < 20; i++) {
+            Pokemon pokemon = entityManager.persist(Pokemon.builder().name("Pokemon " + i).type("electric").build());
+            if (i == 0) {
+                first = pokemon;
+            }
+            for (int j = 0; j < 3; j++) {
+                entityManager.persist(Review.builder().title("Review " + j).content("Great").stars(j + 2).pokemon(pokemon).build());
+            }
+        }
+        // a Pokemon without reviews
+        entityManager.persist(Pokemon.builder().name("Lonely").type("ghost").build());
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    // page + count, then one statement for all reviews and one for all stats
+    @Test
+    @QueryBudget(statements = 4)
+    public void Pokemons_PageWithReviewsAndStats_FourStatements() {
+        GraphQlTester.Response response = graphQlTester.document(PAGE_WITH_REVIEWS_AND_STATS).variable("pageSize", 10).execute();
+
+        response.path("pokemons.totalElements").entity(Integer.class).isEqualTo(21);
+        response.path("pokemons.content[*].reviews").entityList(Object.class).hasSize(10);
+        response.path("pokemons.content[0].reviews[*].title").entityList(String.class).containsExactly("Review 0", "Review 1");
+        response.path("pokemons.content[*].reviewStats").entityList(ReviewStatsDto.class)
+                .containsExactly(repeat(new ReviewStatsDto(3, 3.0), 10));
+    }
+
+    @Test
+    @QueryBudget(statements = 4)
+    public void Pokemons_LargerPage_SameStatements() {
+        graphQlTester.document(PAGE_WITH_REVIEWS_AND_STATS).variable("pageSize", 21).execute()
+                .path("pokemons.content[*].name").entityList(String.class).hasSize(21)
+                .path("pokemons.content[20].reviews").entityList(ReviewDto.class).hasSize(0)
+                .path("pokemons.content[20].reviewStats").entity(ReviewStatsDto.class).isEqualTo(new ReviewStatsDto(0, null));
+    }
+
+    // the multi-get, then one reviews statement per distinct limit
+    @Test
+    @QueryBudget(statements = 3)
+    public void PokemonsByIds_TwoReviewLimits_OneStatementEach() {
+        graphQlTester.document("query ($ids: [Int!]!) { pokemonsByIds(ids: $ids) { missingIds content { name "
+                        + "latest: reviews(limit: 1) { title } all: reviews(limit: 5) { title } } } }")
+                .variable("ids", List.of(first.getId() + 1, 99999, first.getId()))
+                .execute()
+                .path("pokemonsByIds.missingIds").entityList(Integer.class).containsExactly(99999)
+                .path("pokemonsByIds.content[*].name").entityList(String.class).containsExactly("Pokemon 1", "Pokemon 0")
+                .path("pokemonsByIds.content[0].latest").entityList(ReviewDto.class).hasSize(1)
+                .path("pokemonsByIds.content[1].all").entityList(ReviewDto.class).hasSize(3);
+    }
+
+    @Test
+    @QueryBudget(statements = 2)
+    public void Pokemon_SingleWithReviews_TwoStatements() {
+        graphQlTester.document("query ($id: Int!) { pokemon(id: $id) { name reviews { stars } } }")
+                .variable("id", first.getId())
+                .execute()
+                .path("pokemon.reviews[*].stars").entityList(Integer.class).containsExactly(2, 3, 4);
+    }
+
+    @Test
+    public void Pokemon_UnknownId_NotFoundError() {
+        graphQlTester.document("{ pokemon(id: 99999) { name } }").execute()
+                .errors().expect(error -> error.getErrorType() == ErrorType.NOT_FOUND).verify()
+                .path("pokemon").valueIsNull();
+    }
+
+    @Test
+    public void PokemonsByIds_TooManyIds_BadRequestError() {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 101; i++) {
+            ids.add(i);
+        }
+        graphQlTester.document("query ($ids: [Int!]!) { pokemonsByIds(ids: $ids) { missingIds } }").variable("ids", ids).execute()
+                .errors().expect(error -> error.getErrorType() == ErrorType.BAD_REQUEST).verify();
+    }
+
+    // 100 Pokemon with 100 reviews each costs 1 + 100 * (1 + 1 + (1 + 100 * 1)) = 10,301
+    @Test
+    @QueryBudget(statements = 0)
+    public void Pokemons_TooComplex_RejectedBeforeAnyStatement() {
+        graphQlTester.document("{ pokemons(pageSize: 100) { content { name reviews(limit: 100) { title } } } }").execute()
+                .errors().expect(error -> error.getMessage().contains("maximum query complexity exceeded 10301 > 1000")).verify();
+    }
+
+    @Test
+    @QueryBudget(statements = 0)
+    public void Query_TooDeep_RejectedBeforeAnyStatement() {
+        graphQlTester.document("{ __schema { types { fields { type { ofType { ofType { ofType { ofType { name } } } } } } } } }").execute()
+                .errors().expect(error -> error.getMessage().contains("maximum query depth exceeded")).verify();
+    }
+
+    @Test
+    public void PersistedQuery_UnknownHashThenRegistered_ServedByHashAlone() {
+        String query = "{ pokemons(pageSize: 2) { content { name } } }";
+        Map<String, Object> persistedQuery = Map.of("version", 1, "sha256Hash", PersistedQueries.sha256(query));
+
+        graphQlTester.document("PersistedQueryMarker").extension("persistedQuery", persistedQuery).execute()
+                .errors().expect(error -> "PersistedQueryNotFound".equals(error.getMessage())).verify();
+        graphQlTester.document(query).extension("persistedQuery", persistedQuery).execute()
+                .path("pokemons.content[*].name").entityList(String.class).hasSize(2);
+        graphQlTester.document("PersistedQueryMarker").extension("persistedQuery", persistedQuery).execute()
+                .path("pokemons.content[*].name").entityList(String.class).containsExactly("Pokemon 0", "Pokemon 1");
+    }
+
+    @Test
+    public void PersistedQuery_HashNotOfQuery_Rejected() {
+        Map<String, Object> persistedQuery = Map.of("version", 1, "sha256Hash", PersistedQueries.sha256("{ other }"));
+
+        graphQlTester.document("{ pokemons { totalElements } }").extension("persistedQuery", persistedQuery).execute()
+                .errors().expect(error -> "PersistedQueryIdInvalid".equals(error.getMessage())).verify();
+    }
+
+    @Test
+    public void PlainQuery_Repeated_ParsedOnce() {
+        String query = "{ pokemons(pageSize: 1) { totalElements } }";
+        double missesBefore = documents("miss");
+        double hitsBefore = documents("hit");
+
+        for (int i = 0; i < 3; i++) {
+            graphQlTester.document(query).execute().path("pokemons.totalElements").entity(Integer.class).isEqualTo(21);
+        }
+
+        Assertions.assertThat(documents("miss") - missesBefore).isEqualTo(1);
+        Assertions.assertThat(documents("hit") - hitsBefore).isEqualTo(2);
+    }
+
+    private double documents(String result) {
+        return meterRegistry.get("graphql.documents").tag("result", result).counter().count();
+    }
+
+    private static ReviewStatsDto[] repeat(ReviewStatsDto stats, int times) {
+        ReviewStatsDto[] all = new ReviewStatsDto[times];
+        Arrays.fill(all, stats);
+        return all;
+    }
+}
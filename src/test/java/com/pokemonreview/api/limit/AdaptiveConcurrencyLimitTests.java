@@ -0,0 +1,389 @@
+package com.pokemonreview.api.limit;
+
+import com.pokemonreview.api.catalog.PokemonCatalog;
+import com.pokemonreview.api.deadline.RequestDeadline;
+import com.pokemonreview.api.models.Pokemon;
+import com.pokemonreview.api.repository.PokemonRepository;
+import com.pokemonreview.api.service.PokemonService;
+import com.pokemonreview.api.service.SingleFlight;
+import com.pokemonreview.api.service.impl.PokemonServiceImpl;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.mockito.Mockito.when;
+
+public class AdaptiveConcurrencyLimitTests {
+
+    private static final MockServletContext SERVLET_CONTEXT = new MockServletContext();
+
+    @AfterEach
+    public void clear() {
+        SecurityContextHolder.clearContext();
+        RequestDeadline.clear();
+    }
+
+    @Test
+    public void AdaptiveLimit_FlatLatency_GrowsWhileInUse() {
+        AdaptiveLimit limit = new AdaptiveLimit(10, 4, 100, 0.5);
+
+        for (int i = 0; i < 200; i++) {
+            limit.tryAcquire();
+            limit.onComplete(TimeUnit.MILLISECONDS.toNanos(5), limit.getLimit());
+        }
+
+        Assertions.assertThat(limit.getLimit()).isEqualTo(100);
+    }
+
+    @Test
+    public void AdaptiveLimit_LittleOfLimitInUse_DoesNotGrow() {
+        AdaptiveLimit limit = new AdaptiveLimit(10, 4, 100, 0.5);
+
+        for (int i = 0; i < 200; i++) {
+            limit.tryAcquire();
+            limit.onComplete(TimeUnit.MILLISECONDS.toNanos(5), 1);
+        }
+
+        Assertions.assertThat(limit.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    public void AdaptiveLimit_LatencyRises_Shrinks() {
+        AdaptiveLimit limit = new AdaptiveLimit(50, 4, 100, 0.5);
+        for (int i = 0; i < 100; i++) {
+            limit.tryAcquire();
+            limit.onComplete(TimeUnit.MILLISECONDS.toNanos(5), 50);
+        }
+        int before = limit.getLimit();
+
+        for (int i = 0; i < 20; i++) {
+            limit.tryAcquire();
+            limit.onComplete(TimeUnit.MILLISECONDS.toNanos(50), limit.getLimit());
+        }
+
+        Assertions.assertThat(limit.getLimit()).isLessThan(before / 2);
+    }
+
+    @Test
+    public void AdaptiveLimit_Dropped_BacksOffAndRejectsAtLimit() {
+        AdaptiveLimit limit = new AdaptiveLimit(10, 4, 100, 0.5);
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertThat(limit.tryAcquire()).isTrue();
+        }
+        Assertions.assertThat(limit.tryAcquire()).isFalse();
+
+        limit.onDropped();
+
+        Assertions.assertThat(limit.getLimit()).isEqualTo(9);
+        Assertions.assertThat(limit.getInFlight()).isEqualTo(9);
+    }
+
+    @Test
+    public void AdaptiveConcurrencyLimitFilter_Key_FoldsIds() {
+        Assertions.assertThat(AdaptiveConcurrencyLimitFilter.key("GET", "/api/pokemons/42/reviews/7"))
+                .isEqualTo("GET /api/pokemons/{id}/reviews/{id}");
+        Assertions.assertThat(AdaptiveConcurrencyLimitFilter.key("GET", "/api/pokemons/delete-jobs/3f2a-91c"))
+                .isEqualTo("GET /api/pokemons/delete-jobs/{id}");
+        Assertions.assertThat(AdaptiveConcurrencyLimitFilter.key("POST", "/api/pokemons/create"))
+                .isEqualTo("POST /api/pokemons/create");
+    }
+
+    @Test
+    public void AdaptiveConcurrencyLimitFilter_PathsWithoutHandler_NoRoutesCreated() throws Exception {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AdaptiveConcurrencyLimitFilter filter = new AdaptiveConcurrencyLimitFilter(meterRegistry, 20, 4, 200, 0.2, 64);
+        authenticate();
+
+        for (int i = 0; i < 500; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest(SERVLET_CONTEXT, "GET", "/api/junk-" + i), response,
+                    new MockFilterChain(notFound()));
+            Assertions.assertThat(response.getStatus()).isEqualTo(404);
+        }
+        Assertions.assertThat(routeTags(meterRegistry)).containsExactly(AdaptiveConcurrencyLimitFilter.OTHER_ROUTE);
+
+        filter.doFilter(new MockHttpServletRequest(SERVLET_CONTEXT, "GET", "/api/pokemons/42"), new MockHttpServletResponse(),
+                new MockFilterChain(handler("/api/pokemons/{id}", 200)));
+
+        Assertions.assertThat(routeTags(meterRegistry))
+                .containsExactlyInAnyOrder(AdaptiveConcurrencyLimitFilter.OTHER_ROUTE, "GET /api/pokemons/{id}");
+        Assertions.assertThat(filter.limit("GET", "/api/pokemons/{id}")).isNotNull();
+    }
+
+    @Test
+    public void AdaptiveConcurrencyLimitFilter_Anonymous_NotLimited() throws Exception {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AdaptiveConcurrencyLimitFilter filter = new AdaptiveConcurrencyLimitFilter(meterRegistry, 20, 4, 200, 0.2, 64);
+        AtomicInteger inFlightSeen = new AtomicInteger(-1);
+        HttpServlet servlet = new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) {
+                inFlightSeen.set((int) meterRegistry.get("concurrency_limit.in_flight")
+                        .tag("route", AdaptiveConcurrencyLimitFilter.OTHER_ROUTE).gauge().value());
+                response.setStatus(401);
+            }
+        };
+
+        filter.doFilter(new MockHttpServletRequest(SERVLET_CONTEXT, "GET", "/api/pokemons/42"), new MockHttpServletResponse(),
+                new MockFilterChain(servlet));
+
+        Assertions.assertThat(inFlightSeen.get()).isZero();
+        Assertions.assertThat(meterRegistry.get("concurrency_limit.limit").gauges()).hasSize(1);
+    }
+
+    // thousands of idle subscribers must not be turned away as if they were thousands of running requests
+    @Test
+    public void AdaptiveConcurrencyLimitFilter_ReviewStream_NotLimited() throws Exception {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AdaptiveConcurrencyLimitFilter filter = new AdaptiveConcurrencyLimitFilter(meterRegistry, 4, 4, 4, 0.2, 64);
+        authenticate();
+        List<MockHttpServletResponse> responses = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest(SERVLET_CONTEXT, "GET", "/api/reviews/stream");
+            request.setAsyncSupported(true);
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(request, response, new MockFilterChain(async("/api/reviews/stream")));
+            responses.add(response);
+        }
+
+        Assertions.assertThat(responses).extracting(MockHttpServletResponse::getStatus).containsOnly(200);
+        Assertions.assertThat(filter.limit("GET", "/api/reviews/stream")).isNull();
+    }
+
+    @Test
+    public void AdaptiveConcurrencyLimitFilter_AsyncRequest_SlotReleasedWithoutSample() throws Exception {
+        AdaptiveConcurrencyLimitFilter filter = new AdaptiveConcurrencyLimitFilter(new SimpleMeterRegistry(), 20, 4, 200, 0.2, 64);
+        authenticate();
+        filter.doFilter(new MockHttpServletRequest(SERVLET_CONTEXT, "GET", "/api/slow/1"), new MockHttpServletResponse(),
+                new MockFilterChain(handler("/api/slow/{id}", 200)));
+        AdaptiveLimit limit = filter.limit("GET", "/api/slow/{id}");
+
+        for (int i = 0; i < 50; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest(SERVLET_CONTEXT, "GET", "/api/slow/" + i);
+            request.setAsyncSupported(true);
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(async("/api/slow/{id}")));
+        }
+
+        Assertions.assertThat(limit.getInFlight()).isZero();
+        Assertions.assertThat(limit.getLimit()).isEqualTo(20);
+    }
+
+    @Test
+    public void AdaptiveConcurrencyLimitFilter_DeadlineExceeded_NotCountedAsDrop() throws Exception {
+        AdaptiveConcurrencyLimitFilter filter = new AdaptiveConcurrencyLimitFilter(new SimpleMeterRegistry(), 20, 4, 200, 0.2, 64);
+        authenticate();
+        filter.doFilter(new MockHttpServletRequest(SERVLET_CONTEXT, "GET", "/api/pokemons/1"), new MockHttpServletResponse(),
+                new MockFilterChain(handler("/api/pokemons/{id}", 200)));
+        AdaptiveLimit limit = filter.limit("GET", "/api/pokemons/{id}");
+
+        // the deadline passes while the request runs; DeadlineFilter, further out, answers 504
+        HttpServlet expiring = new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) {
+                RequestDeadline.start(0);
+                throw new IllegalStateException("Statement cancelled");
+            }
+        };
+        Assertions.assertThatThrownBy(() -> filter.doFilter(new MockHttpServletRequest(SERVLET_CONTEXT, "GET", "/api/pokemons/2"),
+                new MockHttpServletResponse(), new MockFilterChain(expiring))).hasMessage("Statement cancelled");
+        RequestDeadline.clear();
+        filter.doFilter(new MockHttpServletRequest(SERVLET_CONTEXT, "GET", "/api/pokemons/3"), new MockHttpServletResponse(),
+                new MockFilterChain(handler("/api/pokemons/{id}", 504)));
+
+        Assertions.assertThat(limit.getLimit()).isEqualTo(20);
+        Assertions.assertThat(limit.getInFlight()).isZero();
+
+        filter.doFilter(new MockHttpServletRequest(SERVLET_CONTEXT, "GET", "/api/pokemons/4"), new MockHttpServletResponse(),
+                new MockFilterChain(handler("/api/pokemons/{id}", 500)));
+
+        Assertions.assertThat(limit.getLimit()).isEqualTo(18);
+    }
+
+    // Simulation: 48 clients in a closed loop call GET /api/pokemons/{id} through the filter and
+    // PokemonServiceImpl, against a repository with 8 connections that answers in 5 ms and is then slowed to
+    // 20 ms. Without a limit the clients would queue 6 deep on the connections. The limit has to settle near
+    // what the repository can take in both phases (it oscillates around that point, probing upwards and backing
+    // off), keeping the latency of admitted requests close to the query time. The limit is sampled every 250 ms.
+    @Test
+    public void AdaptiveConcurrencyLimitFilter_SlowedRepository_LimitConverges() throws Exception {
+        int connections = 8;
+        AtomicLong queryMillis = new AtomicLong(5);
+        Semaphore pool = new Semaphore(connections, true);
+        PokemonRepository pokemonRepository = Mockito.mock(PokemonRepository.class);
+        when(pokemonRepository.findById(Mockito.anyInt())).thenAnswer(invocation -> {
+            pool.acquire();
+            try {
+                Thread.sleep(queryMillis.get());
+            } finally {
+                pool.release();
+            }
+            return Optional.of(Pokemon.builder().id(invocation.getArgument(0)).name("Pikachu").type("electric").build());
+        });
+        PokemonService pokemonService = new PokemonServiceImpl(pokemonRepository, null, null,
+                new SingleFlight(new SimpleMeterRegistry(), 1000), Mockito.mock(PokemonCatalog.class), null, null, null);
+        HttpServlet controller = new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                dispatched(request, this, "/api/pokemons/{id}");
+                int id = Integer.parseInt(request.getRequestURI().substring("/api/pokemons/".length()));
+                response.getWriter().write(pokemonService.getPokemonById(id).getName());
+            }
+        };
+        AdaptiveConcurrencyLimitFilter filter = new AdaptiveConcurrencyLimitFilter(new SimpleMeterRegistry(), 20, 4, 200, 0.2, 64);
+
+        Phase fast = run(filter, controller, 3000);
+        queryMillis.set(20);
+        Phase slowed = run(filter, controller, 3000);
+        AdaptiveLimit limit = filter.limit("GET", "/api/pokemons/{id}");
+
+        System.out.printf("Repository at 5 ms: limit %s, p50 %.1f ms, %d rejected%n", fast.limits, fast.p50Millis(), fast.rejected.get());
+        System.out.printf("Repository at 20 ms: limit %s, p50 %.1f ms, %d rejected%n", slowed.limits, slowed.p50Millis(), slowed.rejected.get());
+        for (Phase phase : List.of(fast, slowed)) {
+            Assertions.assertThat(phase.settledLimits()).allMatch(l -> l <= connections * 5);
+            Assertions.assertThat(phase.settledLimits().stream().mapToInt(Integer::intValue).average().orElse(0))
+                    .isBetween(connections / 2.0, connections * 3.0);
+        }
+        Assertions.assertThat(fast.p50Millis()).isLessThan(5 * 3);
+        Assertions.assertThat(slowed.p50Millis()).isLessThan(20 * 3);
+        Assertions.assertThat(limit.getInFlight()).isZero();
+    }
+
+    private static Phase run(AdaptiveConcurrencyLimitFilter filter, HttpServlet controller, long millis) throws Exception {
+        int clients = 48;
+        Phase phase = new Phase();
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        long settledFrom = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis * 2 / 3);
+        AtomicInteger ids = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            futures.add(executor.submit(() -> {
+                authenticate();
+                while (System.nanoTime() < end) {
+                    // distinct ids, so single-flight does not collapse the reads
+                    MockHttpServletRequest request = new MockHttpServletRequest(SERVLET_CONTEXT, "GET",
+                            "/api/pokemons/" + ids.incrementAndGet());
+                    MockHttpServletResponse response = new MockHttpServletResponse();
+                    long start = System.nanoTime();
+                    filter.doFilter(request, response, new MockFilterChain(controller));
+                    if (response.getStatus() == 503) {
+                        phase.rejected.incrementAndGet();
+                        Thread.sleep(2);
+                    } else if (start > settledFrom) {
+                        phase.record(System.nanoTime() - start);
+                    }
+                }
+                return null;
+            }));
+        }
+        while (System.nanoTime() < end) {
+            Thread.sleep(250);
+            AdaptiveLimit limit = filter.limit("GET", "/api/pokemons/{id}");
+            if (limit != null) {
+                phase.limits.add(limit.getLimit());
+            }
+        }
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+        return phase;
+    }
+
+    private static void authenticate() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("ash", null, List.of(new SimpleGrantedAuthority("USER"))));
+    }
+
+    // what the DispatcherServlet leaves on a request it has mapped to a handler method
+    private static void dispatched(HttpServletRequest request, Object handler, String pattern) {
+        request.setAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE, handler);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+    }
+
+    private static HttpServlet handler(String pattern, int status) {
+        return new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) {
+                dispatched(request, this, pattern);
+                response.setStatus(status);
+            }
+        };
+    }
+
+    // a handler that starts async processing and returns, as SseEmitter and DeferredResult handlers do
+    private static HttpServlet async(String pattern) {
+        return new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) {
+                dispatched(request, this, pattern);
+                request.startAsync();
+            }
+        };
+    }
+
+    // no handler method matched: the dispatcher falls through to the static resources, which answer 404
+    private static HttpServlet notFound() {
+        return new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) {
+                response.setStatus(404);
+            }
+        };
+    }
+
+    private static List<String> routeTags(MeterRegistry meterRegistry) {
+        return meterRegistry.get("concurrency_limit.limit").gauges().stream()
+                .map(Meter::getId).map(id -> id.getTag("route")).collect(Collectors.toList());
+    }
+
+    private static final class Phase {
+        private final List<Integer> limits = Collections.synchronizedList(new ArrayList<>());
+        private final List<Long> latencies = new ArrayList<>();
+        private final AtomicInteger rejected = new AtomicInteger();
+
+        private synchronized void record(long nanos) {
+            latencies.add(nanos);
+        }
+
+        // the last third of the phase
+        private List<Integer> settledLimits() {
+            return limits.subList(limits.size() * 2 / 3, limits.size());
+        }
+
+        private synchronized double p50Millis() {
+            List<Long> sorted = new ArrayList<>(latencies);
+            Collections.sort(sorted);
+            return sorted.get(sorted.size() / 2) / 1e6;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.pokemonreview.api.outbox;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ChangeLogTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void ChangeLog_AppendAcrossSegments_ReadBackByOffset() throws IOException {
+        // records take 16 + 33 bytes, so a 256-byte segment holds 5
+        try (ChangeLog log = new ChangeLog(directory, 256, 100)) {
+            for (int i = 0; i < 20; i++) {
+                Assertions.assertThat(log.append(1000 + i, payload(i))).isEqualTo(i);
+            }
+
+            Assertions.assertThat(segmentFiles()).hasSize(4);
+            Assertions.assertThat(log.getEndOffset()).isEqualTo(20);
+            List<ChangeLog.Record> records = log.read(3, 9);
+            Assertions.assertThat(records).extracting(ChangeLog.Record::getOffset).containsExactly(3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L, 11L);
+            Assertions.assertThat(records).extracting(ChangeLog.Record::getKey).startsWith(1003L).endsWith(1011L);
+            Assertions.assertThat(text(records.get(4))).isEqualTo(text(payload(7)));
+            Assertions.assertThat(log.read(18, 100)).hasSize(2);
+            Assertions.assertThat(log.read(20, 100)).isEmpty();
+            Assertions.assertThat(log.lastKeys(3)).containsExactly(1017L, 1018L, 1019L);
+        }
+    }
+
+    @Test
+    public void ChangeLog_Reopen_ContinuesAfterTheLastRecord() throws IOException {
+        try (ChangeLog log = new ChangeLog(directory, 256, 100)) {
+            for (int i = 0; i < 12; i++) {
+                log.append(i, payload(i));
+            }
+        }
+        try (ChangeLog log = new ChangeLog(directory, 256, 100)) {
+            Assertions.assertThat(log.getEndOffset()).isEqualTo(12);
+            Assertions.assertThat(log.append(12, payload(12))).isEqualTo(12);
+            Assertions.assertThat(log.read(0, 100)).extracting(ChangeLog.Record::getKey)
+                    .containsExactly(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L, 11L, 12L);
+        }
+    }
+
+    @Test
+    public void ChangeLog_TornLastRecord_TruncatedOnOpen() throws IOException {
+        try (ChangeLog log = new ChangeLog(directory, 4096, 100)) {
+            for (int i = 0; i < 3; i++) {
+                log.append(i, payload(i));
+            }
+        }
+        // the third record's payload only partly reached the disk
+        int third = 2 * (ChangeLog.HEADER_BYTES + payload(0).length);
+        try (FileChannel channel = FileChannel.open(segmentFiles().get(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 0}), third + ChangeLog.HEADER_BYTES + 10);
+        }
+
+        try (ChangeLog log = new ChangeLog(directory, 4096, 100)) {
+            Assertions.assertThat(log.getEndOffset()).isEqualTo(2);
+            Assertions.assertThat(log.append(99, payload(99))).isEqualTo(2);
+            Assertions.assertThat(log.read(0, 100)).extracting(ChangeLog.Record::getKey).containsExactly(0L, 1L, 99L);
+        }
+    }
+
+    @Test
+    public void ChangeLog_MaxSegments_OldestDroppedAndReadsStartAtEarliest() throws IOException {
+        try (ChangeLog log = new ChangeLog(directory, 256, 2)) {
+            for (int i = 0; i < 20; i++) {
+                log.append(i, payload(i));
+            }
+
+            Assertions.assertThat(segmentFiles()).hasSize(2);
+            Assertions.assertThat(log.getEarliestOffset()).isEqualTo(10);
+            Assertions.assertThat(log.read(0, 3)).extracting(ChangeLog.Record::getOffset).containsExactly(10L, 11L, 12L);
+        }
+    }
+
+    @Test
+    public void ChangeLog_DirectoryInUse_Rejected() throws IOException {
+        try (ChangeLog log = new ChangeLog(directory, 256, 2)) {
+            assertThrows(IllegalStateException.class, () -> new ChangeLog(directory, 256, 2));
+        }
+    }
+
+    // 1,000,000 appends of 200-byte records (the size of a typical review event) over 64 MB segments with a force
+    // every 500 records, as OutboxRelay does per batch, then the whole log read back in pages of 1,000.
+    @Test
+    public void ChangeLog_AppendAndRead_Throughput() throws IOException {
+        int records = 1_000_000;
+        byte[] payload = new byte[200];
+        try (ChangeLog log = new ChangeLog(directory, 64 * 1024 * 1024, 16)) {
+            long start = System.nanoTime();
+            for (int i = 0; i < records; i++) {
+                log.append(i, payload);
+                if (i % 500 == 499) {
+                    log.flush();
+                }
+            }
+            long appendNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long offset = 0;
+            int read = 0;
+            while (offset < log.getEndOffset()) {
+                List<ChangeLog.Record> page = log.read(offset, 1000);
+                read += page.size();
+                offset = page.get(page.size() - 1).getOffset() + 1;
+            }
+            long readNanos = System.nanoTime() - start;
+
+            System.out.printf("Change log, %d records of %d bytes: appended at %.0f records/s (%.0f MB/s, forced every 500), "
+                            + "read at %.0f records/s in pages of 1000%n",
+                    records, payload.length, records / (appendNanos / 1e9),
+                    records * (double) (payload.length + ChangeLog.HEADER_BYTES) / (1 << 20) / (appendNanos / 1e9),
+                    read / (readNanos / 1e9));
+            Assertions.assertThat(read).isEqualTo(records);
+            Assertions.assertThat(TimeUnit.NANOSECONDS.toSeconds(appendNanos + readNanos)).isLessThan(60);
+        }
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".log")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static byte[] payload(int i) {
+        return String.format("{\"change\":%5d,\"name\":\"pikachu\"}", i).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(ChangeLog.Record record) {
+        return text(record.getPayload());
+    }
+
+    private static String text(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,244 @@
+package com.pokemonreview.api.outbox;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pokemonreview.api.cache.ResponseCache;
+import com.pokemonreview.api.catalog.LocalCatalogInvalidationBus;
+import com.pokemonreview.api.catalog.PokemonCatalog;
+import com.pokemonreview.api.controllers.ChangeLogController;
+import com.pokemonreview.api.dto.ChangeLogResponse;
+import com.pokemonreview.api.dto.PokemonDto;
+import com.pokemonreview.api.dto.ReviewDto;
+import com.pokemonreview.api.feed.ReviewFeed;
+import com.pokemonreview.api.service.OptimisticRetry;
+import com.pokemonreview.api.service.PokemonService;
+import com.pokemonreview.api.service.ReviewService;
+import com.pokemonreview.api.service.SingleFlight;
+import com.pokemonreview.api.service.impl.PokemonBulkDeleter;
+import com.pokemonreview.api.service.impl.PokemonServiceImpl;
+import com.pokemonreview.api.service.impl.ReviewBatchInserter;
+import com.pokemonreview.api.service.impl.ReviewIngestor;
+import com.pokemonreview.api.service.impl.ReviewServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// No surrounding test transaction: the services and the relay commit on their own, as in production.
+@DataJpaTest(properties = {"app.catalog.enabled=false", "app.catalog.invalidation=local", "app.outbox.enabled=true"})
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@Import({PokemonServiceImpl.class, PokemonBulkDeleter.class, ReviewServiceImpl.class, ReviewIngestor.class, ReviewBatchInserter.class, ReviewFeed.class, Outbox.class,
+        SingleFlight.class, OptimisticRetry.class, PokemonCatalog.class, LocalCatalogInvalidationBus.class, ResponseCache.class,
+        SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class OutboxRelayTests {
+
+    @Autowired
+    private PokemonService pokemonService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private Outbox outbox;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ChangeLog changeLog;
+
+    @BeforeEach
+    public void init() throws IOException {
+        changeLog = new ChangeLog(directory, 1024 * 1024, 16);
+    }
+
+    @AfterEach
+    public void cleanUp() throws IOException {
+        changeLog.close();
+        jdbcTemplate.update("DELETE FROM outbox_event");
+        jdbcTemplate.update("DELETE FROM review");
+        jdbcTemplate.update("DELETE FROM pokemon");
+    }
+
+    @Test
+    public void Outbox_EveryMutation_RelayedIntoTheLogInOrder() throws IOException {
+        int pokemonId = pokemonService.createPokemon(PokemonDto.builder().name("Pikachu").type("electric").build()).getId();
+        pokemonService.updatePokemon(PokemonDto.builder().name("Raichu").type("electric").build(), pokemonId);
+        int reviewId = reviewService.createReview(pokemonId, ReviewDto.builder().title("Great").content("Shocking").stars(5).build()).getId();
+        reviewService.updateReview(pokemonId, reviewId, ReviewDto.builder().title("Good").content("Shocking").stars(4).build());
+        reviewService.deleteReview(pokemonId, reviewId);
+        pokemonService.deletePokemonId(pokemonId);
+
+        Assertions.assertThat(relay().relay()).isEqualTo(6);
+
+        List<JsonNode> events = events(changeLog.read(0, 100));
+        Assertions.assertThat(events).extracting(event -> event.get("type").asText()).containsExactly(
+                Outbox.POKEMON_CREATED, Outbox.POKEMON_UPDATED, Outbox.REVIEW_CREATED, Outbox.REVIEW_UPDATED,
+                Outbox.REVIEW_DELETED, Outbox.POKEMON_DELETED);
+        Assertions.assertThat(events.get(1).get("payload").get("name").asText()).isEqualTo("Raichu");
+        Assertions.assertThat(events.get(1).get("payload").get("version").asInt()).isEqualTo(1);
+        Assertions.assertThat(events.get(3).get("aggregateId").asInt()).isEqualTo(reviewId);
+        Assertions.assertThat(events.get(3).get("payload").get("pokemonId").asInt()).isEqualTo(pokemonId);
+        Assertions.assertThat(events.get(3).get("payload").get("review").get("title").asText()).isEqualTo("Good");
+        Assertions.assertThat(events.get(5).get("payload").isNull()).isTrue();
+        Assertions.assertThat(outboxRows()).isZero();
+    }
+
+    @Test
+    public void Outbox_RolledBackMutation_LeavesNoEvent() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            pokemonService.createPokemon(PokemonDto.builder().name("Ghost").type("ghost").build());
+            status.setRollbackOnly();
+        });
+
+        Assertions.assertThat(outboxRows()).isZero();
+        Assertions.assertThat(relay().relay()).isZero();
+        Assertions.assertThat(changeLog.getEndOffset()).isZero();
+    }
+
+    // with no relay configured anywhere there is nothing to drain the table, so nothing goes into it
+    @Test
+    public void Outbox_Disabled_WritesNoRows() {
+        Outbox disabled = new Outbox(jdbcTemplate, false);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            disabled.record(Outbox.POKEMON_CREATED, 1, null);
+            disabled.recordAll(List.of(new Outbox.Event(Outbox.POKEMON_DELETED, 1, null)));
+        });
+
+        Assertions.assertThat(outboxRows()).isZero();
+    }
+
+    // The process died after the batch was forced to the log but before its rows were deleted: the rows are
+    // still there on restart, and the new relay deletes them without appending them a second time.
+    @Test
+    public void OutboxRelay_RestartAfterAppendBeforeDelete_NoDuplicates() throws IOException {
+        insertEvents(3);
+        List<long[]> rows = jdbcTemplate.query("SELECT id, aggregate_id FROM outbox_event ORDER BY id",
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)});
+        relay().relay();
+        for (long[] row : rows) {
+            jdbcTemplate.update("INSERT INTO outbox_event (id, event_type, aggregate_id, created_at) VALUES (?, ?, ?, CURRENT_TIMESTAMP)",
+                    row[0], Outbox.POKEMON_UPDATED, row[1]);
+        }
+        insertEvents(1);
+        changeLog.close();
+        changeLog = new ChangeLog(directory, 1024 * 1024, 16);
+
+        Assertions.assertThat(relay().relay()).isEqualTo(4);
+
+        Assertions.assertThat(changeLog.read(0, 100)).extracting(ChangeLog.Record::getKey)
+                .doesNotHaveDuplicates().hasSize(4).startsWith(rows.get(0)[0], rows.get(1)[0], rows.get(2)[0]);
+        Assertions.assertThat(outboxRows()).isZero();
+    }
+
+    @Test
+    public void ChangeLogController_GetChanges_PagesByOffset() throws Exception {
+        insertEvents(5);
+        relay().relay();
+        ChangeLogController controller = new ChangeLogController(changeLog);
+
+        ChangeLogResponse first = controller.getChanges(0, 2).getBody();
+        ChangeLogResponse rest = controller.getChanges(first.getNextOffset(), 500).getBody();
+        ChangeLogResponse caughtUp = controller.getChanges(rest.getNextOffset(), 500).getBody();
+
+        Assertions.assertThat(first.getRecords()).extracting(record -> record.getOffset()).containsExactly(0L, 1L);
+        Assertions.assertThat(first.getNextOffset()).isEqualTo(2);
+        Assertions.assertThat(rest.getRecords()).hasSize(3);
+        Assertions.assertThat(caughtUp.getRecords()).isEmpty();
+        Assertions.assertThat(caughtUp.getNextOffset()).isEqualTo(5);
+        Assertions.assertThat(caughtUp.getEndOffset()).isEqualTo(5);
+        // the stored event is embedded as JSON, not as a string
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(first));
+        Assertions.assertThat(json.get("records").get(1).get("event").get("payload").get("name").asText()).isEqualTo("Pokemon 1");
+    }
+
+    // Relay: 50,000 committed outbox rows of PokemonDto payloads, drained in batches of 500 (select, append,
+    // force, delete). Consumer: the same 50,000 events read back through ChangeLogController in pages of 1,000.
+    @Test
+    public void OutboxRelay_Throughput() {
+        int events = 50_000;
+        for (int i = 0; i < events; i += 5_000) {
+            insertEvents(5_000);
+        }
+        OutboxRelay relay = relay();
+
+        long start = System.nanoTime();
+        int relayed = relay.relay();
+        long relayNanos = System.nanoTime() - start;
+
+        ChangeLogController controller = new ChangeLogController(changeLog);
+        start = System.nanoTime();
+        long offset = 0;
+        int read = 0;
+        int pages = 0;
+        while (true) {
+            ChangeLogResponse page = controller.getChanges(offset, 1000).getBody();
+            if (page.getRecords().isEmpty()) {
+                break;
+            }
+            read += page.getRecords().size();
+            offset = page.getNextOffset();
+            pages++;
+        }
+        long readNanos = System.nanoTime() - start;
+
+        System.out.printf("Outbox relay: %d events in %d ms (%.0f events/s, batches of 500); consumer read them in %d pages "
+                        + "in %d ms (%.0f events/s)%n",
+                relayed, relayNanos / 1_000_000, relayed / (relayNanos / 1e9), pages, readNanos / 1_000_000, read / (readNanos / 1e9));
+        Assertions.assertThat(relayed).isEqualTo(events);
+        Assertions.assertThat(read).isEqualTo(events);
+        Assertions.assertThat(outboxRows()).isZero();
+    }
+
+    private OutboxRelay relay() {
+        return new OutboxRelay(jdbcTemplate, changeLog, new SimpleMeterRegistry(), 500);
+    }
+
+    // outbox rows written the way a bulk change writes them, without the entities behind them
+    private void insertEvents(int count) {
+        List<Outbox.Event> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            events.add(new Outbox.Event(Outbox.POKEMON_UPDATED, i,
+                    PokemonDto.builder().id(i).name("Pokemon " + i).type("electric").version(1).build()));
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> outbox.recordAll(events));
+    }
+
+    private int outboxRows() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_event", Integer.class);
+    }
+
+    private List<JsonNode> events(List<ChangeLog.Record> records) throws IOException {
+        List<JsonNode> events = new ArrayList<>(records.size());
+        for (ChangeLog.Record record : records) {
+            events.add(objectMapper.readTree(new String(record.getPayload(), StandardCharsets.UTF_8)));
+        }
+        return events;
+    }
+}
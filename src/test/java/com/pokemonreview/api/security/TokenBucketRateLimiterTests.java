@@ -0,0 +1,142 @@
+package com.pokemonreview.api.security;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TokenBucketRateLimiterTests {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+    @Test
+    public void TokenBucketRateLimiter_BurstExhausted_ReturnsWaitUntilNextToken() {
+        // 60 per minute = one token per second, bursts of 3
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(60, 3, 100, now::get);
+
+        Assertions.assertThat(limiter.tryAcquire("10.0.0.1")).isZero();
+        Assertions.assertThat(limiter.tryAcquire("10.0.0.1")).isZero();
+        Assertions.assertThat(limiter.tryAcquire("10.0.0.1")).isZero();
+        Assertions.assertThat(limiter.tryAcquire("10.0.0.1")).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+
+        // other keys have their own bucket
+        Assertions.assertThat(limiter.tryAcquire("10.0.0.2")).isZero();
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        Assertions.assertThat(limiter.tryAcquire("10.0.0.1")).isZero();
+        Assertions.assertThat(limiter.tryAcquire("10.0.0.1")).isPositive();
+    }
+
+    @Test
+    public void TokenBucketRateLimiter_EvictIdle_RemovesOnlyRefilledBuckets() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(60, 2, 100, now::get);
+        limiter.tryAcquire("idle");
+        now.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        limiter.tryAcquire("busy");
+
+        limiter.evictIdle();
+
+        Assertions.assertThat(limiter.size()).isEqualTo(1);
+    }
+
+    // a flood of new keys keeps the map full of buckets that are still refilling
+    @Test
+    public void TokenBucketRateLimiter_KeyFlood_NewKeyStillGetsItsOwnBucket() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(60, 3, 100, now::get);
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("admin");
+        }
+        Assertions.assertThat(limiter.tryAcquire("admin")).isPositive();
+
+        for (int i = 0; i < 10_000; i++) {
+            Assertions.assertThat(limiter.tryAcquire("spray-" + i)).isZero();
+        }
+
+        // the legitimate newcomer gets its full burst, the hammered key is still throttled, memory stays bounded
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertThat(limiter.tryAcquire("legit")).isZero();
+        }
+        Assertions.assertThat(limiter.tryAcquire("legit")).isPositive();
+        Assertions.assertThat(limiter.tryAcquire("admin")).isPositive();
+        Assertions.assertThat(limiter.size()).isLessThanOrEqualTo(100);
+    }
+
+    @Test
+    public void TokenBucketRateLimiter_ConcurrentSameKey_NeverExceedsBurst() throws Exception {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 50, 100, now::get);
+        AtomicInteger allowed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 1000; i++) {
+                    if (limiter.tryAcquire("shared") == 0) {
+                        allowed.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        Assertions.assertThat(allowed.get()).isEqualTo(50);
+    }
+
+    // Contention benchmark: several threads checking 20k distinct keys with the real clock.
+    // Prints the average cost per check; the assertion only guards against gross regressions.
+    @Test
+    public void TokenBucketRateLimiter_ManyDistinctKeys_CheckStaysCheap() throws Exception {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(600, 10, 100_000);
+        int keys = 20_000;
+        String[] ips = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            ips[i] = "10." + (i >> 16) + "." + ((i >> 8) & 0xff) + "." + (i & 0xff);
+        }
+        for (int i = 0; i < 500_000; i++) {
+            limiter.tryAcquire(ips[i % keys]);
+        }
+
+        int threads = 4;
+        int checksPerThread = 500_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t * 7919;
+            futures.add(executor.submit(() -> {
+                start.await();
+                long begin = System.nanoTime();
+                for (int i = 0; i < checksPerThread; i++) {
+                    limiter.tryAcquire(ips[(i + offset) % keys]);
+                }
+                return System.nanoTime() - begin;
+            }));
+        }
+        start.countDown();
+        long busiestThreadNanos = 0;
+        for (Future<Long> future : futures) {
+            busiestThreadNanos = Math.max(busiestThreadNanos, future.get(60, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        int cpus = Math.min(threads, Runtime.getRuntime().availableProcessors());
+        double nanosPerCheck = (double) busiestThreadNanos * cpus / ((long) threads * checksPerThread);
+        System.out.printf("Rate limiter: %.0f ns per check (%d keys, %d threads)%n", nanosPerCheck, keys, threads);
+        Assertions.assertThat(limiter.size()).isEqualTo(keys);
+        Assertions.assertThat(nanosPerCheck).isLessThan(2_000);
+    }
+}
@@ -0,0 +1,122 @@
+package com.pokemonreview.api.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.UUID;
+
+public class TokenPreVerifierTests {
+
+    private static final Key KEY = Keys.secretKeyFor(SignatureAlgorithm.HS512);
+
+    @Test
+    public void TokenPreVerifier_IssuedToken_PassesToSignatureCheck() {
+        String token = token(new Date(System.currentTimeMillis() + 60_000));
+
+        Assertions.assertThat(TokenPreVerifier.check(token, System.currentTimeMillis()))
+                .isEqualTo(TokenPreVerifier.Result.VALID_STRUCTURE);
+    }
+
+    @Test
+    public void TokenPreVerifier_ExpiredToken_RejectedWithoutCrypto() {
+        String token = token(new Date(System.currentTimeMillis() - 120_000));
+
+        Assertions.assertThat(TokenPreVerifier.check(token, System.currentTimeMillis()))
+                .isEqualTo(TokenPreVerifier.Result.EXPIRED);
+    }
+
+    @Test
+    public void TokenPreVerifier_Garbage_RejectedAsMalformed() {
+        long now = System.currentTimeMillis();
+        String valid = token(new Date(now + 60_000));
+        String[] parts = valid.split("\\.");
+
+        Assertions.assertThat(TokenPreVerifier.check("not-a-jwt", now)).isEqualTo(TokenPreVerifier.Result.MALFORMED);
+        Assertions.assertThat(TokenPreVerifier.check("a.b", now)).isEqualTo(TokenPreVerifier.Result.MALFORMED);
+        Assertions.assertThat(TokenPreVerifier.check(valid + ".x", now)).isEqualTo(TokenPreVerifier.Result.MALFORMED);
+        Assertions.assertThat(TokenPreVerifier.check(parts[0] + "." + parts[1] + ".", now)).isEqualTo(TokenPreVerifier.Result.MALFORMED);
+        Assertions.assertThat(TokenPreVerifier.check(parts[0] + ".e30." + parts[2], now)).isEqualTo(TokenPreVerifier.Result.MALFORMED);
+        Assertions.assertThat(TokenPreVerifier.check(parts[0] + "." + parts[1] + "!." + parts[2], now)).isEqualTo(TokenPreVerifier.Result.MALFORMED);
+    }
+
+    @Test
+    public void TokenPreVerifier_OversizedToken_Rejected() {
+        String token = "a".repeat(TokenPreVerifier.MAX_TOKEN_LENGTH + 1);
+
+        Assertions.assertThat(TokenPreVerifier.check(token, System.currentTimeMillis()))
+                .isEqualTo(TokenPreVerifier.Result.OVERSIZED);
+    }
+
+    // Invalid-token flood: what each rejected token used to cost (signature check plus exception) against
+    // the pre-verification that now runs first. Prints both; the assertion only checks the new path is cheaper.
+    @Test
+    public void TokenPreVerifier_InvalidTokenFlood_MuchCheaperThanSignatureCheck() {
+        long now = System.currentTimeMillis();
+        String[] tokens = new String[1000];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = i % 2 == 0
+                    ? token(new Date(now - 120_000))
+                    : UUID.randomUUID() + "." + UUID.randomUUID() + "." + UUID.randomUUID();
+        }
+
+        int iterations = 50_000;
+        for (int i = 0; i < iterations; i++) {
+            verifyWithException(tokens[i % tokens.length]);
+            TokenPreVerifier.check(tokens[i % tokens.length], now);
+        }
+
+        long start = System.nanoTime();
+        int oldRejected = 0;
+        for (int i = 0; i < iterations; i++) {
+            if (!verifyWithException(tokens[i % tokens.length])) {
+                oldRejected++;
+            }
+        }
+        double oldNanos = (double) (System.nanoTime() - start) / iterations;
+
+        start = System.nanoTime();
+        int newRejected = 0;
+        for (int i = 0; i < iterations; i++) {
+            if (TokenPreVerifier.check(tokens[i % tokens.length], now) != TokenPreVerifier.Result.VALID_STRUCTURE) {
+                newRejected++;
+            }
+        }
+        double newNanos = (double) (System.nanoTime() - start) / iterations;
+
+        System.out.printf("Invalid token rejection: %.0f ns with signature check and exception, %.0f ns pre-verified%n",
+                oldNanos, newNanos);
+        Assertions.assertThat(oldRejected).isEqualTo(iterations);
+        Assertions.assertThat(newRejected).isEqualTo(iterations);
+        Assertions.assertThat(newNanos).isLessThan(oldNanos);
+    }
+
+    // the behaviour before pre-verification: parse and verify, turn any failure into a fresh exception
+    private static boolean verifyWithException(String token) {
+        try {
+            try {
+                Jwts.parser().setSigningKey(KEY).parseClaimsJws(token);
+                return true;
+            } catch (Exception e) {
+                throw new IllegalStateException("JWT was expired or incorrect");
+            }
+        } catch (IllegalStateException e) {
+            return false;
+        }
+    }
+
+    private static String token(Date expiration) {
+        return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
+                .setSubject("ash")
+                .setIssuedAt(new Date())
+                .setExpiration(expiration)
+                .claim("roles", "USER")
+                .signWith(KEY, SignatureAlgorithm.HS512)
+                .compact();
+    }
+}
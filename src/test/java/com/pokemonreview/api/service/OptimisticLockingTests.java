@@ -0,0 +1,254 @@
+package com.pokemonreview.api.service;
+
+import com.pokemonreview.api.cache.ResponseCache;
+import com.pokemonreview.api.catalog.LocalCatalogInvalidationBus;
+import com.pokemonreview.api.catalog.PokemonCatalog;
+import com.pokemonreview.api.dto.PokemonDto;
+import com.pokemonreview.api.dto.ReviewDto;
+import com.pokemonreview.api.exceptions.PreconditionFailedException;
+import com.pokemonreview.api.feed.ReviewFeed;
+import com.pokemonreview.api.models.Pokemon;
+import com.pokemonreview.api.models.Review;
+import com.pokemonreview.api.outbox.Outbox;
+import com.pokemonreview.api.repository.PokemonRepository;
+import com.pokemonreview.api.repository.ReviewRepository;
+import com.pokemonreview.api.service.impl.PokemonBulkDeleter;
+import com.pokemonreview.api.service.impl.PokemonServiceImpl;
+import com.pokemonreview.api.service.impl.ReviewBatchInserter;
+import com.pokemonreview.api.service.impl.ReviewIngestor;
+import com.pokemonreview.api.service.impl.ReviewServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Concurrent updates against H2. No surrounding test transaction: each update commits on its own.
+@DataJpaTest(properties = {"app.catalog.enabled=false", "app.catalog.invalidation=local"})
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@Import({PokemonServiceImpl.class, PokemonBulkDeleter.class, ReviewServiceImpl.class, ReviewIngestor.class, ReviewBatchInserter.class, ReviewFeed.class, Outbox.class,
+        SingleFlight.class, OptimisticRetry.class, PokemonCatalog.class, LocalCatalogInvalidationBus.class, ResponseCache.class,
+        SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class OptimisticLockingTests {
+
+    private static final int CLIENTS = 8;
+    private static final int INCREMENTS_PER_CLIENT = 50;
+
+    @Autowired
+    private PokemonService pokemonService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private PokemonRepository pokemonRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private OptimisticRetry optimisticRetry;
+
+    @AfterEach
+    public void cleanUp() {
+        jdbcTemplate.update("DELETE FROM outbox_event");
+        jdbcTemplate.update("DELETE FROM review");
+        jdbcTemplate.update("DELETE FROM pokemon");
+    }
+
+    @Test
+    public void PokemonService_UpdateWithStaleVersion_ThrowsPreconditionFailed() {
+        int id = pokemonRepository.save(Pokemon.builder().name("Pikachu").type("electric").build()).getId();
+
+        PokemonDto first = pokemonService.updatePokemon(PokemonDto.builder().name("Raichu").type("electric").build(), id, 0);
+
+        Assertions.assertThat(first.getVersion()).isEqualTo(1);
+        Exception exception = assertThrows(PreconditionFailedException.class,
+                () -> pokemonService.updatePokemon(PokemonDto.builder().name("Pichu").type("electric").build(), id, 0));
+        Assertions.assertThat(exception.getMessage()).isEqualTo("Pokemon was modified, current version is 1");
+        Assertions.assertThat(pokemonRepository.findById(id).get().getName()).isEqualTo("Raichu");
+    }
+
+    @Test
+    public void ReviewService_UpdateWithStaleVersion_ThrowsPreconditionFailed() {
+        Pokemon pokemon = pokemonRepository.save(Pokemon.builder().name("Pikachu").type("electric").build());
+        int reviewId = reviewRepository.save(Review.builder().title("Fine").content("ok").stars(3).pokemon(pokemon).build()).getId();
+
+        reviewService.updateReview(pokemon.getId(), reviewId, ReviewDto.builder().title("Good").content("ok").stars(4).build(), 0);
+
+        assertThrows(PreconditionFailedException.class, () -> reviewService.updateReview(pokemon.getId(), reviewId,
+                ReviewDto.builder().title("Bad").content("ok").stars(1).build(), 0));
+        Assertions.assertThat(reviewRepository.findById(reviewId).get().getVersion()).isEqualTo(1);
+    }
+
+    // Stress test: 8 clients each add 1 to a counter kept in the Pokemon's name, 50 times, by reading it and
+    // writing back the next value. Unconditional updates (what the API did before versioning) lose increments;
+    // with If-Match a client that loses the race gets 412, re-reads and tries again, and none are lost.
+    // Prints committed increments per second and the share of attempts that conflicted.
+    @Test
+    public void PokemonService_ConcurrentReadModifyWrite_NoLostUpdatesWithIfMatch() throws Exception {
+        int expected = CLIENTS * INCREMENTS_PER_CLIENT;
+
+        int blindId = counterPokemon();
+        long start = System.nanoTime();
+        runClients(() -> {
+            for (int i = 0; i < INCREMENTS_PER_CLIENT; i++) {
+                PokemonDto current = pokemonService.getPokemonById(blindId);
+                try {
+                    pokemonService.updatePokemon(next(current), blindId);
+                } catch (OptimisticLockingFailureException e) {
+                    // lost every retry (409); the client would resend the same stale value
+                }
+            }
+            return null;
+        });
+        double blindSeconds = (System.nanoTime() - start) / 1e9;
+        int blindCount = counter(blindId);
+
+        int conditionalId = counterPokemon();
+        AtomicInteger conflicts = new AtomicInteger();
+        start = System.nanoTime();
+        runClients(() -> {
+            for (int i = 0; i < INCREMENTS_PER_CLIENT; i++) {
+                while (true) {
+                    PokemonDto current = pokemonService.getPokemonById(conditionalId);
+                    try {
+                        pokemonService.updatePokemon(next(current), conditionalId, current.getVersion());
+                        break;
+                    } catch (PreconditionFailedException e) {
+                        conflicts.incrementAndGet();
+                    }
+                }
+            }
+            return null;
+        });
+        double conditionalSeconds = (System.nanoTime() - start) / 1e9;
+        int conditionalCount = counter(conditionalId);
+
+        System.out.printf("%d clients x %d increments: unconditional kept %d of %d (%.0f updates/s); "
+                        + "If-Match kept %d of %d (%.0f updates/s, %.0f%% of attempts conflicted)%n",
+                CLIENTS, INCREMENTS_PER_CLIENT, blindCount, expected, expected / blindSeconds,
+                conditionalCount, expected, expected / conditionalSeconds, 100.0 * conflicts.get() / (expected + conflicts.get()));
+        Assertions.assertThat(conditionalCount).isEqualTo(expected);
+        Assertions.assertThat(pokemonRepository.findById(conditionalId).get().getVersion()).isEqualTo(expected);
+        Assertions.assertThat(blindCount).isLessThan(expected);
+    }
+
+    // Unconditional updates racing on one row: OptimisticRetry re-applies the ones that lose, so every update that
+    // returns is committed (the version counts them) and the rest exhaust their attempts with a conflict.
+    // The conflicts are expected here, so none of them may be logged as a failed JDBC batch.
+    @Test
+    @ExtendWith(OutputCaptureExtension.class)
+    public void PokemonService_ConcurrentUnconditionalUpdates_RetriedAndCounted(CapturedOutput output) throws Exception {
+        int id = counterPokemon();
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger exhausted = new AtomicInteger();
+
+        runClients(() -> {
+            for (int i = 0; i < INCREMENTS_PER_CLIENT; i++) {
+                try {
+                    // distinct names: an update that changes nothing is not written and does not bump the version
+                    String name = Thread.currentThread().getName() + " " + i;
+                    pokemonService.updatePokemon(PokemonDto.builder().name(name).type("electric").build(), id);
+                    succeeded.incrementAndGet();
+                } catch (OptimisticLockingFailureException e) {
+                    exhausted.incrementAndGet();
+                }
+            }
+            return null;
+        });
+
+        double retried = meterRegistry.get("optimistic_lock.conflicts").tag("entity", "pokemon").tag("outcome", "retried").counter().count();
+        System.out.printf("%d unconditional updates: %d committed, %d exhausted their retries, %.0f retries%n",
+                CLIENTS * INCREMENTS_PER_CLIENT, succeeded.get(), exhausted.get(), retried);
+        Assertions.assertThat(succeeded.get() + exhausted.get()).isEqualTo(CLIENTS * INCREMENTS_PER_CLIENT);
+        Assertions.assertThat(pokemonRepository.findById(id).get().getVersion()).isEqualTo(succeeded.get());
+        Assertions.assertThat(exhausted.get()).isLessThan(succeeded.get());
+        Assertions.assertThat(retried).isPositive();
+        Assertions.assertThat(output).doesNotContain("HHH000315");
+    }
+
+    // the reactive overload: each attempt is a new subscription, and a conditional update is not retried
+    @Test
+    public void OptimisticRetry_ReactiveUpdateConflicts_ResubscribedUntilItCommits() {
+        AtomicInteger subscriptions = new AtomicInteger();
+        Mono<String> update = Mono.fromCallable(() -> {
+            if (subscriptions.incrementAndGet() < 3) {
+                throw new OptimisticLockingFailureException("lost the race");
+            }
+            return "committed";
+        });
+
+        Assertions.assertThat(optimisticRetry.execute("reactive", true, update).block()).isEqualTo("committed");
+        Assertions.assertThat(subscriptions.get()).isEqualTo(3);
+        Assertions.assertThat(meterRegistry.get("optimistic_lock.conflicts").tag("entity", "reactive").tag("outcome", "retried")
+                .counter().count()).isEqualTo(2);
+
+        subscriptions.set(0);
+        assertThrows(OptimisticLockingFailureException.class, () -> optimisticRetry.execute("reactive", false, update).block());
+        Assertions.assertThat(subscriptions.get()).isEqualTo(1);
+        Assertions.assertThat(meterRegistry.get("optimistic_lock.conflicts").tag("entity", "reactive").tag("outcome", "not_retried")
+                .counter().count()).isEqualTo(1);
+    }
+
+    private void runClients(Callable<Void> client) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Void>> futures = new ArrayList<>();
+        for (int c = 0; c < CLIENTS; c++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return client.call();
+            }));
+        }
+        start.countDown();
+        for (Future<Void> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+    }
+
+    private int counterPokemon() {
+        return pokemonRepository.save(Pokemon.builder().name("0").type("electric").build()).getId();
+    }
+
+    private int counter(int id) {
+        return Integer.parseInt(pokemonRepository.findById(id).get().getName());
+    }
+
+    private static PokemonDto next(PokemonDto current) {
+        return PokemonDto.builder().name(Integer.toString(Integer.parseInt(current.getName()) + 1)).type(current.getType()).build();
+    }
+}
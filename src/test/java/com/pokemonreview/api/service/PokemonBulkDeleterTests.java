@@ -0,0 +1,227 @@
+package com.pokemonreview.api.service;
+
+import com.pokemonreview.api.deadline.RequestDeadline;
+import com.pokemonreview.api.dto.DeletionJobDto;
+import com.pokemonreview.api.exceptions.DeadlineExceededException;
+import com.pokemonreview.api.exceptions.DeletionQueueFullException;
+import com.pokemonreview.api.exceptions.PokemonNotFoundException;
+import com.pokemonreview.api.feed.ReviewFeed;
+import com.pokemonreview.api.models.Pokemon;
+import com.pokemonreview.api.outbox.Outbox;
+import com.pokemonreview.api.repository.PokemonRepository;
+import com.pokemonreview.api.repository.ReviewRepository;
+import com.pokemonreview.api.service.impl.PokemonBulkDeleter;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// No surrounding test transaction: the deleter commits chunk by chunk, so the data has to be committed first.
+@DataJpaTest
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@Import({PokemonBulkDeleter.class, Outbox.class})
+@TestPropertySource(properties = {"app.pokemon.delete-chunk-size=1000", "app.pokemon.delete-queue-capacity=1", "app.outbox.enabled=true"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class PokemonBulkDeleterTests {
+
+    @Autowired
+    private PokemonBulkDeleter pokemonBulkDeleter;
+
+    @Autowired
+    private PokemonRepository pokemonRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private ReviewFeed reviewFeed;
+
+    @AfterEach
+    public void cleanUp() {
+        RequestDeadline.clear();
+        jdbcTemplate.update("DELETE FROM outbox_event");
+        jdbcTemplate.update("DELETE FROM review");
+        jdbcTemplate.update("DELETE FROM pokemon");
+    }
+
+    @Test
+    public void PokemonBulkDeleter_Delete_RemovesReviewsInChunksThenPokemon() {
+        int pokemonId = pokemonWithReviews(2500);
+        int otherId = pokemonWithReviews(10);
+        List<Long> progress = new ArrayList<>();
+
+        long deleted = pokemonBulkDeleter.delete(pokemonId, progress::add);
+
+        Assertions.assertThat(deleted).isEqualTo(2500);
+        Assertions.assertThat(progress).containsExactly(1000L, 2000L, 2500L);
+        Assertions.assertThat(pokemonRepository.existsById(pokemonId)).isFalse();
+        Assertions.assertThat(reviewRepository.findByPokemonId(otherId)).hasSize(10);
+        Assertions.assertThat(jdbcTemplate.queryForList("SELECT event_type FROM outbox_event WHERE aggregate_id = ?", String.class, pokemonId))
+                .containsExactly(Outbox.POKEMON_DELETED);
+        // one feed event for the Pokemon's reviews, not 2500
+        Mockito.verify(reviewFeed).publish(ReviewFeed.POKEMON_DELETED, pokemonId, 0, null);
+        Mockito.verify(reviewFeed, Mockito.never()).publish(ArgumentMatchers.eq("DELETED"), ArgumentMatchers.anyInt(),
+                ArgumentMatchers.anyInt(), ArgumentMatchers.any());
+    }
+
+    @Test
+    public void PokemonBulkDeleter_DeleteUnknownPokemon_ThrowsPokemonNotFoundException() {
+        assertThrows(PokemonNotFoundException.class, () -> pokemonBulkDeleter.delete(12345, reviewsDeleted -> { }));
+    }
+
+    @Test
+    public void PokemonBulkDeleter_DeadlinePassesMidDelete_DeletesEverything() {
+        int pokemonId = pokemonWithReviews(2500);
+        List<Boolean> deadlineSeen = new ArrayList<>();
+        RequestDeadline.start(TimeUnit.MILLISECONDS.toNanos(50));
+
+        long deleted = pokemonBulkDeleter.delete(pokemonId, reviewsDeleted -> {
+            deadlineSeen.add(RequestDeadline.isSet());
+            sleep(60);
+        });
+
+        Assertions.assertThat(deleted).isEqualTo(2500);
+        Assertions.assertThat(deadlineSeen).containsOnly(false);
+        Assertions.assertThat(pokemonRepository.existsById(pokemonId)).isFalse();
+        // the caller's deadline is back, and long past
+        Assertions.assertThat(RequestDeadline.expired()).isTrue();
+    }
+
+    @Test
+    public void PokemonBulkDeleter_DeadlinePassedBeforeStart_DeletesNothing() {
+        int pokemonId = pokemonWithReviews(10);
+        RequestDeadline.start(0);
+
+        assertThrows(DeadlineExceededException.class, () -> pokemonBulkDeleter.delete(pokemonId, reviewsDeleted -> { }));
+
+        Assertions.assertThat(reviewRepository.findByPokemonId(pokemonId)).hasSize(10);
+    }
+
+    @Test
+    public void PokemonBulkDeleter_Submit_CompletesInBackground() throws InterruptedException {
+        int pokemonId = pokemonWithReviews(1500);
+
+        DeletionJobDto status = awaitFinished(pokemonBulkDeleter.submit(pokemonId, () -> { }));
+
+        Assertions.assertThat(status.getStatus()).isEqualTo("COMPLETED");
+        Assertions.assertThat(status.getReviewsDeleted()).isEqualTo(1500);
+        Assertions.assertThat(pokemonRepository.existsById(pokemonId)).isFalse();
+    }
+
+    // One job holds the worker (blocked in its onDeleted) and one waits in the queue of one; a third Pokemon is
+    // refused, while the first can still be looked up by submitting it again.
+    @Test
+    public void PokemonBulkDeleter_Submit_QueueFullRejected() throws InterruptedException {
+        int runningId = pokemonWithReviews(10);
+        int queuedId = pokemonWithReviews(10);
+        int rejectedId = pokemonWithReviews(10);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        DeletionJobDto runningJob = pokemonBulkDeleter.submit(runningId, () -> {
+            running.countDown();
+            awaitQuietly(release);
+        });
+        Assertions.assertThat(running.await(10, TimeUnit.SECONDS)).isTrue();
+        DeletionJobDto queuedJob = pokemonBulkDeleter.submit(queuedId, () -> { });
+
+        assertThrows(DeletionQueueFullException.class, () -> pokemonBulkDeleter.submit(rejectedId, () -> { }));
+        Assertions.assertThat(pokemonBulkDeleter.submit(runningId, () -> { }).getJobId()).isEqualTo(runningJob.getJobId());
+
+        release.countDown();
+        Assertions.assertThat(awaitFinished(queuedJob).getStatus()).isEqualTo("COMPLETED");
+        Assertions.assertThat(awaitFinished(runningJob).getStatus()).isEqualTo("COMPLETED");
+        Assertions.assertThat(pokemonRepository.existsById(rejectedId)).isTrue();
+    }
+
+    // Old path: load the Pokemon and let the cascade load and delete every review in one transaction.
+    // New path: chunked set-based deletes. Prints both timings.
+    @Test
+    public void PokemonBulkDeleter_ManyReviews_FasterThanCascadeDelete() {
+        int reviews = 20_000;
+
+        int cascadeId = pokemonWithReviews(reviews);
+        long start = System.nanoTime();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Pokemon pokemon = entityManager.find(Pokemon.class, cascadeId);
+            entityManager.remove(pokemon);
+        });
+        long cascadeMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        int bulkId = pokemonWithReviews(reviews);
+        start = System.nanoTime();
+        pokemonBulkDeleter.delete(bulkId, reviewsDeleted -> { });
+        long bulkMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        System.out.printf("Deleting a Pokemon with %d reviews: %d ms cascade, %d ms chunked bulk delete%n",
+                reviews, cascadeMillis, bulkMillis);
+        Assertions.assertThat(pokemonRepository.count()).isZero();
+        Assertions.assertThat(bulkMillis).isLessThan(cascadeMillis);
+    }
+
+    private int pokemonWithReviews(int reviews) {
+        int pokemonId = pokemonRepository.save(Pokemon.builder().name("Pikachu").type("electric").build()).getId();
+        List<Object[]> rows = new ArrayList<>(reviews);
+        for (int i = 0; i < reviews; i++) {
+            rows.add(new Object[]{"Review " + i, "Great", 3, pokemonId});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO review (title, content, stars, pokemon_id) VALUES (?, ?, ?, ?)", rows);
+        return pokemonId;
+    }
+
+    private DeletionJobDto awaitFinished(DeletionJobDto job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        DeletionJobDto status = job;
+        while (!status.getStatus().equals("COMPLETED") && !status.getStatus().equals("FAILED") && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            status = pokemonBulkDeleter.getJob(job.getJobId()).get();
+        }
+        return status;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
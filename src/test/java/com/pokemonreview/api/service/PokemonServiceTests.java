@@ -1,23 +1,33 @@
 package com.pokemonreview.api.service;
 
+import com.pokemonreview.api.cache.ResponseCache;
+import com.pokemonreview.api.catalog.PokemonCatalog;
 import com.pokemonreview.api.dto.PokemonDto;
 import com.pokemonreview.api.dto.PokemonResponse;
+import com.pokemonreview.api.exceptions.PokemonNotFoundException;
 import com.pokemonreview.api.models.Pokemon;
+import com.pokemonreview.api.outbox.Outbox;
 import com.pokemonreview.api.repository.PokemonRepository;
+import com.pokemonreview.api.repository.ReviewRepository;
+import com.pokemonreview.api.service.impl.PokemonBulkDeleter;
 import com.pokemonreview.api.service.impl.PokemonServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 // testing the service layer without directly interacting with the actual database.
 // By mocking the repository, you simulate the interactions between the service layer and the persistence layer.
@@ -36,7 +46,32 @@ public class PokemonServiceTests {
     @Mock
     private PokemonRepository pokemonRepository;
 
+    @Mock
+    private ReviewRepository reviewRepository;
+
+    @Mock
+    private PokemonBulkDeleter pokemonBulkDeleter;
+
+    @Mock
+    private ResponseCache responseCache;
+
+    @Mock
+    private Outbox outbox;
+
+    // never loaded, so every read goes to the mocked repository
+    @Mock
+    private PokemonCatalog pokemonCatalog;
+
+    // real, so updates still run; the mocked transaction manager makes each attempt a no-op transaction
+    @Spy
+    private OptimisticRetry optimisticRetry = new OptimisticRetry(Mockito.mock(PlatformTransactionManager.class),
+            new SimpleMeterRegistry(), 3, 0);
+
     // create an instance of the class under test and automatically inject the mocked dependencies into it.
+    // a real one, so lookups still reach the mocked repositories
+    @Spy
+    private SingleFlight singleFlight = new SingleFlight(new SimpleMeterRegistry(), 1000);
+
     @InjectMocks
     private PokemonServiceImpl pokemonService;
 
@@ -79,6 +114,7 @@ public class PokemonServiceTests {
         // Assert
         Assertions.assertThat(savedPokemonDto).isNotNull();
         Assertions.assertThat(savedPokemonDto).isEqualTo(pokemonDto);
+        verify(outbox).record(Outbox.POKEMON_CREATED, savedPokemonDto.getId(), savedPokemonDto);
     }
 
     @Test
@@ -147,7 +183,7 @@ public class PokemonServiceTests {
                 .build();
 
         when(pokemonRepository.findById(pokemonId)).thenReturn(Optional.ofNullable(pokemon));
-        when(pokemonRepository.save(Mockito.any(Pokemon.class))).thenReturn(updatedPokemon);
+        when(pokemonRepository.saveAndFlush(Mockito.any(Pokemon.class))).thenReturn(updatedPokemon);
 
         // Act
         PokemonDto updatedPokemonDto = pokemonService.updatePokemon(pokemonDto, 1);
@@ -162,20 +198,20 @@ public class PokemonServiceTests {
     public void PokemonService_DeletePokemonById_ReturnVoid() {
         // Arrange
         int pokemonId = 1;
-        Pokemon pokemon = Pokemon.builder()
-                .name("Tim")
-                .type("electric")
-                .build();
-
-        when(pokemonRepository.findById(pokemonId)).thenReturn(Optional.ofNullable(pokemon));
-        doNothing().when(pokemonRepository).delete(pokemon);
-
+        when(pokemonBulkDeleter.delete(eq(pokemonId), any())).thenReturn(3L);
 
         // Act & Assert
         assertAll(() -> pokemonService.deletePokemonId(pokemonId));
-        verify(pokemonRepository).delete(pokemon);
+        verify(pokemonBulkDeleter).delete(eq(pokemonId), any());
+        verify(pokemonRepository, never()).delete(any(Pokemon.class));
+    }
 
+    @Test
+    public void PokemonService_StartDeletePokemon_UnknownIdThrowsPokemonNotFoundException() {
+        when(pokemonRepository.existsById(1)).thenReturn(false);
 
+        assertThrows(PokemonNotFoundException.class, () -> pokemonService.startDeletePokemon(1));
+        verifyNoInteractions(pokemonBulkDeleter);
     }
 
 }
@@ -0,0 +1,112 @@
+package com.pokemonreview.api.service;
+
+import com.pokemonreview.api.dto.AuthResponseDTO;
+import com.pokemonreview.api.exceptions.InvalidRefreshTokenException;
+import com.pokemonreview.api.models.RefreshToken;
+import com.pokemonreview.api.models.Role;
+import com.pokemonreview.api.models.UserEntity;
+import com.pokemonreview.api.repository.RefreshTokenRepository;
+import com.pokemonreview.api.repository.UserRepository;
+import com.pokemonreview.api.security.JWTGenerator;
+import com.pokemonreview.api.security.TokenRevocationList;
+import com.pokemonreview.api.service.impl.RefreshTokenServiceImpl;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RefreshTokenServiceTests {
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private JWTGenerator jwtGenerator;
+
+    @Mock
+    private TokenRevocationList tokenRevocationList;
+
+    @InjectMocks
+    private RefreshTokenServiceImpl refreshTokenService;
+
+    private RefreshToken stored;
+
+    @BeforeEach
+    public void init() {
+        this.stored = RefreshToken.builder().id(1).username("ash")
+                .expiresAt(new Date(System.currentTimeMillis() + 60_000)).build();
+    }
+
+    @Test
+    public void RefreshTokenService_CreateRefreshToken_StoresOnlyHash() {
+        String token = refreshTokenService.createRefreshToken("ash");
+
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(saved.capture());
+        Assertions.assertThat(token).hasSize(43);
+        Assertions.assertThat(saved.getValue().getTokenHash()).hasSize(64).isNotEqualTo(token);
+        Assertions.assertThat(saved.getValue().getUsername()).isEqualTo("ash");
+    }
+
+    @Test
+    public void RefreshTokenService_Refresh_RotatesTokenAndIssuesAccessToken() {
+        UserEntity user = new UserEntity();
+        user.setUsername("ash");
+        user.setRoles(Collections.singletonList(new Role("USER")));
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.of(stored));
+        when(refreshTokenRepository.revokeIfActive(1)).thenReturn(1);
+        when(userRepository.findByUsername("ash")).thenReturn(Optional.of(user));
+        when(jwtGenerator.generateToken("ash", "USER")).thenReturn("access");
+
+        AuthResponseDTO response = refreshTokenService.refresh("old-refresh-token");
+
+        Assertions.assertThat(response.getAccessToken()).isEqualTo("access");
+        Assertions.assertThat(response.getRefreshToken()).isNotBlank().isNotEqualTo("old-refresh-token");
+        verify(refreshTokenRepository).save(any(RefreshToken.class));
+    }
+
+    @Test
+    public void RefreshTokenService_RefreshWithUsedToken_RevokesAllTokensOfUser() {
+        stored.setRevoked(true);
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.of(stored));
+
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.refresh("stolen"));
+
+        verify(refreshTokenRepository).revokeAllByUsername("ash");
+        verifyNoInteractions(jwtGenerator);
+    }
+
+    @Test
+    public void RefreshTokenService_RefreshWithExpiredToken_ThrowsInvalidRefreshTokenException() {
+        stored.setExpiresAt(new Date(System.currentTimeMillis() - 1000));
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.of(stored));
+        when(refreshTokenRepository.revokeIfActive(1)).thenReturn(1);
+
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.refresh("expired"));
+        verifyNoInteractions(jwtGenerator);
+    }
+
+    @Test
+    public void RefreshTokenService_RefreshWithUnknownToken_ThrowsInvalidRefreshTokenException() {
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.empty());
+
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.refresh("unknown"));
+    }
+}
@@ -0,0 +1,264 @@
+package com.pokemonreview.api.service;
+
+import com.pokemonreview.api.cache.ResponseCache;
+import com.pokemonreview.api.cache.SurrogateKeys;
+import com.pokemonreview.api.dto.ReviewDto;
+import com.pokemonreview.api.dto.ReviewIngestDto;
+import com.pokemonreview.api.exceptions.ReviewQueueFullException;
+import com.pokemonreview.api.feed.ReviewFeed;
+import com.pokemonreview.api.models.Pokemon;
+import com.pokemonreview.api.outbox.Outbox;
+import com.pokemonreview.api.repository.PokemonRepository;
+import com.pokemonreview.api.repository.ReviewRepository;
+import com.pokemonreview.api.service.impl.ReviewBatchInserter;
+import com.pokemonreview.api.service.impl.ReviewIngestor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// No surrounding test transaction: the ingestor commits on its own thread.
+@DataJpaTest
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ReviewIngestorTests {
+
+    @Autowired
+    private PokemonRepository pokemonRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ResponseCache responseCache = Mockito.mock(ResponseCache.class);
+    private final ReviewFeed reviewFeed = Mockito.mock(ReviewFeed.class);
+    private final List<ReviewIngestor> ingestors = new ArrayList<>();
+
+    @AfterEach
+    public void cleanUp() throws InterruptedException {
+        for (ReviewIngestor ingestor : ingestors) {
+            ingestor.stop();
+        }
+        jdbcTemplate.update("DELETE FROM outbox_event");
+        jdbcTemplate.update("DELETE FROM review");
+        jdbcTemplate.update("DELETE FROM pokemon");
+    }
+
+    @Test
+    public void ReviewIngestor_Submit_WrittenInOneBatchAndPurged() throws InterruptedException {
+        int pokemonId = pokemon();
+        // long linger so all five land in the same batch
+        ReviewIngestor ingestor = ingestor(1000, 500, 200);
+
+        List<ReviewIngestDto> accepted = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            accepted.add(ingestor.submit(pokemonId, review(i)));
+        }
+        List<ReviewIngestDto> statuses = awaitAll(ingestor, accepted);
+
+        Assertions.assertThat(accepted).allMatch(dto -> dto.getStatus().equals("QUEUED"));
+        Assertions.assertThat(statuses).allMatch(dto -> dto.getStatus().equals("WRITTEN"));
+        Assertions.assertThat(statuses).extracting(ReviewIngestDto::getReviewId).doesNotContainNull().doesNotHaveDuplicates();
+        Assertions.assertThat(reviewRepository.findById(statuses.get(3).getReviewId()).get().getTitle()).isEqualTo("Review 3");
+        Assertions.assertThat(reviewRepository.findByPokemonId(pokemonId)).hasSize(5);
+        Mockito.verify(responseCache).purge(SurrogateKeys.pokemon(pokemonId), SurrogateKeys.REVIEWS);
+        Mockito.verify(reviewFeed, Mockito.times(5)).publish(Mockito.eq("CREATED"), Mockito.eq(pokemonId), Mockito.anyInt(), Mockito.any());
+        // committed with the batch
+        Assertions.assertThat(jdbcTemplate.queryForList("SELECT aggregate_id FROM outbox_event WHERE event_type = 'review.created'", Integer.class))
+                .containsExactlyInAnyOrderElementsOf(statuses.stream().map(ReviewIngestDto::getReviewId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void ReviewIngestor_PokemonGoneBeforeWrite_OnlyItsReviewFails() throws InterruptedException {
+        int pokemonId = pokemon();
+        ReviewIngestor ingestor = ingestor(1000, 500, 200);
+
+        ReviewIngestDto first = ingestor.submit(pokemonId, review(1));
+        ReviewIngestDto orphan = ingestor.submit(987654, review(2));
+        ReviewIngestDto last = ingestor.submit(pokemonId, review(3));
+        List<ReviewIngestDto> statuses = awaitAll(ingestor, List.of(first, orphan, last));
+
+        Assertions.assertThat(statuses).extracting(ReviewIngestDto::getStatus).containsExactly("WRITTEN", "FAILED", "WRITTEN");
+        Assertions.assertThat(statuses.get(1).getMessage()).isEqualTo("Pokemon with associated review not found");
+        Assertions.assertThat(reviewRepository.findByPokemonId(pokemonId)).hasSize(2);
+    }
+
+    // a failure that is not the reviews' fault fails the batch once, with no row-by-row retry and no "not found"
+    @Test
+    public void ReviewIngestor_DatabaseUnavailable_BatchFailsWithGenericMessage() throws InterruptedException {
+        int pokemonId = pokemon();
+        ReviewBatchInserter unavailable = Mockito.mock(ReviewBatchInserter.class);
+        Mockito.when(unavailable.insert(Mockito.anyList()))
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+        ReviewIngestor ingestor = new ReviewIngestor(unavailable, transactionManager, responseCache, reviewFeed, new Outbox(jdbcTemplate, true), new SimpleMeterRegistry(),
+                1000, 500, 200, 600_000);
+        start(ingestor);
+
+        ReviewIngestDto first = ingestor.submit(pokemonId, review(1));
+        ReviewIngestDto second = ingestor.submit(pokemonId, review(2));
+        List<ReviewIngestDto> statuses = awaitAll(ingestor, List.of(first, second));
+
+        Assertions.assertThat(statuses).extracting(ReviewIngestDto::getStatus).containsExactly("FAILED", "FAILED");
+        Assertions.assertThat(statuses).extracting(ReviewIngestDto::getMessage)
+                .containsOnly("Review could not be saved, please submit it again");
+        Mockito.verify(unavailable, Mockito.times(1)).insert(Mockito.anyList());
+    }
+
+    @Test
+    public void ReviewIngestor_QueueFull_ThrowsReviewQueueFullException() throws InterruptedException {
+        int pokemonId = pokemon();
+        // hold the writer in the cache purge after its first batch, so nothing more leaves the queue
+        CountDownLatch writerBusy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ResponseCache blockingCache = Mockito.mock(ResponseCache.class);
+        Mockito.doAnswer(invocation -> {
+            writerBusy.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(blockingCache).purge(Mockito.<String>any());
+        ReviewIngestor ingestor = new ReviewIngestor(new ReviewBatchInserter(jdbcTemplate), transactionManager, blockingCache, reviewFeed, new Outbox(jdbcTemplate, true), new SimpleMeterRegistry(),
+                2, 500, 0, 600_000);
+        start(ingestor);
+
+        ingestor.submit(pokemonId, review(0));
+        writerBusy.await(10, TimeUnit.SECONDS);
+        ingestor.submit(pokemonId, review(1));
+        ingestor.submit(pokemonId, review(2));
+
+        assertThrows(ReviewQueueFullException.class, () -> ingestor.submit(pokemonId, review(3)));
+        release.countDown();
+    }
+
+    // constructing it is not enough: the writer thread comes with the context's start and goes with its stop
+    @Test
+    public void ReviewIngestor_OnlyRunsBetweenStartAndStop() throws InterruptedException {
+        int pokemonId = pokemon();
+        ReviewIngestor ingestor = new ReviewIngestor(new ReviewBatchInserter(jdbcTemplate), transactionManager, responseCache, reviewFeed, new Outbox(jdbcTemplate, true), new SimpleMeterRegistry(),
+                10, 10, 0, 600_000);
+
+        Assertions.assertThat(ingestor.isRunning()).isFalse();
+        assertThrows(ReviewQueueFullException.class, () -> ingestor.submit(pokemonId, review(0)));
+
+        start(ingestor);
+        ReviewIngestDto accepted = ingestor.submit(pokemonId, review(1));
+        ingestor.stop();
+
+        Assertions.assertThat(ingestor.isRunning()).isFalse();
+        Assertions.assertThat(ingestor.getStatus(accepted.getTrackingId()).get().getStatus()).isEqualTo("WRITTEN");
+        assertThrows(ReviewQueueFullException.class, () -> ingestor.submit(pokemonId, review(2)));
+    }
+
+    @Test
+    public void ReviewIngestor_UnknownTrackingId_Empty() {
+        Assertions.assertThat(ingestor(10, 10, 0).getStatus("no-such-id")).isEmpty();
+    }
+
+    // 16 clients submit 20,000 reviews between them; the clock stops when the last one is WRITTEN. Batch size 1 is
+    // a commit per review, like the synchronous POST. H2 in memory does not fsync on commit, so the gap to expect
+    // on PostgreSQL, where every commit waits for the WAL flush, is wider than printed here.
+    @Test
+    public void ReviewIngestor_LargerBatches_HigherThroughput() throws Exception {
+        int pokemonId = pokemon();
+        ingest(ingestor(20_000, 100, 5), pokemonId, 2_000);
+
+        List<Double> throughputs = new ArrayList<>();
+        for (int batchSize : new int[]{1, 10, 100, 500}) {
+            double perSecond = ingest(ingestor(20_000, batchSize, 5), pokemonId, 20_000);
+            throughputs.add(perSecond);
+            System.out.printf("Review ingest, batch size %d: %.0f reviews/s%n", batchSize, perSecond);
+        }
+
+        Assertions.assertThat(throughputs.get(2)).isGreaterThan(throughputs.get(0) * 2);
+        Assertions.assertThat(throughputs.get(3)).isGreaterThan(throughputs.get(0) * 2);
+    }
+
+    private double ingest(ReviewIngestor ingestor, int pokemonId, int reviews) throws Exception {
+        int clients = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        List<Future<List<ReviewIngestDto>>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            futures.add(executor.submit(() -> {
+                List<ReviewIngestDto> accepted = new ArrayList<>();
+                for (int i = 0; i < reviews / clients; i++) {
+                    accepted.add(ingestor.submit(pokemonId, review(i)));
+                }
+                return accepted;
+            }));
+        }
+        List<ReviewIngestDto> accepted = new ArrayList<>();
+        for (Future<List<ReviewIngestDto>> future : futures) {
+            accepted.addAll(future.get(2, TimeUnit.MINUTES));
+        }
+        List<ReviewIngestDto> statuses = awaitAll(ingestor, accepted);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        executor.shutdown();
+
+        Assertions.assertThat(statuses).allMatch(dto -> dto.getStatus().equals("WRITTEN"));
+        return reviews / seconds;
+    }
+
+    private List<ReviewIngestDto> awaitAll(ReviewIngestor ingestor, List<ReviewIngestDto> accepted) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+        List<ReviewIngestDto> statuses = new ArrayList<>();
+        for (ReviewIngestDto dto : accepted) {
+            ReviewIngestDto status = ingestor.getStatus(dto.getTrackingId()).get();
+            while (status.getStatus().equals("QUEUED") && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+                status = ingestor.getStatus(dto.getTrackingId()).get();
+            }
+            statuses.add(status);
+        }
+        return statuses;
+    }
+
+    private ReviewIngestor ingestor(int queueCapacity, int batchSize, long maxDelayMillis) {
+        ReviewIngestor ingestor = new ReviewIngestor(new ReviewBatchInserter(jdbcTemplate), transactionManager, responseCache, reviewFeed, new Outbox(jdbcTemplate, true), new SimpleMeterRegistry(),
+                queueCapacity, batchSize, maxDelayMillis, 600_000);
+        start(ingestor);
+        return ingestor;
+    }
+
+    private void start(ReviewIngestor ingestor) {
+        ingestors.add(ingestor);
+        ingestor.start();
+    }
+
+    private int pokemon() {
+        return pokemonRepository.save(Pokemon.builder().name("Pikachu").type("electric").build()).getId();
+    }
+
+    private static ReviewDto review(int i) {
+        ReviewDto review = new ReviewDto();
+        review.setTitle("Review " + i);
+        review.setContent("Great");
+        review.setStars(4);
+        return review;
+    }
+}
@@ -1,16 +1,25 @@
 package com.pokemonreview.api.service;
 
+import com.pokemonreview.api.cache.ResponseCache;
 import com.pokemonreview.api.dto.PokemonDto;
+import com.pokemonreview.api.dto.ReviewBatchItemDto;
+import com.pokemonreview.api.dto.ReviewBatchResponse;
 import com.pokemonreview.api.dto.ReviewDto;
+import com.pokemonreview.api.dto.ReviewEventDto;
 import com.pokemonreview.api.exceptions.PokemonNotFoundException;
 import com.pokemonreview.api.exceptions.ReviewNotFoundException;
+import com.pokemonreview.api.feed.ReviewFeed;
 import com.pokemonreview.api.models.Pokemon;
 import com.pokemonreview.api.models.Review;
+import com.pokemonreview.api.outbox.Outbox;
 import com.pokemonreview.api.repository.PokemonRepository;
 import com.pokemonreview.api.repository.ReviewRepository;
 import com.pokemonreview.api.service.impl.PokemonServiceImpl;
+import com.pokemonreview.api.service.impl.ReviewBatchInserter;
+import com.pokemonreview.api.service.impl.ReviewIngestor;
 import com.pokemonreview.api.service.impl.ReviewServiceImpl;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -18,7 +27,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.Arrays;
 import java.util.List;
@@ -38,6 +49,29 @@ public class ReviewServiceTests {
     @Mock
     private ReviewRepository reviewRepository;
 
+    @Mock
+    private ResponseCache responseCache;
+
+    @Mock
+    private ReviewIngestor reviewIngestor;
+
+    @Mock
+    private ReviewBatchInserter reviewBatchInserter;
+
+    @Mock
+    private ReviewFeed reviewFeed;
+
+    @Mock
+    private Outbox outbox;
+
+    @Spy
+    private OptimisticRetry optimisticRetry = new OptimisticRetry(Mockito.mock(PlatformTransactionManager.class),
+            new SimpleMeterRegistry(), 3, 0);
+
+    // a real one, so lookups still reach the mocked repositories
+    @Spy
+    private SingleFlight singleFlight = new SingleFlight(new SimpleMeterRegistry(), 1000);
+
     @InjectMocks
     private ReviewServiceImpl reviewService;
 
@@ -73,6 +107,29 @@ public class ReviewServiceTests {
 
     }
 
+    @Test
+    public void ReviewService_CreateReviews_UnknownPokemonRejectedOthersCreatedInOrder() {
+        // Arrange
+        List<ReviewBatchItemDto> items = Arrays.asList(
+                ReviewBatchItemDto.builder().pokemonId(1).title("First").content("Great").stars(5).build(),
+                ReviewBatchItemDto.builder().pokemonId(999).title("Orphan").content("Great").stars(5).build(),
+                ReviewBatchItemDto.builder().pokemonId(2).title("Last").content("Good").stars(4).build());
+        when(pokemonRepository.findExistingIds(Mockito.anyCollection())).thenReturn(Arrays.asList(1, 2));
+        when(reviewBatchInserter.insert(Mockito.anyList())).thenReturn(Arrays.asList(10, 11));
+
+        // Act
+        ReviewBatchResponse response = reviewService.createReviews(items);
+
+        // Assert
+        Assertions.assertThat(response.getCreated()).isEqualTo(2);
+        Assertions.assertThat(response.getRejected()).isEqualTo(1);
+        Assertions.assertThat(response.getResults().get(0).getReview().getId()).isEqualTo(10);
+        Assertions.assertThat(response.getResults().get(1).getStatus()).isEqualTo("REJECTED");
+        Assertions.assertThat(response.getResults().get(2).getReview().getTitle()).isEqualTo("Last");
+        Assertions.assertThat(response.getResults().get(2).getReview().getId()).isEqualTo(11);
+        verify(pokemonRepository, never()).findById(Mockito.anyInt());
+    }
+
     @Test
     public void createReview_ThrowsPokemonNotFoundException_IfPokemonNotFound() {
         // Arrange
@@ -177,7 +234,7 @@ public class ReviewServiceTests {
         this.review.setContent("so so not bad");
         this.review.setStars(2);
 
-        when(reviewRepository.save(this.review)).thenReturn(this.review);
+        when(reviewRepository.saveAndFlush(this.review)).thenReturn(this.review);
 
         ReviewDto passReviewDto = ReviewDto.builder().stars(2).title("Comment on Pikachu").content("so so not bad").build();
 
@@ -208,6 +265,8 @@ public class ReviewServiceTests {
         // Act & Assert
         assertAll(() -> reviewService.deleteReview(pokemonId, reviewId));
         verify(reviewRepository).delete(this.review);
+        verify(reviewFeed).publish("DELETED", pokemonId, reviewId, null);
+        verify(outbox).record(Outbox.REVIEW_DELETED, reviewId, new ReviewEventDto("DELETED", pokemonId, reviewId, null));
 
 
     }
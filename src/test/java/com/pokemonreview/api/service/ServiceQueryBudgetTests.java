@@ -0,0 +1,253 @@
+package com.pokemonreview.api.service;
+
+import com.pokemonreview.api.cache.ResponseCache;
+import com.pokemonreview.api.catalog.LocalCatalogInvalidationBus;
+import com.pokemonreview.api.catalog.PokemonCatalog;
+import com.pokemonreview.api.diagnostics.QueryBudget;
+import com.pokemonreview.api.diagnostics.QueryCounter;
+import com.pokemonreview.api.dto.BatchResponse;
+import com.pokemonreview.api.dto.PokemonDto;
+import com.pokemonreview.api.dto.PokemonResponse;
+import com.pokemonreview.api.dto.ReviewBatchItemDto;
+import com.pokemonreview.api.dto.ReviewBatchResponse;
+import com.pokemonreview.api.dto.ReviewBatchResultDto;
+import com.pokemonreview.api.dto.ReviewDto;
+import com.pokemonreview.api.feed.ReviewFeed;
+import com.pokemonreview.api.models.Pokemon;
+import com.pokemonreview.api.models.Review;
+import com.pokemonreview.api.outbox.Outbox;
+import com.pokemonreview.api.repository.PokemonRepository;
+import com.pokemonreview.api.repository.ReviewRepository;
+import com.pokemonreview.api.service.impl.PokemonBulkDeleter;
+import com.pokemonreview.api.service.impl.PokemonServiceImpl;
+import com.pokemonreview.api.service.impl.ReviewBatchInserter;
+import com.pokemonreview.api.service.impl.ReviewIngestor;
+import com.pokemonreview.api.service.impl.ReviewServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Runs the services against H2 and fails when a call needs more statements than its budget,
+// so an accidental N+1 or lazy load breaks the build instead of production.
+// The in-memory catalog is off here: these budgets are for the database path (see PokemonCatalogTests for the other).
+@DataJpaTest(properties = {"app.catalog.enabled=false", "app.catalog.invalidation=local"})
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@Import({PokemonServiceImpl.class, PokemonBulkDeleter.class, ReviewServiceImpl.class, ReviewIngestor.class, ReviewBatchInserter.class, ReviewFeed.class, Outbox.class,
+        SingleFlight.class, OptimisticRetry.class,
+        PokemonCatalog.class, LocalCatalogInvalidationBus.class, ResponseCache.class, SimpleMeterRegistry.class})
+public class ServiceQueryBudgetTests {
+
+    @Autowired
+    private PokemonService pokemonService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private PokemonRepository pokemonRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Pokemon pikachu;
+    private Review review;
+
+    @BeforeEach
+    public void init() {
+        for (int i = 0; i < 20; i++) {
+            Pokemon pokemon = entityManager.persist(Pokemon.builder().name("Pokemon " + i).type("electric").build());
+            for (int j = 0; j < 3; j++) {
+                Review saved = entityManager.persist(Review.builder().title("Review " + j).content("Great").stars(3).pokemon(pokemon).build());
+                if (i == 0 && j == 0) {
+                    this.pikachu = pokemon;
+                    this.review = saved;
+                }
+            }
+        }
+        // start every test with an empty persistence context, as a real request would
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    @QueryBudget(statements = 2)
+    public void PokemonService_GetAllPokemon_PageAndCountOnly() {
+        PokemonResponse response = pokemonService.getAllPokemon(0, 10);
+
+        Assertions.assertThat(response.getContent()).hasSize(10);
+    }
+
+    @Test
+    @QueryBudget(statements = 1)
+    public void PokemonService_GetPokemonById_SingleSelect() {
+        Assertions.assertThat(pokemonService.getPokemonById(pikachu.getId()).getName()).isEqualTo("Pokemon 0");
+    }
+
+    @Test
+    @QueryBudget(statements = 3)
+    public void PokemonService_GetAllPokemonWithReviews_ConstantStatementsPerPage() {
+        PokemonResponse response = pokemonService.getAllPokemonWithReviews(0, 10, 2);
+
+        Assertions.assertThat(response.getContent()).hasSize(10)
+                .allSatisfy(pokemon -> Assertions.assertThat(pokemon.getReviews()).hasSize(2));
+    }
+
+    @Test
+    @QueryBudget(statements = 3)
+    public void PokemonService_GetPokemonByTypeWithReviews_ConstantStatementsPerPage() {
+        PokemonResponse response = pokemonService.getPokemonByTypeWithReviews("electric", 0, 10, 2);
+
+        Assertions.assertThat(response.getContent()).hasSize(10)
+                .allSatisfy(pokemon -> Assertions.assertThat(pokemon.getReviews()).hasSize(2));
+    }
+
+    @Test
+    @QueryBudget(statements = 2)
+    public void PokemonService_GetPokemonWithReviews_PokemonAndReviewsOnly() {
+        PokemonDto pokemon = pokemonService.getPokemonWithReviews(pikachu.getId(), 10);
+
+        Assertions.assertThat(pokemon.getReviews()).extracting(ReviewDto::getTitle)
+                .containsExactly("Review 0", "Review 1", "Review 2");
+    }
+
+    @Test
+    @QueryBudget(statements = 1)
+    public void PokemonService_GetPokemonsByIds_RequestOrderAndMissingIds() {
+        List<Integer> ids = List.of(pikachu.getId() + 2, 99999, pikachu.getId(), pikachu.getId() + 2, pikachu.getId() + 1);
+
+        BatchResponse<PokemonDto> response = pokemonService.getPokemonsByIds(ids);
+
+        Assertions.assertThat(response.getContent()).extracting(PokemonDto::getName)
+                .containsExactly("Pokemon 2", "Pokemon 0", "Pokemon 1");
+        Assertions.assertThat(response.getMissingIds()).containsExactly(99999);
+        // four distinct ids, IN list padded to four parameters
+        Assertions.assertThat(QueryCounter.current().mostRepeatedStatement().getKey()).contains("in (? , ? , ? , ?)");
+    }
+
+    @Test
+    @QueryBudget(statements = 1)
+    public void PokemonService_GetPokemonsByIds_InListPaddedToPowerOfTwo() {
+        pokemonService.getPokemonsByIds(List.of(pikachu.getId(), pikachu.getId() + 1, pikachu.getId() + 2,
+                pikachu.getId() + 3, pikachu.getId() + 4));
+
+        String sql = QueryCounter.current().mostRepeatedStatement().getKey();
+        Assertions.assertThat(sql.chars().filter(c -> c == '?').count()).isEqualTo(8);
+    }
+
+    @Test
+    @QueryBudget(statements = 1)
+    public void ReviewService_GetReviewsByIds_SingleQueryWithoutLoadingPokemon() {
+        BatchResponse<ReviewDto> response = reviewService.getReviewsByIds(List.of(review.getId(), -1));
+
+        Assertions.assertThat(response.getContent()).extracting(ReviewDto::getTitle).containsExactly("Review 0");
+        Assertions.assertThat(response.getMissingIds()).containsExactly(-1);
+    }
+
+    // What clients did before expand=reviews (one page, then the reviews of each Pokemon on it)
+    // against one expanded page. Prints statements and time per page for both.
+    @Test
+    public void PokemonService_ExpandedPage_FewerStatementsThanPerPokemonCalls() {
+        int rounds = 200;
+        for (int i = 0; i < rounds; i++) {
+            perPokemonCalls();
+            expandedPage();
+        }
+
+        QueryCounter.start();
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            perPokemonCalls();
+        }
+        long perPokemonMicros = (System.nanoTime() - start) / rounds / 1000;
+        int perPokemonStatements = QueryCounter.stop().getStatements() / rounds;
+
+        QueryCounter.start();
+        start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            expandedPage();
+        }
+        long expandedMicros = (System.nanoTime() - start) / rounds / 1000;
+        int expandedStatements = QueryCounter.stop().getStatements() / rounds;
+
+        System.out.printf("Page of 10 with reviews: %d statements / %d us with per-Pokemon calls, %d statements / %d us expanded%n",
+                perPokemonStatements, perPokemonMicros, expandedStatements, expandedMicros);
+        Assertions.assertThat(perPokemonStatements).isEqualTo(12);
+        Assertions.assertThat(expandedStatements).isEqualTo(3);
+    }
+
+    private void perPokemonCalls() {
+        for (PokemonDto pokemon : pokemonService.getAllPokemon(0, 10).getContent()) {
+            reviewService.getReviewsByPokemonId(pokemon.getId());
+        }
+        entityManager.clear();
+    }
+
+    private void expandedPage() {
+        pokemonService.getAllPokemonWithReviews(0, 10, 10);
+        entityManager.clear();
+    }
+
+    // the inserts go through JdbcTemplate, which the counter does not see; what is budgeted is the single lookup
+    @Test
+    @QueryBudget(statements = 1)
+    public void ReviewService_CreateReviews_OneLookupForAllPokemon() {
+        List<ReviewBatchItemDto> items = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            items.add(ReviewBatchItemDto.builder().pokemonId(pikachu.getId() + i % 5).title("Batch " + i).content("Great").stars(4).build());
+        }
+        items.add(ReviewBatchItemDto.builder().pokemonId(99999).title("Orphan").content("Great").stars(4).build());
+
+        ReviewBatchResponse response = reviewService.createReviews(items);
+
+        Assertions.assertThat(response.getCreated()).isEqualTo(10);
+        Assertions.assertThat(response.getResults()).extracting(ReviewBatchResultDto::getStatus).last().isEqualTo("REJECTED");
+    }
+
+    @Test
+    @QueryBudget(statements = 1)
+    public void ReviewService_GetReviewsByPokemonId_DoesNotLoadPokemon() {
+        List<ReviewDto> reviews = reviewService.getReviewsByPokemonId(pikachu.getId());
+
+        Assertions.assertThat(reviews).hasSize(3);
+    }
+
+    @Test
+    @QueryBudget(statements = 2)
+    public void ReviewService_GetReviewById_OneSelectPerEntity() {
+        Assertions.assertThat(reviewService.getReviewById(review.getId(), pikachu.getId()).getTitle()).isEqualTo("Review 0");
+    }
+
+    @Test
+    @QueryBudget(statements = 1)
+    public void Review_ToString_DoesNotInitializeLazyPokemon() {
+        Review loaded = reviewRepository.findById(review.getId()).get();
+
+        Assertions.assertThat(loaded.toString()).contains("Review 0");
+        Assertions.assertThat(loaded.hashCode()).isEqualTo(loaded.hashCode());
+    }
+
+    @Test
+    public void QueryCounter_LazyCollectionPerRow_DetectsNPlusOne() {
+        QueryCounter.start();
+        List<Pokemon> pokemons = pokemonRepository.findAll();
+        pokemons.forEach(pokemon -> pokemon.getReviews().size());
+        QueryCounter.Counts counts = QueryCounter.stop();
+
+        Assertions.assertThat(counts.getStatements()).isEqualTo(1 + pokemons.size());
+        Assertions.assertThat(counts.getLazyLoads()).isEqualTo(pokemons.size());
+        Assertions.assertThat(counts.mostRepeatedStatement().getValue()).isEqualTo(pokemons.size());
+    }
+}
@@ -0,0 +1,211 @@
+package com.pokemonreview.api.service;
+
+import com.pokemonreview.api.catalog.PokemonCatalog;
+import com.pokemonreview.api.config.ReadYourWritesTracker;
+import com.pokemonreview.api.dto.PokemonDto;
+import com.pokemonreview.api.exceptions.PokemonNotFoundException;
+import com.pokemonreview.api.models.Pokemon;
+import com.pokemonreview.api.repository.PokemonRepository;
+import com.pokemonreview.api.service.impl.PokemonServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.mockito.Mockito.when;
+
+public class SingleFlightTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void SingleFlight_ConcurrentIdenticalReads_RunOneQuery() throws Exception {
+        int callers = 32;
+        CountDownLatch allWaiting = new CountDownLatch(callers);
+        AtomicInteger queries = new AtomicInteger();
+        PokemonRepository pokemonRepository = Mockito.mock(PokemonRepository.class);
+        when(pokemonRepository.findById(1)).thenAnswer(invocation -> {
+            queries.incrementAndGet();
+            // hold the query open until every caller has asked for the same Pokemon
+            allWaiting.await(5, TimeUnit.SECONDS);
+            Thread.sleep(50);
+            return Optional.of(Pokemon.builder().id(1).name("Pikachu").type("electric").build());
+        });
+        SingleFlight singleFlight = new SingleFlight(meterRegistry, 5000);
+        PokemonService pokemonService = new PokemonServiceImpl(pokemonRepository, null, null, singleFlight,
+                Mockito.mock(PokemonCatalog.class), null, null, null);
+
+        List<PokemonDto> results = runConcurrently(callers, allWaiting, () -> pokemonService.getPokemonById(1));
+
+        Assertions.assertThat(queries.get()).isEqualTo(1);
+        Assertions.assertThat(results).hasSize(callers).allMatch(dto -> "Pikachu".equals(dto.getName()));
+        // every caller got its own copy of the shared result
+        Assertions.assertThat(results.stream().distinct().count()).isEqualTo(1);
+        Assertions.assertThat(results.get(0)).isNotSameAs(results.get(1));
+        Assertions.assertThat(count("pokemon", "load")).isEqualTo(1);
+        Assertions.assertThat(count("pokemon", "collapsed")).isEqualTo(callers - 1);
+    }
+
+    @Test
+    public void SingleFlight_LoadFails_AllWaitersGetTheException() throws Exception {
+        int callers = 8;
+        CountDownLatch allWaiting = new CountDownLatch(callers);
+        AtomicInteger loads = new AtomicInteger();
+        SingleFlight singleFlight = new SingleFlight(meterRegistry, 5000);
+
+        List<Object> results = runConcurrently(callers, allWaiting, () -> {
+            try {
+                return singleFlight.execute("pokemon", 7, () -> {
+                    loads.incrementAndGet();
+                    await(allWaiting);
+                    throw new PokemonNotFoundException("Pokemon could not be found");
+                });
+            } catch (PokemonNotFoundException e) {
+                return e;
+            }
+        });
+
+        Assertions.assertThat(loads.get()).isEqualTo(1);
+        Assertions.assertThat(results).hasSize(callers).allMatch(result -> result instanceof PokemonNotFoundException);
+    }
+
+    @Test
+    public void SingleFlight_LoadSlowerThanMaxWait_WaiterLoadsItself() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(meterRegistry, 20);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<String> slow = executor.submit(() -> singleFlight.execute("pokemon", 3, () -> {
+            loads.incrementAndGet();
+            await(release);
+            return "slow";
+        }));
+        while (loads.get() == 0) {
+            Thread.yield();
+        }
+
+        String result = singleFlight.execute("pokemon", 3, () -> {
+            loads.incrementAndGet();
+            return "own";
+        });
+        release.countDown();
+
+        Assertions.assertThat(result).isEqualTo("own");
+        Assertions.assertThat(slow.get(5, TimeUnit.SECONDS)).isEqualTo("slow");
+        Assertions.assertThat(loads.get()).isEqualTo(2);
+        Assertions.assertThat(count("pokemon", "timeout")).isEqualTo(1);
+        executor.shutdown();
+    }
+
+    // Another user's load is in flight (possibly on a replica, possibly started before the write); the user who just
+    // wrote must not be handed its result, while a user outside the window still shares it.
+    @Test
+    public void SingleFlight_CallerWithinReadYourWritesWindow_LoadsItself() throws Exception {
+        ReadYourWritesTracker readYourWrites = new ReadYourWritesTracker(Duration.ofSeconds(30));
+        SingleFlight singleFlight = new SingleFlight(meterRegistry, readYourWrites, 5000);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<String> leader = executor.submit(() -> as("misty", () -> singleFlight.execute("pokemon", 4, () -> {
+            loads.incrementAndGet();
+            await(release);
+            return "before write";
+        })));
+        while (loads.get() == 0) {
+            Thread.yield();
+        }
+        AtomicReference<Thread> waiterThread = new AtomicReference<>();
+        Future<String> waiter = executor.submit(() -> {
+            waiterThread.set(Thread.currentThread());
+            return as("brock", () -> singleFlight.execute("pokemon", 4, () -> {
+                loads.incrementAndGet();
+                return "brock's own";
+            }));
+        });
+        // parked on the leader's load
+        while (waiterThread.get() == null || waiterThread.get().getState() != Thread.State.TIMED_WAITING) {
+            Thread.yield();
+        }
+
+        readYourWrites.recordWrite("ash");
+        String result = as("ash", () -> singleFlight.execute("pokemon", 4, () -> {
+            loads.incrementAndGet();
+            return "after write";
+        }));
+        release.countDown();
+
+        Assertions.assertThat(result).isEqualTo("after write");
+        Assertions.assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("before write");
+        Assertions.assertThat(waiter.get(5, TimeUnit.SECONDS)).isEqualTo("before write");
+        Assertions.assertThat(loads.get()).isEqualTo(2);
+        Assertions.assertThat(count("pokemon", "bypass")).isEqualTo(1);
+        executor.shutdown();
+    }
+
+    @Test
+    public void SingleFlight_SequentialReads_AreNotCached() {
+        SingleFlight singleFlight = new SingleFlight(meterRegistry, 1000);
+        AtomicInteger loads = new AtomicInteger();
+
+        singleFlight.execute("pokemon", 1, loads::incrementAndGet);
+        singleFlight.execute("pokemon", 1, loads::incrementAndGet);
+        singleFlight.execute("pokemon", 2, loads::incrementAndGet);
+
+        Assertions.assertThat(loads.get()).isEqualTo(3);
+        Assertions.assertThat(count("pokemon", "collapsed")).isZero();
+    }
+
+    private static <T> List<T> runConcurrently(int callers, CountDownLatch allWaiting, Supplier<T> call) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        List<Future<T>> futures = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            futures.add(executor.submit(() -> {
+                allWaiting.countDown();
+                return call.get();
+            }));
+        }
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : futures) {
+            results.add(future.get(10, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        return results;
+    }
+
+    private static <T> T as(String username, Supplier<T> call) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(username, null, List.of()));
+        try {
+            return call.get();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+            Thread.sleep(50);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private double count(String name, String result) {
+        return meterRegistry.get("single_flight.calls").tag("name", name).tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,182 @@
+package com.pokemonreview.api.tracing;
+
+import com.pokemonreview.api.catalog.PokemonCatalog;
+import com.pokemonreview.api.models.Pokemon;
+import com.pokemonreview.api.repository.PokemonRepository;
+import com.pokemonreview.api.service.PokemonService;
+import com.pokemonreview.api.service.SingleFlight;
+import com.pokemonreview.api.service.impl.PokemonServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.Mockito.when;
+
+public class TracingTests {
+
+    private static final ContextPropagators PROPAGATORS = ContextPropagators.create(W3CTraceContextPropagator.getInstance());
+
+    private InMemorySpanExporter exporter;
+    private Tracer tracer;
+
+    @BeforeEach
+    public void init() {
+        this.exporter = InMemorySpanExporter.create();
+        this.tracer = tracer(Sampler.alwaysOn(), exporter);
+    }
+
+    @Test
+    public void TracingFilter_IncomingTraceparent_ContinuesTraceAndReturnsTraceId() throws Exception {
+        String traceId = "4bf92f3577b34da6a3ce929d0e0e4736";
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/pokemons/1");
+        request.addHeader("traceparent", "00-" + traceId + "-00f067aa0ba902b7-01");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new TracingFilter(tracer, PROPAGATORS).doFilter(request, response, new MockFilterChain());
+
+        Assertions.assertThat(response.getHeader(TracingFilter.TRACE_ID_HEADER)).isEqualTo(traceId);
+        Assertions.assertThat(response.getHeader("traceparent")).startsWith("00-" + traceId + "-");
+        SpanData span = exporter.getFinishedSpanItems().get(0);
+        Assertions.assertThat(span.getTraceId()).isEqualTo(traceId);
+        Assertions.assertThat(span.getParentSpanId()).isEqualTo("00f067aa0ba902b7");
+    }
+
+    @Test
+    public void TracingAspect_ServiceAndJdbcCalls_AreNestedUnderRequestSpan() throws Exception {
+        DriverManagerDataSource h2 = new DriverManagerDataSource("jdbc:h2:mem:tracing;DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new TracingDataSource(h2, tracer));
+
+        PokemonRepository pokemonRepository = Mockito.mock(PokemonRepository.class);
+        when(pokemonRepository.findById(1)).thenAnswer(invocation -> {
+            jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+            return Optional.of(Pokemon.builder().id(1).name("Pikachu").type("electric").build());
+        });
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new PokemonServiceImpl(pokemonRepository, null, null, new SingleFlight(new SimpleMeterRegistry(), 1000),
+                Mockito.mock(PokemonCatalog.class), null, null, null));
+        proxyFactory.addAspect(new TracingAspect(tracer));
+        PokemonService pokemonService = proxyFactory.getProxy();
+
+        MockFilterChain chain = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                pokemonService.getPokemonById(1);
+            }
+        });
+        new TracingFilter(tracer, PROPAGATORS).doFilter(new MockHttpServletRequest("GET", "/api/pokemons/1"), new MockHttpServletResponse(), chain);
+
+        List<SpanData> spans = exporter.getFinishedSpanItems();
+        SpanData jdbc = find(spans, "jdbc.executeQuery");
+        SpanData service = find(spans, "PokemonServiceImpl.getPokemonById");
+        SpanData server = find(spans, "GET");
+        Assertions.assertThat(jdbc.getAttributes().asMap().values()).contains("SELECT 1");
+        Assertions.assertThat(jdbc.getParentSpanId()).isEqualTo(service.getSpanId());
+        Assertions.assertThat(service.getParentSpanId()).isEqualTo(server.getSpanId());
+    }
+
+    @Test
+    public void TracingAspect_NoRecordingParent_CreatesNoSpans() {
+        Tracer unsampled = tracer(Sampler.alwaysOff(), exporter);
+        PokemonRepository pokemonRepository = Mockito.mock(PokemonRepository.class);
+        when(pokemonRepository.findById(1)).thenReturn(Optional.of(Pokemon.builder().id(1).build()));
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new PokemonServiceImpl(pokemonRepository, null, null, new SingleFlight(new SimpleMeterRegistry(), 1000),
+                Mockito.mock(PokemonCatalog.class), null, null, null));
+        proxyFactory.addAspect(new TracingAspect(tracer));
+        PokemonService pokemonService = proxyFactory.getProxy();
+
+        Span root = unsampled.spanBuilder("GET").startSpan();
+        try (Scope ignored = root.makeCurrent()) {
+            pokemonService.getPokemonById(1);
+        } finally {
+            root.end();
+        }
+
+        Assertions.assertThat(exporter.getFinishedSpanItems()).isEmpty();
+    }
+
+    // an unsampled request gets the driver's own connection, with no proxy to go through on every call
+    @Test
+    public void TracingDataSource_NoRecordingSpan_ConnectionNotWrapped() throws Exception {
+        TracingDataSource dataSource = new TracingDataSource(new DriverManagerDataSource("jdbc:h2:mem:tracing;DB_CLOSE_DELAY=-1"), tracer);
+
+        Span unsampled = tracer(Sampler.alwaysOff(), exporter).spanBuilder("GET").startSpan();
+        try (Scope ignored = unsampled.makeCurrent(); Connection connection = dataSource.getConnection()) {
+            Assertions.assertThat(Proxy.isProxyClass(connection.getClass())).isFalse();
+        } finally {
+            unsampled.end();
+        }
+        Span sampled = tracer.spanBuilder("GET").startSpan();
+        try (Scope ignored = sampled.makeCurrent(); Connection connection = dataSource.getConnection()) {
+            Assertions.assertThat(Proxy.isProxyClass(connection.getClass())).isTrue();
+        } finally {
+            sampled.end();
+        }
+    }
+
+    // With sampling off every request still gets a trace id, but nothing is recorded or exported.
+    // The per-request cost of the filter should then be a few hundred nanoseconds; the bound below is loose
+    // enough for a busy CI machine while still catching accidental recording.
+    @Test
+    public void TracingFilter_SamplingOff_OverheadIsNegligible() throws Exception {
+        TracingFilter filter = new TracingFilter(tracer(Sampler.alwaysOff(), exporter), PROPAGATORS);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/pokemons/1");
+
+        int iterations = 50_000;
+        for (int i = 0; i < iterations; i++) {
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        }
+        long baselineStart = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            new MockFilterChain().doFilter(request, new MockHttpServletResponse());
+        }
+        long baseline = System.nanoTime() - baselineStart;
+        long tracedStart = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        }
+        long traced = System.nanoTime() - tracedStart;
+
+        long overheadPerRequestNanos = Math.max(0, traced - baseline) / iterations;
+        System.out.println("Tracing overhead with sampling off: " + overheadPerRequestNanos + " ns/request");
+        Assertions.assertThat(exporter.getFinishedSpanItems()).isEmpty();
+        Assertions.assertThat(overheadPerRequestNanos).isLessThan(20_000);
+    }
+
+    private static Tracer tracer(Sampler sampler, InMemorySpanExporter exporter) {
+        return SdkTracerProvider.builder()
+                .setSampler(Sampler.parentBased(sampler))
+                .addSpanProcessor(SimpleSpanProcessor.create(exporter))
+                .build()
+                .get("test");
+    }
+
+    private static SpanData find(List<SpanData> spans, String name) {
+        return spans.stream().filter(span -> span.getName().equals(name)).findFirst()
+                .orElseThrow(() -> new AssertionError("No span named " + name + " in " + spans));
+    }
+}